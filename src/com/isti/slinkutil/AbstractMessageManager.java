@@ -1,11 +1,15 @@
 package com.isti.slinkutil;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.isti.slinkutil.mseed.MiniSeedGenerator;
 
@@ -16,15 +20,190 @@ import com.isti.slinkutil.mseed.MiniSeedGenerator;
  * 
  * Prior to processing messages the 'setModConfigParams' method must be called.
  * 
+ * By default messages are processed on the calling thread. If ingestion lanes
+ * are set up (see 'setNumIngestionLanes') then each channel is assigned to one
+ * of a fixed number of lanes, each with its own thread, so that channels are
+ * encoded concurrently while the data for each channel is processed in order.
+ * Messages are delivered in the order of their message sequence numbers (see
+ * 'allocateMessageSequenceNum').
+ * 
  * @see #setModConfigParams(IConfigParams)
  */
 public abstract class AbstractMessageManager implements IMessageManager {
+	/** The maximum time to wait for an ingestion lane to stop. */
+	private static final long LANE_STOP_WAIT_MS = 10000;
+
+	/** The marker for a sequence number without a message to deliver. */
+	private static final Object RELEASED_SEQUENCE_NUM = new Object();
+
 	/** The map of 'MiniSeedGenerator' objects with 'IStaChaNetLoc' key. */
-	private final Map miniSeedGeneratorMap = new HashMap();
+	private final Map miniSeedGeneratorMap = new ConcurrentHashMap();
+
+	/**
+	 * The 'MiniSeedGenerator' objects indexed by channel ID (modified while
+	 * synchronized on the map.)
+	 */
+	private volatile AtomicReferenceArray miniSeedGenerators = new AtomicReferenceArray(
+			0);
+
+	/** The next message sequence number. */
+	private final AtomicLong messageSequenceNum = new AtomicLong();
+
+	/** The ingestion lanes or null if messages are processed by the caller. */
+	private volatile IngestionLane[] ingestionLanes = null;
+
+	/** The ingestion lane for the current thread. */
+	private final ThreadLocal currentIngestionLane = new ThreadLocal();
+
+	/**
+	 * The messages (or 'RELEASED_SEQUENCE_NUM') waiting to be delivered with
+	 * 'Long' sequence number key (access synchronized on the map.)
+	 */
+	private final Map pendingDeliveryMap = new HashMap();
+
+	/** The sequence number of the next message to deliver. */
+	private long nextDeliverySequenceNum = 0;
+
+	/**
+	 * The 'MiniSeedMsgHldr' objects ready to be delivered, in order (access
+	 * synchronized on 'pendingDeliveryMap'.)
+	 */
+	private final List readyDeliveryList = new ArrayList();
+
+	/**
+	 * True while a thread is delivering the ready messages (access
+	 * synchronized on 'pendingDeliveryMap'.)
+	 */
+	private boolean deliveringFlag = false;
 
 	/** The configuration parameters. */
 	private IConfigParams modConfigParamsObj = null;
 
+	/** The compiled selected channel names or null if not yet compiled. */
+	private volatile ChannelMatcherSet selectedChannelMatcherSet = null;
+
+	/**
+	 * Allocates the next message sequence number. Messages processed by the
+	 * ingestion lanes are delivered in the order of the sequence numbers
+	 * allocated for them, so classes that extend this class should base the
+	 * message numbers returned by 'getMessageNumber()' on this value.
+	 * 
+	 * @return the message sequence number.
+	 */
+	protected long allocateMessageSequenceNum() {
+		final long sequenceNum = messageSequenceNum.getAndIncrement();
+		final IngestionLane lane = (IngestionLane) currentIngestionLane.get();
+		if (lane != null) {
+			// delivered or released after the lane processes the data
+			lane.sequenceNumList.add(Long.valueOf(sequenceNum));
+		} else if (ingestionLanes != null) {
+			// the message is delivered by the caller, not in sequence, so
+			// release the sequence number
+			deliverSequencedMessages(new long[] { sequenceNum }, null, 1);
+		}
+		return sequenceNum;
+	}
+
+	/**
+	 * Sets the next message sequence number, such as to continue the message
+	 * numbers of the messages restored from a file cache. This method should
+	 * be called before any messages are processed.
+	 * 
+	 * @param sequenceNum
+	 *            the next message sequence number.
+	 */
+	protected void setNextMessageSequenceNum(long sequenceNum) {
+		synchronized (pendingDeliveryMap) {
+			messageSequenceNum.set(sequenceNum);
+			nextDeliverySequenceNum = sequenceNum;
+			pendingDeliveryMap.clear();
+		}
+	}
+
+	/**
+	 * Delivers messages in the order of their sequence numbers. The messages
+	 * that are ready are collected while synchronized and delivered after, by
+	 * one thread at a time so that the order is kept; if another thread is
+	 * delivering then it delivers these messages as well.
+	 * 
+	 * @param sequenceNums
+	 *            the sequence numbers allocated for the messages.
+	 * @param miniSeedMsgList
+	 *            the list of 'MiniSeedMsgHldr' objects (in the same order as
+	 *            the sequence numbers) or null if none.
+	 * @param numSequenceNums
+	 *            the number of sequence numbers.
+	 */
+	private void deliverSequencedMessages(long[] sequenceNums,
+			List miniSeedMsgList, int numSequenceNums) {
+		final int numMsgs = miniSeedMsgList != null ? miniSeedMsgList.size()
+				: 0;
+		synchronized (pendingDeliveryMap) {
+			for (int i = 0; i < numSequenceNums; i++) {
+				pendingDeliveryMap.put(Long.valueOf(sequenceNums[i]),
+						i < numMsgs ? miniSeedMsgList.get(i)
+								: RELEASED_SEQUENCE_NUM);
+			}
+			Object obj;
+			while ((obj = pendingDeliveryMap.remove(Long
+					.valueOf(nextDeliverySequenceNum))) != null) {
+				nextDeliverySequenceNum++;
+				if (obj instanceof MiniSeedMsgHldr) {
+					readyDeliveryList.add(obj);
+				}
+			}
+			// deliver any messages without sequence numbers
+			for (int i = numSequenceNums; i < numMsgs; i++) {
+				if (miniSeedMsgList.get(i) instanceof MiniSeedMsgHldr) {
+					readyDeliveryList.add(miniSeedMsgList.get(i));
+				}
+			}
+			if (deliveringFlag || readyDeliveryList.size() == 0) {
+				return; // delivered by the other thread or nothing to deliver
+			}
+			deliveringFlag = true;
+		}
+		Object[] readyMsgs = null;
+		try {
+			while (true) {
+				synchronized (pendingDeliveryMap) {
+					if (readyDeliveryList.size() == 0) {
+						deliveringFlag = false;
+						readyMsgs = null;
+						return;
+					}
+					readyMsgs = readyDeliveryList.toArray();
+					readyDeliveryList.clear();
+				}
+				for (int i = 0; i < readyMsgs.length; i++) {
+					deliverMiniSeedMessage((MiniSeedMsgHldr) readyMsgs[i]);
+				}
+			}
+		} finally {
+			if (readyMsgs != null) { // not finished; let another thread deliver
+				synchronized (pendingDeliveryMap) {
+					deliveringFlag = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Delivers the miniSEED message from an ingestion lane.
+	 * 
+	 * @param miniSeedMsg
+	 *            the miniSEED message.
+	 */
+	private void deliverMiniSeedMessage(MiniSeedMsgHldr miniSeedMsg) {
+		try {
+			processMiniSeedMessage(miniSeedMsg);
+		} catch (Exception ex) {
+			LogMgr.usrMsgWarning("AbstractMessageManager error delivering message:  "
+					+ ex);
+			LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+		}
+	}
+
 	/**
 	 * Gets a set of SCNL objects for all digitizer channels.
 	 * 
@@ -48,16 +227,57 @@ public abstract class AbstractMessageManager implements IMessageManager {
 	 * @return the miniSEED generator.
 	 */
 	protected MiniSeedGenerator getMiniSeedGenerator(IStaChaNetLoc scnlObj) {
-		MiniSeedGenerator miniSeedGenerator = (MiniSeedGenerator) (miniSeedGeneratorMap
-				.get(scnlObj));
+		final int channelId = SLinkChannelRegistry.getChannelId(scnlObj);
+		AtomicReferenceArray generators = miniSeedGenerators;
+		MiniSeedGenerator miniSeedGenerator = channelId < generators.length() ? (MiniSeedGenerator) generators
+				.get(channelId)
+				: null;
 		if (miniSeedGenerator == null) {
-			miniSeedGenerator = new MiniSeedGenerator(scnlObj,
-					getModConfigParams().getCodec(), this);
-			miniSeedGeneratorMap.put(scnlObj, miniSeedGenerator);
+			synchronized (miniSeedGeneratorMap) {
+				generators = miniSeedGenerators;
+				if (channelId >= generators.length()) {
+					// grow the array to hold the channel
+					final AtomicReferenceArray newGenerators = new AtomicReferenceArray(
+							Math.max(channelId + 1, generators.length() * 2));
+					for (int i = 0; i < generators.length(); i++) {
+						newGenerators.set(i, generators.get(i));
+					}
+					miniSeedGenerators = generators = newGenerators;
+				}
+				// check again in case the generator was added by another thread
+				miniSeedGenerator = (MiniSeedGenerator) generators
+						.get(channelId);
+				if (miniSeedGenerator == null) {
+					miniSeedGenerator = new MiniSeedGenerator(scnlObj,
+							getModConfigParams().getCodec(), this);
+					generators.set(channelId, miniSeedGenerator);
+					miniSeedGeneratorMap.put(scnlObj, miniSeedGenerator);
+				}
+			}
 		}
 		return miniSeedGenerator;
 	}
 
+	/**
+	 * Returns the list of 'MiniSeedMsgHldr' objects for the data message.
+	 * 
+	 * @param scnlObj
+	 *            the SCNL object.
+	 * @param dataInfo
+	 *            the data information.
+	 * @return the list of 'MiniSeedMsgHldr' objects or null if error.
+	 */
+	protected List getMiniSeedMessages(IStaChaNetLoc scnlObj,
+			IDataInfo dataInfo) {
+		try {
+			return getMiniSeedGenerator(scnlObj).getMiniSeedMessages(dataInfo);
+		} catch (Exception ex) {
+			removeMiniSeedGenerator(scnlObj);
+			logProcessMessageError(ex, scnlObj, dataInfo);
+		}
+		return null;
+	}
+
 	/**
 	 * Get the configuration parameters.
 	 * 
@@ -68,7 +288,9 @@ public abstract class AbstractMessageManager implements IMessageManager {
 	}
 
 	/**
-	 * Determines if the given channel is selected.
+	 * Determines if the given channel is selected. The selected channel names
+	 * are compiled the first time and again only if the configuration
+	 * parameters or selected channel names change.
 	 * 
 	 * @param channelNumber
 	 *            index number for channel (1-based).
@@ -90,18 +312,17 @@ public abstract class AbstractMessageManager implements IMessageManager {
 					+ "parameters not setup; cannot determine if channel is selected");
 			return false;
 		}
-		if (getModConfigParams().getSelectedChannelNames() == null)
+		final Set selectedChannelNames = getModConfigParams()
+				.getSelectedChannelNames();
+		if (selectedChannelNames == null)
 			return true;
-		boolean selectFlag = false;
-		Iterator it = getModConfigParams().getSelectedChannelNames().iterator();
-		while (it.hasNext()) {
-			selectFlag = new ChannelMatcher(it.next().toString()).isMatch(
-					channelNumber, channelIdStr, stationNameStr,
-					networkNameStr, locationCodeStr);
-			if (selectFlag)
-				break;
+		ChannelMatcherSet matcherSet = selectedChannelMatcherSet;
+		if (matcherSet == null || !matcherSet.isFor(selectedChannelNames)) {
+			matcherSet = new ChannelMatcherSet(selectedChannelNames);
+			selectedChannelMatcherSet = matcherSet;
 		}
-		return selectFlag;
+		return matcherSet.isMatch(channelNumber, channelIdStr, stationNameStr,
+				networkNameStr, locationCodeStr);
 	}
 
 	/**
@@ -148,6 +369,14 @@ public abstract class AbstractMessageManager implements IMessageManager {
 			return;
 		}
 
+		// if ingestion lanes are set up then process on the channel's lane
+		final IngestionLane[] lanes = ingestionLanes;
+		if (lanes != null) {
+			lanes[SLinkChannelRegistry.getChannelId(scnlObj) % lanes.length]
+					.pushEvent(new Object[] { scnlObj, dataInfo });
+			return;
+		}
+
 		// get the list of of 'MiniSeedMsgHldr' objects
 		try {
 			final MiniSeedGenerator miniSeedGenerator = getMiniSeedGenerator(scnlObj);
@@ -157,16 +386,31 @@ public abstract class AbstractMessageManager implements IMessageManager {
 				processMiniSeedMessages(miniSeedMsgList);
 		} catch (Exception ex) {
 			removeMiniSeedGenerator(scnlObj);
-			LogMgr.usrMsgWarning("AbstractMessageManager error processing message:  "
-					+ ex);
-			LogMgr.usrMsgWarning("AbstractMessageManager:  SCNL=\"" + scnlObj
-					+ "\", startTime=" + dataInfo.getFirstTimeStamp()
-					+ ", endTime=" + dataInfo.getLastTimeStamp()
-					+ ", numSamples=" + dataInfo.getNumSamples());
-			LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+			logProcessMessageError(ex, scnlObj, dataInfo);
 		}
 	}
 
+	/**
+	 * Logs an error processing a data message.
+	 * 
+	 * @param ex
+	 *            the exception.
+	 * @param scnlObj
+	 *            the SCNL object.
+	 * @param dataInfo
+	 *            the data information.
+	 */
+	private void logProcessMessageError(Exception ex, IStaChaNetLoc scnlObj,
+			IDataInfo dataInfo) {
+		LogMgr.usrMsgWarning("AbstractMessageManager error processing message:  "
+				+ ex);
+		LogMgr.usrMsgWarning("AbstractMessageManager:  SCNL=\"" + scnlObj
+				+ "\", startTime=" + dataInfo.getFirstTimeStamp()
+				+ ", endTime=" + dataInfo.getLastTimeStamp() + ", numSamples="
+				+ dataInfo.getNumSamples());
+		LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+	}
+
 	/**
 	 * Processes the miniSEED message.
 	 * 
@@ -198,7 +442,72 @@ public abstract class AbstractMessageManager implements IMessageManager {
 	 *            the SCNL object.
 	 */
 	protected void removeMiniSeedGenerator(IStaChaNetLoc scnlObj) {
-		miniSeedGeneratorMap.remove(scnlObj);
+		final int channelId = SLinkChannelRegistry.getChannelId(scnlObj);
+		synchronized (miniSeedGeneratorMap) {
+			miniSeedGeneratorMap.remove(scnlObj);
+			final AtomicReferenceArray generators = miniSeedGenerators;
+			if (channelId < generators.length()) {
+				generators.set(channelId, null);
+			}
+		}
+	}
+
+	/**
+	 * Sets the number of ingestion lanes. With 0 lanes (the default) data
+	 * messages are processed on the thread that calls 'processMessage'.
+	 * Otherwise each channel is assigned to one of the lanes and its data
+	 * messages are processed on the lane thread, so the data information (and
+	 * its samples) must not be modified after it is passed to
+	 * 'processMessage'. This method should be called before any messages are
+	 * processed.
+	 * 
+	 * @param numLanes
+	 *            the number of ingestion lanes or 0 for none.
+	 */
+	public synchronized void setNumIngestionLanes(int numLanes) {
+		stopIngestionLanes();
+		if (numLanes <= 0) {
+			return;
+		}
+		synchronized (pendingDeliveryMap) {
+			nextDeliverySequenceNum = messageSequenceNum.get();
+			pendingDeliveryMap.clear();
+		}
+		final IngestionLane[] lanes = new IngestionLane[numLanes];
+		for (int i = 0; i < numLanes; i++) {
+			lanes[i] = new IngestionLane("IngestionLane" + (i + 1));
+			lanes[i].startThread();
+		}
+		ingestionLanes = lanes;
+	}
+
+	/**
+	 * Returns the number of ingestion lanes.
+	 * 
+	 * @return the number of ingestion lanes or 0 if none.
+	 */
+	public int getNumIngestionLanes() {
+		final IngestionLane[] lanes = ingestionLanes;
+		return lanes != null ? lanes.length : 0;
+	}
+
+	/**
+	 * Stops the ingestion lanes (if any) after the queued data messages are
+	 * processed and waits for them to finish. Data messages are then processed
+	 * by the caller.
+	 */
+	public synchronized void stopIngestionLanes() {
+		final IngestionLane[] lanes = ingestionLanes;
+		if (lanes == null) {
+			return;
+		}
+		ingestionLanes = null;
+		for (int i = 0; i < lanes.length; i++) {
+			lanes[i].finishWorkAndStopThread();
+		}
+		for (int i = 0; i < lanes.length; i++) {
+			lanes[i].waitForStop(LANE_STOP_WAIT_MS);
+		}
 	}
 
 	/**
@@ -209,5 +518,110 @@ public abstract class AbstractMessageManager implements IMessageManager {
 	 */
 	public void setModConfigParams(IConfigParams modConfigParamsObj) {
 		this.modConfigParamsObj = modConfigParamsObj;
+		selectedChannelMatcherSet = null; // compile the new names when needed
+	}
+
+	/**
+	 * Class IngestionLane processes the data messages for the channels
+	 * assigned to it, in order, on its own thread.
+	 */
+	private class IngestionLane extends NotifyEventQueue {
+		/** The local prompt for user messages. */
+		private final String laneMsgPromptStr;
+
+		/** The 'Long' sequence numbers allocated for the current data. */
+		private final List sequenceNumList = new ArrayList();
+
+		/** True if the lane thread has stopped. */
+		private boolean stoppedFlag = false;
+
+		/**
+		 * Creates the lane.
+		 * 
+		 * @param nameStr
+		 *            the name for the lane and its thread.
+		 */
+		public IngestionLane(String nameStr) {
+			super(nameStr);
+			laneMsgPromptStr = nameStr + ":  ";
+			setDaemonThread(true);
+		}
+
+		/**
+		 * Executing method for the lane.
+		 */
+		public void run() {
+			if (LogMgr.isDebugLevel2()) { // debug-mask bit set; output debug
+											// message
+				LogMgr.usrMsgDebug(laneMsgPromptStr + "Lane thread started");
+			}
+			currentIngestionLane.set(this);
+			try {
+				Object obj;
+				while (!finishRunning()) { // loop until thread is terminated
+					if ((obj = waitForEvent()) instanceof Object[]) {
+						final Object[] eventArr = (Object[]) obj;
+						processData((IStaChaNetLoc) eventArr[0],
+								(IDataInfo) eventArr[1]);
+					}
+				}
+			} catch (Exception ex) { // some kind of exception error; log it
+				LogMgr.usrMsgWarning(laneMsgPromptStr
+						+ "Exception error in thread:  " + ex);
+				LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+			}
+			currentIngestionLane.set(null);
+			synchronized (this) {
+				stoppedFlag = true;
+				notifyAll();
+			}
+			if (LogMgr.isDebugLevel2()) { // debug-mask bit set; output debug
+											// message
+				LogMgr.usrMsgDebug(laneMsgPromptStr + "Lane thread stopped");
+			}
+		}
+
+		/**
+		 * Waits for the lane thread to stop.
+		 * 
+		 * @param waitTimeMs
+		 *            the maximum time to wait in milliseconds.
+		 */
+		public synchronized void waitForStop(long waitTimeMs) {
+			final long endTime = System.currentTimeMillis() + waitTimeMs;
+			long timeMs = waitTimeMs;
+			try {
+				while (!stoppedFlag && timeMs > 0) {
+					wait(timeMs);
+					timeMs = endTime - System.currentTimeMillis();
+				}
+			} catch (InterruptedException ex) {
+			}
+		}
+
+		/**
+		 * Processes the data message and delivers the 'miniSEED' messages in
+		 * sequence. Sequence numbers allocated for messages that were not
+		 * created (because of an error) are released.
+		 * 
+		 * @param scnlObj
+		 *            the SCNL object.
+		 * @param dataInfo
+		 *            the data information.
+		 */
+		private void processData(IStaChaNetLoc scnlObj, IDataInfo dataInfo) {
+			sequenceNumList.clear();
+			final List miniSeedMsgList = getMiniSeedMessages(scnlObj, dataInfo);
+			final int numSequenceNums = sequenceNumList.size();
+			if (numSequenceNums == 0 && miniSeedMsgList == null) {
+				return;
+			}
+			final long[] sequenceNums = new long[numSequenceNums];
+			for (int i = 0; i < numSequenceNums; i++) {
+				sequenceNums[i] = ((Long) sequenceNumList.get(i)).longValue();
+			}
+			deliverSequencedMessages(sequenceNums, miniSeedMsgList,
+					numSequenceNums);
+		}
 	}
 }
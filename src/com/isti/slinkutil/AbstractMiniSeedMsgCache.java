@@ -5,6 +5,12 @@
 //                   'requestMessages()' method; added queuing via
 //                   'AddMsgToCacheQueue' implementation; modified
 //                   'requestMessages()' method to use binary searches.
+// 10/17/2026 -- [KF]  Added 'openCursor()' method.
+// 10/17/2026 -- [KF]  Fixed 'MsgHldrListComparator' for time values that
+//                     differ by more than the integer range; added
+//                     filtering of out-of-order messages by time.
+// 10/17/2026 -- [KF]  Implemented 'getIndex()' with one rule for all of
+//                     the caches.
 //
 
 package com.isti.slinkutil;
@@ -111,7 +117,109 @@ public abstract class AbstractMiniSeedMsgCache implements IMiniSeedMsgCache {
      *           being compared by this Comparator.
      */
     public int compare(Object obj1, Object obj2) {
-      return (int) (((Number) obj1).longValue() - ((Number) obj2).longValue());
+      final long long1 = ((Number) obj1).longValue();
+      final long long2 = ((Number) obj2).longValue();
+      return (long1 < long2) ? -1 : ((long1 == long2) ? 0 : 1);
+    }
+  }
+
+  /**
+   * Class CacheCursor implements a cursor over the messages in the cache.
+   * The position of the cursor is kept as a message number so it remains
+   * valid as messages are added to and removed from the cache. Access to
+   * the cursor is synchronized on the cache.
+   */
+  private class CacheCursor implements IMiniSeedMsgCursor {
+    /** The number of the last message read or -1 to start at the oldest. */
+    private int lastMsgNumVal;
+
+    /** The number of the last requested message or -1 if none. */
+    private final int endMsgNumVal;
+
+    /** True to continue with newer messages after the requested messages. */
+    private final boolean followFlag;
+
+    /** True if the requested messages have been read. */
+    private boolean requestDoneFlag;
+
+    /** The begin time value or 'Long.MIN_VALUE' if none. */
+    private final long beginTimeVal;
+
+    /** The end time value or 'Long.MAX_VALUE' if none. */
+    private final long endTimeVal;
+
+    /**
+     * Creates the cursor.
+     * @param fromIndex the index of the first requested message.
+     * @param toIndex the index after the last requested message.
+     * @param beginTimeVal the begin time value or 'Long.MIN_VALUE' if none.
+     * @param endTimeVal the end time value or 'Long.MAX_VALUE' if none.
+     * @param followFlag true to continue with newer messages after the
+     * requested messages, false to stop after the requested messages.
+     */
+    public CacheCursor(int fromIndex, int toIndex, long beginTimeVal,
+        long endTimeVal, boolean followFlag) {
+      this.beginTimeVal = beginTimeVal;
+      this.endTimeVal = endTimeVal;
+      this.followFlag = followFlag;
+      if (fromIndex < toIndex) { // start before the first requested message
+        lastMsgNumVal = (fromIndex > 0) ? getMessageNumber(fromIndex - 1)
+            : -1;
+        endMsgNumVal = getMessageNumber(toIndex - 1);
+        requestDoneFlag = false;
+      } else { // no requested messages; start after the newest message
+        final int numMessages = getNumMessages();
+        lastMsgNumVal = (numMessages > 0) ? getMessageNumber(numMessages - 1)
+            : -1;
+        endMsgNumVal = -1;
+        requestDoneFlag = true;
+      }
+    }
+
+    /**
+     * Returns the index of the next message to read.
+     * @return the index of the next message to read.
+     */
+    private int getNextIndex() {
+      if (lastMsgNumVal < 0)
+        return 0;
+      final int index = getIndex(lastMsgNumVal);
+      if (index < getNumMessages()
+          && getMessageNumber(index) == lastMsgNumVal)
+        return index + 1;
+      // the last message read was removed; 'getIndex()' returned the index
+      // of the first message after it or of the oldest message
+      return index;
+    }
+
+    /**
+     * Reads messages from the cache and advances the cursor.
+     * @param msgsArr array to receive the messages.
+     * @return The number of messages read or 0 if there are no more
+     * messages.
+     */
+    public int read(MiniSeedMsgHldr[] msgsArr) {
+      synchronized (AbstractMiniSeedMsgCache.this) {
+        final int numMessages = getNumMessages();
+        int index = getNextIndex();
+        int count = 0;
+        int msgNumVal;
+        while (count < msgsArr.length && index < numMessages) {
+          msgNumVal = getMessageNumber(index);
+          if (!requestDoneFlag && isAfter(msgNumVal, endMsgNumVal))
+            requestDoneFlag = true; // last requested message was removed
+          if (requestDoneFlag && !followFlag)
+            break;
+          if (requestDoneFlag || isInTimeRange(getStartTimeMsVal(index),
+              beginTimeVal, endTimeVal)) // skip out-of-order messages
+            msgsArr[count++] = getMessage(index);
+          lastMsgNumVal = msgNumVal;
+          ++index;
+          if (msgNumVal == endMsgNumVal)
+            requestDoneFlag = true;
+        }
+        return count;
+      }
     }
   }
 
@@ -129,6 +237,80 @@ public abstract class AbstractMiniSeedMsgCache implements IMiniSeedMsgCache {
     return emptyMsgArray;
   }
 
+  /**
+   * Returns the messages with a start time within the begin and end time.
+   * Messages from late-arriving channels may have start times out of order
+   * within the range of messages that is requested.
+   * @param msgArr the messages.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @return the messages array if all of the messages are within the
+   * begin and end time, otherwise a new array of the messages within
+   * the begin and end time.
+   */
+  public static MiniSeedMsgHldr[] filterMessages(MiniSeedMsgHldr[] msgArr,
+      SLinkTime beginTime, SLinkTime endTime) {
+    if (beginTime == null && endTime == null)
+      return msgArr;
+    final long beginTimeVal = getTimeVal(beginTime, Long.MIN_VALUE);
+    final long endTimeVal = getTimeVal(endTime, Long.MAX_VALUE);
+    int count = 0;
+    for (int i = 0; i < msgArr.length; i++) {
+      if (isInTimeRange(msgArr[i].getStartTimeMsVal(), beginTimeVal,
+          endTimeVal))
+        count++;
+    }
+    if (count == msgArr.length)
+      return msgArr;
+    final MiniSeedMsgHldr[] filteredMsgArr = new MiniSeedMsgHldr[count];
+    count = 0;
+    for (int i = 0; i < msgArr.length; i++) {
+      if (isInTimeRange(msgArr[i].getStartTimeMsVal(), beginTimeVal,
+          endTimeVal))
+        filteredMsgArr[count++] = msgArr[i];
+    }
+    return filteredMsgArr;
+  }
+
+  /**
+   * Returns the time value.
+   * @param time the time or null if none.
+   * @param defaultTimeVal the default time value.
+   * @return the time value or the default time value if none.
+   */
+  protected static long getTimeVal(SLinkTime time, long defaultTimeVal) {
+    return (time != null) ? time.getTime() : defaultTimeVal;
+  }
+
+  /**
+   * Determines if a time value is within the begin and end time values.
+   * @param timeVal the time value.
+   * @param beginTimeVal the begin time value.
+   * @param endTimeVal the end time value.
+   * @return true if the time value is within the begin and end time values,
+   * false otherwise.
+   */
+  protected static boolean isInTimeRange(long timeVal, long beginTimeVal,
+      long endTimeVal) {
+    return timeVal >= beginTimeVal && timeVal <= endTimeVal;
+  }
+
+  /**
+   * Determines if a message number is after another, taking the
+   * message-number rollover into account.
+   * @param msgNumVal the message number.
+   * @param otherMsgNumVal the other message number or -1 if none.
+   * @return true if the message number is after the other message number,
+   * false otherwise.
+   */
+  public static boolean isAfter(int msgNumVal, int otherMsgNumVal) {
+    if (otherMsgNumVal < 0)
+      return false;
+    final int distance = SLinkMessageNumber.getMsgNumDistance(otherMsgNumVal,
+        msgNumVal);
+    return distance > 0 && distance <= SLinkMessageNumber.maxMsgNumVal / 2;
+  }
+
   /**
    * Returns the index of the message in the list for the given time value.
    * @param listObj list of 'MiniSeedMsgHldr' objects to search.
@@ -182,6 +364,99 @@ public abstract class AbstractMiniSeedMsgCache implements IMiniSeedMsgCache {
       LogMgr.usrMsgWarning("AbstractMiniSeedMsgCache:  Add-message queue full");
   }
 
+  /**
+   * Return the list index for the specified message number value. The
+   * messages in the cache are in message-number order, so the index is that
+   * of the first message at or after the message number:
+   * <ul>
+   * <li>the index of the message if it is in the cache,</li>
+   * <li>the index of the first message after it if the number falls in a
+   * gap between the oldest and newest message numbers,</li>
+   * <li>0 (the oldest message) if the number is before the oldest message
+   * (it was removed) or is -1,</li>
+   * <li>the number of messages (no messages) if the number is after the
+   * newest message.</li>
+   * </ul>
+   * A number is taken to be after the newest message if it is less than
+   * half of the message-number range after it (see 'isAfter()'). The caller
+   * should be synchronized on the cache.
+   * @param msgNumVal the message number or -1 if any.
+   * @return the list index.
+   */
+  protected int getIndex(int msgNumVal) {
+    final int numMessages = getNumMessages();
+    if (msgNumVal < 0 || numMessages <= 0)
+      return 0;
+    final int firstMsgNum = getMessageNumber(0);
+    final int distance = SLinkMessageNumber.getMsgNumDistance(firstMsgNum,
+        msgNumVal);
+    if (distance < numMessages && getMessageNumber(distance) == msgNumVal)
+      return distance; // message numbers are contiguous; direct hit
+    final int lastMsgNum = getMessageNumber(numMessages - 1);
+    if (distance > SLinkMessageNumber.getMsgNumDistance(firstMsgNum,
+        lastMsgNum)) { // message number not in range of cache
+      return isAfter(msgNumVal, lastMsgNum) ? numMessages : 0;
+    }
+    // message numbers have gaps; find first message at or after number
+    int low = 0;
+    int high = numMessages - 1;
+    int mid;
+    while (low < high) {
+      mid = (low + high) >>> 1;
+      if (SLinkMessageNumber.getMsgNumDistance(firstMsgNum,
+          getMessageNumber(mid)) < distance)
+        low = mid + 1;
+      else
+        high = mid;
+    }
+    return low;
+  }
+
+  /**
+   * Return the message at the specified index.
+   * @param index the index of the message to return (0 is the oldest).
+   * @return the message.
+   * @throws IndexOutOfBoundsException if the specified index is out of range.
+   */
+  public abstract MiniSeedMsgHldr getMessage(int index);
+
+  /**
+   * Return the message number of the message at the specified index.
+   * @param index the index of the message (0 is the oldest).
+   * @return the message number.
+   */
+  protected int getMessageNumber(int index) {
+    return getMessage(index).getMessageNumber();
+  }
+
+  /**
+   * Returns the number of messages in the cache.
+   * @return the number of messages in the cache.
+   */
+  public abstract int getNumMessages();
+
+  /**
+   * Return the start time of the message at the specified index.
+   * @param index the index of the message (0 is the oldest).
+   * @return the start time, in milliseconds since 1/1/1970.
+   */
+  protected long getStartTimeMsVal(int index) {
+    return getMessage(index).getStartTimeMsVal();
+  }
+
+  /**
+   * Returns the range of list indexes for the 'miniSEED' messages starting
+   * with the given message number and filtered by the begin and end time.
+   * The caller should be synchronized on the cache.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @return An array with the index of the first message and the index
+   * after the last message.
+   */
+  protected abstract int[] getRequestIndexRange(int msgNumVal,
+      SLinkTime beginTime, SLinkTime endTime);
+
   /**
    * Return the maximum message age.
    * @return the maximum message age or 0 if none.
@@ -198,6 +473,26 @@ public abstract class AbstractMiniSeedMsgCache implements IMiniSeedMsgCache {
     return maximumMessageCount;
   }
 
+  /**
+   * Opens a cursor for reading 'miniSEED' messages from the cache, starting
+   * with the given message number and filtered by the begin and end time.
+   * The cursor reads the same messages that 'requestMessages()' returns,
+   * but in batches as they are needed.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @param followFlag true to continue reading the messages added to the
+   * cache after the requested messages until no newer messages are in the
+   * cache, false to stop after the requested messages.
+   * @return The cursor.
+   */
+  public synchronized IMiniSeedMsgCursor openCursor(int msgNumVal,
+      SLinkTime beginTime, SLinkTime endTime, boolean followFlag) {
+    final int[] range = getRequestIndexRange(msgNumVal, beginTime, endTime);
+    return new CacheCursor(range[0], range[1], getTimeVal(beginTime,
+        Long.MIN_VALUE), getTimeVal(endTime, Long.MAX_VALUE), followFlag);
+  }
+
   /**
    * Saves the message.
    * @param miniSeedMsg the message.
@@ -7,6 +7,9 @@ public abstract class AbstractStaChaNetLoc implements IStaChaNetLoc {
 	/** The Unique ID separator text. */
 	public static final String UNIQUE_ID_SEPARATOR_TEXT = ".";
 
+	/** Cache the channel ID or -1 if not yet assigned. */
+	private int channelId = -1;
+
 	/**
 	 * Get the unique identifier.
 	 * 
@@ -42,6 +45,19 @@ public abstract class AbstractStaChaNetLoc implements IStaChaNetLoc {
 		return false;
 	}
 
+	/**
+	 * Get the channel ID.
+	 * 
+	 * @return the channel ID.
+	 * @see SLinkChannelRegistry
+	 */
+	public int getChannelId() {
+		if (channelId < 0) {
+			channelId = SLinkChannelRegistry.lookupChannelId(this);
+		}
+		return channelId;
+	}
+
 	/**
 	 * Get the unique identifier.
 	 * 
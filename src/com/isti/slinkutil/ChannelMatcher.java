@@ -1,6 +1,8 @@
 //ChannelMatcher:  Channel matcher for a digitizer channel.
 //
 //  9/21/2011 -- [KF]
+// 10/17/2026 -- [KF]  Made the match-all constants public for
+//                     'ChannelMatcherSet'.
 //
 
 package com.isti.slinkutil;
@@ -19,10 +21,10 @@ public class ChannelMatcher {
   private final static String SCNL_SEPARATOR = ".";
 
   /** Number for matching all. */
-  private final static int ALL_NUMBER = -1;
+  public final static int ALL_NUMBER = -1;
 
   /** Text for matching all. */
-  private final static String ALL_TEXT = "*";
+  public final static String ALL_TEXT = "*";
 
   /** Index number for channel (1-based). */
   public final int channelNumber;
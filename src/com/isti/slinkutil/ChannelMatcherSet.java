@@ -0,0 +1,258 @@
+//ChannelMatcherSet:  Compiled set of channel matchers.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class ChannelMatcherSet is a compiled set of channel matchers (see
+ * 'ChannelMatcher') for the selected channel names. The names are parsed
+ * once: channel numbers are kept in a set, names without wildcards in a
+ * hash set and names with wildcards in a small trie of station, channel,
+ * network and location codes. The result for each channel is remembered,
+ * so a channel is only matched against the names the first time.
+ */
+public class ChannelMatcherSet {
+  /** The maximum number of results remembered before they are cleared. */
+  private static final int MAX_NUM_RESULTS = 10000;
+
+  /** The selected channel names. */
+  private final Set channelNames;
+
+  /** The number of selected channel names. */
+  private final int numChannelNames;
+
+  /** The selected channel numbers ('Integer'). */
+  private final Set channelNumberSet = new HashSet();
+
+  /** The keys for the names without wildcards. */
+  private final Set exactKeySet = new HashSet();
+
+  /** The root of the trie for the names with wildcards. */
+  private final Node rootNode = new Node();
+
+  /** The 'Boolean' result for each channel key. */
+  private final Map resultMap = new ConcurrentHashMap();
+
+  /**
+   * Create the compiled set of channel matchers.
+   * @param channelNames the selected channel names.
+   */
+  public ChannelMatcherSet(Set channelNames) {
+    this.channelNames = channelNames;
+    numChannelNames = channelNames.size();
+    final Iterator it = channelNames.iterator();
+    ChannelMatcher matcher;
+    while (it.hasNext()) {
+      matcher = new ChannelMatcher(it.next().toString());
+      if (matcher.channelNumber != ChannelMatcher.ALL_NUMBER) {
+        channelNumberSet.add(Integer.valueOf(matcher.channelNumber));
+      } else if (isExact(matcher)) {
+        exactKeySet.add(new ChannelKey(ChannelMatcher.ALL_NUMBER,
+            matcher.channelIdStr, matcher.stationNameStr,
+            matcher.networkNameStr, matcher.locationCodeStr));
+      } else {
+        rootNode.add(new String[] { matcher.stationNameStr,
+            matcher.channelIdStr, matcher.networkNameStr,
+            matcher.locationCodeStr }, 0);
+      }
+    }
+  }
+
+  /**
+   * Determines if this set was compiled from the selected channel names.
+   * @param channelNames the selected channel names.
+   * @return true if this set was compiled from the same set of names (and
+   *         the number of names has not changed), false otherwise.
+   */
+  public boolean isFor(Set channelNames) {
+    return this.channelNames == channelNames
+        && numChannelNames == channelNames.size();
+  }
+
+  /**
+   * Determines if there is a match.
+   * @param channelNumber index number for channel (1-based).
+   * @param channelIdStr ID string for channel.
+   * @param stationNameStr station name for channel.
+   * @param networkNameStr network name for channel.
+   * @param locationCodeStr location code for channel.
+   * @return true if match, false otherwise.
+   */
+  public boolean isMatch(int channelNumber, String channelIdStr,
+      String stationNameStr, String networkNameStr, String locationCodeStr) {
+    final ChannelKey key = new ChannelKey(channelNumber, channelIdStr,
+        stationNameStr, networkNameStr, locationCodeStr);
+    Boolean result = (Boolean) resultMap.get(key);
+    if (result == null) {
+      result = match(key) ? Boolean.TRUE : Boolean.FALSE;
+      if (resultMap.size() >= MAX_NUM_RESULTS) {
+        resultMap.clear();
+      }
+      resultMap.put(key, result);
+    }
+    return result.booleanValue();
+  }
+
+  /**
+   * Determines if the channel matcher has no wildcards.
+   * @param matcher the channel matcher.
+   * @return true if the channel matcher has no wildcards, false otherwise.
+   */
+  private static boolean isExact(ChannelMatcher matcher) {
+    return !ChannelMatcher.ALL_TEXT.equals(matcher.channelIdStr)
+        && !ChannelMatcher.ALL_TEXT.equals(matcher.stationNameStr)
+        && !ChannelMatcher.ALL_TEXT.equals(matcher.networkNameStr)
+        && !ChannelMatcher.ALL_TEXT.equals(matcher.locationCodeStr)
+        && !ChannelMatcher.LOC_NULL_STR.equals(matcher.locationCodeStr);
+  }
+
+  /**
+   * Matches the channel against the selected channel names.
+   * @param key the channel key.
+   * @return true if match, false otherwise.
+   */
+  private boolean match(ChannelKey key) {
+    if (channelNumberSet.contains(Integer.valueOf(key.channelNumber)))
+      return true;
+    if (exactKeySet.contains(new ChannelKey(ChannelMatcher.ALL_NUMBER,
+        key.channelIdStr, key.stationNameStr, key.networkNameStr,
+        key.locationCodeStr)))
+      return true;
+    return rootNode.match(new String[] { key.stationNameStr,
+        key.channelIdStr, key.networkNameStr, key.locationCodeStr }, 0);
+  }
+
+  /**
+   * Class ChannelKey is the key for a channel.
+   */
+  private static class ChannelKey {
+    final int channelNumber;
+    final String channelIdStr;
+    final String stationNameStr;
+    final String networkNameStr;
+    final String locationCodeStr;
+    private final int hash;
+
+    /**
+     * Create the key for a channel.
+     * @param channelNumber index number for channel (1-based).
+     * @param channelIdStr ID string for channel.
+     * @param stationNameStr station name for channel.
+     * @param networkNameStr network name for channel.
+     * @param locationCodeStr location code for channel.
+     */
+    ChannelKey(int channelNumber, String channelIdStr,
+        String stationNameStr, String networkNameStr, String locationCodeStr) {
+      this.channelNumber = channelNumber;
+      this.channelIdStr = channelIdStr;
+      this.stationNameStr = stationNameStr;
+      this.networkNameStr = networkNameStr;
+      this.locationCodeStr = locationCodeStr;
+      int h = channelNumber;
+      h = 31 * h + hashCode(channelIdStr);
+      h = 31 * h + hashCode(stationNameStr);
+      h = 31 * h + hashCode(networkNameStr);
+      h = 31 * h + hashCode(locationCodeStr);
+      hash = h;
+    }
+
+    public boolean equals(Object obj) {
+      if (this == obj)
+        return true;
+      if (!(obj instanceof ChannelKey))
+        return false;
+      final ChannelKey key = (ChannelKey) obj;
+      return channelNumber == key.channelNumber
+          && equals(channelIdStr, key.channelIdStr)
+          && equals(stationNameStr, key.stationNameStr)
+          && equals(networkNameStr, key.networkNameStr)
+          && equals(locationCodeStr, key.locationCodeStr);
+    }
+
+    public int hashCode() {
+      return hash;
+    }
+
+    private static boolean equals(String s1, String s2) {
+      return (s1 == null) ? s2 == null : s1.equals(s2);
+    }
+
+    private static int hashCode(String s) {
+      return (s == null) ? 0 : s.hashCode();
+    }
+  }
+
+  /**
+   * Class Node is a node of the trie for the names with wildcards. Each
+   * level of the trie is for one of the codes (station, channel, network
+   * and location.)
+   */
+  private static class Node {
+    /** The child nodes with code key. */
+    private final Map childMap = new HashMap();
+
+    /** The child node for any code or null if none. */
+    private Node allChild = null;
+
+    /** The child node for an empty location code or null if none. */
+    private Node emptyChild = null;
+
+    /**
+     * Adds the codes.
+     * @param codes the codes.
+     * @param level the level of this node.
+     */
+    void add(String[] codes, int level) {
+      if (level >= codes.length)
+        return;
+      final String code = codes[level];
+      Node child;
+      if (ChannelMatcher.ALL_TEXT.equals(code)) {
+        if (allChild == null)
+          allChild = new Node();
+        child = allChild;
+      } else if (level == codes.length - 1
+          && ChannelMatcher.LOC_NULL_STR.equals(code)) {
+        if (emptyChild == null)
+          emptyChild = new Node();
+        child = emptyChild;
+      } else {
+        child = (Node) childMap.get(code);
+        if (child == null) {
+          child = new Node();
+          childMap.put(code, child);
+        }
+      }
+      child.add(codes, level + 1);
+    }
+
+    /**
+     * Determines if the codes match.
+     * @param codes the codes.
+     * @param level the level of this node.
+     * @return true if match, false otherwise.
+     */
+    boolean match(String[] codes, int level) {
+      if (level >= codes.length)
+        return true;
+      final String code = codes[level];
+      final Node child = (Node) childMap.get(code);
+      if (child != null && child.match(codes, level + 1))
+        return true;
+      if (allChild != null && allChild.match(codes, level + 1))
+        return true;
+      return emptyChild != null
+          && (code == null || code.trim().length() == 0)
+          && emptyChild.match(codes, level + 1);
+    }
+  }
+}
@@ -29,6 +29,22 @@ public interface IMiniSeedMsgCache {
   public MiniSeedMsgHldr[] requestMessages(int msgNumVal, SLinkTime beginTime,
       SLinkTime endTime);
 
+  /**
+   * Opens a cursor for reading 'miniSEED' messages from the cache, starting
+   * with the given message number and filtered by the begin and end time.
+   * The cursor reads the same messages that 'requestMessages()' returns,
+   * but in batches as they are needed.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @param followFlag true to continue reading the messages added to the
+   * cache after the requested messages until no newer messages are in the
+   * cache, false to stop after the requested messages.
+   * @return The cursor.
+   */
+  public IMiniSeedMsgCursor openCursor(int msgNumVal, SLinkTime beginTime,
+      SLinkTime endTime, boolean followFlag);
+
   /**
    * Set the maximum message age.
    * @param maximumMessageAge the maximum message age in ms or 0 if none.
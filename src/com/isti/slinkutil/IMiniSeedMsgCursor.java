@@ -0,0 +1,17 @@
+package com.isti.slinkutil;
+
+/**
+ * A cursor over the messages in a miniSEED message cache. Messages are read
+ * in batches as they are needed rather than copied out of the cache all at
+ * once.
+ */
+public interface IMiniSeedMsgCursor {
+  /**
+   * Reads messages from the cache and advances the cursor.
+   * @param msgsArr array to receive the messages.
+   * @return The number of messages read or 0 if there are no more messages
+   * (the requested messages have been read and, if the cursor follows the
+   * cache, no newer messages are in the cache.)
+   */
+  public int read(MiniSeedMsgHldr[] msgsArr);
+}
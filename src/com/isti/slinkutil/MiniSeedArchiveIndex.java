@@ -0,0 +1,707 @@
+//MiniSeedArchiveIndex.java:  Defines the sidecar index of the records in
+//                            an archive file.
+//
+// 10/17/2026 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Parse the records with 'DataRecordView'.
+// 10/17/2026 -- [KF]  Added 'isStale()' method.
+//
+
+package com.isti.slinkutil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.isti.slinkutil.seisFile.mseed.DataRecordView;
+import com.isti.slinkutil.seisFile.mseed.SeedFormatException;
+
+/**
+ * Class MiniSeedArchiveIndex defines the sidecar index of the miniSEED
+ * records in an archive file (see 'MiniSeedArchiveWriter'), so the records
+ * for a time window may be found without reading the archive file. The
+ * index file has the name of the archive file with ".idx" appended, and
+ * holds a header followed by a fixed-length entry for each record with the
+ * byte offset, start time, end time, number of samples, sequence number
+ * and length of the record.
+ * <p>
+ * The index file is written by the archive writer as the records are
+ * appended; when the writer opens an archive file the index is brought up
+ * to date with any records that are not yet indexed (see
+ * 'prepareForAppend()'). An index opened for reading ('open()') loads the
+ * entries of the index file and indexes any later records of the archive
+ * file in memory, so records written before the index file was written are
+ * found as well; 'update()' loads the entries for the records added since.
+ */
+public class MiniSeedArchiveIndex {
+  /** The suffix of the index file name. */
+  public static final String INDEX_FILE_SUFFIX = ".idx";
+
+  /** The index file header length. */
+  public static final int HEADER_LENGTH = 16;
+
+  /** The index entry length. */
+  public static final int ENTRY_LENGTH = 40;
+
+  /** The record length used if a record has no blockette 1000. */
+  public static final int DEFAULT_RECORD_LENGTH = 512;
+
+  /** The minimum record length (fixed header and blockette 1000.) */
+  public static final int MIN_RECORD_LENGTH = 56;
+
+  /** The index file header magic number ("SLIX".) */
+  private static final int INDEX_MAGIC = 0x534C4958;
+
+  /** The index file format version. */
+  private static final int INDEX_VERSION = 1;
+
+  /** The number of entries read from the index file at a time. */
+  private static final int READ_ENTRIES = 256;
+
+  /** The archive file. */
+  private final File dataFile;
+
+  /** The number of entries. */
+  private int numEntries = 0;
+
+  /** The record offset for each entry. */
+  private long[] offsetArr = new long[64];
+
+  /** The record start time for each entry. */
+  private long[] startTimeArr = new long[64];
+
+  /** The record end time (time of the last sample) for each entry. */
+  private long[] endTimeArr = new long[64];
+
+  /** The number of samples for each entry. */
+  private int[] numSamplesArr = new int[64];
+
+  /** The record sequence number for each entry. */
+  private int[] sequenceNumArr = new int[64];
+
+  /** The record length for each entry. */
+  private int[] recordLengthArr = new int[64];
+
+  /** The number of entries read from the index file. */
+  private int numIndexFileEntries = 0;
+
+  /** The length of the archive file that has been indexed. */
+  private long indexedLength = 0;
+
+  /** The length of the index file when the entries were last loaded. */
+  private long indexFileLength = 0;
+
+  /** True if the entries are in order of start time and end time. */
+  private boolean sortedFlag = true;
+
+  /**
+   * Creates an empty index for the archive file.
+   * @param dataFile the archive file.
+   */
+  private MiniSeedArchiveIndex(File dataFile) {
+    this.dataFile = dataFile;
+  }
+
+  /**
+   * Returns the index file for the archive file.
+   * @param dataFile the archive file.
+   * @return the index file.
+   */
+  public static File getIndexFile(File dataFile) {
+    return new File(dataFile.getPath() + INDEX_FILE_SUFFIX);
+  }
+
+  /**
+   * Opens the index for reading the archive file.
+   * @param dataFile the archive file.
+   * @return the index.
+   * @throws IOException if an I/O error occurs.
+   */
+  public static MiniSeedArchiveIndex open(File dataFile) throws IOException {
+    final MiniSeedArchiveIndex index = new MiniSeedArchiveIndex(dataFile);
+    index.update();
+    return index;
+  }
+
+  /**
+   * Brings the index file up to date before records are appended to the
+   * archive file. Records that are not yet indexed are added to the index
+   * file; a partial record at the end of the archive file (from a write that
+   * did not finish) is removed. This method should only be called by the
+   * thread writing the archive file.
+   * @param dataFile the archive file.
+   * @return the length of the archive file.
+   * @throws IOException if an I/O error occurs.
+   */
+  public static long prepareForAppend(File dataFile) throws IOException {
+    if (!dataFile.exists()) { // new archive file; start new index file
+      final File indexFile = getIndexFile(dataFile);
+      if (indexFile.exists() && !indexFile.delete()) {
+        throw new IOException("Unable to delete index file \"" + indexFile
+            + "\"");
+      }
+      return 0;
+    }
+    final RandomAccessFile dataRaf = new RandomAccessFile(dataFile, "rw");
+    final RandomAccessFile indexRaf = new RandomAccessFile(
+        getIndexFile(dataFile), "rw");
+    try {
+      final FileChannel dataChannel = dataRaf.getChannel();
+      final FileChannel indexChannel = indexRaf.getChannel();
+      final ByteBuffer buf = ByteBuffer.allocate(ENTRY_LENGTH);
+      final Entry entry = new Entry();
+      long dataLength = dataChannel.size();
+      long offset = 0;
+      long numEntries = 0;
+      if (readHeader(indexChannel)) { // valid index file; find last entry
+        numEntries = (indexChannel.size() - HEADER_LENGTH) / ENTRY_LENGTH;
+        while (numEntries > 0) {
+          buf.clear();
+          readFully(indexChannel, buf, HEADER_LENGTH + (numEntries - 1)
+              * ENTRY_LENGTH);
+          entry.get(buf, 0);
+          if (entry.offset + entry.recordLength <= dataLength) {
+            offset = entry.offset + entry.recordLength;
+            break;
+          }
+          numEntries--; // entry for record beyond end of archive file
+        }
+      } else { // no valid index file; start new one
+        indexChannel.truncate(0);
+        writeHeader(indexChannel);
+      }
+      indexChannel.truncate(HEADER_LENGTH + numEntries * ENTRY_LENGTH);
+      // index the records after the last entry
+      final int numOldEntries = (int) numEntries;
+      final ByteBuffer entriesBuf = ByteBuffer.allocate(READ_ENTRIES
+          * ENTRY_LENGTH);
+      final ByteBuffer recordBuf = ByteBuffer.allocate(4096);
+      final DataRecordView view = new DataRecordView();
+      int count = 0;
+      while (offset < dataLength) {
+        recordBuf.clear();
+        if (dataLength - offset < recordBuf.capacity()) {
+          recordBuf.limit((int) (dataLength - offset));
+        }
+        readFully(dataChannel, recordBuf, offset);
+        if (!entry.parse(recordBuf, 0, recordBuf.limit(), view)) {
+          break; // not a miniSEED record
+        }
+        if (offset + entry.recordLength > dataLength) { // partial record
+          LogMgr.usrMsgWarning("MiniSeedArchiveIndex:  Removing partial "
+              + "record at offset " + offset + " of \"" + dataFile + "\"");
+          dataChannel.truncate(offset);
+          dataLength = offset;
+          break;
+        }
+        entry.offset = offset;
+        entry.put(entriesBuf);
+        if (++count >= READ_ENTRIES) {
+          writeEntries(indexChannel, entriesBuf);
+          count = 0;
+        }
+        offset += entry.recordLength;
+      }
+      if (count > 0) {
+        writeEntries(indexChannel, entriesBuf);
+      }
+      if (indexChannel.size() > HEADER_LENGTH + numOldEntries * ENTRY_LENGTH) {
+        indexChannel.force(false);
+      }
+      return dataLength;
+    } finally {
+      SLinkUtilFns.close(indexRaf);
+      SLinkUtilFns.close(dataRaf);
+    }
+  }
+
+  /**
+   * Writes the index file header.
+   * @param indexChannel the index file channel.
+   * @throws IOException if an I/O error occurs.
+   */
+  static void writeHeader(FileChannel indexChannel) throws IOException {
+    final ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH);
+    buf.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).putInt(ENTRY_LENGTH);
+    buf.putInt(0);
+    buf.flip();
+    while (buf.hasRemaining()) {
+      indexChannel.write(buf, buf.position());
+    }
+  }
+
+  /**
+   * Reads and checks the index file header.
+   * @param indexChannel the index file channel.
+   * @return true if the index file header is valid, false otherwise.
+   * @throws IOException if an I/O error occurs.
+   */
+  private static boolean readHeader(FileChannel indexChannel)
+      throws IOException {
+    if (indexChannel.size() < HEADER_LENGTH)
+      return false;
+    final ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH);
+    readFully(indexChannel, buf, 0);
+    return buf.getInt(0) == INDEX_MAGIC && buf.getInt(4) == INDEX_VERSION
+        && buf.getInt(8) == ENTRY_LENGTH;
+  }
+
+  /**
+   * Appends the entries in the buffer to the index file and clears the
+   * buffer.
+   * @param indexChannel the index file channel.
+   * @param entriesBuf the entries buffer.
+   * @throws IOException if an I/O error occurs.
+   */
+  private static void writeEntries(FileChannel indexChannel,
+      ByteBuffer entriesBuf) throws IOException {
+    entriesBuf.flip();
+    long position = indexChannel.size();
+    while (entriesBuf.hasRemaining()) {
+      position += indexChannel.write(entriesBuf, position);
+    }
+    entriesBuf.clear();
+  }
+
+  /**
+   * Reads from the channel at the position until the buffer is full or the
+   * end of the channel is reached.
+   * @param channel the channel.
+   * @param buf the buffer.
+   * @param position the position.
+   * @throws IOException if an I/O error occurs.
+   */
+  private static void readFully(FileChannel channel, ByteBuffer buf,
+      long position) throws IOException {
+    int count;
+    while (buf.hasRemaining()
+        && (count = channel.read(buf, position)) >= 0) {
+      position += count;
+    }
+    buf.flip();
+  }
+
+  /**
+   * Returns the archive file.
+   * @return the archive file.
+   */
+  public File getDataFile() {
+    return dataFile;
+  }
+
+  /**
+   * Returns the number of entries.
+   * @return the number of entries.
+   */
+  public synchronized int getNumEntries() {
+    return numEntries;
+  }
+
+  /**
+   * Returns the length of the archive file that has been indexed.
+   * @return the length of the archive file that has been indexed.
+   */
+  public synchronized long getIndexedLength() {
+    return indexedLength;
+  }
+
+  /**
+   * Returns the record offset for the entry.
+   * @param i the entry index.
+   * @return the record offset.
+   */
+  public synchronized long getOffset(int i) {
+    return offsetArr[i];
+  }
+
+  /**
+   * Returns the record start time for the entry.
+   * @param i the entry index.
+   * @return the record start time.
+   */
+  public synchronized long getStartTime(int i) {
+    return startTimeArr[i];
+  }
+
+  /**
+   * Returns the record end time (the time of the last sample) for the entry.
+   * @param i the entry index.
+   * @return the record end time.
+   */
+  public synchronized long getEndTime(int i) {
+    return endTimeArr[i];
+  }
+
+  /**
+   * Returns the number of samples for the entry.
+   * @param i the entry index.
+   * @return the number of samples.
+   */
+  public synchronized int getNumSamples(int i) {
+    return numSamplesArr[i];
+  }
+
+  /**
+   * Returns the record sequence number for the entry.
+   * @param i the entry index.
+   * @return the record sequence number.
+   */
+  public synchronized int getSequenceNumber(int i) {
+    return sequenceNumArr[i];
+  }
+
+  /**
+   * Returns the record length for the entry.
+   * @param i the entry index.
+   * @return the record length.
+   */
+  public synchronized int getRecordLength(int i) {
+    return recordLengthArr[i];
+  }
+
+  /**
+   * Returns the byte ranges of the records that overlap the time window.
+   * Records that are adjacent in the archive file are returned as one range.
+   * @param beginTimeMs the begin time of the window.
+   * @param endTimeMs the end time of the window.
+   * @return the byte ranges in order of offset.
+   */
+  public synchronized ByteRange[] getByteRanges(long beginTimeMs,
+      long endTimeMs) {
+    final List rangeList = new ArrayList();
+    int i = 0;
+    if (sortedFlag) { // find first record not ending before begin time
+      int hi = numEntries;
+      while (i < hi) {
+        final int mid = (i + hi) >>> 1;
+        if (endTimeArr[mid] < beginTimeMs)
+          i = mid + 1;
+        else
+          hi = mid;
+      }
+    }
+    long rangeOffset = -1;
+    long rangeEnd = -1;
+    for (; i < numEntries; i++) {
+      if (startTimeArr[i] > endTimeMs) {
+        if (sortedFlag)
+          break; // no more records in the window
+        continue;
+      }
+      if (endTimeArr[i] < beginTimeMs)
+        continue;
+      if (offsetArr[i] != rangeEnd) { // not adjacent to range; start new one
+        if (rangeOffset >= 0) {
+          rangeList.add(new ByteRange(dataFile, rangeOffset, rangeEnd
+              - rangeOffset));
+        }
+        rangeOffset = offsetArr[i];
+      }
+      rangeEnd = offsetArr[i] + recordLengthArr[i];
+    }
+    if (rangeOffset >= 0) {
+      rangeList.add(new ByteRange(dataFile, rangeOffset, rangeEnd
+          - rangeOffset));
+    }
+    return (ByteRange[]) rangeList.toArray(new ByteRange[rangeList.size()]);
+  }
+
+  /**
+   * Determines if the index no longer matches the files, because the archive
+   * file or the index file is shorter than when the index was loaded (such
+   * as when the writer removes a partial record or rebuilds the index file,
+   * or the files are replaced.) A stale index should be opened again rather
+   * than updated.
+   * @return true if the index is stale, false otherwise.
+   */
+  public synchronized boolean isStale() {
+    return dataFile.length() < indexedLength
+        || getIndexFile(dataFile).length() < indexFileLength;
+  }
+
+  /**
+   * Loads the entries added to the index file since the last update and
+   * indexes any later records of the archive file in memory.
+   * @throws IOException if an I/O error occurs.
+   */
+  public synchronized void update() throws IOException {
+    final File indexFile = getIndexFile(dataFile);
+    final Entry entry = new Entry();
+    // get the length first so entries for records after it are not loaded
+    final long dataLength = dataFile.length();
+    if (indexFile.exists()) {
+      final RandomAccessFile indexRaf = new RandomAccessFile(indexFile, "r");
+      try {
+        final FileChannel indexChannel = indexRaf.getChannel();
+        if (readHeader(indexChannel)) {
+          final ByteBuffer buf = ByteBuffer.allocate(READ_ENTRIES
+              * ENTRY_LENGTH);
+          indexFileLength = indexChannel.size();
+          long fileEntries = (indexFileLength - HEADER_LENGTH)
+              / ENTRY_LENGTH;
+          int count;
+          while (numIndexFileEntries < fileEntries) {
+            buf.clear();
+            count = (int) Math.min(READ_ENTRIES, fileEntries
+                - numIndexFileEntries);
+            buf.limit(count * ENTRY_LENGTH);
+            readFully(indexChannel, buf, HEADER_LENGTH
+                + (long) numIndexFileEntries * ENTRY_LENGTH);
+            count = buf.limit() / ENTRY_LENGTH;
+            if (count == 0)
+              break;
+            for (int i = 0; i < count; i++) {
+              entry.get(buf, i * ENTRY_LENGTH);
+              if (entry.offset + entry.recordLength > dataLength) {
+                count = i; // record not yet written
+                fileEntries = 0;
+                break;
+              }
+              // skip entries for records already indexed in memory
+              if (entry.offset >= indexedLength) {
+                addEntry(entry);
+              }
+            }
+            numIndexFileEntries += count;
+          }
+        }
+      } finally {
+        SLinkUtilFns.close(indexRaf);
+      }
+    }
+    // index the records not in the index file
+    if (indexedLength >= dataLength)
+      return;
+    final RandomAccessFile dataRaf = new RandomAccessFile(dataFile, "r");
+    try {
+      final FileChannel dataChannel = dataRaf.getChannel();
+      final ByteBuffer recordBuf = ByteBuffer.allocate(4096);
+      final DataRecordView view = new DataRecordView();
+      long offset = indexedLength;
+      while (offset < dataLength) {
+        recordBuf.clear();
+        if (dataLength - offset < recordBuf.capacity()) {
+          recordBuf.limit((int) (dataLength - offset));
+        }
+        readFully(dataChannel, recordBuf, offset);
+        if (!entry.parse(recordBuf, 0, recordBuf.limit(), view)
+            || offset + entry.recordLength > dataLength) {
+          break; // not a miniSEED record or partial record
+        }
+        entry.offset = offset;
+        addEntry(entry);
+        offset += entry.recordLength;
+      }
+    } finally {
+      SLinkUtilFns.close(dataRaf);
+    }
+  }
+
+  /**
+   * Adds the entry.
+   * @param entry the entry.
+   */
+  private void addEntry(Entry entry) {
+    if (numEntries >= offsetArr.length) {
+      final int newLength = offsetArr.length * 2;
+      offsetArr = resize(offsetArr, newLength);
+      startTimeArr = resize(startTimeArr, newLength);
+      endTimeArr = resize(endTimeArr, newLength);
+      numSamplesArr = resize(numSamplesArr, newLength);
+      sequenceNumArr = resize(sequenceNumArr, newLength);
+      recordLengthArr = resize(recordLengthArr, newLength);
+    }
+    if (numEntries > 0
+        && (entry.startTime < startTimeArr[numEntries - 1]
+            || entry.endTime < endTimeArr[numEntries - 1])) {
+      sortedFlag = false;
+    }
+    offsetArr[numEntries] = entry.offset;
+    startTimeArr[numEntries] = entry.startTime;
+    endTimeArr[numEntries] = entry.endTime;
+    numSamplesArr[numEntries] = entry.numSamples;
+    sequenceNumArr[numEntries] = entry.sequenceNum;
+    recordLengthArr[numEntries] = entry.recordLength;
+    numEntries++;
+    indexedLength = entry.offset + entry.recordLength;
+  }
+
+  /**
+   * Returns a copy of the array with the new length.
+   * @param arr the array.
+   * @param newLength the new length.
+   * @return the new array.
+   */
+  private static long[] resize(long[] arr, int newLength) {
+    final long[] newArr = new long[newLength];
+    System.arraycopy(arr, 0, newArr, 0, arr.length);
+    return newArr;
+  }
+
+  /**
+   * Returns a copy of the array with the new length.
+   * @param arr the array.
+   * @param newLength the new length.
+   * @return the new array.
+   */
+  private static int[] resize(int[] arr, int newLength) {
+    final int[] newArr = new int[newLength];
+    System.arraycopy(arr, 0, newArr, 0, arr.length);
+    return newArr;
+  }
+
+  /**
+   * Class ByteRange is a range of bytes of an archive file.
+   */
+  public static class ByteRange {
+    /** The archive file. */
+    private final File file;
+
+    /** The offset of the range. */
+    private final long offset;
+
+    /** The length of the range. */
+    private final long length;
+
+    /**
+     * Creates a byte range.
+     * @param file the archive file.
+     * @param offset the offset of the range.
+     * @param length the length of the range.
+     */
+    public ByteRange(File file, long offset, long length) {
+      this.file = file;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /**
+     * Returns the archive file.
+     * @return the archive file.
+     */
+    public File getFile() {
+      return file;
+    }
+
+    /**
+     * Returns the length of the range.
+     * @return the length of the range.
+     */
+    public long getLength() {
+      return length;
+    }
+
+    /**
+     * Returns the offset of the range.
+     * @return the offset of the range.
+     */
+    public long getOffset() {
+      return offset;
+    }
+
+    /**
+     * Reads the bytes of the range.
+     * @return the bytes.
+     * @throws IOException if an I/O error occurs or the range is beyond the
+     *           end of the file.
+     */
+    public byte[] read() throws IOException {
+      final byte[] arr = new byte[(int) length];
+      final RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try {
+        raf.seek(offset);
+        raf.readFully(arr);
+      } finally {
+        SLinkUtilFns.close(raf);
+      }
+      return arr;
+    }
+
+    /**
+     * Returns a string representation of the range.
+     * @return the string.
+     */
+    public String toString() {
+      return file + "[" + offset + "," + (offset + length) + ")";
+    }
+  }
+
+  /**
+   * Class Entry is an index entry.
+   */
+  static class Entry {
+    /** The record offset. */
+    long offset;
+
+    /** The record start time. */
+    long startTime;
+
+    /** The record end time (time of the last sample.) */
+    long endTime;
+
+    /** The number of samples. */
+    int numSamples;
+
+    /** The record sequence number. */
+    int sequenceNum;
+
+    /** The record length. */
+    int recordLength;
+
+    /**
+     * Gets the entry from the buffer.
+     * @param buf the buffer.
+     * @param pos the position of the entry in the buffer.
+     */
+    void get(ByteBuffer buf, int pos) {
+      offset = buf.getLong(pos);
+      startTime = buf.getLong(pos + 8);
+      endTime = buf.getLong(pos + 16);
+      numSamples = buf.getInt(pos + 24);
+      sequenceNum = buf.getInt(pos + 28);
+      recordLength = buf.getInt(pos + 32);
+    }
+
+    /**
+     * Puts the entry into the buffer.
+     * @param buf the buffer.
+     */
+    void put(ByteBuffer buf) {
+      buf.putLong(offset).putLong(startTime).putLong(endTime);
+      buf.putInt(numSamples).putInt(sequenceNum).putInt(recordLength);
+      buf.putInt(0);
+    }
+
+    /**
+     * Parses the entry values (other than the offset) from the miniSEED
+     * record header. Records in either byte order are accepted.
+     * @param buf the buffer containing the record.
+     * @param pos the position of the record in the buffer.
+     * @param length the number of bytes of the record in the buffer.
+     * @param view the data record view to use.
+     * @return true if the record header is valid, false otherwise.
+     */
+    boolean parse(ByteBuffer buf, int pos, int length, DataRecordView view) {
+      try {
+        view.wrap(buf, pos, length, DEFAULT_RECORD_LENGTH);
+      } catch (SeedFormatException ex) {
+        return false;
+      }
+      startTime = view.getStartTime();
+      endTime = view.getLastSampleTime();
+      // apply the time correction if it has not been applied
+      if ((view.getActivityFlags() & 0x02) == 0) {
+        final long correction = Math.round(view.getTimeCorrection() / 10.0);
+        startTime += correction;
+        endTime += correction;
+      }
+      numSamples = view.getNumSamples();
+      sequenceNum = view.getSequenceNum();
+      recordLength = view.getRecordLength();
+      return true;
+    }
+  }
+}
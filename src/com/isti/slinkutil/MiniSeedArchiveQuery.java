@@ -0,0 +1,180 @@
+//MiniSeedArchiveQuery.java:  Finds the records for a time window in an
+//                            archive of day files.
+//
+// 10/17/2026 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Reload an index that no longer matches its files.
+//
+
+package com.isti.slinkutil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.isti.slinkutil.seisFile.mseed.Btime;
+
+/**
+ * Class MiniSeedArchiveQuery finds the records for a channel and time window
+ * in an archive of day files written by 'MiniSeedArchiveWriter'. The records
+ * are found with the sidecar index of each day file (see
+ * 'MiniSeedArchiveIndex'), so only the byte ranges of the records in the
+ * window need to be read. The indexes of the most recently queried files are
+ * kept and updated with the records added since they were loaded; an index
+ * is loaded again if its archive file or index file has become shorter.
+ */
+public class MiniSeedArchiveQuery {
+  /** The default maximum number of indexes kept. */
+  public static final int DEFAULT_MAX_INDEXES = 64;
+
+  /** The empty byte ranges. */
+  private static final MiniSeedArchiveIndex.ByteRange[] EMPTY_RANGE_ARR =
+      new MiniSeedArchiveIndex.ByteRange[0];
+
+  /** The archive directory. */
+  private final File archiveDir;
+
+  /** The maximum number of indexes kept. */
+  private final int maxIndexes;
+
+  /**
+   * The 'MiniSeedArchiveIndex' objects with 'File' key, in order of least
+   * recent use.
+   */
+  private final Map indexMap = new LinkedHashMap(16, 0.75f, true);
+
+  /** The 'Btime' for the days. */
+  private final Btime btimeObj = new Btime();
+
+  /**
+   * Creates the archive query.
+   * @param archiveDir the archive directory.
+   */
+  public MiniSeedArchiveQuery(File archiveDir) {
+    this(archiveDir, DEFAULT_MAX_INDEXES);
+  }
+
+  /**
+   * Creates the archive query.
+   * @param archiveDir the archive directory.
+   * @param maxIndexes the maximum number of indexes kept.
+   */
+  public MiniSeedArchiveQuery(File archiveDir, int maxIndexes) {
+    this.archiveDir = archiveDir;
+    this.maxIndexes = maxIndexes;
+  }
+
+  /**
+   * Returns the archive directory.
+   * @return the archive directory.
+   */
+  public File getArchiveDir() {
+    return archiveDir;
+  }
+
+  /**
+   * Returns the byte ranges of the records for the channel that overlap the
+   * time window. The day file before the begin time is also checked since
+   * its last record may extend into the window.
+   * @param scnlObj the channel.
+   * @param beginTimeMs the begin time of the window.
+   * @param endTimeMs the end time of the window.
+   * @return the byte ranges in order of day file and offset.
+   * @throws IOException if an I/O error occurs.
+   */
+  public synchronized MiniSeedArchiveIndex.ByteRange[] getByteRanges(
+      IStaChaNetLoc scnlObj, long beginTimeMs, long endTimeMs)
+      throws IOException {
+    if (endTimeMs < beginTimeMs)
+      return EMPTY_RANGE_ARR;
+    final List rangeList = new ArrayList();
+    final long lastDayNum = getDayNum(endTimeMs);
+    File file;
+    MiniSeedArchiveIndex.ByteRange[] rangeArr;
+    for (long dayNum = getDayNum(beginTimeMs) - 1; dayNum <= lastDayNum;
+        dayNum++) {
+      SeedTimeFns.getBtime(dayNum * SeedTimeFns.MS_PER_DAY, btimeObj);
+      file = MiniSeedArchiveWriter.getFile(archiveDir, scnlObj,
+          btimeObj.year, btimeObj.jday);
+      if (!file.isFile()) {
+        indexMap.remove(file);
+        continue;
+      }
+      rangeArr = getIndex(file).getByteRanges(beginTimeMs, endTimeMs);
+      for (int i = 0; i < rangeArr.length; i++) {
+        rangeList.add(rangeArr[i]);
+      }
+    }
+    if (rangeList.size() == 0)
+      return EMPTY_RANGE_ARR;
+    return (MiniSeedArchiveIndex.ByteRange[]) rangeList
+        .toArray(new MiniSeedArchiveIndex.ByteRange[rangeList.size()]);
+  }
+
+  /**
+   * Returns the records for the channel that overlap the time window.
+   * @param scnlObj the channel.
+   * @param beginTimeMs the begin time of the window.
+   * @param endTimeMs the end time of the window.
+   * @return the records.
+   * @throws IOException if an I/O error occurs.
+   */
+  public byte[] read(IStaChaNetLoc scnlObj, long beginTimeMs, long endTimeMs)
+      throws IOException {
+    final MiniSeedArchiveIndex.ByteRange[] rangeArr = getByteRanges(scnlObj,
+        beginTimeMs, endTimeMs);
+    long length = 0;
+    for (int i = 0; i < rangeArr.length; i++) {
+      length += rangeArr[i].getLength();
+    }
+    final byte[] arr = new byte[(int) length];
+    int offset = 0;
+    byte[] rangeBytes;
+    for (int i = 0; i < rangeArr.length; i++) {
+      rangeBytes = rangeArr[i].read();
+      System.arraycopy(rangeBytes, 0, arr, offset, rangeBytes.length);
+      offset += rangeBytes.length;
+    }
+    return arr;
+  }
+
+  /**
+   * Returns the index for the file, loading it or updating it with the
+   * records added since it was loaded. An index that no longer matches the
+   * files is loaded again.
+   * @param file the archive file.
+   * @return the index.
+   * @throws IOException if an I/O error occurs.
+   */
+  private MiniSeedArchiveIndex getIndex(File file) throws IOException {
+    MiniSeedArchiveIndex index = (MiniSeedArchiveIndex) indexMap.get(file);
+    if (index != null) {
+      if (!index.isStale()) {
+        index.update();
+        return index;
+      }
+      indexMap.remove(file); // files changed; load the index again
+    }
+    index = MiniSeedArchiveIndex.open(file);
+    if (indexMap.size() >= maxIndexes) { // remove least recent index
+      indexMap.remove(indexMap.keySet().iterator().next());
+    }
+    indexMap.put(file, index);
+    return index;
+  }
+
+  /**
+   * Returns the day number for the time.
+   * @param timeMs the time.
+   * @return the number of days since the epoch.
+   */
+  private static long getDayNum(long timeMs) {
+    long dayNum = timeMs / SeedTimeFns.MS_PER_DAY;
+    if (dayNum * SeedTimeFns.MS_PER_DAY > timeMs) { // negative time
+      dayNum--;
+    }
+    return dayNum;
+  }
+}
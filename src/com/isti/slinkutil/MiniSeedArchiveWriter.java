@@ -0,0 +1,653 @@
+//MiniSeedArchiveWriter.java:  Writes miniSEED messages to an SDS-style
+//                             archive of day files.
+//
+// 10/17/2026 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Write the sidecar index for each archive file.
+//
+
+package com.isti.slinkutil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.isti.slinkutil.seisFile.mseed.Btime;
+import com.isti.slinkutil.seisFile.mseed.DataRecordView;
+
+/**
+ * Class MiniSeedArchiveWriter writes miniSEED messages to an SDS-style
+ * archive, where the records for each channel and day are appended to one
+ * file:
+ * <pre>
+ * YEAR/NET/STA/CHAN.D/NET.STA.LOC.CHAN.D.YEAR.DDD
+ * </pre>
+ * The day is the day of the message start time. Messages added via 'add()'
+ * are entered into a queue and written by the processing thread, so the
+ * thread adding messages never blocks on the disk. The processing thread
+ * takes the queued messages in batches and appends the records for each
+ * file with one gathering write. The open files are kept in a pool, so a
+ * file is only opened when its first record is written (or after it was
+ * closed); a file that has not been written to for the idle time is closed,
+ * as is the least recently written file when the maximum number of open
+ * files is reached. The files written to are forced to the disk together
+ * once per commit interval (and when they are closed) rather than after
+ * each write. An index entry for each record is appended to the sidecar
+ * index of the file (see 'MiniSeedArchiveIndex') with the same batch.
+ */
+public class MiniSeedArchiveWriter {
+  /** The default maximum number of open files. */
+  public static final int DEFAULT_MAX_OPEN_FILES = 256;
+
+  /** The default idle time in milliseconds before a file is closed. */
+  public static final long DEFAULT_IDLE_TIME_MS = 5 * 60 * 1000L;
+
+  /** The default commit interval in milliseconds. */
+  public static final long DEFAULT_COMMIT_INTERVAL_MS = 1000;
+
+  /** The default maximum number of messages in the queue. */
+  public static final int DEFAULT_MAX_QUEUE_SIZE = 100000;
+
+  /** The maximum number of messages written per batch. */
+  public static final int WRITE_BATCH_SIZE = 256;
+
+  /** The data type code for the archive directories and files. */
+  public static final String DATA_TYPE_STR = "D";
+
+  /** The local prompt for user messages. */
+  private static final String msgPromptStr = "MiniSeedArchiveWriter:  ";
+
+  /** The archive directory. */
+  private final File archiveDir;
+
+  /** The maximum number of open files. */
+  private final int maxOpenFiles;
+
+  /** The idle time in milliseconds before a file is closed. */
+  private final long idleTimeMs;
+
+  /** The commit interval in milliseconds. */
+  private final long commitIntervalMs;
+
+  /** The queue of messages to be written. */
+  private final ArchiveQueue archiveQueueObj;
+
+  /**
+   * The open 'ArchiveFile' objects with 'Long' channel-ID and day key, in
+   * order of the last write (least recent first).
+   */
+  private final LinkedHashMap openFileMap = new LinkedHashMap(16, 0.75f,
+      true);
+
+  /** The messages of the current batch. */
+  private final MiniSeedMsgHldr[] batchMsgArr =
+      new MiniSeedMsgHldr[WRITE_BATCH_SIZE];
+
+  /** The 'Btime' used to find the day of a message. */
+  private final Btime btimeObj = new Btime();
+
+  /** The time of the last commit. */
+  private long lastCommitTimeMs = 0;
+
+  /** The number of messages written. */
+  private volatile long writtenCount = 0;
+
+  /** The number of messages dropped because the queue was full. */
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  /** The number of messages not written because of an error. */
+  private volatile long errorCount = 0;
+
+  /** True if the queue-full message has been reported. */
+  private boolean queueFullReportedFlag = false;
+
+  /**
+   * Creates the archive writer with the default settings.
+   * @param archiveDir the archive directory.
+   */
+  public MiniSeedArchiveWriter(File archiveDir) {
+    this(archiveDir, DEFAULT_MAX_OPEN_FILES, DEFAULT_IDLE_TIME_MS,
+        DEFAULT_COMMIT_INTERVAL_MS, DEFAULT_MAX_QUEUE_SIZE);
+  }
+
+  /**
+   * Creates the archive writer.
+   * @param archiveDir the archive directory.
+   * @param maxOpenFiles the maximum number of open files.
+   * @param idleTimeMs the time in milliseconds after the last write before a
+   *          file is closed.
+   * @param commitIntervalMs the interval in milliseconds between forcing the
+   *          written files to the disk.
+   * @param maxQueueSize the maximum number of messages in the queue (the
+   *          oldest messages are dropped when the queue is full), or 0 for no
+   *          limit.
+   */
+  public MiniSeedArchiveWriter(File archiveDir, int maxOpenFiles,
+      long idleTimeMs, long commitIntervalMs, int maxQueueSize) {
+    if (archiveDir == null)
+      throw new NullPointerException("Null parameter");
+    this.archiveDir = archiveDir;
+    this.maxOpenFiles = Math.max(maxOpenFiles, 1);
+    this.idleTimeMs = idleTimeMs;
+    this.commitIntervalMs = commitIntervalMs;
+    archiveQueueObj = new ArchiveQueue();
+    archiveQueueObj.setMaxQueueSize(maxQueueSize);
+  }
+
+  /**
+   * Adds the message to the queue of messages to be written.
+   * @param msgObj the message.
+   */
+  public void add(MiniSeedMsgHldr msgObj) {
+    if (!archiveQueueObj.pushEventNoNotify(msgObj)) {
+      // oldest message dropped because queue full
+      droppedCount.incrementAndGet();
+      if (!queueFullReportedFlag) {
+        queueFullReportedFlag = true;
+        LogMgr.usrMsgWarning(msgPromptStr + "Queue full (limit="
+            + archiveQueueObj.getMaxQueueSize()
+            + "); dropping oldest messages");
+      }
+    } else {
+      queueFullReportedFlag = false;
+    }
+    archiveQueueObj.notifyThread();
+  }
+
+  /**
+   * Returns the archive directory.
+   * @return the archive directory.
+   */
+  public File getArchiveDir() {
+    return archiveDir;
+  }
+
+  /**
+   * Returns the file for the message.
+   * @param msgObj the message.
+   * @return the file.
+   */
+  public File getFile(MiniSeedMsgHldr msgObj) {
+    synchronized (btimeObj) {
+      SeedTimeFns.getBtime(msgObj.getStartTimeMsVal(), btimeObj);
+      return getFile(msgObj.getStaChaNetLocObj(), btimeObj.year,
+          btimeObj.jday);
+    }
+  }
+
+  /**
+   * Returns the file for the channel and day.
+   * @param scnlObj the channel.
+   * @param year the year.
+   * @param jday the day of the year (1-366.)
+   * @return the file.
+   */
+  public File getFile(IStaChaNetLoc scnlObj, int year, int jday) {
+    return getFile(archiveDir, scnlObj, year, jday);
+  }
+
+  /**
+   * Returns the file for the channel and day in the archive directory.
+   * @param archiveDir the archive directory.
+   * @param scnlObj the channel.
+   * @param year the year.
+   * @param jday the day of the year (1-366.)
+   * @return the file.
+   */
+  public static File getFile(File archiveDir, IStaChaNetLoc scnlObj,
+      int year, int jday) {
+    final String netStr = scnlObj.getNetworkCode().trim();
+    final String staStr = scnlObj.getStationCode().trim();
+    final String chaStr = scnlObj.getChannelCode().trim();
+    final String locStr = scnlObj.getLocationCode().trim();
+    final String dayStr = (jday < 10) ? ("00" + jday)
+        : ((jday < 100) ? ("0" + jday) : Integer.toString(jday));
+    final File dir = new File(archiveDir, year + File.separator + netStr
+        + File.separator + staStr + File.separator + chaStr + '.'
+        + DATA_TYPE_STR);
+    return new File(dir, netStr + '.' + staStr + '.' + locStr + '.' + chaStr
+        + '.' + DATA_TYPE_STR + '.' + year + '.' + dayStr);
+  }
+
+  /**
+   * Returns the number of messages dropped because the queue was full.
+   * @return the number of messages dropped.
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * Returns the number of messages not written because of an error.
+   * @return the number of messages not written.
+   */
+  public long getErrorCount() {
+    return errorCount;
+  }
+
+  /**
+   * Returns the number of messages in the queue.
+   * @return the number of messages in the queue.
+   */
+  public int getQueueSize() {
+    return archiveQueueObj.getQueueSize();
+  }
+
+  /**
+   * Returns the number of messages written.
+   * @return the number of messages written.
+   */
+  public long getWrittenCount() {
+    return writtenCount;
+  }
+
+  /**
+   * Starts the processing thread.
+   */
+  public void startProcessingThread() {
+    archiveQueueObj.startThread();
+  }
+
+  /**
+   * Stops the processing thread after the queued messages are written, and
+   * waits for the files to be closed.
+   * @param waitTimeMs the maximum time to wait in milliseconds.
+   */
+  public void stopProcessingThread(long waitTimeMs) {
+    archiveQueueObj.finishWorkAndStopThread();
+    archiveQueueObj.waitForStop(waitTimeMs);
+  }
+
+  /**
+   * Writes a batch of messages. The records for each file are appended with
+   * one write.
+   * @param count the number of messages in the batch.
+   */
+  private void writeBatch(int count) {
+    final long curTimeMs = System.currentTimeMillis();
+    MiniSeedMsgHldr msgObj;
+    ArchiveFile fileObj;
+    ArchiveFile firstFileObj = null;
+    ArchiveFile lastFileObj = null;
+    for (int i = 0; i < count; i++) {
+      msgObj = batchMsgArr[i];
+      batchMsgArr[i] = null;
+      if ((fileObj = getArchiveFile(msgObj, curTimeMs)) == null) {
+        ++errorCount;
+        continue;
+      }
+      if (fileObj.numPending == 0) { // add file to list of files in batch
+        if (lastFileObj == null)
+          firstFileObj = fileObj;
+        else
+          lastFileObj.nextBatchFile = fileObj;
+        lastFileObj = fileObj;
+      }
+      fileObj.addPending(msgObj.getMessageDataArray());
+    }
+    for (fileObj = firstFileObj; fileObj != null; fileObj = firstFileObj) {
+      firstFileObj = fileObj.nextBatchFile;
+      fileObj.nextBatchFile = null;
+      writePending(fileObj, curTimeMs);
+    }
+  }
+
+  /**
+   * Writes the pending records for the file.
+   * @param fileObj the file.
+   * @param curTimeMs the current time.
+   */
+  private void writePending(ArchiveFile fileObj, long curTimeMs) {
+    final int numPending = fileObj.numPending;
+    try {
+      fileObj.writePending(curTimeMs);
+      writtenCount += numPending;
+    } catch (IOException ex) {
+      errorCount += numPending;
+      LogMgr.usrMsgWarning(msgPromptStr + "Error writing file \""
+          + fileObj.file + "\":  " + ex);
+      openFileMap.remove(fileObj.key);
+      fileObj.close();
+    }
+  }
+
+  /**
+   * Returns the open file for the message, opening the file if needed.
+   * @param msgObj the message.
+   * @param curTimeMs the current time.
+   * @return the file or null if the file could not be opened.
+   */
+  private ArchiveFile getArchiveFile(MiniSeedMsgHldr msgObj, long curTimeMs) {
+    final long startTimeMs = msgObj.getStartTimeMsVal();
+    long dayNum = startTimeMs / SeedTimeFns.MS_PER_DAY;
+    if (dayNum * SeedTimeFns.MS_PER_DAY > startTimeMs) { // negative time
+      dayNum--;
+    }
+    final Long key = Long.valueOf(((long) msgObj.getChannelId() << 32)
+        | (dayNum & 0xFFFFFFFFL));
+    ArchiveFile fileObj = (ArchiveFile) openFileMap.get(key);
+    if (fileObj != null)
+      return fileObj;
+    if (openFileMap.size() >= maxOpenFiles) { // close least recent file
+      final Iterator it = openFileMap.values().iterator();
+      fileObj = (ArchiveFile) it.next();
+      it.remove();
+      closeFile(fileObj, curTimeMs);
+    }
+    final File file = getFile(msgObj);
+    try {
+      fileObj = new ArchiveFile(key, file);
+    } catch (IOException ex) {
+      LogMgr.usrMsgWarning(msgPromptStr + "Error opening file \"" + file
+          + "\":  " + ex);
+      return null;
+    }
+    openFileMap.put(key, fileObj);
+    return fileObj;
+  }
+
+  /**
+   * Writes any pending records, forces and closes the file.
+   * @param fileObj the file.
+   * @param curTimeMs the current time.
+   */
+  private void closeFile(ArchiveFile fileObj, long curTimeMs) {
+    if (fileObj.numPending > 0) {
+      writePending(fileObj, curTimeMs);
+    }
+    try {
+      fileObj.force();
+    } catch (IOException ex) {
+      LogMgr.usrMsgWarning(msgPromptStr + "Error forcing file \""
+          + fileObj.file + "\":  " + ex);
+    }
+    fileObj.close();
+  }
+
+  /**
+   * Closes all of the open files.
+   */
+  private void closeAllFiles() {
+    final long curTimeMs = System.currentTimeMillis();
+    final Iterator it = openFileMap.values().iterator();
+    while (it.hasNext()) {
+      closeFile((ArchiveFile) it.next(), curTimeMs);
+      it.remove();
+    }
+  }
+
+  /**
+   * Forces the files written to since the last commit to the disk and closes
+   * the files that have been idle for the idle time.
+   * @param curTimeMs the current time.
+   */
+  private void commitFiles(long curTimeMs) {
+    lastCommitTimeMs = curTimeMs;
+    final Iterator it = openFileMap.values().iterator();
+    ArchiveFile fileObj;
+    while (it.hasNext()) {
+      fileObj = (ArchiveFile) it.next();
+      if (curTimeMs - fileObj.lastWriteTimeMs >= idleTimeMs) { // idle
+        it.remove();
+        closeFile(fileObj, curTimeMs);
+      } else if (fileObj.dirtyFlag) {
+        try {
+          fileObj.force();
+        } catch (IOException ex) {
+          LogMgr.usrMsgWarning(msgPromptStr + "Error forcing file \""
+              + fileObj.file + "\":  " + ex);
+        }
+      }
+    }
+  }
+
+  /**
+   * Class ArchiveFile is an open archive file.
+   */
+  private static class ArchiveFile {
+    /** The 'Long' channel-ID and day key. */
+    final Long key;
+
+    /** The file. */
+    final File file;
+
+    /** The output stream for the file (opened for appending.) */
+    private final FileOutputStream outStm;
+
+    /** The file channel. */
+    private final FileChannel channel;
+
+    /** The output stream for the index file (opened for appending.) */
+    private final FileOutputStream indexOutStm;
+
+    /** The index file channel. */
+    private final FileChannel indexChannel;
+
+    /** The index entries to be written. */
+    private ByteBuffer entriesBuf = ByteBuffer
+        .allocate(16 * MiniSeedArchiveIndex.ENTRY_LENGTH);
+
+    /** The index entry. */
+    private final MiniSeedArchiveIndex.Entry entry =
+        new MiniSeedArchiveIndex.Entry();
+
+    /** The view for parsing the records. */
+    private final DataRecordView view = new DataRecordView();
+
+    /** The file length including the records to be written. */
+    private long length;
+
+    /** The records to be written. */
+    private ByteBuffer[] pendingArr = new ByteBuffer[16];
+
+    /** The number of records to be written. */
+    int numPending = 0;
+
+    /** The next file with records to be written in the current batch. */
+    ArchiveFile nextBatchFile = null;
+
+    /** The time of the last write. */
+    long lastWriteTimeMs = 0;
+
+    /** True if written to since the last force. */
+    boolean dirtyFlag = false;
+
+    /**
+     * Opens the archive file for appending, creating the file and its
+     * directory if needed. The index file is brought up to date with the
+     * records of the file.
+     * @param key the 'Long' channel-ID and day key.
+     * @param file the file.
+     * @throws IOException if the file could not be opened.
+     */
+    ArchiveFile(Long key, File file) throws IOException {
+      this.key = key;
+      this.file = file;
+      final File dir = file.getParentFile();
+      if (dir != null && !dir.isDirectory() && !dir.mkdirs()
+          && !dir.isDirectory()) {
+        throw new IOException("Unable to create directory \"" + dir + "\"");
+      }
+      length = MiniSeedArchiveIndex.prepareForAppend(file);
+      outStm = new FileOutputStream(file, true);
+      channel = outStm.getChannel();
+      try {
+        indexOutStm = new FileOutputStream(MiniSeedArchiveIndex
+            .getIndexFile(file), true);
+        indexChannel = indexOutStm.getChannel();
+        if (indexChannel.size() == 0) {
+          MiniSeedArchiveIndex.writeHeader(indexChannel);
+        }
+      } catch (IOException ex) {
+        SLinkUtilFns.close(outStm);
+        throw ex;
+      }
+    }
+
+    /**
+     * Adds the record to be written.
+     * @param recordArr the record.
+     */
+    void addPending(byte[] recordArr) {
+      if (numPending >= pendingArr.length) {
+        final ByteBuffer[] arr = new ByteBuffer[pendingArr.length * 2];
+        System.arraycopy(pendingArr, 0, arr, 0, numPending);
+        pendingArr = arr;
+      }
+      final ByteBuffer buf = ByteBuffer.wrap(recordArr);
+      pendingArr[numPending++] = buf;
+      if (entry.parse(buf, 0, recordArr.length, view)) {
+        if (entriesBuf.remaining() < MiniSeedArchiveIndex.ENTRY_LENGTH) {
+          final ByteBuffer newBuf = ByteBuffer
+              .allocate(entriesBuf.capacity() * 2);
+          entriesBuf.flip();
+          newBuf.put(entriesBuf);
+          entriesBuf = newBuf;
+        }
+        entry.offset = length;
+        entry.recordLength = recordArr.length;
+        entry.put(entriesBuf);
+      }
+      length += recordArr.length;
+    }
+
+    /**
+     * Writes the pending records and then their index entries.
+     * @param curTimeMs the current time.
+     * @throws IOException if an I/O error occurs.
+     */
+    void writePending(long curTimeMs) throws IOException {
+      try {
+        int offset = 0;
+        while (offset < numPending) {
+          channel.write(pendingArr, offset, numPending - offset);
+          while (offset < numPending && !pendingArr[offset].hasRemaining()) {
+            pendingArr[offset++] = null;
+          }
+        }
+      } finally {
+        for (int i = 0; i < numPending; i++) {
+          pendingArr[i] = null;
+        }
+        numPending = 0;
+      }
+      try {
+        entriesBuf.flip();
+        while (entriesBuf.hasRemaining()) {
+          indexChannel.write(entriesBuf);
+        }
+      } finally {
+        entriesBuf.clear();
+      }
+      lastWriteTimeMs = curTimeMs;
+      dirtyFlag = true;
+    }
+
+    /**
+     * Forces the written records to the disk (if written to since the last
+     * force.)
+     * @throws IOException if an I/O error occurs.
+     */
+    void force() throws IOException {
+      if (dirtyFlag) {
+        dirtyFlag = false;
+        channel.force(false);
+        indexChannel.force(false);
+      }
+    }
+
+    /**
+     * Closes the file.
+     */
+    void close() {
+      SLinkUtilFns.close(indexOutStm);
+      SLinkUtilFns.close(outStm);
+    }
+  }
+
+  /**
+   * Class ArchiveQueue implements the write-to-archive operation.
+   */
+  private class ArchiveQueue extends NotifyEventQueue {
+    // local prompt for user messages:
+    private static final String QUEUE_NAME_STR = "ArchiveWriterQueue";
+    private static final String qMsgPromptStr = QUEUE_NAME_STR + ":  ";
+
+    /** True if the queue thread has stopped. */
+    private boolean stoppedFlag = false;
+
+    /**
+     * Creates the queue.
+     */
+    public ArchiveQueue() {
+      super(QUEUE_NAME_STR); // set queue/thread name
+    }
+
+    /**
+     * Executing method for queue.
+     */
+    public void run() {
+      if (LogMgr.isDebugLevel2()) { // debug-mask bit set; output debug message:
+        LogMgr.usrMsgDebug(qMsgPromptStr + "Archive queue thread started");
+      }
+      try {
+        Object obj;
+        int count;
+        long curTimeMs, waitTimeMs;
+        while (!finishRunning()) { // loop until thread is terminated
+          count = 0;
+          while (count < WRITE_BATCH_SIZE && (obj = pullEvent()) != null) {
+            if (obj instanceof MiniSeedMsgHldr) {
+              batchMsgArr[count++] = (MiniSeedMsgHldr) obj;
+            }
+          }
+          if (count > 0) { // messages pulled from queue; write them
+            writeBatch(count);
+          }
+          curTimeMs = System.currentTimeMillis();
+          if ((waitTimeMs = lastCommitTimeMs + commitIntervalMs - curTimeMs)
+              <= 0) { // commit interval elapsed
+            commitFiles(curTimeMs);
+            waitTimeMs = commitIntervalMs;
+          }
+          if (count < WRITE_BATCH_SIZE && isEmpty()) {
+            // queue empty; wait for thread notify or commit time
+            waitForNotify(Math.max(waitTimeMs, 1));
+          }
+        }
+      } catch (Exception ex) { // some kind of exception error; log it
+        LogMgr.usrMsgWarning(qMsgPromptStr + "Exception error in thread:  "
+            + ex);
+        LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+      }
+      closeAllFiles();
+      synchronized (this) {
+        stoppedFlag = true;
+        notifyAll();
+      }
+      if (LogMgr.isDebugLevel2()) { // debug-mask bit set; output debug message:
+        LogMgr.usrMsgDebug(qMsgPromptStr + "Archive queue thread stopped");
+      }
+    }
+
+    /**
+     * Waits for the queue thread to stop.
+     * @param waitTimeMs the maximum time to wait in milliseconds.
+     */
+    public synchronized void waitForStop(long waitTimeMs) {
+      final long endTime = System.currentTimeMillis() + waitTimeMs;
+      long timeMs = waitTimeMs;
+      try {
+        while (!stoppedFlag && timeMs > 0) {
+          wait(timeMs);
+          timeMs = endTime - System.currentTimeMillis();
+        }
+      } catch (InterruptedException ex) {
+      }
+    }
+  }
+}
@@ -0,0 +1,639 @@
+//MiniSeedMsgFileCache.java:  Defines a miniSEED message cache that stores
+//                            the framed records in a memory-mapped ring
+//                            file.
+//
+// 10/17/2026 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Added 'getRequestIndexRange()' method for cursors.
+// 10/17/2026 -- [KF]  Changed to find the begin and end time with a
+//                     start-time index.
+// 10/17/2026 -- [KF]  Changed to use the channel IDs from the channel
+//                     registry.
+// 10/17/2026 -- [KF]  Added 'getLastMessageNumber()' method.
+// 10/17/2026 -- [KF]  Changed to find a message number with the
+//                     'getIndex()' method of the base class.
+//
+
+package com.isti.slinkutil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class MiniSeedMsgFileCache defines a miniSEED message cache that stores
+ * the framed SeedLink packets in a memory-mapped ring file, so the cached
+ * messages survive a restart. The file starts with a header (the head and
+ * tail sequence numbers and the wrap count) followed by fixed-size slots.
+ * Each slot holds a slot header (sequence number, time created, start time,
+ * message number, number of samples and packet length) followed by the
+ * packet. Messages are given increasing sequence numbers and the message
+ * with sequence number 'seq' is stored in slot 'seq % capacity'.
+ * <p>
+ * When the cache is created for an existing file the index is rebuilt by
+ * scanning the slot headers for the newest contiguous run of messages. A
+ * slot's sequence number is cleared before the slot is overwritten and
+ * written after the packet, so a partly written slot is not restored.
+ * <p>
+ * As with 'MiniSeedMsgSlabCache' only a compact index of primitive arrays
+ * is kept on the heap and 'MiniSeedMsgHldr' objects are only created for
+ * the messages returned by 'requestMessages()'. The ring capacity is fixed
+ * when the file is created; the maximum message count only limits the
+ * number of messages kept. The 'add()' or 'removeMessages()' method should
+ * be called on a periodic basis to remove old objects from the cache.
+ */
+public class MiniSeedMsgFileCache extends AbstractMiniSeedMsgCache {
+  /** The default miniSEED record length. */
+  public static final int DEFAULT_RECORD_LENGTH = 512;
+
+  /** The maximum size in bytes of each mapped segment of the file. */
+  public static final int SEGMENT_SIZE = 256 * 1024 * 1024;
+
+  /** The file header length. */
+  public static final int FILE_HEADER_LENGTH = 64;
+
+  /** The slot header length. */
+  public static final int SLOT_HEADER_LENGTH = 40;
+
+  /** The file header magic number ("SLRC".) */
+  private static final int FILE_MAGIC = 0x534C5243;
+
+  /** The file format version. */
+  private static final int FILE_VERSION = 1;
+
+  /** File header offset of the magic number. */
+  private static final int MAGIC_OFFSET = 0;
+
+  /** File header offset of the format version. */
+  private static final int VERSION_OFFSET = 4;
+
+  /** File header offset of the slot length. */
+  private static final int SLOT_LENGTH_OFFSET = 8;
+
+  /** File header offset of the capacity. */
+  private static final int CAPACITY_OFFSET = 12;
+
+  /** File header offset of the head sequence number. */
+  private static final int HEAD_SEQUENCE_OFFSET = 16;
+
+  /** File header offset of the tail (next) sequence number. */
+  private static final int TAIL_SEQUENCE_OFFSET = 24;
+
+  /** File header offset of the wrap count. */
+  private static final int WRAP_COUNT_OFFSET = 32;
+
+  /** Slot header offset of the sequence number. */
+  private static final int SLOT_SEQUENCE_OFFSET = 0;
+
+  /** Slot header offset of the time created. */
+  private static final int SLOT_TIME_CREATED_OFFSET = 8;
+
+  /** Slot header offset of the start time. */
+  private static final int SLOT_START_TIME_OFFSET = 16;
+
+  /** Slot header offset of the message number. */
+  private static final int SLOT_MSG_NUM_OFFSET = 24;
+
+  /** Slot header offset of the number of samples. */
+  private static final int SLOT_NUM_SAMPLES_OFFSET = 28;
+
+  /** Slot header offset of the packet length. */
+  private static final int SLOT_PACKET_LENGTH_OFFSET = 32;
+
+  /** The sequence number of an empty slot. */
+  private static final long EMPTY_SEQUENCE = -1;
+
+  /** The ring file. */
+  private final File file;
+
+  /** The slot length (slot header and maximum SeedLink packet length.) */
+  private final int slotLength;
+
+  /** The number of slots in the ring. */
+  private final int capacity;
+
+  /** The number of slots in each mapped segment. */
+  private final int slotsPerSegment;
+
+  /** The mapped file header. */
+  private final MappedByteBuffer headerBuffer;
+
+  /** The mapped segments of slots. */
+  private final MappedByteBuffer[] segmentArr;
+
+  /** The message number for each slot. */
+  private final int[] msgNumArr;
+
+  /** The message start time for each slot. */
+  private final long[] startTimeArr;
+
+  /** The time the message was created for each slot. */
+  private final long[] timeCreatedArr;
+
+  /** The channel ID for each slot. */
+  private final int[] channelIdArr;
+
+  /** The sequence number of the oldest message. */
+  private long headSequence = 0;
+
+  /** The sequence number for the next message. */
+  private long tailSequence = 0;
+
+  /** The message number of the newest message saved or -1 if none. */
+  private int lastMsgNumVal = -1;
+
+  /** The start-time index. */
+  private final MiniSeedMsgTimeIndex timeIndexObj;
+
+  /** The time in milliseconds taken to recover the index. */
+  private final long recoveryTimeMs;
+
+  /**
+   * Create the miniSEED message file cache.
+   * @param file the ring file.
+   * @param capacity the ring capacity (the number of messages.)
+   * @throws IOException if an I/O error occurs.
+   */
+  public MiniSeedMsgFileCache(File file, int capacity) throws IOException {
+    this(file, capacity, DEFAULT_RECORD_LENGTH, DEFAULT_WAIT_TIME_MS);
+  }
+
+  /**
+   * Create the miniSEED message file cache. If the file exists and has the
+   * same capacity and record length then the messages in it are restored,
+   * otherwise the file is (re)initialized.
+   * @param file the ring file.
+   * @param capacity the ring capacity (the number of messages.)
+   * @param recordLength the maximum miniSEED record length.
+   * @param waitTimeMs the wait time in milliseconds. This can be set so that
+   * messages are removed even if no messages are added.
+   * @throws IOException if an I/O error occurs.
+   */
+  public MiniSeedMsgFileCache(File file, int capacity, int recordLength,
+      long waitTimeMs) throws IOException {
+    super(waitTimeMs);
+    this.file = file;
+    this.capacity = Math.max(capacity, 1);
+    slotLength = SLOT_HEADER_LENGTH + MiniSeedMsgHldr.SLINK_HEADER_LENGTH
+        + recordLength;
+    slotsPerSegment = Math.max(SEGMENT_SIZE / slotLength, 1);
+    final long fileLength = FILE_HEADER_LENGTH + (long) this.capacity
+        * slotLength;
+    final boolean existsFlag = file.isFile() && file.length() == fileLength;
+    final boolean emptyFlag = !file.isFile() || file.length() == 0;
+    final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(fileLength);
+      final FileChannel fileChannel = raf.getChannel();
+      headerBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+          FILE_HEADER_LENGTH);
+      segmentArr = new MappedByteBuffer[(this.capacity + slotsPerSegment - 1)
+          / slotsPerSegment];
+      int numSlots;
+      for (int i = 0; i < segmentArr.length; i++) {
+        numSlots = Math.min(slotsPerSegment, this.capacity - i
+            * slotsPerSegment);
+        segmentArr[i] = fileChannel.map(FileChannel.MapMode.READ_WRITE,
+            FILE_HEADER_LENGTH + (long) i * slotsPerSegment * slotLength,
+            (long) numSlots * slotLength);
+      }
+    } finally {
+      // the mappings remain valid after the file is closed
+      raf.close();
+    }
+    msgNumArr = new int[this.capacity];
+    startTimeArr = new long[this.capacity];
+    timeCreatedArr = new long[this.capacity];
+    channelIdArr = new int[this.capacity];
+    timeIndexObj = new MiniSeedMsgTimeIndex(this.capacity);
+    final long startTime = System.currentTimeMillis();
+    if (existsFlag && headerBuffer.getInt(MAGIC_OFFSET) == FILE_MAGIC
+        && headerBuffer.getInt(VERSION_OFFSET) == FILE_VERSION
+        && headerBuffer.getInt(SLOT_LENGTH_OFFSET) == slotLength
+        && headerBuffer.getInt(CAPACITY_OFFSET) == this.capacity) {
+      recover();
+    } else {
+      if (!emptyFlag) {
+        LogMgr.usrMsgInfo("MiniSeedMsgFileCache:  Initializing ring file \""
+            + file + "\"");
+      }
+      initialize(!emptyFlag);
+    }
+    recoveryTimeMs = System.currentTimeMillis() - startTime;
+  }
+
+  /**
+   * Clears the slot with the specified sequence number.
+   * @param sequence the sequence number.
+   */
+  private void clearSlot(long sequence) {
+    final int slotIndex = getSlotIndex(sequence);
+    getSegment(slotIndex).putLong(getSegmentOffset(slotIndex)
+        + SLOT_SEQUENCE_OFFSET, EMPTY_SEQUENCE);
+  }
+
+  /**
+   * Writes any changes to the file.
+   */
+  public synchronized void force() {
+    for (int i = 0; i < segmentArr.length; i++) {
+      segmentArr[i].force();
+    }
+    headerBuffer.force();
+  }
+
+  /**
+   * Get the ring capacity.
+   * @return the ring capacity.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Get the ring file.
+   * @return the ring file.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Get the message number of the newest message saved, including one
+   * restored from the file that has since been removed from the cache. The
+   * message manager continues the message numbers after this one so that
+   * clients may resume after a restart.
+   * @return the message number or -1 if none.
+   */
+  public synchronized int getLastMessageNumber() {
+    return lastMsgNumVal;
+  }
+
+  /**
+   * Return the message at the specified index. A new message object is
+   * created with a copy of the packet from the file.
+   * @param index the index of the message to return (0 is the oldest).
+   * @return the message.
+   * @throws IndexOutOfBoundsException if the specified index is out of range.
+   */
+  public synchronized MiniSeedMsgHldr getMessage(int index) {
+    if (index < 0 || index >= getNumMessagesValue())
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+          + getNumMessagesValue());
+    final int slotIndex = getSlotIndex(headSequence + index);
+    final MappedByteBuffer segment = getSegment(slotIndex);
+    final int offset = getSegmentOffset(slotIndex);
+    final byte[] packetArray = new byte[segment.getInt(offset
+        + SLOT_PACKET_LENGTH_OFFSET)];
+    segment.position(offset + SLOT_HEADER_LENGTH);
+    segment.get(packetArray);
+    final byte[] messageDataArray = new byte[packetArray.length
+        - MiniSeedMsgHldr.SLINK_HEADER_LENGTH];
+    System.arraycopy(packetArray, MiniSeedMsgHldr.SLINK_HEADER_LENGTH,
+        messageDataArray, 0, messageDataArray.length);
+    return new MiniSeedMsgHldr(
+        SLinkChannelRegistry.getChannel(channelIdArr[slotIndex]),
+        new SeedTime(startTimeArr[slotIndex]), messageDataArray,
+        segment.getInt(offset + SLOT_NUM_SAMPLES_OFFSET),
+        new SLinkMessageNumber(msgNumArr[slotIndex], null,
+            timeCreatedArr[slotIndex]), packetArray);
+  }
+
+  /**
+   * Return the start time of the message at the specified index.
+   * @param index the index of the message (0 is the oldest).
+   * @return the start time, in milliseconds since 1/1/1970.
+   */
+  protected long getStartTimeMsVal(int index) {
+    return startTimeArr[getSlotIndex(headSequence + index)];
+  }
+
+  /**
+   * Returns the number of messages in the cache.
+   * @return the number of messages in the cache.
+   */
+  public synchronized int getNumMessages() {
+    return getNumMessagesValue();
+  }
+
+  /**
+   * Returns the number of messages in the cache.
+   * @return the number of messages in the cache.
+   */
+  private int getNumMessagesValue() {
+    return (int) (tailSequence - headSequence);
+  }
+
+  /**
+   * Get the time taken to recover the index when the cache was created.
+   * @return the time in milliseconds.
+   */
+  public long getRecoveryTimeMs() {
+    return recoveryTimeMs;
+  }
+
+  /**
+   * Returns the segment for the specified slot index.
+   * @param slotIndex the slot index.
+   * @return the segment.
+   */
+  private MappedByteBuffer getSegment(int slotIndex) {
+    return segmentArr[slotIndex / slotsPerSegment];
+  }
+
+  /**
+   * Returns the segment offset for the specified slot index.
+   * @param slotIndex the slot index.
+   * @return the segment offset.
+   */
+  private int getSegmentOffset(int slotIndex) {
+    return (slotIndex % slotsPerSegment) * slotLength;
+  }
+
+  /**
+   * Returns the slot index for the specified sequence number.
+   * @param sequence the sequence number.
+   * @return the slot index.
+   */
+  private int getSlotIndex(long sequence) {
+    return (int) (sequence % capacity);
+  }
+
+  /**
+   * Initializes an empty ring file.
+   * @param clearFlag true to clear the slots, false if the file is new (and
+   * filled with zeros.)
+   */
+  private void initialize(boolean clearFlag) {
+    for (int i = 0; clearFlag && i < capacity; i++) {
+      clearSlot(i);
+    }
+    headSequence = tailSequence = 0;
+    timeIndexObj.clear();
+    headerBuffer.putInt(MAGIC_OFFSET, FILE_MAGIC);
+    headerBuffer.putInt(VERSION_OFFSET, FILE_VERSION);
+    headerBuffer.putInt(SLOT_LENGTH_OFFSET, slotLength);
+    headerBuffer.putInt(CAPACITY_OFFSET, capacity);
+    writeHeader();
+  }
+
+  /**
+   * Reads the slot header with the specified slot index into the index.
+   * @param slotIndex the slot index.
+   * @return the sequence number in the slot header or 'EMPTY_SEQUENCE' if
+   * the slot is empty or not valid.
+   */
+  private long readSlotHeader(int slotIndex) {
+    final MappedByteBuffer segment = getSegment(slotIndex);
+    final int offset = getSegmentOffset(slotIndex);
+    final long sequence = segment.getLong(offset + SLOT_SEQUENCE_OFFSET);
+    final int packetLength = segment.getInt(offset
+        + SLOT_PACKET_LENGTH_OFFSET);
+    if (sequence < 0 || getSlotIndex(sequence) != slotIndex
+        || packetLength <= MiniSeedMsgHldr.SLINK_HEADER_LENGTH
+        || packetLength > slotLength - SLOT_HEADER_LENGTH) {
+      return EMPTY_SEQUENCE;
+    }
+    msgNumArr[slotIndex] = segment.getInt(offset + SLOT_MSG_NUM_OFFSET);
+    startTimeArr[slotIndex] = segment.getLong(offset
+        + SLOT_START_TIME_OFFSET);
+    timeCreatedArr[slotIndex] = segment.getLong(offset
+        + SLOT_TIME_CREATED_OFFSET);
+    return sequence;
+  }
+
+  /**
+   * Returns the channel for the miniSEED record in the specified slot.
+   * @param slotIndex the slot index.
+   * @return the channel.
+   */
+  private IStaChaNetLoc readSlotChannel(int slotIndex) {
+    final MappedByteBuffer segment = getSegment(slotIndex);
+    // the station, location, channel and network codes are at offset 8
+    // of the miniSEED record
+    final char[] codeArray = new char[12];
+    final int offset = getSegmentOffset(slotIndex) + SLOT_HEADER_LENGTH
+        + MiniSeedMsgHldr.SLINK_HEADER_LENGTH + 8;
+    for (int i = 0; i < codeArray.length; i++) {
+      codeArray[i] = (char) (segment.get(offset + i) & 0xFF);
+    }
+    final String codeStr = new String(codeArray);
+    return new StaChaNetLoc(codeStr.substring(0, 5).trim(), codeStr
+        .substring(7, 10).trim(), codeStr.substring(10, 12).trim(), codeStr
+        .substring(5, 7).trim());
+  }
+
+  /**
+   * Rebuilds the index by scanning the slot headers. The newest contiguous
+   * run of messages is restored.
+   */
+  private void recover() {
+    long maxSequence = EMPTY_SEQUENCE;
+    long sequence;
+    for (int i = 0; i < capacity; i++) {
+      if ((sequence = readSlotHeader(i)) > maxSequence)
+        maxSequence = sequence;
+    }
+    if (maxSequence == EMPTY_SEQUENCE) { // no messages
+      final long tail = Math.max(headerBuffer.getLong(TAIL_SEQUENCE_OFFSET),
+          0);
+      headSequence = tailSequence = tail;
+    } else {
+      tailSequence = maxSequence + 1;
+      lastMsgNumVal = msgNumArr[getSlotIndex(maxSequence)];
+      // the messages before the header head sequence were removed
+      final long minSequence = Math.max(Math.max(tailSequence - capacity,
+          headerBuffer.getLong(HEAD_SEQUENCE_OFFSET)), 0);
+      headSequence = tailSequence;
+      int slotIndex;
+      while (headSequence > minSequence) {
+        slotIndex = getSlotIndex(headSequence - 1);
+        if (getSegment(slotIndex).getLong(getSegmentOffset(slotIndex)
+            + SLOT_SEQUENCE_OFFSET) != headSequence - 1) {
+          break; // gap in the messages
+        }
+        --headSequence;
+      }
+    }
+    // get the channels of the restored messages from the miniSEED headers
+    int slotIndex;
+    for (long s = headSequence; s < tailSequence; s++) {
+      slotIndex = getSlotIndex(s);
+      channelIdArr[slotIndex] = SLinkChannelRegistry.getChannelId(
+          readSlotChannel(slotIndex));
+    }
+    // index the start times, up to the end of the ring and then any
+    // wrapped part
+    final int numMessages = getNumMessagesValue();
+    final int headSlotIndex = getSlotIndex(headSequence);
+    final int firstLength = Math.min(numMessages, capacity - headSlotIndex);
+    timeIndexObj.add(startTimeArr, headSlotIndex, firstLength);
+    timeIndexObj.add(startTimeArr, 0, numMessages - firstLength);
+    writeHeader();
+    if (LogMgr.isDebugLevel2()) {
+      LogMgr.usrMsgDebug("MiniSeedMsgFileCache:  Recovered "
+          + getNumMessagesValue() + " messages from \"" + file + "\"");
+    }
+  }
+
+  /**
+   * Removes the oldest message.
+   */
+  private void removeFirst() {
+    ++headSequence;
+    timeIndexObj.removeFirst();
+  }
+
+  /**
+   * Removes messages if needed.
+   * @return true if any messages were removed, false otherwise.
+   */
+  public synchronized boolean removeMessages() {
+    boolean removedFlag = false;
+    // if maximum message age exists
+    if (getNumMessagesValue() > 0 && getMaximumMessageAge() > 0) {
+      final long removeTime = System.currentTimeMillis()
+          - getMaximumMessageAge();
+      while (getNumMessagesValue() > 0
+          && timeCreatedArr[getSlotIndex(headSequence)] <= removeTime) {
+        removeFirst();
+        removedFlag = true;
+      }
+    }
+    // while maximum message count exists and cache is at or over limit
+    final int maxCount = getMaximumMessageCount();
+    while (maxCount > 0 && getNumMessagesValue() >= maxCount) {
+      removeFirst();
+      removedFlag = true;
+    }
+    if (removedFlag)
+      writeHeader();
+    return removedFlag;
+  }
+
+  /**
+   * Returns the range of list indexes for the 'miniSEED' messages starting
+   * with the given message number and filtered by the begin and end time.
+   * The caller should be synchronized on the cache.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @return An array with the index of the first message and the index
+   * after the last message.
+   */
+  protected int[] getRequestIndexRange(int msgNumVal, SLinkTime beginTime,
+      SLinkTime endTime) {
+    if (getNumMessagesValue() <= 0) // if cache empty then
+      return new int[] { 0, 0 }; // no messages
+    // start with the message number or first if none
+    int fromIndex = getIndex(msgNumVal);
+    int toIndex = getNumMessagesValue();
+    // get index after last msg <= end-time value:
+    if (endTime != null)
+      toIndex = timeIndexObj.getIndexAfterTimeVal(fromIndex, toIndex, endTime
+          .getTime());
+    // get index for first msg >= begin-time value:
+    if (beginTime != null)
+      fromIndex = timeIndexObj.getFirstIndexForTimeVal(fromIndex, toIndex,
+          beginTime.getTime());
+    if (LogMgr.isDebugLevel2()) {
+      LogMgr.usrMsgDebug("CACHE_DEBUG_reqMsgs:  msgNumVal=" + msgNumVal
+          + ", beginTime=" + beginTime + ", endTime=" + endTime
+          + ", fromIndex=" + fromIndex + ", toIndex=" + toIndex);
+    }
+    return new int[] { fromIndex, toIndex };
+  }
+
+  /**
+   * Return the message number of the message at the specified index.
+   * @param index the index of the message (0 is the oldest).
+   * @return the message number.
+   */
+  protected int getMessageNumber(int index) {
+    return msgNumArr[getSlotIndex(headSequence + index)];
+  }
+
+  /**
+   * Requests 'miniSEED' messages from the cache, starting with the
+   * given message number and filtered by the begin and end time.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @return An array of 'MiniSeedMsgHldr' objects.
+   */
+  public synchronized MiniSeedMsgHldr[] requestMessages(int msgNumVal,
+      SLinkTime beginTime, SLinkTime endTime) {
+    final int[] range = getRequestIndexRange(msgNumVal, beginTime, endTime);
+    final int fromIndex = range[0];
+    final int toIndex = range[1];
+    if (fromIndex >= toIndex) // if no messages between from/to
+      return getEmptyMsgArray(); // then return no messages
+    final MiniSeedMsgHldr[] msgArr = new MiniSeedMsgHldr[toIndex - fromIndex];
+    for (int i = 0; i < msgArr.length; i++)
+      msgArr[i] = getMessage(fromIndex + i);
+    // remove any out-of-order messages not within the begin and end time
+    return filterMessages(msgArr, beginTime, endTime);
+  }
+
+  /**
+   * Saves the message.
+   * @param miniSeedMsg the message.
+   */
+  public synchronized void saveMessage(MiniSeedMsgHldr miniSeedMsg) {
+    final byte[] packetArray = miniSeedMsg.getSLinkPacketArray();
+    if (packetArray.length > slotLength - SLOT_HEADER_LENGTH) {
+      LogMgr.usrMsgWarning("MiniSeedMsgFileCache:  Message too long for slot ("
+          + packetArray.length + " > " + (slotLength - SLOT_HEADER_LENGTH)
+          + "):  " + miniSeedMsg);
+      return;
+    }
+    if (getNumMessagesValue() >= capacity) // ring is full
+      removeFirst(); // overwrite the oldest message
+    final long sequence = tailSequence;
+    final int slotIndex = getSlotIndex(sequence);
+    final MappedByteBuffer segment = getSegment(slotIndex);
+    final int offset = getSegmentOffset(slotIndex);
+    // clear the sequence number first so a partly written slot is not valid
+    segment.putLong(offset + SLOT_SEQUENCE_OFFSET, EMPTY_SEQUENCE);
+    segment.position(offset + SLOT_HEADER_LENGTH);
+    segment.put(packetArray);
+    segment.putLong(offset + SLOT_TIME_CREATED_OFFSET, miniSeedMsg
+        .getTimeCreated());
+    segment.putLong(offset + SLOT_START_TIME_OFFSET, miniSeedMsg
+        .getStartTimeMsVal());
+    segment.putInt(offset + SLOT_MSG_NUM_OFFSET, miniSeedMsg
+        .getMessageNumber());
+    segment.putInt(offset + SLOT_NUM_SAMPLES_OFFSET, miniSeedMsg
+        .getNumSamples());
+    segment.putInt(offset + SLOT_PACKET_LENGTH_OFFSET, packetArray.length);
+    segment.putLong(offset + SLOT_SEQUENCE_OFFSET, sequence);
+    msgNumArr[slotIndex] = miniSeedMsg.getMessageNumber();
+    startTimeArr[slotIndex] = miniSeedMsg.getStartTimeMsVal();
+    timeCreatedArr[slotIndex] = miniSeedMsg.getTimeCreated();
+    channelIdArr[slotIndex] = miniSeedMsg.getChannelId();
+    tailSequence = sequence + 1;
+    lastMsgNumVal = msgNumArr[slotIndex];
+    timeIndexObj.add(startTimeArr[slotIndex]);
+    writeHeader();
+  }
+
+  /**
+   * Stops the add-message-queue processing thread for the cache and writes
+   * any changes to the file.
+   */
+  public void stopProcessingThread() {
+    super.stopProcessingThread();
+    force();
+  }
+
+  /**
+   * Writes the head and tail sequence numbers and the wrap count to the
+   * file header.
+   */
+  private void writeHeader() {
+    headerBuffer.putLong(HEAD_SEQUENCE_OFFSET, headSequence);
+    headerBuffer.putLong(TAIL_SEQUENCE_OFFSET, tailSequence);
+    headerBuffer.putLong(WRAP_COUNT_OFFSET, tailSequence / capacity);
+  }
+}
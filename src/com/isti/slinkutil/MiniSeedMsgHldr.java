@@ -5,6 +5,9 @@
 //   2/1/2010 -- [ET]  Added 'getStartTimeObj()' method; modified to extend
 //                     the 'Number' class to facilitate using this class
 //                     with a comparator.
+// 10/17/2026 -- [KF]  Added 'getSLinkPacketArray()' method.
+// 10/17/2026 -- [KF]  Added constructor with the framed SeedLink packet.
+// 10/17/2026 -- [KF]  Added 'getChannelId()' method.
 //
 
 package com.isti.slinkutil;
@@ -23,11 +26,17 @@ public class MiniSeedMsgHldr extends Number {
    * 
    */
 	private static final long serialVersionUID = 1L;
+	/** The length of the SeedLink packet header ("SL" plus message number). */
+	public static final int SLINK_HEADER_LENGTH = 8;
 	private final byte[] messageDataArray;
 	private final IMessageNumber messageNumber;
 	private final int numSamples;
 	private final IStaChaNetLoc staChaNetLoc;
 	private final SeedTime startTime;
+	/** The channel ID or -1 if not yet determined. */
+	private int channelId = -1;
+	/** The framed SeedLink packet or null if not yet framed. */
+	private byte[] sLinkPacketArray = null;
 
 	/**
 	 * Creates a miniSEED holder object.
@@ -82,6 +91,31 @@ public class MiniSeedMsgHldr extends Number {
 				messageNumber);
 	}
 
+	/**
+	 * Creates a miniSEED holder object with the SeedLink packet already
+	 * framed, such as for a message restored from a cache.
+	 * 
+	 * @param staChaNetLoc
+	 *            station, channel, network, location.
+	 * @param startTime
+	 *            message start time.
+	 * @param messageDataArray
+	 *            byte array containing message data.
+	 * @param numSamples
+	 *            the number of samples.
+	 * @param messageNumber
+	 *            the SeedLink message number.
+	 * @param sLinkPacketArray
+	 *            the SeedLink packet (see 'getSLinkPacketArray()'.)
+	 */
+	public MiniSeedMsgHldr(IStaChaNetLoc staChaNetLoc, SeedTime startTime,
+			byte[] messageDataArray, int numSamples,
+			IMessageNumber messageNumber, byte[] sLinkPacketArray) {
+		this(staChaNetLoc, startTime, messageDataArray, numSamples,
+				messageNumber);
+		this.sLinkPacketArray = sLinkPacketArray;
+	}
+
 	/**
 	 * Returns the message start time, in milliseconds since 1/1/1970. This
 	 * method is needed to extend the 'Number' class, which facilitates using
@@ -161,6 +195,33 @@ public class MiniSeedMsgHldr extends Number {
 		return staChaNetLoc.getNetworkCode();
 	}
 
+	/**
+	 * Returns the SeedLink packet for the message, which is the "SL" prefix
+	 * followed by the message-number bytes and the message data. The packet
+	 * is framed on the first call and the same array is returned after that,
+	 * so it may be shared by all connections and must not be modified.
+	 * 
+	 * @return The byte array containing the SeedLink packet.
+	 */
+	public synchronized byte[] getSLinkPacketArray() {
+		if (sLinkPacketArray == null) {
+			final byte[] msgNumArray = messageNumber.getBytes();
+			final byte[] packetArray = new byte[SLinkConnection.SLMSG_PRESTR_ARR.length
+					+ msgNumArray.length + messageDataArray.length];
+			int offset = 0;
+			System.arraycopy(SLinkConnection.SLMSG_PRESTR_ARR, 0, packetArray,
+					offset, SLinkConnection.SLMSG_PRESTR_ARR.length);
+			offset += SLinkConnection.SLMSG_PRESTR_ARR.length;
+			System.arraycopy(msgNumArray, 0, packetArray, offset,
+					msgNumArray.length);
+			offset += msgNumArray.length;
+			System.arraycopy(messageDataArray, 0, packetArray, offset,
+					messageDataArray.length);
+			sLinkPacketArray = packetArray;
+		}
+		return sLinkPacketArray;
+	}
+
 	/**
 	 * Returns the number of samples.
 	 * 
@@ -179,6 +240,19 @@ public class MiniSeedMsgHldr extends Number {
 		return messageNumber;
 	}
 
+	/**
+	 * Returns the channel ID for the message.
+	 * 
+	 * @return The channel ID.
+	 * @see SLinkChannelRegistry
+	 */
+	public int getChannelId() {
+		if (channelId < 0) {
+			channelId = SLinkChannelRegistry.getChannelId(staChaNetLoc);
+		}
+		return channelId;
+	}
+
 	/**
 	 * Returns the SCNL object for the message.
 	 * 
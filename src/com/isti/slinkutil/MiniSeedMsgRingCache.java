@@ -0,0 +1,296 @@
+//MiniSeedMsgRingCache.java:  Defines a miniSEED message cache backed by a
+//                            fixed-capacity array ring.
+//
+// 10/17/2026 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Added 'getRequestIndexRange()' method for cursors.
+// 10/17/2026 -- [KF]  Changed to find the begin and end time with a
+//                     start-time index.
+// 10/17/2026 -- [KF]  Added a constructor for a ring that is not sized to
+//                     the maximum message count, for 'MiniSeedMsgCache'.
+// 10/17/2026 -- [KF]  Changed to find a message number with the
+//                     'getIndex()' method of the base class.
+//
+
+package com.isti.slinkutil;
+
+/**
+ * Class MiniSeedMsgRingCache defines a miniSEED message cache backed by a
+ * fixed-capacity array ring. Messages are addressed directly by their
+ * SeedLink message number (relative to the oldest message in the ring),
+ * so a "DATA seq" lookup takes constant time and the sub-range returned by
+ * 'requestMessages()' is built with at most two array copies. The
+ * 24-bit message-number rollover is handled by computing message-number
+ * distances modulo the message-number range. The 'add()' or
+ * 'removeMessages()' method should be called on a periodic basis to remove
+ * old objects from the cache.
+ */
+public class MiniSeedMsgRingCache extends AbstractMiniSeedMsgCache {
+  /** The capacity used when no maximum message count is set. */
+  public static final int DEFAULT_CAPACITY = IConfigParams.DEF_MAX_CACHE_SIZE;
+
+  /** The message ring. */
+  private MiniSeedMsgHldr[] ringArr;
+
+  /** The ring index of the oldest message. */
+  private int headIndex = 0;
+
+  /** The number of messages in the ring. */
+  private int numMessages = 0;
+
+  /** True if the ring grows when full (no maximum message count). */
+  private boolean growFlag = true;
+
+  /** True if the ring capacity is set to the maximum message count. */
+  private final boolean maxCountCapacityFlag;
+
+  /** The start-time index. */
+  private final MiniSeedMsgTimeIndex timeIndexObj;
+
+  /**
+   * Create the miniSEED message ring cache.
+   */
+  public MiniSeedMsgRingCache() {
+    this(DEFAULT_WAIT_TIME_MS);
+  }
+
+  /**
+   * Create the miniSEED message ring cache.
+   * @param waitTimeMs the wait time in milliseconds. This can be set so that
+   * messages are removed even if no messages are added.
+   */
+  public MiniSeedMsgRingCache(long waitTimeMs) {
+    this(waitTimeMs, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create the miniSEED message ring cache.
+   * @param waitTimeMs the wait time in milliseconds. This can be set so that
+   * messages are removed even if no messages are added.
+   * @param initialCapacity the initial ring capacity; the capacity is
+   * replaced by the maximum message count when one is set.
+   */
+  public MiniSeedMsgRingCache(long waitTimeMs, int initialCapacity) {
+    this(waitTimeMs, initialCapacity, true);
+  }
+
+  /**
+   * Create the miniSEED message ring cache.
+   * @param waitTimeMs the wait time in milliseconds. This can be set so that
+   * messages are removed even if no messages are added.
+   * @param initialCapacity the initial ring capacity.
+   * @param maxCountCapacityFlag true if the capacity is replaced by the
+   * maximum message count when one is set, false if the ring only grows as
+   * needed and the maximum message count is left to 'removeMessages()'.
+   */
+  protected MiniSeedMsgRingCache(long waitTimeMs, int initialCapacity,
+      boolean maxCountCapacityFlag) {
+    super(waitTimeMs);
+    this.maxCountCapacityFlag = maxCountCapacityFlag;
+    ringArr = new MiniSeedMsgHldr[Math.max(initialCapacity, 1)];
+    timeIndexObj = new MiniSeedMsgTimeIndex(ringArr.length);
+  }
+
+  /**
+   * Get the ring capacity.
+   * @return the ring capacity.
+   */
+  public synchronized int getCapacity() {
+    return ringArr.length;
+  }
+
+  /**
+   * Get the first miniSEED message.
+   * @return the first miniSEED message.
+   * @throws IndexOutOfBoundsException if this cache is empty.
+   */
+  public synchronized MiniSeedMsgHldr getFirst() {
+    return getMessage(0);
+  }
+
+  /**
+   * Get the last miniSEED message.
+   * @return the last miniSEED message.
+   * @throws IndexOutOfBoundsException if this cache is empty.
+   */
+  public synchronized MiniSeedMsgHldr getLast() {
+    return getMessage(numMessages - 1);
+  }
+
+  /**
+   * Return the message at the specified index.
+   * @param index the index of the message to return (0 is the oldest).
+   * @return the message.
+   * @throws IndexOutOfBoundsException if the specified index is out of range.
+   */
+  public synchronized MiniSeedMsgHldr getMessage(int index) {
+    if (index < 0 || index >= numMessages)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+          + numMessages);
+    return ringArr[getRingIndex(index)];
+  }
+
+  /**
+   * Returns the number of messages in the cache.
+   * @return the number of messages in the cache.
+   */
+  public synchronized int getNumMessages() {
+    return numMessages;
+  }
+
+  /**
+   * Returns the ring index for the specified list index.
+   * @param index the list index (0 is the oldest).
+   * @return the ring index.
+   */
+  private int getRingIndex(int index) {
+    index += headIndex;
+    return (index < ringArr.length) ? index : index - ringArr.length;
+  }
+
+  /**
+   * Removes the oldest message.
+   */
+  private void removeFirst() {
+    ringArr[headIndex] = null; // release the message
+    if (++headIndex >= ringArr.length)
+      headIndex = 0;
+    --numMessages;
+    timeIndexObj.removeFirst();
+  }
+
+  /**
+   * Removes messages if needed.
+   * @return true if any messages were removed, false otherwise.
+   */
+  public synchronized boolean removeMessages() {
+    boolean removedFlag = false;
+    // if maximum message age exists
+    if (numMessages > 0 && getMaximumMessageAge() > 0) {
+      final long removeTime = System.currentTimeMillis()
+          - getMaximumMessageAge();
+      while (numMessages > 0 && getFirst().getTimeCreated() <= removeTime) {
+        removeFirst();
+        removedFlag = true;
+      }
+    }
+    // while maximum message count exists and cache is at or over limit
+    final int maxCount = getMaximumMessageCount();
+    while (maxCount > 0 && numMessages >= maxCount) {
+      removeFirst();
+      removedFlag = true;
+    }
+    return removedFlag;
+  }
+
+  /**
+   * Returns the range of list indexes for the 'miniSEED' messages starting
+   * with the given message number and filtered by the begin and end time.
+   * The caller should be synchronized on the cache.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @return An array with the index of the first message and the index
+   * after the last message.
+   */
+  protected int[] getRequestIndexRange(int msgNumVal, SLinkTime beginTime,
+      SLinkTime endTime) {
+    if (numMessages <= 0) // if cache empty then
+      return new int[] { 0, 0 }; // no messages
+    // start with the message number or first if none
+    int fromIndex = getIndex(msgNumVal);
+    int toIndex = numMessages;
+    // get index after last msg <= end-time value:
+    if (endTime != null)
+      toIndex = timeIndexObj.getIndexAfterTimeVal(fromIndex, toIndex, endTime
+          .getTime());
+    // get index for first msg >= begin-time value:
+    if (beginTime != null)
+      fromIndex = timeIndexObj.getFirstIndexForTimeVal(fromIndex, toIndex,
+          beginTime.getTime());
+    if (LogMgr.isDebugLevel2()) {
+      LogMgr.usrMsgDebug("CACHE_DEBUG_reqMsgs:  msgNumVal=" + msgNumVal
+          + ", beginTime=" + beginTime + ", endTime=" + endTime
+          + ", fromIndex=" + fromIndex + ", toIndex=" + toIndex);
+    }
+    return new int[] { fromIndex, toIndex };
+  }
+
+  /**
+   * Requests 'miniSEED' messages from the cache, starting with the
+   * given message number and filtered by the begin and end time.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @return An array of 'MiniSeedMsgHldr' objects.
+   */
+  public synchronized MiniSeedMsgHldr[] requestMessages(int msgNumVal,
+      SLinkTime beginTime, SLinkTime endTime) {
+    final int[] range = getRequestIndexRange(msgNumVal, beginTime, endTime);
+    final int fromIndex = range[0];
+    final int toIndex = range[1];
+    if (fromIndex >= toIndex) // if no messages between from/to
+      return getEmptyMsgArray(); // then return no messages
+    final MiniSeedMsgHldr[] msgArr = new MiniSeedMsgHldr[toIndex - fromIndex];
+    final int ringFromIndex = getRingIndex(fromIndex);
+    // copy up to the end of the ring and then any wrapped part
+    final int firstLength = Math.min(msgArr.length, ringArr.length
+        - ringFromIndex);
+    System.arraycopy(ringArr, ringFromIndex, msgArr, 0, firstLength);
+    if (firstLength < msgArr.length)
+      System.arraycopy(ringArr, 0, msgArr, firstLength, msgArr.length
+          - firstLength);
+    // remove any out-of-order messages not within the begin and end time
+    return filterMessages(msgArr, beginTime, endTime);
+  }
+
+  /**
+   * Resizes the ring, keeping the newest messages that fit.
+   * @param capacity the new capacity.
+   */
+  private void resize(int capacity) {
+    final MiniSeedMsgHldr[] newRingArr = new MiniSeedMsgHldr[Math.max(
+        capacity, 1)];
+    final int count = Math.min(numMessages, newRingArr.length);
+    timeIndexObj.clear();
+    for (int i = 0; i < count; i++) {
+      newRingArr[i] = getMessage(numMessages - count + i);
+      timeIndexObj.add(newRingArr[i].getStartTimeMsVal());
+    }
+    ringArr = newRingArr;
+    headIndex = 0;
+    numMessages = count;
+  }
+
+  /**
+   * Saves the message.
+   * @param miniSeedMsg the message.
+   */
+  public synchronized void saveMessage(MiniSeedMsgHldr miniSeedMsg) {
+    if (numMessages >= ringArr.length) { // ring is full
+      if (growFlag)
+        resize(ringArr.length * 2);
+      else
+        removeFirst(); // overwrite the oldest message
+    }
+    ringArr[getRingIndex(numMessages)] = miniSeedMsg;
+    ++numMessages;
+    timeIndexObj.add(miniSeedMsg.getStartTimeMsVal());
+  }
+
+  /**
+   * Set the maximum message count. The ring capacity is set to the
+   * maximum message count, or grows as needed if there is no maximum or
+   * the ring is not sized to the maximum message count.
+   * @param maximumMessageCount the maximum message count or 0 if none.
+   */
+  public synchronized void setMaximumMessageCount(int maximumMessageCount) {
+    if (maximumMessageCount > 0 && maxCountCapacityFlag) {
+      growFlag = false;
+      if (maximumMessageCount != ringArr.length)
+        resize(maximumMessageCount);
+    } else {
+      growFlag = true;
+    }
+    super.setMaximumMessageCount(maximumMessageCount);
+  }
+}
@@ -0,0 +1,408 @@
+//MiniSeedMsgSlabCache.java:  Defines a miniSEED message cache that stores
+//                            the framed records in off-heap slabs.
+//
+// 10/17/2026 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Added 'getRequestIndexRange()' method for cursors.
+// 10/17/2026 -- [KF]  Changed to find the begin and end time with a
+//                     start-time index.
+// 10/17/2026 -- [KF]  Changed to use the channel IDs from the channel
+//                     registry.
+// 10/17/2026 -- [KF]  Changed to find a message number with the
+//                     'getIndex()' method of the base class.
+//
+
+package com.isti.slinkutil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Class MiniSeedMsgSlabCache defines a miniSEED message cache that stores
+ * the framed SeedLink packets in fixed-size slots of direct 'ByteBuffer'
+ * slabs, outside of the Java heap. Only a compact index of primitive arrays
+ * (message number, start time, time created, channel ID, number of samples
+ * and packet length for each slot) is kept on the heap, so a large cache
+ * does not add millions of objects for the garbage collector to trace.
+ * The slots form a ring that is addressed by SeedLink message number the
+ * same way as 'MiniSeedMsgRingCache'. 'MiniSeedMsgHldr' objects are only
+ * created (with copies of the packets) for the messages returned by
+ * 'requestMessages()'. The 'add()' or 'removeMessages()' method should be
+ * called on a periodic basis to remove old objects from the cache.
+ */
+public class MiniSeedMsgSlabCache extends AbstractMiniSeedMsgCache {
+  /** The capacity used when no maximum message count is set. */
+  public static final int DEFAULT_CAPACITY = IConfigParams.DEF_MAX_CACHE_SIZE;
+
+  /** The default miniSEED record length. */
+  public static final int DEFAULT_RECORD_LENGTH = 512;
+
+  /** The default slab size in bytes. */
+  public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+  /** The slot length (the maximum SeedLink packet length.) */
+  private final int slotLength;
+
+  /** The number of slots in each slab. */
+  private final int slotsPerSlab;
+
+  /** The slabs, each allocated when first used. */
+  private ByteBuffer[] slabArr;
+
+  /** The message number for each slot. */
+  private int[] msgNumArr;
+
+  /** The message start time for each slot. */
+  private long[] startTimeArr;
+
+  /** The time the message was created for each slot. */
+  private long[] timeCreatedArr;
+
+  /** The channel ID for each slot. */
+  private int[] channelIdArr;
+
+  /** The number of samples for each slot. */
+  private int[] numSamplesArr;
+
+  /** The packet length for each slot. */
+  private int[] packetLengthArr;
+
+  /** The ring capacity. */
+  private int capacity;
+
+  /** The ring index of the oldest message. */
+  private int headIndex = 0;
+
+  /** The number of messages in the ring. */
+  private int numMessages = 0;
+
+  /** True if the ring grows when full (no maximum message count). */
+  private boolean growFlag = true;
+
+  /** The start-time index. */
+  private final MiniSeedMsgTimeIndex timeIndexObj;
+
+  /**
+   * Create the miniSEED message slab cache.
+   */
+  public MiniSeedMsgSlabCache() {
+    this(DEFAULT_WAIT_TIME_MS);
+  }
+
+  /**
+   * Create the miniSEED message slab cache.
+   * @param waitTimeMs the wait time in milliseconds. This can be set so that
+   * messages are removed even if no messages are added.
+   */
+  public MiniSeedMsgSlabCache(long waitTimeMs) {
+    this(waitTimeMs, DEFAULT_CAPACITY, DEFAULT_RECORD_LENGTH,
+        DEFAULT_SLAB_SIZE);
+  }
+
+  /**
+   * Create the miniSEED message slab cache.
+   * @param waitTimeMs the wait time in milliseconds. This can be set so that
+   * messages are removed even if no messages are added.
+   * @param initialCapacity the initial ring capacity; the capacity is
+   * replaced by the maximum message count when one is set.
+   * @param recordLength the maximum miniSEED record length.
+   * @param slabSize the slab size in bytes.
+   */
+  public MiniSeedMsgSlabCache(long waitTimeMs, int initialCapacity,
+      int recordLength, int slabSize) {
+    super(waitTimeMs);
+    slotLength = MiniSeedMsgHldr.SLINK_HEADER_LENGTH + recordLength;
+    slotsPerSlab = Math.max(slabSize / slotLength, 1);
+    allocate(Math.max(initialCapacity, 1));
+    timeIndexObj = new MiniSeedMsgTimeIndex(capacity);
+  }
+
+  /**
+   * Allocates the index arrays and the slab array for the capacity. The
+   * slabs themselves are allocated when first used.
+   * @param newCapacity the capacity.
+   */
+  private void allocate(int newCapacity) {
+    capacity = newCapacity;
+    slabArr = new ByteBuffer[(capacity + slotsPerSlab - 1) / slotsPerSlab];
+    msgNumArr = new int[capacity];
+    startTimeArr = new long[capacity];
+    timeCreatedArr = new long[capacity];
+    channelIdArr = new int[capacity];
+    numSamplesArr = new int[capacity];
+    packetLengthArr = new int[capacity];
+  }
+
+  /**
+   * Get the ring capacity.
+   * @return the ring capacity.
+   */
+  public synchronized int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Return the message at the specified index. A new message object is
+   * created with a copy of the packet from the slab.
+   * @param index the index of the message to return (0 is the oldest).
+   * @return the message.
+   * @throws IndexOutOfBoundsException if the specified index is out of range.
+   */
+  public synchronized MiniSeedMsgHldr getMessage(int index) {
+    if (index < 0 || index >= numMessages)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+          + numMessages);
+    final int ringIndex = getRingIndex(index);
+    final byte[] packetArray = new byte[packetLengthArr[ringIndex]];
+    final ByteBuffer slab = getSlab(ringIndex);
+    slab.position(getSlabOffset(ringIndex));
+    slab.get(packetArray);
+    final byte[] messageDataArray = new byte[packetArray.length
+        - MiniSeedMsgHldr.SLINK_HEADER_LENGTH];
+    System.arraycopy(packetArray, MiniSeedMsgHldr.SLINK_HEADER_LENGTH,
+        messageDataArray, 0, messageDataArray.length);
+    return new MiniSeedMsgHldr(
+        SLinkChannelRegistry.getChannel(channelIdArr[ringIndex]),
+        new SeedTime(startTimeArr[ringIndex]), messageDataArray,
+        numSamplesArr[ringIndex], new SLinkMessageNumber(
+            msgNumArr[ringIndex], null, timeCreatedArr[ringIndex]),
+        packetArray);
+  }
+
+  /**
+   * Return the start time of the message at the specified index.
+   * @param index the index of the message (0 is the oldest).
+   * @return the start time, in milliseconds since 1/1/1970.
+   */
+  protected long getStartTimeMsVal(int index) {
+    return startTimeArr[getRingIndex(index)];
+  }
+
+  /**
+   * Returns the number of messages in the cache.
+   * @return the number of messages in the cache.
+   */
+  public synchronized int getNumMessages() {
+    return numMessages;
+  }
+
+  /**
+   * Returns the ring index for the specified list index.
+   * @param index the list index (0 is the oldest).
+   * @return the ring index.
+   */
+  private int getRingIndex(int index) {
+    index += headIndex;
+    return (index < capacity) ? index : index - capacity;
+  }
+
+  /**
+   * Returns the slab for the specified ring index, allocating it if needed.
+   * @param ringIndex the ring index.
+   * @return the slab.
+   */
+  private ByteBuffer getSlab(int ringIndex) {
+    final int slabIndex = ringIndex / slotsPerSlab;
+    if (slabArr[slabIndex] == null) {
+      // the last slab only needs the remaining slots
+      final int numSlots = Math.min(slotsPerSlab, capacity - slabIndex
+          * slotsPerSlab);
+      slabArr[slabIndex] = ByteBuffer.allocateDirect(numSlots * slotLength);
+    }
+    return slabArr[slabIndex];
+  }
+
+  /**
+   * Returns the slab offset for the specified ring index.
+   * @param ringIndex the ring index.
+   * @return the slab offset.
+   */
+  private int getSlabOffset(int ringIndex) {
+    return (ringIndex % slotsPerSlab) * slotLength;
+  }
+
+  /**
+   * Removes the oldest message.
+   */
+  private void removeFirst() {
+    if (++headIndex >= capacity)
+      headIndex = 0;
+    --numMessages;
+    timeIndexObj.removeFirst();
+  }
+
+  /**
+   * Removes messages if needed.
+   * @return true if any messages were removed, false otherwise.
+   */
+  public synchronized boolean removeMessages() {
+    boolean removedFlag = false;
+    // if maximum message age exists
+    if (numMessages > 0 && getMaximumMessageAge() > 0) {
+      final long removeTime = System.currentTimeMillis()
+          - getMaximumMessageAge();
+      while (numMessages > 0 && timeCreatedArr[headIndex] <= removeTime) {
+        removeFirst();
+        removedFlag = true;
+      }
+    }
+    // while maximum message count exists and cache is at or over limit
+    final int maxCount = getMaximumMessageCount();
+    while (maxCount > 0 && numMessages >= maxCount) {
+      removeFirst();
+      removedFlag = true;
+    }
+    return removedFlag;
+  }
+
+  /**
+   * Returns the range of list indexes for the 'miniSEED' messages starting
+   * with the given message number and filtered by the begin and end time.
+   * The caller should be synchronized on the cache.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @return An array with the index of the first message and the index
+   * after the last message.
+   */
+  protected int[] getRequestIndexRange(int msgNumVal, SLinkTime beginTime,
+      SLinkTime endTime) {
+    if (numMessages <= 0) // if cache empty then
+      return new int[] { 0, 0 }; // no messages
+    // start with the message number or first if none
+    int fromIndex = getIndex(msgNumVal);
+    int toIndex = numMessages;
+    // get index after last msg <= end-time value:
+    if (endTime != null)
+      toIndex = timeIndexObj.getIndexAfterTimeVal(fromIndex, toIndex, endTime
+          .getTime());
+    // get index for first msg >= begin-time value:
+    if (beginTime != null)
+      fromIndex = timeIndexObj.getFirstIndexForTimeVal(fromIndex, toIndex,
+          beginTime.getTime());
+    if (LogMgr.isDebugLevel2()) {
+      LogMgr.usrMsgDebug("CACHE_DEBUG_reqMsgs:  msgNumVal=" + msgNumVal
+          + ", beginTime=" + beginTime + ", endTime=" + endTime
+          + ", fromIndex=" + fromIndex + ", toIndex=" + toIndex);
+    }
+    return new int[] { fromIndex, toIndex };
+  }
+
+  /**
+   * Return the message number of the message at the specified index.
+   * @param index the index of the message (0 is the oldest).
+   * @return the message number.
+   */
+  protected int getMessageNumber(int index) {
+    return msgNumArr[getRingIndex(index)];
+  }
+
+  /**
+   * Requests 'miniSEED' messages from the cache, starting with the
+   * given message number and filtered by the begin and end time.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @return An array of 'MiniSeedMsgHldr' objects.
+   */
+  public synchronized MiniSeedMsgHldr[] requestMessages(int msgNumVal,
+      SLinkTime beginTime, SLinkTime endTime) {
+    final int[] range = getRequestIndexRange(msgNumVal, beginTime, endTime);
+    final int fromIndex = range[0];
+    final int toIndex = range[1];
+    if (fromIndex >= toIndex) // if no messages between from/to
+      return getEmptyMsgArray(); // then return no messages
+    final MiniSeedMsgHldr[] msgArr = new MiniSeedMsgHldr[toIndex - fromIndex];
+    for (int i = 0; i < msgArr.length; i++)
+      msgArr[i] = getMessage(fromIndex + i);
+    // remove any out-of-order messages not within the begin and end time
+    return filterMessages(msgArr, beginTime, endTime);
+  }
+
+  /**
+   * Resizes the ring, keeping the newest messages that fit.
+   * @param newCapacity the new capacity.
+   */
+  private void resize(int newCapacity) {
+    final ByteBuffer[] oldSlabArr = slabArr;
+    final int[] oldMsgNumArr = msgNumArr;
+    final long[] oldStartTimeArr = startTimeArr;
+    final long[] oldTimeCreatedArr = timeCreatedArr;
+    final int[] oldChannelIdArr = channelIdArr;
+    final int[] oldNumSamplesArr = numSamplesArr;
+    final int[] oldPacketLengthArr = packetLengthArr;
+    final int oldCapacity = capacity;
+    final int count = Math.min(numMessages, Math.max(newCapacity, 1));
+    int oldRingIndex = headIndex + numMessages - count;
+    allocate(Math.max(newCapacity, 1));
+    timeIndexObj.clear();
+    ByteBuffer srcSlab;
+    int srcOffset;
+    for (int i = 0; i < count; i++, oldRingIndex++) {
+      if (oldRingIndex >= oldCapacity)
+        oldRingIndex -= oldCapacity;
+      msgNumArr[i] = oldMsgNumArr[oldRingIndex];
+      startTimeArr[i] = oldStartTimeArr[oldRingIndex];
+      timeIndexObj.add(startTimeArr[i]);
+      timeCreatedArr[i] = oldTimeCreatedArr[oldRingIndex];
+      channelIdArr[i] = oldChannelIdArr[oldRingIndex];
+      numSamplesArr[i] = oldNumSamplesArr[oldRingIndex];
+      packetLengthArr[i] = oldPacketLengthArr[oldRingIndex];
+      // copy the packet between the slabs without a heap buffer
+      srcSlab = oldSlabArr[oldRingIndex / slotsPerSlab].duplicate();
+      srcOffset = (oldRingIndex % slotsPerSlab) * slotLength;
+      srcSlab.limit(srcOffset + packetLengthArr[i]);
+      srcSlab.position(srcOffset);
+      final ByteBuffer slab = getSlab(i);
+      slab.position(getSlabOffset(i));
+      slab.put(srcSlab);
+    }
+    headIndex = 0;
+    numMessages = count;
+  }
+
+  /**
+   * Saves the message.
+   * @param miniSeedMsg the message.
+   */
+  public synchronized void saveMessage(MiniSeedMsgHldr miniSeedMsg) {
+    final byte[] packetArray = miniSeedMsg.getSLinkPacketArray();
+    if (packetArray.length > slotLength) {
+      LogMgr.usrMsgWarning("MiniSeedMsgSlabCache:  Message too long for slot ("
+          + packetArray.length + " > " + slotLength + "):  " + miniSeedMsg);
+      return;
+    }
+    if (numMessages >= capacity) { // ring is full
+      if (growFlag)
+        resize(capacity * 2);
+      else
+        removeFirst(); // overwrite the oldest message
+    }
+    final int ringIndex = getRingIndex(numMessages);
+    final ByteBuffer slab = getSlab(ringIndex);
+    slab.position(getSlabOffset(ringIndex));
+    slab.put(packetArray);
+    msgNumArr[ringIndex] = miniSeedMsg.getMessageNumber();
+    startTimeArr[ringIndex] = miniSeedMsg.getStartTimeMsVal();
+    timeCreatedArr[ringIndex] = miniSeedMsg.getTimeCreated();
+    channelIdArr[ringIndex] = miniSeedMsg.getChannelId();
+    numSamplesArr[ringIndex] = miniSeedMsg.getNumSamples();
+    packetLengthArr[ringIndex] = packetArray.length;
+    ++numMessages;
+    timeIndexObj.add(startTimeArr[ringIndex]);
+  }
+
+  /**
+   * Set the maximum message count. The ring capacity is set to the
+   * maximum message count, or grows as needed if there is no maximum.
+   * @param maximumMessageCount the maximum message count or 0 if none.
+   */
+  public synchronized void setMaximumMessageCount(int maximumMessageCount) {
+    if (maximumMessageCount > 0) {
+      growFlag = false;
+      if (maximumMessageCount != capacity)
+        resize(maximumMessageCount);
+    } else {
+      growFlag = true;
+    }
+    super.setMaximumMessageCount(maximumMessageCount);
+  }
+}
@@ -0,0 +1,293 @@
+//MiniSeedMsgTimeIndex.java:  Defines a start-time index for the messages
+//                            in a miniSEED message cache.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+import java.util.Arrays;
+
+/**
+ * Class MiniSeedMsgTimeIndex defines a start-time index for the messages in
+ * a miniSEED message cache. Messages are indexed in arrival order (index 0
+ * is the oldest), the same as the cache, and their start times do not need
+ * to be in order, so records from late-arriving channels are found. The
+ * minimum and maximum start time of each range of messages is kept in a
+ * tree over a ring of slots, so adding or removing a message and each
+ * lookup take O(log n) time. Access to the index should be synchronized
+ * on the cache.
+ */
+public class MiniSeedMsgTimeIndex {
+  /** The default initial capacity. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** The number of slots (a power of 2). */
+  private int capacity;
+
+  /** The minimum start time for each tree node (leaves at 'capacity'). */
+  private long[] minTimeArr;
+
+  /** The maximum start time for each tree node (leaves at 'capacity'). */
+  private long[] maxTimeArr;
+
+  /** The slot of the oldest message. */
+  private int headSlot = 0;
+
+  /** The number of messages. */
+  private int numMessages = 0;
+
+  /**
+   * Create the start-time index.
+   */
+  public MiniSeedMsgTimeIndex() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create the start-time index.
+   * @param initialCapacity the initial capacity; the capacity grows as
+   * needed.
+   */
+  public MiniSeedMsgTimeIndex(int initialCapacity) {
+    allocate(initialCapacity);
+  }
+
+  /**
+   * Adds the start time for the newest message.
+   * @param timeVal the start time, in milliseconds since 1/1/1970.
+   */
+  public void add(long timeVal) {
+    if (numMessages >= capacity)
+      resize(capacity * 2);
+    setSlot(getSlot(numMessages), timeVal, timeVal);
+    ++numMessages;
+  }
+
+  /**
+   * Adds the start times for the newest messages. The tree is rebuilt once
+   * rather than updated for each message.
+   * @param timeArr the start times, in milliseconds since 1/1/1970.
+   * @param offset the offset of the first start time in the array.
+   * @param length the number of start times.
+   */
+  public void add(long[] timeArr, int offset, int length) {
+    if (numMessages + length > capacity)
+      resize(numMessages + length);
+    int slot;
+    for (int i = 0; i < length; i++) {
+      slot = capacity + getSlot(numMessages + i);
+      minTimeArr[slot] = maxTimeArr[slot] = timeArr[offset + i];
+    }
+    numMessages += length;
+    build();
+  }
+
+  /**
+   * Allocates the tree.
+   * @param minCapacity the minimum capacity.
+   */
+  private void allocate(int minCapacity) {
+    capacity = 1;
+    while (capacity < minCapacity)
+      capacity <<= 1;
+    minTimeArr = new long[capacity * 2];
+    maxTimeArr = new long[capacity * 2];
+    Arrays.fill(minTimeArr, Long.MAX_VALUE);
+    Arrays.fill(maxTimeArr, Long.MIN_VALUE);
+    headSlot = 0;
+    numMessages = 0;
+  }
+
+  /**
+   * Removes all of the messages.
+   */
+  public void clear() {
+    Arrays.fill(minTimeArr, Long.MAX_VALUE);
+    Arrays.fill(maxTimeArr, Long.MIN_VALUE);
+    headSlot = 0;
+    numMessages = 0;
+  }
+
+  /**
+   * Returns the slot of the first slot in the range with a maximum start
+   * time greater than or equal to the given time value.
+   * @param node the tree node.
+   * @param nodeLow the first slot of the node.
+   * @param nodeHigh the slot after the last slot of the node.
+   * @param low the first slot of the range.
+   * @param high the slot after the last slot of the range.
+   * @param timeVal the time value.
+   * @return the slot or -1 if none.
+   */
+  private int findFirst(int node, int nodeLow, int nodeHigh, int low,
+      int high, long timeVal) {
+    if (nodeHigh <= low || nodeLow >= high || maxTimeArr[node] < timeVal)
+      return -1;
+    if (nodeHigh - nodeLow == 1)
+      return nodeLow;
+    final int mid = (nodeLow + nodeHigh) >>> 1;
+    final int slot = findFirst(node * 2, nodeLow, mid, low, high, timeVal);
+    return (slot >= 0) ? slot : findFirst(node * 2 + 1, mid, nodeHigh, low,
+        high, timeVal);
+  }
+
+  /**
+   * Returns the slot of the last slot in the range with a minimum start
+   * time less than or equal to the given time value.
+   * @param node the tree node.
+   * @param nodeLow the first slot of the node.
+   * @param nodeHigh the slot after the last slot of the node.
+   * @param low the first slot of the range.
+   * @param high the slot after the last slot of the range.
+   * @param timeVal the time value.
+   * @return the slot or -1 if none.
+   */
+  private int findLast(int node, int nodeLow, int nodeHigh, int low,
+      int high, long timeVal) {
+    if (nodeHigh <= low || nodeLow >= high || minTimeArr[node] > timeVal)
+      return -1;
+    if (nodeHigh - nodeLow == 1)
+      return nodeLow;
+    final int mid = (nodeLow + nodeHigh) >>> 1;
+    final int slot = findLast(node * 2 + 1, mid, nodeHigh, low, high,
+        timeVal);
+    return (slot >= 0) ? slot : findLast(node * 2, nodeLow, mid, low, high,
+        timeVal);
+  }
+
+  /**
+   * Returns the index of the first message in the range with a start time
+   * greater than or equal to the given time value.
+   * @param fromIndex the first index of the range.
+   * @param toIndex the index after the last index of the range.
+   * @param timeVal time value, in milliseconds since 1/1/1970.
+   * @return the index or 'toIndex' if none.
+   */
+  public int getFirstIndexForTimeVal(int fromIndex, int toIndex, long timeVal) {
+    if (fromIndex >= toIndex)
+      return toIndex;
+    final int fromSlot = getSlot(fromIndex);
+    final int toSlot = fromSlot + toIndex - fromIndex;
+    int slot;
+    if (toSlot <= capacity) { // range does not wrap
+      slot = findFirst(1, 0, capacity, fromSlot, toSlot, timeVal);
+      return (slot >= 0) ? fromIndex + slot - fromSlot : toIndex;
+    }
+    // search the end of the ring and then the wrapped part
+    slot = findFirst(1, 0, capacity, fromSlot, capacity, timeVal);
+    if (slot >= 0)
+      return fromIndex + slot - fromSlot;
+    slot = findFirst(1, 0, capacity, 0, toSlot - capacity, timeVal);
+    return (slot >= 0) ? fromIndex + capacity - fromSlot + slot : toIndex;
+  }
+
+  /**
+   * Returns the index after the last message in the range with a start time
+   * less than or equal to the given time value.
+   * @param fromIndex the first index of the range.
+   * @param toIndex the index after the last index of the range.
+   * @param timeVal time value, in milliseconds since 1/1/1970.
+   * @return the index or 'fromIndex' if none.
+   */
+  public int getIndexAfterTimeVal(int fromIndex, int toIndex, long timeVal) {
+    if (fromIndex >= toIndex)
+      return fromIndex;
+    final int fromSlot = getSlot(fromIndex);
+    final int toSlot = fromSlot + toIndex - fromIndex;
+    int slot;
+    if (toSlot <= capacity) { // range does not wrap
+      slot = findLast(1, 0, capacity, fromSlot, toSlot, timeVal);
+      return (slot >= 0) ? fromIndex + slot - fromSlot + 1 : fromIndex;
+    }
+    // search the wrapped part and then the end of the ring
+    slot = findLast(1, 0, capacity, 0, toSlot - capacity, timeVal);
+    if (slot >= 0)
+      return fromIndex + capacity - fromSlot + slot + 1;
+    slot = findLast(1, 0, capacity, fromSlot, capacity, timeVal);
+    return (slot >= 0) ? fromIndex + slot - fromSlot + 1 : fromIndex;
+  }
+
+  /**
+   * Returns the number of messages.
+   * @return the number of messages.
+   */
+  public int getNumMessages() {
+    return numMessages;
+  }
+
+  /**
+   * Returns the slot for the specified index.
+   * @param index the index (0 is the oldest).
+   * @return the slot.
+   */
+  private int getSlot(int index) {
+    return (headSlot + index) & (capacity - 1);
+  }
+
+  /**
+   * Returns the start time of the message at the specified index.
+   * @param index the index of the message (0 is the oldest).
+   * @return the start time, in milliseconds since 1/1/1970.
+   */
+  public long getTimeVal(int index) {
+    return minTimeArr[capacity + getSlot(index)];
+  }
+
+  /**
+   * Removes the oldest message.
+   */
+  public void removeFirst() {
+    if (numMessages <= 0)
+      return;
+    setSlot(headSlot, Long.MAX_VALUE, Long.MIN_VALUE);
+    headSlot = getSlot(1);
+    --numMessages;
+  }
+
+  /**
+   * Resizes the tree, keeping the messages.
+   * @param minCapacity the minimum capacity.
+   */
+  private void resize(int minCapacity) {
+    final long[] timeArr = new long[numMessages];
+    for (int i = 0; i < timeArr.length; i++)
+      timeArr[i] = getTimeVal(i);
+    allocate(Math.max(minCapacity, timeArr.length));
+    // fill the leaves and then build the tree
+    System.arraycopy(timeArr, 0, minTimeArr, capacity, timeArr.length);
+    System.arraycopy(timeArr, 0, maxTimeArr, capacity, timeArr.length);
+    numMessages = timeArr.length;
+    build();
+  }
+
+  /**
+   * Builds the tree bottom-up from the leaves.
+   */
+  private void build() {
+    for (int node = capacity - 1; node > 0; node--) {
+      minTimeArr[node] = Math.min(minTimeArr[node * 2],
+          minTimeArr[node * 2 + 1]);
+      maxTimeArr[node] = Math.max(maxTimeArr[node * 2],
+          maxTimeArr[node * 2 + 1]);
+    }
+  }
+
+  /**
+   * Sets the start time range for a slot and updates the tree.
+   * @param slot the slot.
+   * @param minTimeVal the minimum start time.
+   * @param maxTimeVal the maximum start time.
+   */
+  private void setSlot(int slot, long minTimeVal, long maxTimeVal) {
+    int node = capacity + slot;
+    minTimeArr[node] = minTimeVal;
+    maxTimeArr[node] = maxTimeVal;
+    while ((node >>>= 1) > 0) {
+      minTimeArr[node] = Math.min(minTimeArr[node * 2],
+          minTimeArr[node * 2 + 1]);
+      maxTimeArr[node] = Math.max(maxTimeArr[node * 2],
+          maxTimeArr[node * 2 + 1]);
+    }
+  }
+}
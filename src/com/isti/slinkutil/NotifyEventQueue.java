@@ -1,32 +1,55 @@
 //NotifyEventQueue.java:  A FIFO event queue with notify-thread support.
 //
 // 10/15/2008 -- [ET]
+// 10/17/2026 -- [KF]  Modified to wait via a lock and condition instead
+//                     of 'wait()' and 'notify()'; added virtual-thread
+//                     option.
+// 10/17/2026 -- [KF]  Modified to hold the events in a lock-free ring
+//                     queue ('RingEventQueue') and to park the waiting
+//                     thread via 'LockSupport'.
+// 10/17/2026 -- [KF]  Documented that the 'm_queue' field is no longer
+//                     available to subclasses (which use the push and
+//                     pull methods) and that a notify while the thread
+//                     is not waiting ends the next wait.
 //
 
 package com.isti.slinkutil;
 
-import java.util.Vector;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Class NotifyEventQueue is a FIFO event queue with notify-thread support.
  * Subclasses need to define a 'run()' method with a processing loop that
  * checks 'finishRunning()' and uses 'waitForEvent()' to retrieve events.
+ * The events are held in a lock-free ring queue (see 'RingEventQueue'),
+ * so pushing and pulling events take constant time and threads pushing
+ * events never block the processing thread.  The processing thread waits
+ * by parking itself (via 'LockSupport') so it may be run on a virtual
+ * thread (see 'setVirtualThread()') without pinning its carrier thread.
+ * A notify that occurs while the thread is not waiting is remembered, so
+ * the next wait returns immediately; this keeps a notify that arrives
+ * between a check of the queue and the wait from being lost.  The event
+ * queue itself is private; subclasses access it through the push and
+ * pull methods.
  */
 public abstract class NotifyEventQueue implements Runnable
 {
-    /** Fifo event queue implemented with a vector. */
-  protected Vector m_queue = new Vector();
+    /** Fifo event queue implemented with ring arrays. */
+  private final RingEventQueue m_queue = new RingEventQueue();
 
   private Thread m_thread = null;
   private boolean m_daemonFlag = false;
+  private boolean m_virtualFlag = false;
+    /** Thread parked waiting on the queue, or null if none. */
+  private volatile Thread m_waitingThread = null;
+    /** True if a notify occurred since the last wait. */
+  private volatile boolean m_notifyFlag = false;
   private final String m_id;
   protected final Object m_stateLock = new byte[0];
     /** Should this thread stop running. */
   private boolean m_isRunning = false;
     /** Should this thread finish pending work and stop running. */
   private boolean m_finishWork = false;
-    /** Maximum queue size, or 0 for no limit. */
-  private int m_maxQueueSize = 0;
 
 
   /**
@@ -52,6 +75,18 @@ public abstract class NotifyEventQueue implements Runnable
     m_daemonFlag = flgVal;
   }
 
+  /**
+   * Sets whether this queue's thread should be a virtual thread.  If
+   * virtual threads are not supported by the Java runtime then a platform
+   * thread is used.  This method must be called before the thread is
+   * started (via the 'startThread()' method).
+   * @param flgVal true for a virtual thread; false for a platform thread.
+   */
+  public void setVirtualThread(boolean flgVal)
+  {
+    m_virtualFlag = flgVal;
+  }
+
   /**
    * Sets the maximum queue size allowed.  When the maximum queue size
    * is reached, the oldest entries will be removed as new entries are
@@ -60,10 +95,7 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public void setMaxQueueSize(int sizeVal)
   {
-    synchronized(m_queue)
-    {
-      m_maxQueueSize = sizeVal;
-    }
+    m_queue.setMaxQueueSize(sizeVal);
   }
 
   /**
@@ -72,10 +104,7 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public int getMaxQueueSize()
   {
-    synchronized(m_queue)
-    {
-      return m_maxQueueSize;
-    }
+    return m_queue.getMaxQueueSize();
   }
 
   /**
@@ -86,8 +115,12 @@ public abstract class NotifyEventQueue implements Runnable
     synchronized(m_stateLock)
     {
       setRunning(true);
-      m_thread = new Thread(this,m_id);
-      m_thread.setDaemon(m_daemonFlag);
+      if(!m_virtualFlag ||
+                 (m_thread=NotifyThread.createVirtualThread(this,m_id)) == null)
+      {  //platform thread or virtual thread not supported
+        m_thread = new Thread(this,m_id);
+        m_thread.setDaemon(m_daemonFlag);
+      }
       m_thread.start();
     }
   }
@@ -114,35 +147,24 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public boolean pushEvent(Object event)
   {
-    synchronized(m_queue)
-    {
-      final boolean rmFlag;
-              //if queue limit setup and >= limit then remove oldest entry:
-      if(rmFlag = (m_maxQueueSize > 0 && m_queue.size() >= m_maxQueueSize))
-        m_queue.remove(0);
-      m_queue.add(event);         //add event-object to Vector
-      m_queue.notifyAll();        //notify waiting thread
-      return !rmFlag;             //return false if oldest entry removed
-    }
+              //add event-object to queue (removing oldest if limit):
+    final boolean okFlag = m_queue.push(event);
+    notifyThread();               //notify waiting thread
+    return okFlag;                //return false if oldest entry removed
   }
 
   /**
-   * Pushes an event object back into the queue at location 0.
+   * Pushes an event object back into the queue at location 0.  This
+   * method is to be called by the processing thread with an event object
+   * it has pulled from the queue; only one event object may be pushed
+   * back until it is pulled again.
    * @param event the event object to use.
    * @return true if the event object was pushed into the queue;
    * false if not (because of the maximum-queue-size limit).
    */
   public boolean pushEventBackNoNotify(Object event)
   {
-    synchronized(m_queue)
-    {
-      if(m_maxQueueSize <= 0 || m_queue.size() < m_maxQueueSize)
-      {  //no queue limit setup or queue size is less than limit
-        m_queue.add(0,event);     //put object back into queue
-        return true;              //indicate pushed OK
-      }
-      return false;               //indicate queue full
-    }
+    return m_queue.pushBack(event);
   }
 
   /**
@@ -154,15 +176,9 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public boolean pushEventNoNotify(Object event)
   {
-    synchronized(m_queue)
-    {
-      final boolean rmFlag;
-              //if queue limit setup and >= limit then remove oldest entry:
-      if(rmFlag = (m_maxQueueSize > 0 && m_queue.size() >= m_maxQueueSize))
-        m_queue.remove(0);
-      m_queue.add(event);         //add event-object to Vector
-      return !rmFlag;             //return false if oldest entry removed
-    }
+              //add event-object to queue (removing oldest if limit);
+              // return false if oldest entry removed:
+    return m_queue.push(event);
   }
 
   /**
@@ -172,14 +188,7 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public Object pullEvent()
   {
-    synchronized(m_queue)
-    {
-      if(m_queue.size() == 0)
-      {
-        return null;
-      }
-      return m_queue.remove(0);
-    }
+    return m_queue.pull();
   }
 
   /**
@@ -197,7 +206,7 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public boolean isEmpty()
   {
-    return (m_queue.size() == 0);
+    return m_queue.isEmpty();
   }
 
   /**
@@ -207,7 +216,8 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public boolean isQueueFull()
   {
-    return (m_maxQueueSize > 0 && m_queue.size() >= m_maxQueueSize);
+    final int maxSize = m_queue.getMaxQueueSize();
+    return (maxSize > 0 && m_queue.size() >= maxSize);
   }
 
   /**
@@ -250,19 +260,60 @@ public abstract class NotifyEventQueue implements Runnable
   /**
    * Notifies our event processing thread that the queue has events
    * to process.
-   * Invokes notify() on the queue object.
+   * Unparks the thread waiting on the queue (if any).
    */
   public void notifyThread()
   {
-    synchronized(m_queue)
+    m_notifyFlag = true;
+    final Thread threadObj = m_waitingThread;
+    if(threadObj != null)
+      LockSupport.unpark(threadObj);
+  }
+
+  /**
+   * Parks the calling thread if running and, if 'emptyOnlyFlag' is true,
+   * the queue is empty, until a notify occurs or the wait time elapses.
+   * Only the processing thread is expected to wait on the queue.
+   * @param waitTimeMs the maximum number of milliseconds to wait for
+   * the thread-notify, or 0 to wait indefinitely.
+   * @param emptyOnlyFlag true to wait only if the queue is empty.
+   */
+  private void doWait(long waitTimeMs, boolean emptyOnlyFlag)
+  {
+    final long endTimeNs = (waitTimeMs > 0) ?
+                          System.nanoTime() + waitTimeMs * 1000000L : 0;
+    long waitTimeNs;
+              //enter waiting thread before checking the notify flag,
+              // so a notify after the check will unpark the thread:
+    m_waitingThread = Thread.currentThread();
+    try
+    {
+      while(!m_notifyFlag && (!emptyOnlyFlag || isEmpty()) && isRunning())
+      {  //no notify pending and queue is to be waited on
+        if(waitTimeMs > 0)
+        {  //wait time given
+          if((waitTimeNs=endTimeNs-System.nanoTime()) <= 0)
+            break;                      //if wait time elapsed then exit
+          LockSupport.parkNanos(this,waitTimeNs);
+        }
+        else
+          LockSupport.park(this);
+        if(Thread.interrupted())        //if thread interrupted then
+          break;                        //exit loop (ignore interrupt)
+      }
+    }
+    finally
     {
-      m_queue.notifyAll();
+      m_waitingThread = null;
     }
+    m_notifyFlag = false;
   }
 
   /**
    * Waits for the queue to have events.
-   * Invokes wait() on the queue object if running.
+   * Parks the calling thread if running and the queue is empty, until
+   * an event is pushed or a notify occurs (a notify since the last wait
+   * ends the wait at once).
    * @return  Event if available, null otherwise.
    */
   public Object waitForEvent()
@@ -272,7 +323,9 @@ public abstract class NotifyEventQueue implements Runnable
 
   /**
    * Waits for the queue to have events.
-   * Invokes wait() on the queue object if running.
+   * Parks the calling thread if running and the queue is empty, until
+   * an event is pushed or a notify occurs (a notify since the last wait
+   * ends the wait at once).
    * @param waitTimeMs the maximum number of milliseconds to wait for
    * the thread-notify, or 0 to wait indefinitely.
    * @return  Event if available, null otherwise.
@@ -285,34 +338,22 @@ public abstract class NotifyEventQueue implements Runnable
   /**
    * Waits for a thread-notify on the queue, up to the given number
    * of milliseconds.
-   * Invokes wait() on the queue object if running.
+   * Parks the calling thread if running, until a notify occurs (a
+   * notify since the last wait ends the wait at once).
    * @param waitTimeMs the maximum number of milliseconds to wait for
    * the thread-notify, or 0 to wait indefinitely.
    * @return The number of elements in the queue.
    */
   public int waitForNotify(long waitTimeMs)
   {
-    // synchronize on the queue
-    synchronized(m_queue)
-    {
-      if(isRunning())
-      {
-        try
-        {
-          m_queue.wait(waitTimeMs);
-        }
-        catch(final InterruptedException iex)
-        {
-            // ignore
-        }
-      }
-      return m_queue.size();
-    }
+    doWait(waitTimeMs,false);
+    return getQueueSize();
   }
 
   /**
    * Waits for a thread-notify on the queue.
-   * Invokes wait() on the queue object if running.
+   * Parks the calling thread if running, until a notify occurs (a
+   * notify since the last wait ends the wait at once).
    * @return The number of elements in the queue.
    */
   public int waitForNotify()
@@ -322,7 +363,9 @@ public abstract class NotifyEventQueue implements Runnable
 
   /**
    * Waits for the queue to have events.
-   * Invokes wait() on the queue object if running.
+   * Parks the calling thread if running and the queue is empty, until
+   * an event is pushed or a notify occurs (a notify since the last wait
+   * ends the wait at once).
    * @return true if the queue is not empty, false if empty..
    */
   public boolean checkForEvent()
@@ -332,29 +375,17 @@ public abstract class NotifyEventQueue implements Runnable
 
   /**
    * Waits for the queue to have events.
-   * Invokes wait() on the queue object if running.
+   * Parks the calling thread if running and the queue is empty, until
+   * an event is pushed or a notify occurs (a notify since the last wait
+   * ends the wait at once).
    * @param waitTimeMs the maximum number of milliseconds to wait for
    * the thread-notify, or 0 to wait indefinitely.
    * @return true if the queue is not empty, false if empty..
    */
   public boolean checkForEvent(long waitTimeMs)
   {
-    // synchronize on the queue
-    synchronized(m_queue)
-    {
-      if ( m_queue.isEmpty() && isRunning() )
-      {
-        try
-        {
-          m_queue.wait(waitTimeMs);
-        }
-        catch ( final InterruptedException iex )
-        {
-            // ignore
-        }
-      }
-      return !(isEmpty());
-    }
+    doWait(waitTimeMs,true);
+    return !(isEmpty());
   }
 
   /**
@@ -363,16 +394,8 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public boolean finishRunning()
   {
-    if(shouldFinishWork())
-    {
-      synchronized(m_queue)
-      {
-        if(m_queue.isEmpty())
-        {
-          return true;
-        }
-      }
-    }
+    if(shouldFinishWork() && m_queue.isEmpty())
+      return true;
     return !isRunning();
   }
 
@@ -394,10 +417,7 @@ public abstract class NotifyEventQueue implements Runnable
    */
   public void clearEvents()
   {
-    synchronized(m_queue)
-    {
-      m_queue.clear();
-    }
+    m_queue.clear();
   }
 
   /**
@@ -2,13 +2,22 @@
 //                    and terminate functionality.
 //
 // 10/15/2008 -- [ET]
+// 10/17/2026 -- [KF]  Modified to use a lock and condition instead of
+//                     'wait()' and 'notify()'; added virtual-thread option.
 //
 
 package com.isti.slinkutil;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Class NotifyThread extends 'Thread' to add wait/notify and terminate
- * functionality.
+ * functionality.  The thread waits via a lock and condition (rather
+ * than via an object monitor) so it may be run on a virtual thread
+ * (see 'setVirtualThread()') without pinning its carrier thread.
  */
 public class NotifyThread extends Thread
 {
@@ -18,14 +27,48 @@ public class NotifyThread extends Thread
   protected boolean terminateFlag = false;
   /** For autonumbering anonymous threads. */
   private static int threadInitNumber = 0;
-  /** Thread synchronization object used for 'wait' and 'notify'. */
-  private final Object threadWaitSyncObject = new Object();
+  /** Thread synchronization lock used for 'wait' and 'notify'. */
+  private final ReentrantLock threadWaitLockObj = new ReentrantLock();
+  /** Thread synchronization condition used for 'wait' and 'notify'. */
+  private final Condition threadWaitCondObj =
+                                            threadWaitLockObj.newCondition();
   /** Flag set true after 'notifyThread()' method called. */
   private boolean threadWaitNotifyFlag = false;
   /** Start sync object. */
   private final Object startSyncObj = new Object();
   /** Started flag: true if the thread was already started, false otherwise. */
   private boolean startedFlag = false;
+  /** True if the thread should be run on a virtual thread. */
+  private boolean virtualThreadFlag = false;
+  /** The virtual thread running this thread, or null if none. */
+  private Thread virtualThreadObj = null;
+  /** The 'Thread.ofVirtual()' method, or null if not supported. */
+  private static final Method ofVirtualMethodObj;
+  /** The 'Thread.Builder.name()' method, or null if not supported. */
+  private static final Method builderNameMethodObj;
+  /** The 'Thread.Builder.unstarted()' method, or null if not supported. */
+  private static final Method builderUnstartedMethodObj;
+
+  static
+  {
+    Method ofVirtualObj = null, nameObj = null, unstartedObj = null;
+    try
+    {    //lookup virtual-thread builder methods (Java 21 or later):
+      ofVirtualObj = Thread.class.getMethod("ofVirtual",new Class[0]);
+      final Class builderClassObj = Class.forName("java.lang.Thread$Builder");
+      nameObj = builderClassObj.getMethod("name",
+                                              new Class[] {String.class});
+      unstartedObj = builderClassObj.getMethod("unstarted",
+                                            new Class[] {Runnable.class});
+    }
+    catch(Exception ex)
+    {    //virtual threads not supported
+      ofVirtualObj = nameObj = unstartedObj = null;
+    }
+    ofVirtualMethodObj = ofVirtualObj;
+    builderNameMethodObj = nameObj;
+    builderUnstartedMethodObj = unstartedObj;
+  }
 
 
   /**
@@ -106,6 +149,78 @@ public class NotifyThread extends Thread
     this(group, null, name);
   }
 
+  /**
+   * Determines if virtual threads are supported by the Java runtime.
+   * @return true if virtual threads are supported; false if not.
+   */
+  public static boolean isVirtualThreadSupported()
+  {
+    return (builderUnstartedMethodObj != null);
+  }
+
+  /**
+   * Creates an unstarted virtual thread.
+   * @param target the object whose <code>run</code> method is called.
+   * @param name the name of the new thread.
+   * @return A new virtual thread, or null if virtual threads are not
+   * supported.
+   */
+  public static Thread createVirtualThread(Runnable target, String name)
+  {
+    if(!isVirtualThreadSupported())
+      return null;
+    try
+    {
+      final Object builderObj = builderNameMethodObj.invoke(
+             ofVirtualMethodObj.invoke(null,new Object[0]),
+                                                     new Object[] {name});
+      return (Thread)builderUnstartedMethodObj.invoke(builderObj,
+                                                   new Object[] {target});
+    }
+    catch(Exception ex)
+    {    //error creating virtual thread
+      if(LogMgr.isDebugLevel1())
+      {  //debug-mask bit is set; output debug message
+        LogMgr.usrMsgDebug("Error creating virtual thread \"" + name +
+                                                           "\":  " + ex);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Sets whether this thread should be run on a virtual thread.  If
+   * virtual threads are not supported by the Java runtime then a
+   * platform thread is used.  This method must be called before the
+   * thread is started.
+   * @param flgVal true to run on a virtual thread; false to run on this
+   * (platform) thread.
+   */
+  public void setVirtualThread(boolean flgVal)
+  {
+    virtualThreadFlag = flgVal;
+  }
+
+  /**
+   * Determines if this thread is run on a virtual thread.
+   * @return true if this thread is run on a virtual thread; false if not.
+   */
+  public boolean isVirtualThread()
+  {
+    return (virtualThreadObj != null);
+  }
+
+  /**
+   * Tests if this thread is alive, including when it is run on a
+   * virtual thread.
+   * @return true if this thread is alive; false if not.
+   */
+  public boolean isThreadAlive()
+  {
+    final Thread threadObj = virtualThreadObj;
+    return (threadObj != null) ? threadObj.isAlive() : isAlive();
+  }
+
   /**
    * Returns (and increments) the next thread number for autonumbering
    * anonymous threads.
@@ -128,8 +243,18 @@ public class NotifyThread extends Thread
       startedFlag = true;
     }
     //if the thread is not terminated and not already alive then start thread
-    if (!terminateFlag && !isAlive())
-      super.start();
+    if (!terminateFlag && !isThreadAlive())
+    {
+      final Thread threadObj;
+      if (virtualThreadFlag &&
+                          (threadObj=createVirtualThread(this,getName())) != null)
+      {  //virtual thread created; run this thread on it
+        virtualThreadObj = threadObj;
+        threadObj.start();
+      }
+      else
+        super.start();
+    }
   }
 
   /**
@@ -138,7 +263,7 @@ public class NotifyThread extends Thread
    */
   public void terminate()
   {
-    if(!terminateFlag && isAlive())
+    if(!terminateFlag && isThreadAlive())
     {    //thread is not terminated and is alive
       terminateFlag = true;            //set terminate flag
       notifyThread();                  //wake up 'waitforNotify()' method
@@ -180,26 +305,31 @@ public class NotifyThread extends Thread
    */
   public boolean waitForNotify(long waitTimeMs)
   {
+    threadWaitLockObj.lock();    //grab thread synchronization lock
     try
     {
-      synchronized(threadWaitSyncObject)
-      {  //grab thread synchronization lock object
-        if(!isTerminated())
-        {     //thread has not been terminated
-          if(!threadWaitNotifyFlag)
-          {   //'notifyThread()' method not called
-                   //wait until specified time, notify or interrupt:
-            threadWaitSyncObject.wait(waitTimeMs);
-            if(!threadWaitNotifyFlag)  //if notify was not called then
-              return true;             //indicate thread-wait finished
-          }
-          threadWaitNotifyFlag = false;
+      if(!isTerminated())
+      {     //thread has not been terminated
+        if(!threadWaitNotifyFlag)
+        {   //'notifyThread()' method not called
+                 //wait until specified time, notify or interrupt:
+          if(waitTimeMs > 0)
+            threadWaitCondObj.await(waitTimeMs,TimeUnit.MILLISECONDS);
+          else
+            threadWaitCondObj.await();
+          if(!threadWaitNotifyFlag)  //if notify was not called then
+            return true;             //indicate thread-wait finished
         }
+        threadWaitNotifyFlag = false;
       }
     }
     catch(InterruptedException ex)
     {    //thread was interrupted
     }
+    finally
+    {
+      threadWaitLockObj.unlock();
+    }
     return false;       //indicate thread-wait did not finish
   }
 
@@ -209,10 +339,15 @@ public class NotifyThread extends Thread
    */
   public void notifyThread()
   {
-    synchronized(threadWaitSyncObject)
-    {    //grab thread synchronization lock object
+    threadWaitLockObj.lock();    //grab thread synchronization lock
+    try
+    {
       threadWaitNotifyFlag = true;          //indicate notify called
-      threadWaitSyncObject.notifyAll();     //notify on object
+      threadWaitCondObj.signalAll();        //signal condition
+    }
+    finally
+    {
+      threadWaitLockObj.unlock();
     }
   }
 
@@ -222,10 +357,15 @@ public class NotifyThread extends Thread
    */
   public void clearThreadWaitNotifyFlag()
   {
-    synchronized(threadWaitSyncObject)
+    threadWaitLockObj.lock();
+    try
     {
       threadWaitNotifyFlag = false;
     }
+    finally
+    {
+      threadWaitLockObj.unlock();
+    }
   }
 
   /**
@@ -252,7 +392,14 @@ public class NotifyThread extends Thread
    */
   public void waitForTerminate(long waitTimeMs)
   {
-    try { join(waitTimeMs); }  //wait for thread to terminate
+    final Thread threadObj = virtualThreadObj;
+    try
+    {    //wait for thread (or virtual thread running it) to terminate
+      if(threadObj != null)
+        threadObj.join(waitTimeMs);
+      else
+        join(waitTimeMs);
+    }
     catch(InterruptedException ex) {}
   }
 
@@ -2,6 +2,7 @@
 //                       and requesting messages.
 //
 //  9/29/2009 -- [ET]
+// 10/17/2026 -- [KF]  Added 'openMessageCursor()' method.
 //
 
 package com.isti.slinkutil;
@@ -32,6 +33,20 @@ public interface RequestInfoIntf
   public MiniSeedMsgHldr [] requestMessages(
       int msgNumVal, SLinkTime beginTime, SLinkTime endTime);
 
+  /**
+   * Opens a cursor for reading 'miniSEED' messages from the cache, starting
+   * with the given message number and filtered by the begin and end time.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @param followFlag true to continue reading the messages added to the
+   * cache after the requested messages, false to stop after the requested
+   * messages.
+   * @return The cursor.
+   */
+  public IMiniSeedMsgCursor openMessageCursor(int msgNumVal,
+           SLinkTime beginTime, SLinkTime endTime, boolean followFlag);
+
   /**
    * Generates the response to the INFO command with the given "level"
    * argument string.
@@ -0,0 +1,339 @@
+//RingEventQueue.java:  A lock-free FIFO event queue held in ring arrays.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class RingEventQueue is a lock-free FIFO event queue held in ring
+ * arrays, so that objects are pushed and pulled in constant time without
+ * shifting the entries of the queue.  Any number of threads may push
+ * objects into the queue; objects are normally pulled by a single
+ * processing thread, but other threads may also pull (or clear) objects,
+ * as is done when the oldest object is removed because of the
+ * maximum-queue-size limit.  Each slot of a ring has a sequence number
+ * that tells whether the slot holds an object for the current pass
+ * through the ring, so threads claim slots with a compare-and-set on the
+ * head or tail index and never wait for each other.  When a ring is full
+ * (and the limit has not been reached) it is closed and a ring twice its
+ * size is linked after it; the pulling threads move to the next ring when
+ * the closed ring is drained.  An object pushed back onto the front of
+ * the queue (by the processing thread, after it fails to process the
+ * object) is held separately and is pulled first.
+ */
+public class RingEventQueue
+{
+    /** Initial number of slots in the ring. */
+  public static final int INITIAL_CAPACITY = 64;
+    /** Bit set in the tail index of a ring when it is closed. */
+  private static final long CLOSED_BIT = Long.MIN_VALUE;
+  private final AtomicReference m_headRingRef;
+  private final AtomicReference m_tailRingRef;
+  private final AtomicReference m_pushedBackRef = new AtomicReference();
+  private volatile int m_maxQueueSize = 0;
+
+  /**
+   * Creates a lock-free FIFO event queue.
+   */
+  public RingEventQueue()
+  {
+    final Ring ringObj = new Ring(INITIAL_CAPACITY);
+    m_headRingRef = new AtomicReference(ringObj);
+    m_tailRingRef = new AtomicReference(ringObj);
+  }
+
+  /**
+   * Sets the maximum queue size allowed.  When the maximum queue size
+   * is reached, the oldest entries will be removed as new entries are
+   * pushed onto the queue.
+   * @param sizeVal maximum queue size, or 0 for no limit.
+   */
+  public void setMaxQueueSize(int sizeVal)
+  {
+    m_maxQueueSize = sizeVal;
+  }
+
+  /**
+   * Returns the maximum queue size allowed.
+   * @return The maximum queue size, or 0 if no limit.
+   */
+  public int getMaxQueueSize()
+  {
+    return m_maxQueueSize;
+  }
+
+  /**
+   * Pushes an object into the queue.
+   * @param obj the object to use.
+   * @return false if the oldest object in the queue was removed (because
+   * of the maximum-queue-size limit); true if not.
+   */
+  public boolean push(Object obj)
+  {
+    if(obj == null)
+      throw new NullPointerException("Null parameter");
+    final int maxSize = m_maxQueueSize;
+    boolean rmFlag = false;
+              //if queue limit setup and >= limit then remove oldest
+              // entries (more than one if other threads pushed entries):
+    while(maxSize > 0 && size() >= maxSize && pull() != null)
+      rmFlag = true;
+    Ring ringObj;
+    while(true)
+    {  //loop until object entered into ring
+      ringObj = (Ring)(m_tailRingRef.get());
+      if(ringObj.offer(obj))
+        break;          //if entered into ring then exit loop
+      if(!ringObj.isClosed())
+      {  //ring is full or its next slot is not yet freed
+        if(ringObj.size() <= ringObj.mask)
+        {  //slot being freed by a thread pulling from the ring
+          Thread.yield();
+          continue;
+        }
+        if(maxSize > 0 && size() >= maxSize)
+        {  //queue limit reached (by other threads); remove oldest entry
+          if(pull() != null)
+            rmFlag = true;
+          continue;
+        }
+        ringObj.close();              //close ring to new entries
+      }
+              //link new ring (if not already done by another thread)
+              // and make it the tail ring:
+      m_tailRingRef.compareAndSet(ringObj,ringObj.getNextRing());
+    }
+    return !rmFlag;               //return false if oldest entry removed
+  }
+
+  /**
+   * Pushes an object back onto the front of the queue.  Only one object
+   * may be pushed back until it is pulled from the queue.
+   * @param obj the object to use.
+   * @return true if the object was pushed into the queue; false if not
+   * (because of the maximum-queue-size limit or because another object
+   * is pushed back).
+   */
+  public boolean pushBack(Object obj)
+  {
+    if(obj == null)
+      throw new NullPointerException("Null parameter");
+    final int maxSize = m_maxQueueSize;
+    if(maxSize > 0 && size() >= maxSize)
+      return false;               //if queue full then return false
+    return m_pushedBackRef.compareAndSet(null,obj);
+  }
+
+  /**
+   * Pulls an object from the queue.  If the queue is empty (or an object
+   * pushed by another thread is not yet complete) then this method will
+   * return null.
+   * @return The object, or null if none are available.
+   */
+  public Object pull()
+  {
+    Object obj;
+    if(m_pushedBackRef.get() != null &&
+                             (obj=m_pushedBackRef.getAndSet(null)) != null)
+    {  //object was pushed back onto front of queue
+      return obj;
+    }
+    Ring ringObj;
+    while(true)
+    {  //loop while moving to next ring
+      ringObj = (Ring)(m_headRingRef.get());
+      if((obj=ringObj.poll()) != null)
+        return obj;
+      if(!ringObj.isDrained())    //if more objects to come from ring
+        return null;              // then return null (empty for now)
+              //closed ring is drained; move to next ring:
+      m_headRingRef.compareAndSet(ringObj,ringObj.getNextRing());
+    }
+  }
+
+  /**
+   * Returns the number of objects in the queue.
+   * @return The number of objects in the queue.
+   */
+  public int size()
+  {
+    int count = (m_pushedBackRef.get() != null) ? 1 : 0;
+    Ring ringObj = (Ring)(m_headRingRef.get());
+    while(ringObj != null)
+    {  //for each ring in the queue
+      count += ringObj.size();
+      ringObj = (Ring)(ringObj.nextRingRef.get());
+    }
+    return count;
+  }
+
+  /**
+   * Indicates if the queue is empty.
+   * @return true if the queue is empty; false if not.
+   */
+  public boolean isEmpty()
+  {
+    return (size() == 0);
+  }
+
+  /**
+   * Clears all objects from the queue.  Objects pushed by other threads
+   * while the queue is being cleared may remain in the queue.
+   */
+  public void clear()
+  {
+    for(int count=size(); count>0 && pull()!=null; --count);
+  }
+
+
+  /**
+   * Class Ring is a ring array of slots with a sequence number for each
+   * slot (as per the bounded queue described by D. Vyukov).  A slot whose
+   * sequence number equals the tail index is free for the next push, and
+   * one whose sequence number is one greater than the head index holds the
+   * next object to be pulled.
+   */
+  private static class Ring
+  {
+    private final int mask;
+    private final AtomicReferenceArray slotsArr;
+    private final AtomicLongArray sequenceArr;
+    private final AtomicLong headIndex = new AtomicLong();
+    private final AtomicLong tailIndex = new AtomicLong();
+    private final AtomicReference nextRingRef = new AtomicReference();
+
+    /**
+     * Creates a ring.
+     * @param capacity number of slots in the ring (a power of two).
+     */
+    public Ring(int capacity)
+    {
+      mask = capacity - 1;
+      slotsArr = new AtomicReferenceArray(capacity);
+      sequenceArr = new AtomicLongArray(capacity);
+      for(int i=0; i<capacity; ++i)
+        sequenceArr.set(i,i);
+    }
+
+    /**
+     * Enters the given object into the ring.
+     * @param obj the object to use.
+     * @return true if the object was entered; false if the ring is full
+     * or closed.
+     */
+    public boolean offer(Object obj)
+    {
+      long tailVal,diffVal;
+      int idx;
+      while(true)
+      {  //loop until slot claimed or ring found full or closed
+        if((tailVal=tailIndex.get()) < 0)
+          return false;                     //if ring closed then return
+        idx = (int)tailVal & mask;
+        if((diffVal=sequenceArr.get(idx)-tailVal) == 0)
+        {  //slot is free
+          if(tailIndex.compareAndSet(tailVal,tailVal+1))
+          {  //slot claimed; enter object and then publish it
+            slotsArr.lazySet(idx,obj);
+            sequenceArr.set(idx,tailVal+1);
+            return true;
+          }
+        }
+        else if(diffVal < 0)      //if slot not yet pulled then
+          return false;           //ring is full
+      }
+    }
+
+    /**
+     * Removes the next object from the ring.
+     * @return The object, or null if the ring is empty (or the next
+     * object is not yet published).
+     */
+    public Object poll()
+    {
+      long headVal,diffVal;
+      int idx;
+      Object obj;
+      while(true)
+      {  //loop until slot claimed or ring found empty
+        headVal = headIndex.get();
+        idx = (int)headVal & mask;
+        if((diffVal=sequenceArr.get(idx)-(headVal+1)) == 0)
+        {  //slot holds next object
+          if(headIndex.compareAndSet(headVal,headVal+1))
+          {  //slot claimed; fetch object and free slot for next pass
+            obj = slotsArr.get(idx);
+            slotsArr.lazySet(idx,null);
+            sequenceArr.set(idx,headVal+mask+1);
+            return obj;
+          }
+        }
+        else if(diffVal < 0)      //if slot not yet published then
+          return null;            //ring is empty
+      }
+    }
+
+    /**
+     * Closes the ring to new objects.
+     */
+    public void close()
+    {
+      long tailVal;
+      while((tailVal=tailIndex.get()) >= 0 &&
+                      !tailIndex.compareAndSet(tailVal,tailVal|CLOSED_BIT));
+    }
+
+    /**
+     * Determines if the ring is closed to new objects.
+     * @return true if the ring is closed; false if not.
+     */
+    public boolean isClosed()
+    {
+      return (tailIndex.get() < 0);
+    }
+
+    /**
+     * Determines if the ring is closed and all of its objects have been
+     * pulled.
+     * @return true if the ring is closed and drained; false if not.
+     */
+    public boolean isDrained()
+    {
+      final long tailVal = tailIndex.get();
+      return (tailVal < 0 && headIndex.get() >= (tailVal & ~CLOSED_BIT));
+    }
+
+    /**
+     * Returns the number of objects in the ring.
+     * @return The number of objects in the ring.
+     */
+    public int size()
+    {
+      final long headVal = headIndex.get();
+      final long countVal = (tailIndex.get() & ~CLOSED_BIT) - headVal;
+      return (countVal > 0) ? (int)countVal : 0;
+    }
+
+    /**
+     * Returns the ring linked after this ring, creating it (with twice the
+     * number of slots) if needed.
+     * @return The next ring.
+     */
+    public Ring getNextRing()
+    {
+      Ring ringObj;
+      if((ringObj=(Ring)(nextRingRef.get())) == null)
+      {  //next ring not yet linked; link new ring
+        nextRingRef.compareAndSet(null,new Ring((mask+1)*2));
+        ringObj = (Ring)(nextRingRef.get());
+      }
+      return ringObj;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+//SLinkChannelRegistry.java:  Assigns a dense integer ID to each channel.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class SLinkChannelRegistry assigns a dense integer ID to each channel the
+ * first time the channel is seen, so channels may be compared, selected and
+ * indexed with an int (or a bit in a 'BitSet') rather than by hashing and
+ * comparing their code strings. IDs start at 0, are never reused and are
+ * the same for all channels with the same unique ID (see
+ * 'IStaChaNetLoc.getUniqueId()'). The ID of a 'StaChaNetLoc' (or other
+ * 'AbstractStaChaNetLoc') is cached in the object, so the registry is only
+ * searched the first time.
+ */
+public class SLinkChannelRegistry {
+  /** The initial capacity of the channel array. */
+  private static final int INITIAL_CAPACITY = 256;
+
+  /** The map of 'Integer' channel IDs with unique ID string key. */
+  private static final Map channelIdMap = new ConcurrentHashMap();
+
+  /** The channels indexed by channel ID. */
+  private static volatile IStaChaNetLoc[] channelArr =
+      new IStaChaNetLoc[INITIAL_CAPACITY];
+
+  /** The number of channels. */
+  private static volatile int numChannels = 0;
+
+  /**
+   * Returns the channel for the channel ID.
+   * @param channelId the channel ID.
+   * @return the channel.
+   * @throws ArrayIndexOutOfBoundsException if the channel ID is not valid.
+   */
+  public static IStaChaNetLoc getChannel(int channelId) {
+    if (channelId >= numChannels)
+      throw new ArrayIndexOutOfBoundsException(channelId);
+    return channelArr[channelId];
+  }
+
+  /**
+   * Returns the channel ID for the channel, assigning a new ID if the
+   * channel has not been seen before.
+   * @param scnlObj the channel.
+   * @return the channel ID.
+   */
+  public static int getChannelId(IStaChaNetLoc scnlObj) {
+    if (scnlObj instanceof AbstractStaChaNetLoc)
+      return ((AbstractStaChaNetLoc) scnlObj).getChannelId();
+    return lookupChannelId(scnlObj);
+  }
+
+  /**
+   * Returns the number of channels (one more than the highest channel ID.)
+   * @return the number of channels.
+   */
+  public static int getNumChannels() {
+    return numChannels;
+  }
+
+  /**
+   * Searches the registry for the channel ID for the channel, assigning a
+   * new ID if the channel has not been seen before.
+   * @param scnlObj the channel.
+   * @return the channel ID.
+   */
+  static int lookupChannelId(IStaChaNetLoc scnlObj) {
+    final String uniqueId = scnlObj.getUniqueId();
+    Integer channelId = (Integer) channelIdMap.get(uniqueId);
+    if (channelId != null)
+      return channelId.intValue();
+    synchronized (channelIdMap) {
+      // check again in case the channel was added by another thread
+      channelId = (Integer) channelIdMap.get(uniqueId);
+      if (channelId != null)
+        return channelId.intValue();
+      final int id = numChannels;
+      IStaChaNetLoc[] arr = channelArr;
+      if (id >= arr.length) {
+        arr = new IStaChaNetLoc[arr.length * 2];
+        System.arraycopy(channelArr, 0, arr, 0, id);
+      }
+      // keep an immutable copy of the channel
+      arr[id] = (scnlObj instanceof StaChaNetLoc) ? scnlObj
+          : new StaChaNetLoc(scnlObj.getStationCode(),
+              scnlObj.getChannelCode(), scnlObj.getNetworkCode(),
+              scnlObj.getLocationCode());
+      channelArr = arr;
+      numChannels = id + 1;
+      channelIdMap.put(uniqueId, Integer.valueOf(id));
+      return id;
+    }
+  }
+
+  /**
+   * This class is not to be instantiated.
+   */
+  private SLinkChannelRegistry() {
+  }
+}
@@ -3,15 +3,37 @@
 //  9/29/2008 -- [ET]  Initial version.
 //   2/3/2010 -- [ET]  Modified to show program version number as part
 //                     of 'HELLO' response.
+// 10/17/2026 -- [KF]  Modified 'deliverMessage()' to frame the SeedLink
+//                     packet once before handing it to the connections.
+// 10/17/2026 -- [KF]  Added selector mode, where the connections are
+//                     serviced by a fixed pool of NIO selector threads.
+// 10/17/2026 -- [KF]  Added option to run the acceptor and connection
+//                     threads on virtual threads.
+// 10/17/2026 -- [KF]  Added option to deliver live messages via a shared
+//                     message log read by each connection.
+// 10/17/2026 -- [KF]  Added 'openMessageCursor()' method.
+// 10/17/2026 -- [KF]  Modified 'deliverMessage()' to hand each message
+//                     only to the connections subscribed to its channel
+//                     (via a routing index).
+// 10/17/2026 -- [KF]  Modified 'deliverMessage()' to rebuild the routing
+//                     index for a new channel.
+// 10/17/2026 -- [KF]  Added output-batch-size option for the connections.
+// 10/17/2026 -- [KF]  Added 'Options' class for the options that were
+//                     added as constructor parameters, starting with the
+//                     number of selector I/O threads; moved the
+//                     virtual-threads, message-log and output-batch-size
+//                     options to 'Options'.
 //
 
 package com.isti.slinkutil;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
@@ -31,6 +53,8 @@ public class SLinkClientsMgr
   public static final String VERSION = "0.34";
   /** The default SeedLink software string. */
   public static final String DEFAULT_SEEDLINK_SOFTWARE = "SeedLink v3.0 (2009.260)";
+  /** The default maximum number of bytes sent to a client in one write. */
+  public static final int DEFAULT_OUTPUT_BATCH_SIZE = 64 * 1024;
   private final String bindAddrStr;
   private final int bindPortNum;
   private final String stationIdStr;
@@ -38,18 +62,25 @@ public class SLinkClientsMgr
   private final int maximumQueueSize;
   private final int messageRetryDelayMS;
   private final int maxNumConnections;
+  private final int numIoThreads;
+  private final boolean virtualThreadsFlag;
+  private final int outputBatchSize;
+  private final SLinkMessageLog messageLogObj;
   private final RequestInfoIntf requestInfoObj;
   private final String seedlinkSoftware;
   private final String organization;
   private final String bindPortIdStr;
   private final String msgPromptStr;
   private final ClientAcceptorThread clientAcceptorThreadObj;
+  private final SLinkSelectorServer selectorServerObj;
   private final Vector sLinkConnectionList = new Vector();
   private final long mgrStartupTimeMsVal;
   private final String mgrStartupTimeStr;
   private ServerSocket serverListenSocketObj = null;
   private Vector sLinkConnListCopy = new Vector();
   private boolean sLinkConnListChangedFlag = false;
+  private SLinkRoutingIndex routingIndexObj = null;
+  private boolean routingChangedFlag = true;
   private final String infoIdCmdResponseStr;
   protected final SimpleDateFormat dateFormatterObj =
                              new SimpleDateFormat("yyyy-MM-dd HH:mm:ss'Z'");
@@ -100,6 +131,46 @@ public class SLinkClientsMgr
              RequestInfoIntf requestInfoObj,
              String seedlinkSoftware, String organization) throws Exception
   {
+    this(bindAddrStr,bindPortNum,stationIdStr,networkIdStr,maximumQueueSize,
+                  messageRetryDelayMS,maxNumConnections,requestInfoObj,
+                             seedlinkSoftware,organization,(Options)null);
+  }
+
+  /**
+   * Creates and starts up a SeedLink-clients manager object.
+   * @param bindAddrStr host address to be used when binding to the listen
+   * port, or null for none.
+   * @param bindPortNum port number to be used when binding to the listen
+   * port.
+   * @param stationIdStr station ID string for module.
+   * @param networkIdStr network ID string for module.
+   * @param maximumQueueSize maximum number of messages allowed to be stored
+   * in each connection queue, or 0 for none.
+   * @param messageRetryDelayMS number of milliseconds to wait after a
+   * message-send failure before attemping a resend, or 0 to wait
+   * indefinitely (until another message is queued).
+   * @param maxNumConnections maximum number of simultaneous connections
+   * allowed.
+   * @param requestInfoObj source object for available-channels information
+   * and message requests, or null for none.
+   * @param seedlinkSoftware the seedlink software string used in the response
+   * string for the "INFO ID" and "HELLO" commands or null for the default.
+   * @param organization the organization string used in the response string for
+   * the "INFO ID" and "HELLO" commands or null for the default.
+   * @param optionsObj the options for servicing the connections, or null
+   * for the default options (see 'SLinkClientsMgr.Options').
+   * @throws Exception if the manager cannot be started up because
+   * the server listen socket cannot be opened.
+   */
+  public SLinkClientsMgr(String bindAddrStr, int bindPortNum,
+             String stationIdStr, String networkIdStr, int maximumQueueSize,
+             int messageRetryDelayMS, int maxNumConnections,
+             RequestInfoIntf requestInfoObj,
+             String seedlinkSoftware, String organization,
+             Options optionsObj) throws Exception
+  {
+    if(optionsObj == null)             //if no options given then
+      optionsObj = new Options();      //use default options
     this.bindAddrStr = bindAddrStr;
     this.bindPortNum = bindPortNum;
     this.stationIdStr = stationIdStr;
@@ -107,6 +178,19 @@ public class SLinkClientsMgr
     this.maximumQueueSize = maximumQueueSize;
     this.messageRetryDelayMS = messageRetryDelayMS;
     this.maxNumConnections = maxNumConnections;
+    numIoThreads = optionsObj.getNumIoThreads();
+    boolean virtualFlag = optionsObj.isVirtualThreads();
+    if(virtualFlag && !NotifyThread.isVirtualThreadSupported())
+    {  //virtual threads not supported; log message
+      LogMgr.usrMsgWarning("SLinkClientsMgr:  Virtual threads not " +
+                          "supported by Java runtime; using platform threads");
+      virtualFlag = false;
+    }
+    virtualThreadsFlag = virtualFlag;
+    final int batchSize = optionsObj.getOutputBatchSize();
+    outputBatchSize = (batchSize > 0) ? batchSize : DEFAULT_OUTPUT_BATCH_SIZE;
+    final int logSize = optionsObj.getMessageLogSize();
+    messageLogObj = (logSize > 0) ? new SLinkMessageLog(logSize) : null;
     this.requestInfoObj = requestInfoObj;
     if (seedlinkSoftware == null)
     {
@@ -125,8 +209,28 @@ public class SLinkClientsMgr
     final String objIdStr = "SLinkClientsMgr";
     msgPromptStr = objIdStr + ":  ";        //prompt for log messages
     openAcceptorSocket();         //open server listen socket
-              //create thread for accepting client connections:
-    clientAcceptorThreadObj = new ClientAcceptorThread(objIdStr);
+    if(numIoThreads > 0)
+    {  //selector mode; create I/O threads for servicing connections
+      try
+      {
+        selectorServerObj = new SLinkSelectorServer(this,
+                   serverListenSocketObj.getChannel(),numIoThreads,objIdStr);
+      }
+      catch(Exception ex)
+      {  //error setting up selector
+        LogMgr.usrMsgWarning(msgPromptStr +
+                                 "Error setting up selector threads:  " + ex);
+        closeAcceptorSocket();
+        throw ex;
+      }
+      clientAcceptorThreadObj = null;
+    }
+    else
+    {  //create thread for accepting client connections:
+      clientAcceptorThreadObj = new ClientAcceptorThread(objIdStr);
+      clientAcceptorThreadObj.setVirtualThread(virtualThreadsFlag);
+      selectorServerObj = null;
+    }
              //set startup-time variables for manager:
     long timeMsVal = 0;
     String timeStr = "";
@@ -145,7 +249,10 @@ public class SLinkClientsMgr
         seedlinkSoftware + "\" " +
                                     "organization=\"" + organization + "\" " +
                                  "started=\"" + mgrStartupTimeStr + "\" />";
-    clientAcceptorThreadObj.start();        //startup acceptor thread
+    if(selectorServerObj != null)
+      selectorServerObj.start();            //startup I/O threads
+    else
+      clientAcceptorThreadObj.start();      //startup acceptor thread
   }
 
   /**
@@ -168,8 +275,7 @@ public class SLinkClientsMgr
         try
         {          //bind to socket at given host and port number:
           netAddrObj = InetAddress.getByName(bindAddrStr);
-          serverListenSocketObj =
-                                new ServerSocket(bindPortNum,50,netAddrObj);
+          serverListenSocketObj = createServerSocket(netAddrObj);
         }
         catch(UnknownHostException ex)
         {  //unable to locate host
@@ -191,7 +297,7 @@ public class SLinkClientsMgr
       {  //bind host-address not given
         try
         {      //bind to socket on local host at given port number
-          serverListenSocketObj = new ServerSocket(bindPortNum);
+          serverListenSocketObj = createServerSocket(null);
         }
         catch(Exception ex)
         {  //error binding
@@ -212,6 +318,36 @@ public class SLinkClientsMgr
     }
   }
 
+  /**
+   * Creates the server listen socket.  In selector mode the socket is
+   * created via a server-socket channel.
+   * @param netAddrObj host address to bind to, or null for local host.
+   * @return The server listen socket.
+   * @throws IOException if the listen socket cannot be created.
+   */
+  private ServerSocket createServerSocket(InetAddress netAddrObj)
+                                                          throws IOException
+  {
+    if(numIoThreads <= 0)
+    {  //not selector mode
+      return (netAddrObj != null) ?
+                          new ServerSocket(bindPortNum,50,netAddrObj) :
+                                             new ServerSocket(bindPortNum);
+    }
+    final ServerSocketChannel channelObj = ServerSocketChannel.open();
+    try
+    {
+      channelObj.socket().bind(
+                         new InetSocketAddress(netAddrObj,bindPortNum),50);
+    }
+    catch(IOException ex)
+    {  //error binding; close channel
+      channelObj.close();
+      throw ex;
+    }
+    return channelObj.socket();
+  }
+
   /**
    * Closes the server listen socket.
    */
@@ -252,15 +388,35 @@ public class SLinkClientsMgr
         LogMgr.usrMsgDebug(msgPromptStr + "Delivering msg to clients (" +
                                        sLConnList.size() + "):  " + msgObj);
       }
-      if(sLConnList.size() > 0)
-      {  //at least one entry in connections list
-        Iterator iterObj;
+      if(messageLogObj != null)
+      {  //shared message log is used
+        msgObj.getSLinkPacketArray();  //frame packet once for all clients
+        messageLogObj.append(msgObj);  //append message to log
+        final Iterator iterObj = sLConnList.iterator();
         Object obj;
-        iterObj = sLConnList.iterator();
         while(iterObj.hasNext())
-        {  //for each 'SLinkConnection' in list; pass along msg object
+        {  //for each 'SLinkConnection' in list; indicate msg appended
           if((obj=iterObj.next()) instanceof SLinkConnection)
-            ((SLinkConnection)obj).addMsgToQueue(msgObj);
+            ((SLinkConnection)obj).messageLogged();
+        }
+      }
+      else if(sLConnList.size() > 0)
+      {  //at least one entry in connections list
+        final int channelId = msgObj.getChannelId();
+        SLinkRoutingIndex indexObj = getRoutingIndex();
+        if(!indexObj.isIndexed(channelId))
+        {  //new channel; rebuild index to check connection selections
+          channelSelectionChanged();
+          indexObj = getRoutingIndex();
+        }
+                   //get connections subscribed to message channel:
+        final SLinkConnection [] connArr =
+                                          indexObj.getConnections(channelId);
+        if(connArr.length > 0)
+        {  //at least one connection subscribed to channel
+          msgObj.getSLinkPacketArray();  //frame packet once for all clients
+          for(int i=0; i<connArr.length; ++i)
+            connArr[i].addMsgToQueue(msgObj);    //pass along msg object
         }
       }
     }
@@ -280,6 +436,21 @@ public class SLinkClientsMgr
    * rejected due to I/O error or too many connections.
    */
   private boolean processNewConnection(Socket recvdSocketObj)
+  {
+    return processNewConnection(recvdSocketObj,null);
+  }
+
+  /**
+   * Processes a new client connection accepted via the server listen
+   * socket.
+   * @param recvdSocketObj socket object for new client connection.
+   * @param ioThreadObj selector I/O thread to service the connection,
+   * or null to use the connection's own threads.
+   * @return true if connection is to be retained and used; false if
+   * rejected due to I/O error or too many connections.
+   */
+  boolean processNewConnection(Socket recvdSocketObj,
+                                      SLinkSelectorServer.IoThread ioThreadObj)
   {
     try
     {
@@ -292,10 +463,21 @@ public class SLinkClientsMgr
                                           sLinkConnectionList.size() + ')');
           return false;
         }
-        sLinkConnectionList.add(  //create connection object and add to list
-                       new SLinkConnection(this,recvdSocketObj,stationIdStr,
-                        networkIdStr,maximumQueueSize,messageRetryDelayMS));
+        if(ioThreadObj != null)
+        {  //selector mode; create connection object and add to list
+          final SLinkNioConnection connObj = new SLinkNioConnection(this,
+                          recvdSocketObj.getChannel(),ioThreadObj,
+             stationIdStr,networkIdStr,maximumQueueSize,messageRetryDelayMS);
+          sLinkConnectionList.add(connObj);
+          ioThreadObj.addConnection(connObj);  //register with selector
+        }
+        else
+        {  //create connection object and add to list
+          sLinkConnectionList.add(new SLinkConnection(this,recvdSocketObj,
+           stationIdStr,networkIdStr,maximumQueueSize,messageRetryDelayMS));
+        }
         sLinkConnListChangedFlag = true;    //indicate list changed
+        routingChangedFlag = true;          //indicate routing changed
       }
       return true;                //indicate client socket will be used
     }
@@ -327,6 +509,44 @@ public class SLinkClientsMgr
     return sLinkConnListCopy;
   }
 
+  /**
+   * Returns the current routing index of the connections subscribed to
+   * each channel.  The index is rebuilt if a connection was added or
+   * removed or a connection's selected channels changed since the last
+   * call.
+   * @return The current 'SLinkRoutingIndex' object.
+   */
+  protected SLinkRoutingIndex getRoutingIndex()
+  {
+    synchronized(sLinkConnectionList)
+    {  //grab thread lock for list
+      if(routingChangedFlag)
+      {  //routing changed since last call; build new index
+        routingIndexObj = new SLinkRoutingIndex(sLinkConnectionList);
+        routingChangedFlag = false;     //clear routing-changed flag
+        if(LogMgr.isDebugLevel3())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(msgPromptStr + "Rebuilt routing index (" +
+                           sLinkConnectionList.size() + " connections, " +
+                             routingIndexObj.getNumChannels() + " channels)");
+        }
+      }
+      return routingIndexObj;
+    }
+  }
+
+  /**
+   * Indicates that the selected channels for a connection changed.  The
+   * routing index is rebuilt before the next message is delivered.
+   */
+  public void channelSelectionChanged()
+  {
+    synchronized(sLinkConnectionList)
+    {  //grab thread lock for list
+      routingChangedFlag = true;        //indicate routing changed
+    }
+  }
+
   /**
    * Closes all client sockets and streams.  Also closes the server
    * listen socket.
@@ -340,7 +560,13 @@ public class SLinkClientsMgr
         LogMgr.usrMsgDebug(msgPromptStr + "Closing all sockets");
       }
               //terminate acceptor thread and close server-listen socket:
-      clientAcceptorThreadObj.terminate();
+      if(selectorServerObj != null)
+      {  //selector mode; terminate I/O threads
+        selectorServerObj.terminate();
+        closeAcceptorSocket();
+      }
+      else
+        clientAcceptorThreadObj.terminate();
               //close all open connections:
       final Iterator iterObj = getSLConnListCopy().iterator();
       Object obj;
@@ -367,6 +593,7 @@ public class SLinkClientsMgr
     {  //hold thread lock for list until 'changed' flag set
       sLinkConnectionList.remove(sLinkConnObj);
       sLinkConnListChangedFlag = true;    //indicate list changed
+      routingChangedFlag = true;          //indicate routing changed
     }
   }
 
@@ -381,6 +608,37 @@ public class SLinkClientsMgr
                                                                        null;
   }
 
+  /**
+   * Returns the message log shared by the connections.
+   * @return The shared message log, or null if live messages are added
+   * to the queue of each connection.
+   */
+  public SLinkMessageLog getMessageLog()
+  {
+    return messageLogObj;
+  }
+
+  /**
+   * Determines if the connection threads are run on virtual threads.
+   * @return true if the connection threads are run on virtual threads;
+   * false if not.
+   */
+  public boolean isVirtualThreads()
+  {
+    return virtualThreadsFlag;
+  }
+
+  /**
+   * Returns the maximum number of bytes of queued messages sent to a
+   * client in one write.
+   * @return The maximum number of bytes of queued messages sent to a
+   * client in one write.
+   */
+  public int getOutputBatchSize()
+  {
+    return outputBatchSize;
+  }
+
   /**
    * Get the organization.
    * @return the organization
@@ -412,6 +670,25 @@ public class SLinkClientsMgr
         beginTime, endTime) : new MiniSeedMsgHldr[0];
   }
 
+  /**
+   * Opens a cursor for reading 'miniSEED' messages from the cache, starting
+   * with the given message number and filtered by the begin and end time.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @param followFlag true to continue reading the messages added to the
+   * cache after the requested messages, false to stop after the requested
+   * messages.
+   * @return The cursor, or null if no request-information object is
+   * available.
+   */
+  public IMiniSeedMsgCursor openMessageCursor(int msgNumVal,
+                SLinkTime beginTime, SLinkTime endTime, boolean followFlag)
+  {
+    return (requestInfoObj != null) ? requestInfoObj.openMessageCursor(
+                        msgNumVal, beginTime, endTime, followFlag) : null;
+  }
+
   /**
    * Generates the response to the INFO command with the given "level" argument
    * string.
@@ -455,6 +732,113 @@ public class SLinkClientsMgr
   }
 
 
+  /**
+   * Class Options holds the options for how a SeedLink-clients manager
+   * services its connections.  The options are read when the manager is
+   * created, so they must be set before the options object is passed to
+   * the 'SLinkClientsMgr' constructor.
+   */
+  public static class Options
+  {
+    private int numIoThreads = 0;
+    private boolean virtualThreadsFlag = false;
+    private int messageLogSize = 0;
+    private int outputBatchSize = 0;
+
+    /**
+     * Sets the number of selector I/O threads used to service all
+     * connections.
+     * @param numIoThreads number of selector I/O threads used to service
+     * all connections, or 0 to use two threads per connection (the
+     * default).
+     */
+    public void setNumIoThreads(int numIoThreads)
+    {
+      this.numIoThreads = numIoThreads;
+    }
+
+    /**
+     * Returns the number of selector I/O threads used to service all
+     * connections.
+     * @return The number of selector I/O threads, or 0 if two threads
+     * are used per connection.
+     */
+    public int getNumIoThreads()
+    {
+      return numIoThreads;
+    }
+
+    /**
+     * Sets whether the acceptor thread and the threads for each
+     * connection are run on virtual threads (if supported by the Java
+     * runtime).  Not used if the number of selector I/O threads is
+     * greater than 0.
+     * @param flgVal true to use virtual threads; false to use platform
+     * threads (the default).
+     */
+    public void setVirtualThreads(boolean flgVal)
+    {
+      virtualThreadsFlag = flgVal;
+    }
+
+    /**
+     * Determines if the acceptor thread and the threads for each
+     * connection are to be run on virtual threads.
+     * @return true to use virtual threads; false to use platform threads.
+     */
+    public boolean isVirtualThreads()
+    {
+      return virtualThreadsFlag;
+    }
+
+    /**
+     * Sets the number of live messages held in a message log shared by
+     * all connections (each connection reads the log via its own cursor).
+     * @param messageLogSize number of live messages held in the shared
+     * message log, or 0 to add each live message to the queue of every
+     * connection (the default).
+     */
+    public void setMessageLogSize(int messageLogSize)
+    {
+      this.messageLogSize = messageLogSize;
+    }
+
+    /**
+     * Returns the number of live messages held in a message log shared
+     * by all connections.
+     * @return The number of live messages held in the shared message log,
+     * or 0 if each live message is added to the queue of every connection.
+     */
+    public int getMessageLogSize()
+    {
+      return messageLogSize;
+    }
+
+    /**
+     * Sets the maximum number of bytes of queued messages sent to a
+     * client in one write (for connections not serviced by selector I/O
+     * threads); messages are sent immediately when the queue is empty.
+     * @param outputBatchSize maximum number of bytes sent in one write,
+     * or 0 for the default ('DEFAULT_OUTPUT_BATCH_SIZE').
+     */
+    public void setOutputBatchSize(int outputBatchSize)
+    {
+      this.outputBatchSize = outputBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of bytes of queued messages sent to a
+     * client in one write.
+     * @return The maximum number of bytes sent in one write, or 0 for
+     * the default.
+     */
+    public int getOutputBatchSize()
+    {
+      return outputBatchSize;
+    }
+  }
+
+
   /**
    * Class ClientAcceptorThread accepts client connections.
    */
@@ -9,17 +9,53 @@
 //                     always notify message queue after no messages
 //                     are queued (to fix issue with transaction not
 //                     ended if no messages returned).
+// 10/17/2026 -- [KF]  Modified send loop to write the shared pre-framed
+//                     SeedLink packet with a single write.
+// 10/17/2026 -- [KF]  Moved command handling into 'processInputLine()'
+//                     and added 'sendQueuedMessages()' so connections
+//                     may be serviced by selector I/O threads.
+// 10/17/2026 -- [KF]  Modified to run the connection threads on virtual
+//                     threads if selected by the clients manager.
+// 10/17/2026 -- [KF]  Added reading of live messages via a cursor on the
+//                     clients manager's shared message log.
+// 10/17/2026 -- [KF]  Modified to send requested messages from a cursor
+//                     on the cache instead of fetching them all at once.
+// 10/17/2026 -- [KF]  Fixed 'queuePutMessage()' to discard a message with
+//                     a lower message number when debug output is off.
+// 10/17/2026 -- [KF]  Modified to notify the clients manager when the
+//                     selected channels change, for its routing index.
+// 10/17/2026 -- [KF]  Modified to keep the selected channels as a set of
+//                     channel-ID bits.
+// 10/17/2026 -- [KF]  Modified to compile SELECT patterns into a matcher
+//                     that also selects channels that appear later,
+//                     instead of matching a snapshot of the channels.
+// 10/17/2026 -- [KF]  Implemented the FETCH command (dial-up mode), which
+//                     sends the requested messages from the cache, then
+//                     sends "END" and closes the connection.
+// 10/17/2026 -- [KF]  Modified the queue thread to send the queued
+//                     messages in batches, flushing the output when the
+//                     queue is empty or the batch size is reached.
+// 10/17/2026 -- [KF]  Modified 'MessageQueue' to use its own lock object
+//                     for adding messages (the queue is now lock-free).
+// 10/17/2026 -- [KF]  Modified 'sendOutputLine()' to count a batch of
+//                     messages flushed with the line in the batch counts.
+// 10/17/2026 -- [KF]  Fixed 'setDataTransmitState()' to set the request
+//                     storage flag and to clear a failed request while
+//                     holding the request lock.
+// 10/17/2026 -- [KF]  Modified to write, flush and count message batches
+//                     and output lines under one lock, so a line sent by
+//                     the command thread can't reset the batch counts
+//                     while the queue thread is adding to the batch.
 //
 
 package com.isti.slinkutil;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Set;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.BufferedOutputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.Socket;
@@ -38,6 +74,13 @@ public class SLinkConnection
   private final InputStream socketInStmObj;
   private final BufferedOutputStream socketOutStmObj;
   private final PrintWriter socketOutWtrObj;
+  private final int outputBatchSize;
+  private final Object batchSyncObj = new Object();   //sync for batch
+  private int batchMsgCount = 0;
+  private int batchByteCount = 0;
+  private volatile long msgBatchesSentCount = 0;
+  private volatile long batchedMsgsSentCount = 0;
+  private volatile int maxMsgBatchCount = 0;
   private final String msgPromptStr;
   private final NotifyThread processingThreadObj;
   private final MessageQueue messageQueueObj;
@@ -49,20 +92,35 @@ public class SLinkConnection
   private int lastMsgNumQueuedVal = -1;
   private boolean queueFullReportedFlag = false;
   private boolean dataTransmitOnFlag = false;
+  private boolean staHshkModeFlag = false;    //true for STATION handshaking mode
   private boolean storeAddedMsgsFlag = false;
+  private final SLinkMessageLog.Cursor messageLogCursorObj;
+  private final MiniSeedMsgHldr [] messageLogReadArr;
+  private long messageLogLostCount = 0;
+  private volatile IMiniSeedMsgCursor requestCursorObj = null;
+  private boolean requestFollowFlag = false;
+  private boolean requestFetchFlag = false;
+  private volatile boolean fetchModeFlag = false;
+  private volatile boolean closeAfterOutputFlag = false;
+  private final MiniSeedMsgHldr [] requestCursorReadArr =
+                              new MiniSeedMsgHldr[REQUEST_CURSOR_READ_SIZE];
   private int requestedMessageNumber = -1;
   private SLinkTime requestedBeginTime = null;
   private SLinkTime requestedEndTime = null;
   private long transmitBeginTimeMs = 0;
   private long transmitEndTimeMs = 0;
-  private Set availableChannelsSet = null;
-  private Set selectedChannelsSet = null;
+  private SLinkSelectMatcher selectMatcherObj = null;
+  private SLinkSelectMatcher routedMatcherObj = null;
   private final ArrayList selectPatternsList = new ArrayList();
   private static long connectionIdNumber = 0;
          //# of consecutive read errors allowed before closing connection:
   protected static final int READ_ERROR_LIMIT = 10;
          //# of consecutive write errors allowed before closing connection:
   protected static final int WRITE_ERROR_LIMIT = 10;
+         //maximum # of messages read from shared message log at a time:
+  protected static final int MESSAGE_LOG_READ_SIZE = 64;
+         //maximum # of messages read from request cursor at a time:
+  protected static final int REQUEST_CURSOR_READ_SIZE = 64;
          //offset value for checking message-number rollover:
   protected static final int MSGNUM_ROLLOVER_CHKOFFS = 100;
          //low-end value for checking message-number rollover:
@@ -110,8 +168,40 @@ public class SLinkConnection
            Socket clientSocketObj, String stationIdStr, String networkIdStr,
            int maximumQueueSize, int messageRetryDelayMS) throws IOException
   {
-    if(sLinkClientsMgrObj == null || clientSocketObj == null)
+    this(sLinkClientsMgrObj,clientSocketObj,
+                 clientSocketObj.getInputStream(),
+                         clientSocketObj.getOutputStream(),stationIdStr,
+                   networkIdStr,maximumQueueSize,messageRetryDelayMS,true);
+  }
+
+  /**
+   * Creates the manager object for a SeedLink client connection.
+   * @param sLinkClientsMgrObj parent 'SLinkClientsMgr' object.
+   * @param clientSocketObj socket object for new client connection.
+   * @param inStmObj input stream for client socket access.
+   * @param outStmObj output stream for client socket access.
+   * @param stationIdStr station ID string for module.
+   * @param networkIdStr network ID string for module.
+   * @param maximumQueueSize maximum number of messages allowed to be stored
+   * in the queue, or 0 for none.
+   * @param messageRetryDelayMS number of milliseconds to wait after a
+   * message-send failure before attemping a resend, or 0 to wait
+   * indefinitely (until another message is queued).
+   * @param startThreadsFlag true to start the requests-processing and
+   * queue-processing threads; false if the connection is serviced via
+   * the 'processInputLine()' and 'sendQueuedMessages()' methods.
+   */
+  protected SLinkConnection(SLinkClientsMgr sLinkClientsMgrObj,
+                   Socket clientSocketObj, InputStream inStmObj,
+                      OutputStream outStmObj, String stationIdStr,
+                    String networkIdStr, int maximumQueueSize,
+                     int messageRetryDelayMS, boolean startThreadsFlag)
+  {
+    if(sLinkClientsMgrObj == null || clientSocketObj == null ||
+                                   inStmObj == null || outStmObj == null)
+    {
       throw new NullPointerException("Null parameter(s)");
+    }
     this.sLinkClientsMgrObj = sLinkClientsMgrObj;
     this.clientSocketObj = clientSocketObj;
               //save station-ID string; don't allow null:
@@ -121,10 +211,11 @@ public class SLinkConnection
     this.maximumQueueSize = maximumQueueSize;
     this.messageRetryDelayMS = messageRetryDelayMS;
               //setup input stream for client socket access:
-    socketInStmObj = clientSocketObj.getInputStream();
-              //setup output stream for client socket access (buffered):
-    socketOutStmObj = new BufferedOutputStream(
-                                         clientSocketObj.getOutputStream());
+    socketInStmObj = inStmObj;
+              //setup output stream for client socket access (buffered
+              // to hold a batch of messages):
+    outputBatchSize = sLinkClientsMgrObj.getOutputBatchSize();
+    socketOutStmObj = new BufferedOutputStream(outStmObj,outputBatchSize);
               //setup buffered writer for lines-of-character output:
     socketOutWtrObj = new PrintWriter(
                                    new OutputStreamWriter(socketOutStmObj));
@@ -133,11 +224,29 @@ public class SLinkConnection
     msgPromptStr = objIdStr + ":  ";        //prompt for log messages
     if(LogMgr.isDebugLevel1())    //if mask-bit set then output message
       LogMgr.usrMsgDebug(msgPromptStr + "Opened client socket connection");
+              //setup cursor for shared message log (if used):
+    final SLinkMessageLog messageLogObj =
+                                     sLinkClientsMgrObj.getMessageLog();
+    if(messageLogObj != null)
+    {  //shared message log is used
+      messageLogCursorObj = messageLogObj.createCursor();
+      messageLogReadArr = new MiniSeedMsgHldr[MESSAGE_LOG_READ_SIZE];
+    }
+    else
+    {  //shared message log not used
+      messageLogCursorObj = null;
+      messageLogReadArr = null;
+    }
               //create thread for processing queue:
     messageQueueObj = new MessageQueue(objIdStr + "Queue");
               //set thread-synchronization object for queue modifications:
     msgQueueSyncObj = messageQueueObj.getThreadSyncLockObj();
-    messageQueueObj.startThread();     //startup processing thread
+    if(startThreadsFlag)
+    {  //startup processing thread (virtual if selected by manager)
+      messageQueueObj.setVirtualThread(
+                                   sLinkClientsMgrObj.isVirtualThreads());
+      messageQueueObj.startThread();
+    }
               //create thread for processing client requests:
     processingThreadObj = new NotifyThread(objIdStr + "Proc")
          {
@@ -146,7 +255,12 @@ public class SLinkConnection
              connectionProcessor();
            }
          };
-    processingThreadObj.start();       //startup processing thread
+    if(startThreadsFlag)
+    {  //startup processing thread (virtual if selected by manager)
+      processingThreadObj.setVirtualThread(
+                                   sLinkClientsMgrObj.isVirtualThreads());
+      processingThreadObj.start();
+    }
     clientSocketOpenFlag = true;       //indicate client socket is open
   }
 
@@ -180,6 +294,167 @@ public class SLinkConnection
     }
   }
 
+  /**
+   * Indicates that a message was appended to the shared message log.
+   * If data transmission is in the "on" state then the thread servicing
+   * the queue is woken up to read the message via the cursor.
+   */
+  public void messageLogged()
+  {
+    if(dataTransmitOnFlag && messageLogCursorObj != null)
+    {  //transmission on and shared message log is used
+      messageQueueObj.notifyThread();
+      messageQueued();
+    }
+  }
+
+  /**
+   * Reads messages from the shared message log (if used) into the queue.
+   * Messages are read only while data transmission is in the "on" state
+   * and the queue is empty, and are filtered in the same way as messages
+   * added via 'addMsgToQueue()'.  If the cursor fell behind the oldest
+   * message in the log then the missed messages are reported.
+   * @return true if any messages were read; false if not.
+   */
+  private boolean readMessageLog()
+  {
+    if(messageLogCursorObj == null || !dataTransmitOnFlag ||
+                                               !messageQueueObj.isEmpty())
+    {  //shared message log not used, transmission off or queue not empty
+      return false;
+    }
+    final int count = messageLogCursorObj.read(messageLogReadArr);
+    final long lostCount = messageLogCursorObj.getLostCount();
+    if(lostCount != messageLogLostCount)
+    {  //cursor fell behind oldest message in log (slow consumer)
+      final String str = msgPromptStr + "Slow consumer; " +
+                 (lostCount-messageLogLostCount) + " message(s) dropped " +
+                         "from shared message log (total=" + lostCount + ')';
+      if(messageLogLostCount == 0)        //if first time then
+        LogMgr.usrMsgWarning(str);        //log warning message
+      else if(LogMgr.isDebugLevel1())
+        LogMgr.usrMsgDebug(str);
+      messageLogLostCount = lostCount;
+    }
+    for(int i=0; i<count; ++i)
+    {  //for each message read; put message into queue
+      queuePutMessage(messageLogReadArr[i],false);
+      messageLogReadArr[i] = null;        //release message
+    }
+    return (count > 0);
+  }
+
+  /**
+   * Reads requested messages from the cache cursor (if a request is in
+   * progress) into the queue.  Messages are read only while the queue is
+   * empty, so the requested messages are fetched from the cache as they
+   * are sent rather than all at once.  When the cursor has no more
+   * messages the request is finished via 'finishRequestCursor()'.
+   * @return true if the queue contains messages; false if not.
+   */
+  private boolean readRequestCursor()
+  {
+    final IMiniSeedMsgCursor cursorObj = requestCursorObj;
+    if(cursorObj == null)         //if no request in progress then
+      return false;               //exit method
+    int count,lastReadMsgNum,numStored,i;
+    while(messageQueueObj.isEmpty())
+    {  //loop while queue is empty
+      if((count=cursorObj.read(requestCursorReadArr)) <= 0)
+      {  //no more messages from cursor
+        finishRequestCursor(cursorObj);
+        break;
+      }
+      lastReadMsgNum = requestCursorReadArr[count-1].getMessageNumber();
+      synchronized(msgStorageListObj)
+      {  //grab thread-synchronization lock for request
+        if(cursorObj == requestCursorObj)
+        {  //request was not cancelled while reading
+          queuePutMessageArr(requestCursorReadArr,count);
+                   //discard stored "live" messages already read:
+          numStored = msgStorageListObj.size();
+          for(i=0; i<numStored; ++i)
+          {  //for each stored message; stop at first after last read
+            if(AbstractMiniSeedMsgCache.isAfter(((MiniSeedMsgHldr)
+                  msgStorageListObj.get(i)).getMessageNumber(),lastReadMsgNum))
+            {
+              break;
+            }
+          }
+          if(i > 0)
+            msgStorageListObj.subList(0,i).clear();
+        }
+      }
+      for(i=0; i<count; ++i)                  //release messages
+        requestCursorReadArr[i] = null;
+      if(cursorObj != requestCursorObj)       //if request cancelled then
+        return false;                         //exit method
+    }
+    return !messageQueueObj.isEmpty();
+  }
+
+  /**
+   * Finishes the request for the given cache cursor.  If the request
+   * continues with "live" messages then any messages stored during the
+   * request are entered into the queue and data transmission is set to
+   * 'on'; otherwise the transaction is ended after the queue is sent.
+   * @param cursorObj the cursor for the request.
+   */
+  private void finishRequestCursor(IMiniSeedMsgCursor cursorObj)
+  {
+    synchronized(msgStorageListObj)
+    {  //grab thread-synchronization lock for request
+      if(cursorObj != requestCursorObj)  //if request cancelled then
+        return;                          //exit method
+      requestCursorObj = null;           //request finished
+      storeAddedMsgsFlag = false;        //clear storage flag
+      if(!requestFollowFlag)
+      {  //request-messages end-time specified and not in future
+        msgStorageListObj.clear();       //clear any stored messages
+        if(LogMgr.isDebugLevel2())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(msgPromptStr + "Not setting transmit " +
+                  "state to 'on' because specified end time not in future");
+        }
+      }
+      else
+      {  //request continues with "live" messages
+        if(msgStorageListObj.size() > 0)
+        {  //"live" messages were entered into storage during request
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr +
+                         "Received 'live' messages during request (count=" +
+                             msgStorageListObj.size() + "); entering msgs");
+          }
+                   //move messages from storage into queue:
+          final Iterator iterObj = msgStorageListObj.iterator();
+          while(iterObj.hasNext())
+            queuePutMessage((MiniSeedMsgHldr)(iterObj.next()),true);
+          msgStorageListObj.clear();    //clear storage list
+        }
+                   //enable transmit here so flag will be ready if
+                   // 'addMsgToQueue()' is waiting for thread-sync lock:
+        dataTransmitOnFlag = true;
+      }
+    }
+         //wake up queue-processing thread to make sure it's not waiting
+         // indefinitely:
+    messageQueueObj.notifyThread();
+    messageQueued();
+  }
+
+  /**
+   * Returns the matcher for the patterns entered via the client "SELECT"
+   * command.
+   * @return The 'SLinkSelectMatcher' object for the selected channels,
+   * or null if all channels are selected.
+   */
+  public SLinkSelectMatcher getSelectMatcher()
+  {
+    return selectMatcherObj;
+  }
+
   /**
    * Closes the client socket and its streams.
    */
@@ -188,8 +463,13 @@ public class SLinkConnection
     if(clientSocketOpenFlag)
     {  //client socket is open
       clientSocketOpenFlag = false;    //indicate client socket not open
-      if(LogMgr.isDebugLevel1())  //if mask-bit set then output message
-        LogMgr.usrMsgDebug(msgPromptStr + "Closing client socket connection");
+      if(LogMgr.isDebugLevel1())
+      {  //debug-mask bit is set; output debug message
+        LogMgr.usrMsgDebug(msgPromptStr + "Closing client socket connection" +
+                             " (messagesSent=" + batchedMsgsSentCount +
+                                    ", batches=" + msgBatchesSentCount +
+                                  ", maxBatch=" + maxMsgBatchCount + ')');
+      }
                              //remove this connection from manager's list:
       sLinkClientsMgrObj.removeConnection(this);
       processingThreadObj.terminate(); //terminate requests-processing thread
@@ -261,11 +541,8 @@ public class SLinkConnection
   {
     try
     {
-      String inLineStr,cmdStr,respStr;
-      String [] tokensArr;
-      MiniSeedMsgHldr mSeedMsgObj;
+      String inLineStr;
       int readErrorCount = 0;
-      boolean staHshkModeFlag = false;   //true for STATION handshaking mode
       while(true)
       {  //loop while processing client input
         try
@@ -304,259 +581,270 @@ public class SLinkConnection
           processingThreadObj.waitForNotify(1000);    //delay before retry
           inLineStr = null;            //indicate no characters read in
         }
+                   //if characters were received from client then
+                   // process them; exit loop if connection to be closed:
+        if(inLineStr != null && !processInputLine(inLineStr))
+          break;
+      }
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it
+      LogMgr.usrMsgWarning(msgPromptStr +
+                           "Exception error processing connection:  " + ex);
+      LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+    }
+    closeConnection();       //close socket connection
+  }
 
-        if(inLineStr != null)
-        {  //characters were received from client
-          try
-          {
-            inLineStr = inLineStr.trim();   //trim any trailing CR/LF
-            tokensArr = processTokensStr(inLineStr);
-            cmdStr = tokensArr[0].toUpperCase(); //get command; upper-case
-            if(SELECT_CMD_STR.equals(cmdStr))
-            {  //client command is "SELECT"
-              setDataTransmitState(false);  //turn off data transmission
+  /**
+   * Processes a line of characters received from the client and
+   * generates the response.
+   * @param inLineStr line of characters received from the client (not
+   * including terminating carriage returns and linefeeds).
+   * @return true if the connection should remain open; false if it
+   * should be closed (because of a "BYE" command or a write error).
+   */
+  protected boolean processInputLine(String inLineStr)
+  {
+    String cmdStr,respStr;
+    String [] tokensArr;
+    MiniSeedMsgHldr mSeedMsgObj;
+    try
+    {
+      inLineStr = inLineStr.trim();   //trim any trailing CR/LF
+      tokensArr = processTokensStr(inLineStr);
+      cmdStr = tokensArr[0].toUpperCase(); //get command; upper-case
+      if(SELECT_CMD_STR.equals(cmdStr))
+      {  //client command is "SELECT"
+        setDataTransmitState(false);  //turn off data transmission
+        if(LogMgr.isDebugLevel1())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(msgPromptStr + "Received \"" +
+                                inLineStr + "\" command from client");
+        }
+                  //enter pattern arguments; setup response:
+        respStr = enterSelectPattern(tokensArr) ? OK_RESP_STR :
+                                                       ERROR_RESP_STR;
+        if(!sendOutputLine(respStr))  //send response string
+          return false;  //if error then indicate connection to be closed
+      }
+      else if(STATION_CMD_STR.equals(cmdStr))
+      {  //client command is "STATION"
+        setDataTransmitState(false);  //turn off data transmission
+        if(tokensArr.length > 1 &&
+                        stationIdStr.equalsIgnoreCase(tokensArr[1]) &&
+                                              (tokensArr.length < 3 ||
+                         networkIdStr.equalsIgnoreCase(tokensArr[2])))
+        {  //given argument matches station name and
+           // network-name argument not given or matches
+          staHshkModeFlag = true;     //set STATION handshaking mode
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr + "Received valid \"" +
+                                inLineStr + "\" command from client");
+          }
+          if(!sendOutputLine(OK_RESP_STR))      //send "OK" reply
+            return false;  //if error then indicate connection to be closed
+        }
+        else
+        {  //given station/network argument(s) not matched
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr + "Received invalid \"" +
+                       STATION_CMD_STR + "\" command from client:  " +
+                                                           inLineStr);
+          }
+          if(!sendOutputLine(ERROR_RESP_STR))   //send "ERROR" response
+            return false;  //if error then indicate connection to be closed
+        }
+      }
+      else if(DATA_CMD_STR.equals(cmdStr) || TIME_CMD_STR.equals(cmdStr) ||
+                                               FETCH_CMD_STR.equals(cmdStr))
+      {  //client command is "DATA", "TIME" or "FETCH"
+        final boolean argsProcFlag;
+        if (DATA_CMD_STR.equals(cmdStr) || FETCH_CMD_STR.equals(cmdStr))
+        {  //client command is "DATA" or "FETCH" (same arguments)
+          argsProcFlag = enterDataArgs(tokensArr);
+                   //FETCH ends the transaction when messages are sent:
+          if(argsProcFlag)
+            requestFetchFlag = FETCH_CMD_STR.equals(cmdStr);
+        }
+        else if (TIME_CMD_STR.equals(cmdStr))
+        {  //client command is "TIME"
+          argsProcFlag = enterTimeArgs(tokensArr);
+          if(argsProcFlag)
+            requestFetchFlag = false;
+        }
+        else
+        {
+          argsProcFlag = false;
+        }
+        if(argsProcFlag)
+        {  //arguments processed OK
+          if(!isDataTransmitOn())
+          {  //data transmission not on
+            if(staHshkModeFlag)
+            {  //in STATION handshake mode
               if(LogMgr.isDebugLevel1())
               {  //debug-mask bit is set; output debug message
                 LogMgr.usrMsgDebug(msgPromptStr + "Received \"" +
-                                      inLineStr + "\" command from client");
-              }
-                        //enter pattern arguments; setup response:
-              respStr = enterSelectPattern(tokensArr) ? OK_RESP_STR :
-                                                             ERROR_RESP_STR;
-              if(!sendOutputLine(respStr))  //send response string
-                break;  //if error then exit processing loop (close socket)
-            }
-            else if(STATION_CMD_STR.equals(cmdStr))
-            {  //client command is "STATION"
-              setDataTransmitState(false);  //turn off data transmission
-              if(tokensArr.length > 1 &&
-                              stationIdStr.equalsIgnoreCase(tokensArr[1]) &&
-                                                    (tokensArr.length < 3 ||
-                               networkIdStr.equalsIgnoreCase(tokensArr[2])))
-              {  //given argument matches station name and
-                 // network-name argument not given or matches
-                staHshkModeFlag = true;     //set STATION handshaking mode
-                if(LogMgr.isDebugLevel1())
-                {  //debug-mask bit is set; output debug message
-                  LogMgr.usrMsgDebug(msgPromptStr + "Received valid \"" +
-                                      inLineStr + "\" command from client");
-                }
-                if(!sendOutputLine(OK_RESP_STR))      //send "OK" reply
-                  break;  //if error then exit processing loop (close socket)
-              }
-              else
-              {  //given station/network argument(s) not matched
-                if(LogMgr.isDebugLevel1())
-                {  //debug-mask bit is set; output debug message
-                  LogMgr.usrMsgDebug(msgPromptStr + "Received invalid \"" +
-                             STATION_CMD_STR + "\" command from client:  " +
-                                                                 inLineStr);
-                }
-                if(!sendOutputLine(ERROR_RESP_STR))   //send "ERROR" response
-                  break;  //if error then exit processing loop (close socket)
-              }
-            }
-            else if(DATA_CMD_STR.equals(cmdStr) || TIME_CMD_STR.equals(cmdStr))
-            {  //client command is "DATA" or "TIME"
-              final boolean argsProcFlag;
-              if (DATA_CMD_STR.equals(cmdStr))
-              {  //client command is "DATA"
-                argsProcFlag = enterDataArgs(tokensArr);
-              }
-              else if (TIME_CMD_STR.equals(cmdStr))
-              {  //client command is "TIME"
-                argsProcFlag = enterTimeArgs(tokensArr);
-              }
-              else
-              {
-                argsProcFlag = false;
-              }
-              if(argsProcFlag)
-              {  //arguments processed OK
-                if(!dataTransmitOnFlag)
-                {  //data transmission not on
-                  if(staHshkModeFlag)
-                  {  //in STATION handshake mode
-                    if(LogMgr.isDebugLevel1())
-                    {  //debug-mask bit is set; output debug message
-                      LogMgr.usrMsgDebug(msgPromptStr + "Received \"" +
-                                      inLineStr + "\" command from client");
-                    }
-                    if(!sendOutputLine(OK_RESP_STR))  //send "OK" reply
-                      break;   //if error then exit proc loop (close socket)
-                  }
-                  else
-                  {  //not in STATION handshake mode
-                    setDataTransmitState(true);  //turn on data transmission
-                    if(LogMgr.isDebugLevel1())
-                    {  //debug-mask bit is set; output debug message
-                      if(dataTransmitOnFlag)
-                      {  //data transmission was turned on
-                        LogMgr.usrMsgDebug(msgPromptStr +
-                                "Starting data transfer in response to \"" +
-                                      inLineStr + "\" command from client");
-                      }
-                      else
-                      {  //data transmission not turned on
-                        LogMgr.usrMsgDebug(msgPromptStr + "Received \"" +
-                                      inLineStr + "\" command from client");
-                      }
-                    }
-                  }
-                }
-                else
-                {  //data transmission is on
-                  if(LogMgr.isDebugLevel1())
-                  {  //debug-mask bit is set; output debug message
-                    LogMgr.usrMsgDebug(msgPromptStr + "Ignoring \"" +
-                                                                 inLineStr +
-                            "\" received command during data transmission");
-                  }
-                }
-              }
-              else
-              {  //error processing arguments
-                if(LogMgr.isDebugLevel1())
-                {  //debug-mask bit is set; output debug message
-                  LogMgr.usrMsgDebug(msgPromptStr + "Received invalid \"" +
-                                     cmdStr + "\" command from client:  " +
-                                                                 inLineStr);
-                }
-                if(!sendOutputLine(ERROR_RESP_STR))   //send "ERROR" response
-                  break;  //if error then exit processing loop (close socket)
+                                inLineStr + "\" command from client");
               }
+              if(!sendOutputLine(OK_RESP_STR))  //send "OK" reply
+                return false;  //if error then indicate connection to be closed
             }
-            else if(END_CMD_STR.equals(cmdStr))
-            {  //client command is "END"
-              if(!dataTransmitOnFlag)
-              {  //data transmission not on
-                setDataTransmitState(true);      //turn on data transmission
-                staHshkModeFlag = false;         //reset handshaking mode
-                if(LogMgr.isDebugLevel1())
-                {  //debug-mask bit is set; output debug message
+            else
+            {  //not in STATION handshake mode
+              setDataTransmitState(true);  //turn on data transmission
+              if(LogMgr.isDebugLevel1())
+              {  //debug-mask bit is set; output debug message
+                if(isDataTransmitOn())
+                {  //data transmission was turned on
                   LogMgr.usrMsgDebug(msgPromptStr +
-                                "Starting data transfer in response to \"" +
-                                    END_CMD_STR + "\" command from client");
+                          "Starting data transfer in response to \"" +
+                                inLineStr + "\" command from client");
                 }
-              }
-              else
-              {  //data transmission is on
-                if(LogMgr.isDebugLevel1())
-                {  //debug-mask bit is set; output debug message
-                  LogMgr.usrMsgDebug(msgPromptStr + "Ignoring \"" +
-                                                               END_CMD_STR +
-                            "\" received command during data transmission");
-                }
-              }
-            }
-            else if(INFO_CMD_STR.equals(cmdStr))
-            {  //client command is "INFO"
-                        //generate response (via 'level' arg if given):
-              if((mSeedMsgObj=sLinkClientsMgrObj.generateInfoResponse(
-                      (tokensArr.length > 1) ? tokensArr[1] : null)) != null)
-              {  //response successfully generated
-                if(LogMgr.isDebugLevel3())
-                {  //debug-mask bit is set; output debug message
-                  LogMgr.usrMsgDebug(msgPromptStr + "Responding to \"" +
-                                      inLineStr + "\" command from client");
-                }
-                doQueuePutMessage(mSeedMsgObj);  //put resp msg into queue
-              }
-              else
-              {  //unable to generate response
-                if(LogMgr.isDebugLevel1())
-                {  //debug-mask bit is set; output debug message
-                  LogMgr.usrMsgDebug(msgPromptStr + "Received invalid \"" +
-                                INFO_CMD_STR + "\" command from client:  " +
-                                                                 inLineStr);
+                else
+                {  //data transmission not turned on
+                  LogMgr.usrMsgDebug(msgPromptStr + "Received \"" +
+                                inLineStr + "\" command from client");
                 }
-                if(!sendOutputLine(ERROR_RESP_STR))   //send "ERROR" response
-                  break;  //if error then exit processing loop (close socket)
               }
             }
-            else if(HELLO_CMD_STR.equals(cmdStr))
-            {  //client command is "HELLO"; send response
-              setDataTransmitState(false);  //turn off data transmission
-              if(LogMgr.isDebugLevel2())
-              {  //debug-mask bit is set; output debug message
-                LogMgr.usrMsgDebug(msgPromptStr + "Responding to \"" +
-                                  HELLO_CMD_STR + "\" command from client");
-              }
-              if(!sendOutputLine(sLinkClientsMgrObj.getSeedlinkSoftware() +
-                  RESPONSE_TERM_STR + sLinkClientsMgrObj.getOrganization()))
-              {  //error writing to socket
-                break;       //exit processing loop (and close socket)
-              }
-            }
-            else if(BYE_CMD_STR.equals(cmdStr))
-            {  //client command is "BYE"
-              setDataTransmitState(false);  //turn off data transmission
-              staHshkModeFlag = false;      //reset handshaking mode
-              if(LogMgr.isDebugLevel1())
-              {  //debug-mask bit is set; output debug message
-                LogMgr.usrMsgDebug(msgPromptStr +
-                      "Closing connection in response to \"" + BYE_CMD_STR +
-                                                  "\" command from client");
-              }
-              break;         //exit processing loop (and close socket)
-            }
-            else if(CAT_CMD_STR.equals(cmdStr))
-            {  //client command is "CAT"
-              // Example of a CAT response:
-              // NU ACON  Acoyapa, Nicaragua
-              // KO AGRB  AGRB
-              // KO ALT   ALT
-              // END
-              final StringBuffer sb = new StringBuffer();
-              SLinkUtilFns.append(sb, networkIdStr, 2);  //append the network
-              sb.append(SLinkUtilFns.SPACE_CHAR);
-              SLinkUtilFns.append(sb, stationIdStr, 5);  //append the station
-              sb.append(SLinkUtilFns.SPACE_CHAR);
-              sb.append(stationIdStr);  // append the station since there is no description
-              sb.append("\nEND");
-              if(!sendOutputLine(sb.toString()))
-                break;  //if error then exit processing loop (close socket)
-            }
-            else if(FETCH_CMD_STR.equals(cmdStr))
-            {
-              if(LogMgr.isDebugLevel2())
-              {  //debug-mask bit is set; output debug message
-                LogMgr.usrMsgDebug(msgPromptStr + "Responding to \"" +
-                    inLineStr + "\" command from client (not implemented)");
-              }
-                             //send not-implemented response:
-              if(!sendOutputLine(cmdStr + ' ' + CMDNOTIMPL_RESP_STR))
-                break;  //if error then exit processing loop (close socket)
-            }
-            else
-            {  //unrecognized command; send "ERROR" response
-              if(inLineStr.length() > 0 && LogMgr.isDebugLevel1())
-              {  //non-empty command and debug-mask bit is set; output msg
-                LogMgr.usrMsgDebug(msgPromptStr +
-                     "Received invalid command from client:  " + inLineStr);
-              }
-              if(!sendOutputLine(ERROR_RESP_STR))     //send error response
-                break;  //if error then exit processing loop (close socket)
+          }
+          else
+          {  //data transmission is on
+            if(LogMgr.isDebugLevel1())
+            {  //debug-mask bit is set; output debug message
+              LogMgr.usrMsgDebug(msgPromptStr + "Ignoring \"" +
+                                                           inLineStr +
+                      "\" received command during data transmission");
             }
           }
-          catch(Exception ex)
-          {  //some kind of exception error; log it
-            LogMgr.usrMsgWarning(msgPromptStr +
-                         "Exception error processing client input:  " + ex);
-            LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
-            if(!sendOutputLine(ERROR_RESP_STR))  //send error response
-              break;    //if error then exit processing loop (close socket)
+        }
+        else
+        {  //error processing arguments
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr + "Received invalid \"" +
+                               cmdStr + "\" command from client:  " +
+                                                           inLineStr);
+          }
+          if(!sendOutputLine(ERROR_RESP_STR))   //send "ERROR" response
+            return false;  //if error then indicate connection to be closed
+        }
+      }
+      else if(END_CMD_STR.equals(cmdStr))
+      {  //client command is "END"
+        if(!isDataTransmitOn())
+        {  //data transmission not on
+          setDataTransmitState(true);      //turn on data transmission
+          staHshkModeFlag = false;         //reset handshaking mode
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr +
+                          "Starting data transfer in response to \"" +
+                              END_CMD_STR + "\" command from client");
+          }
+        }
+        else
+        {  //data transmission is on
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr + "Ignoring \"" +
+                                                         END_CMD_STR +
+                      "\" received command during data transmission");
+          }
+        }
+      }
+      else if(INFO_CMD_STR.equals(cmdStr))
+      {  //client command is "INFO"
+                  //generate response (via 'level' arg if given):
+        if((mSeedMsgObj=sLinkClientsMgrObj.generateInfoResponse(
+                (tokensArr.length > 1) ? tokensArr[1] : null)) != null)
+        {  //response successfully generated
+          if(LogMgr.isDebugLevel3())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr + "Responding to \"" +
+                                inLineStr + "\" command from client");
           }
+          doQueuePutMessage(mSeedMsgObj);  //put resp msg into queue
+        }
+        else
+        {  //unable to generate response
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr + "Received invalid \"" +
+                          INFO_CMD_STR + "\" command from client:  " +
+                                                           inLineStr);
+          }
+          if(!sendOutputLine(ERROR_RESP_STR))   //send "ERROR" response
+            return false;  //if error then indicate connection to be closed
+        }
+      }
+      else if(HELLO_CMD_STR.equals(cmdStr))
+      {  //client command is "HELLO"; send response
+        setDataTransmitState(false);  //turn off data transmission
+        if(LogMgr.isDebugLevel2())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(msgPromptStr + "Responding to \"" +
+                            HELLO_CMD_STR + "\" command from client");
         }
+        if(!sendOutputLine(sLinkClientsMgrObj.getSeedlinkSoftware() +
+            RESPONSE_TERM_STR + sLinkClientsMgrObj.getOrganization()))
+        {  //error writing to socket
+          return false;  //indicate connection to be closed
+        }
+      }
+      else if(BYE_CMD_STR.equals(cmdStr))
+      {  //client command is "BYE"
+        setDataTransmitState(false);  //turn off data transmission
+        staHshkModeFlag = false;      //reset handshaking mode
+        if(LogMgr.isDebugLevel1())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(msgPromptStr +
+                "Closing connection in response to \"" + BYE_CMD_STR +
+                                            "\" command from client");
+        }
+        return false;  //indicate connection to be closed
+      }
+      else if(CAT_CMD_STR.equals(cmdStr))
+      {  //client command is "CAT"
+        // Example of a CAT response:
+        // NU ACON  Acoyapa, Nicaragua
+        // KO AGRB  AGRB
+        // KO ALT   ALT
+        // END
+        final StringBuffer sb = new StringBuffer();
+        SLinkUtilFns.append(sb, networkIdStr, 2);  //append the network
+        sb.append(SLinkUtilFns.SPACE_CHAR);
+        SLinkUtilFns.append(sb, stationIdStr, 5);  //append the station
+        sb.append(SLinkUtilFns.SPACE_CHAR);
+        sb.append(stationIdStr);  // append the station since there is no description
+        sb.append("\nEND");
+        if(!sendOutputLine(sb.toString()))
+          return false;  //if error then indicate connection to be closed
+      }
+      else
+      {  //unrecognized command; send "ERROR" response
+        if(inLineStr.length() > 0 && LogMgr.isDebugLevel1())
+        {  //non-empty command and debug-mask bit is set; output msg
+          LogMgr.usrMsgDebug(msgPromptStr +
+               "Received invalid command from client:  " + inLineStr);
+        }
+        if(!sendOutputLine(ERROR_RESP_STR))     //send error response
+          return false;  //if error then indicate connection to be closed
       }
     }
     catch(Exception ex)
     {  //some kind of exception error; log it
       LogMgr.usrMsgWarning(msgPromptStr +
-                           "Exception error processing connection:  " + ex);
+                   "Exception error processing client input:  " + ex);
       LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+      if(!sendOutputLine(ERROR_RESP_STR))  //send error response
+        return false;  //if error then indicate connection to be closed
     }
-    closeConnection();       //close socket connection
+    return true;
   }
 
   /**
@@ -611,15 +899,6 @@ public class SLinkConnection
   {
     if(tokensArr.length > 1)
     {  //at least one select pattern given
-      if(availableChannelsSet == null)
-      {  //available-channels set not setup; fetch set now
-        if((availableChannelsSet=sLinkClientsMgrObj.getChannelSCNLSet()) ==
-                                   null || availableChannelsSet.size() <= 0)
-        {  //unable to fetch available-channels set
-          availableChannelsSet = null;      //make sure handle is clear
-          return false;                     //indicate error
-        }
-      }
               //make copy of current list of pattern strings:
       final ArrayList newPatsList = new ArrayList(selectPatternsList);
       String patStr;
@@ -649,65 +928,31 @@ public class SLinkConnection
       }
       if(newPatsList.size() > selectPatternsList.size())
       {  //new pattern strings were added to list
-                   //create set to receive channel IDs matched below:
-        final HashSet newSelChansSet = new HashSet();
-        Iterator iterObj;
-        boolean matchFlag;
-        String chaStr,locStr;
-        Object obj;
-        IStaChaNetLoc scnlObj;
-        for(int i=0; i<newPatsList.size(); ++i)
-        {  //for each selector pattern string in list
-          patStr = (String)(newPatsList.get(i));
-          if((len=patStr.length()) < 2 || len > 5)
-            return false;    //if length not between 2 and 5 then error
-          if(len < 5)
-          {  //length is 2-4
-            chaStr = patStr;      //accept string as channel pattern
-            locStr = null;        //no location code specified
-          }
-          else
-          {  //length is 5
-            chaStr = patStr.substring(2);        //take trailing 3 as chan
-            locStr = patStr.substring(0,2);      //take leading 2 as loc
-          }
-          matchFlag = false;           //true after match to channel ID
-          iterObj = availableChannelsSet.iterator();
-          while(iterObj.hasNext())
-          {  //for each available channel
-            if((obj=iterObj.next()) instanceof IStaChaNetLoc)
-            {  //SCNL object fetched OK
-              scnlObj = (IStaChaNetLoc)obj;
-              if(matchPatStr(chaStr,scnlObj.getChannelCode()))
-              {  //channel ID matched to given channel-selector pattern str
-                if(locStr == null ||
-                             matchPatStr(locStr,scnlObj.getLocationCode()))
-                {  //location-selector pattern str not given or matched OK
-                  newSelChansSet.add(scnlObj);   //enter matched channel ID
-                  matchFlag = true;              //indicate channel-ID match
-                  if(LogMgr.isDebugLevel2())
-                  {  //debug mask-bit set; output message
-                    LogMgr.usrMsgDebug(msgPromptStr +
-                                     "Matched SELECT pattern \"" + patStr +
-                                    "\" to channel ID \"" + scnlObj + "\"");
-                  }
-                }
-              }
-            }
-          }
-          if(!matchFlag)     //if given pattern matched no channel IDs then
-            return false;    //return error
+        final SLinkSelectMatcher newMatcherObj;
+        try
+        {     //compile patterns into matcher for channels:
+          newMatcherObj = new SLinkSelectMatcher(newPatsList);
+        }
+        catch(IllegalArgumentException ex)
+        {  //invalid pattern string
+          if(LogMgr.isDebugLevel1())
+            LogMgr.usrMsgDebug(msgPromptStr + ex.getMessage());
+          return false;
         }
         selectPatternsList.clear();       //enter new patterns list
         selectPatternsList.addAll(newPatsList);
-                   //enter new set of selected channel-ID objects:
-        selectedChannelsSet = newSelChansSet;
+        selectMatcherObj = newMatcherObj;  //enter new matcher
+        if(LogMgr.isDebugLevel2())
+        {  //debug mask-bit set; output message
+          LogMgr.usrMsgDebug(msgPromptStr + "Entered SELECT patterns " +
+                                                        selectPatternsList);
+        }
       }
     }
     else
     {  //no select patterns given
       selectPatternsList.clear();      //clear patterns list
-      selectedChannelsSet = null;      //clear any selected channel-ID objs
+      selectMatcherObj = null;         //clear any selected channels
       if(LogMgr.isDebugLevel2())  //if mask-bit set then output message
         LogMgr.usrMsgDebug(msgPromptStr + "Cleared all SELECT patterns");
     }
@@ -814,6 +1059,16 @@ public class SLinkConnection
     return true;
   }
 
+  /**
+   * Determines if data transmission is in the 'on' state, including
+   * while requested messages are being sent from the cache cursor.
+   * @return true if data transmission is on; false if not.
+   */
+  private boolean isDataTransmitOn()
+  {
+    return dataTransmitOnFlag || requestCursorObj != null;
+  }
+
   /**
    * Sets data transmission to 'on' or 'off'.
    * @param flgVal true to set data transmission to 'on'; false to set
@@ -821,104 +1076,110 @@ public class SLinkConnection
    */
   private void setDataTransmitState(boolean flgVal)
   {
+    if(!flgVal)                   //if transmission being disabled then
+      fetchModeFlag = false;      //end any FETCH transaction
+    if(!flgVal && requestCursorObj != null)
+    {  //transmission being disabled while request in progress
+      synchronized(msgStorageListObj)
+      {  //grab thread-synchronization lock for request
+        requestCursorObj = null;            //cancel request
+        storeAddedMsgsFlag = false;         //clear storage flag
+        msgStorageListObj.clear();          //clear any stored messages
+      }
+    }
     if(flgVal != dataTransmitOnFlag)
     {  //transmit state is changing
+      if(flgVal && selectMatcherObj != routedMatcherObj)
+      {  //transmission being enabled and selected channels changed
+        routedMatcherObj = selectMatcherObj;
+                   //have manager rebuild its routing index:
+        sLinkClientsMgrObj.channelSelectionChanged();
+      }
+      if(flgVal && messageLogCursorObj != null)
+      {  //transmission being enabled and shared message log is used
+                   //read "live" messages appended from now on:
+        messageLogCursorObj.moveToEnd();
+      }
       if(flgVal && (requestedMessageNumber >= 0 ||
                                                requestedBeginTime != null ||
-                                                  requestedEndTime != null))
-      {  //transmission being enabled & msgNum/time request was entered
+                           requestedEndTime != null || requestFetchFlag))
+      {  //transmission being enabled & msgNum/time/FETCH request entered
+        final boolean fetchFlag = requestFetchFlag;
+        requestFetchFlag = false;           //clear FETCH request
         try
-        {                    //save begin-time value (if given):
-          transmitBeginTimeMs = (requestedBeginTime != null) ?
+        {                    //get begin-time value (if given):
+          final long beginTimeMs = (requestedBeginTime != null) ?
                                            requestedBeginTime.getTime() : 0;
-          final boolean futureEndTimeFlag;
-          if(requestedEndTime != null)
+          final long endTimeMs;
+          final boolean followFlag;
+          if(fetchFlag)
+          {  //FETCH request; end transaction after requested messages
+            endTimeMs = 0;                  //no end-time value
+            followFlag = false;             //no "live" messages
+          }
+          else if(requestedEndTime != null)
           {  //end-time was given
-            transmitEndTimeMs = requestedEndTime.getTime();     //save value
-            if(transmitEndTimeMs > System.currentTimeMillis())
-            {  //end-time in future
-              futureEndTimeFlag = true;     //indicate end-time in future
-              storeAddedMsgsFlag = true;    //set to store incoming messages
-            }
-            else  //end-time not in future
-              futureEndTimeFlag = false;    //indicate no end-time
+            endTimeMs = requestedEndTime.getTime();
+                   //continue with "live" messages if end-time in future:
+            followFlag = (endTimeMs > System.currentTimeMillis());
           }
           else
           {  //no end-time given
-            futureEndTimeFlag = false;      //indicate no end-time
-            transmitEndTimeMs = 0;          //no end-time value
-            storeAddedMsgsFlag = true;      //set to store incoming messages
+            endTimeMs = 0;                  //no end-time value
+            followFlag = true;              //continue with "live" messages
+          }
+          synchronized(msgStorageListObj)
+          {  //grab thread-synchronization lock for request
+            storeAddedMsgsFlag = followFlag;     //set to store incoming msgs
           }
           if(LogMgr.isDebugLevel1())
           {  //debug-mask bit is set; output debug message
             LogMgr.usrMsgDebug(msgPromptStr +
-                                 "Fetching requested messages (reqMsgNum=" +
-                                              requestedMessageNumber + ')');
+                        "Opening cursor for requested messages (reqMsgNum=" +
+                      requestedMessageNumber + ", follow=" + followFlag +
+                                            ", fetch=" + fetchFlag + ')');
           }
-                   //fetch requested messages from cache:
-          final MiniSeedMsgHldr [] msgsArr =
-                  sLinkClientsMgrObj.requestMessages(requestedMessageNumber,
-                                      requestedBeginTime, requestedEndTime);
+                   //open cursor for requested messages in cache:
+          final IMiniSeedMsgCursor cursorObj =
+                sLinkClientsMgrObj.openMessageCursor(requestedMessageNumber,
+                          requestedBeginTime, requestedEndTime, followFlag);
           requestedMessageNumber = -1;           //clear request values
           requestedBeginTime = null;
           requestedEndTime = null;
           messageQueueObj.clearEvents();    //clear any old messages
           lastMsgNumQueuedVal = -1;         //reset msgNum tracker
-          if(LogMgr.isDebugLevel1())
-          {  //debug-mask bit is set; output debug message
-            LogMgr.usrMsgDebug(msgPromptStr +
-                "Entering fetched messages (count=" + msgsArr.length + ')');
-          }
-                        //enter fetched messages into queue:
-          queuePutMessageArr(msgsArr,false);
           synchronized(msgStorageListObj)
-          {  //grab thread-synchronization lock for list
-            storeAddedMsgsFlag = false;          //clear storage flag
-            if(transmitEndTimeMs > 0 && !futureEndTimeFlag)
-            {  //request-messages end-time specified and not in future
-              msgStorageListObj.clear();         //clear any stored messages
-                   //if no messages entered then wake up queue-processing
-                   // thread to make sure it's not waiting indefinitely:
-              if(lastMsgNumQueuedVal < 0 || msgsArr.length <= 0)
-                messageQueueObj.notifyThread();
-              if(LogMgr.isDebugLevel2())
-              {  //debug-mask bit is set; output debug message
-                LogMgr.usrMsgDebug(msgPromptStr + "Not setting transmit " +
-                  "state to 'on' because specified end time not in future");
-              }
-              return;   //exit method (leaving 'dataTransmitOnFlag'==false)
-            }
-            if(msgStorageListObj.size() > 0)
-            {  //"live" messages were entered into storage during fetch
-              if(LogMgr.isDebugLevel1())
-              {  //debug-mask bit is set; output debug message
-                LogMgr.usrMsgDebug(msgPromptStr +
-                           "Received 'live' messages during fetch (count=" +
-                             msgStorageListObj.size() + "); entering msgs");
-              }
-                   //move messages from storage into queue:
-              final Iterator iterObj = msgStorageListObj.iterator();
-              while(iterObj.hasNext())
-                queuePutMessage((MiniSeedMsgHldr)(iterObj.next()),true);
-              msgStorageListObj.clear();    //clear storage list
-                   //enable transmit here so flag will be ready if
-                   // 'addMsgToQueue()' is waiting for thread-sync lock:
-              dataTransmitOnFlag = true;
-            }
-            else if(transmitEndTimeMs > 0)
-            {  //no "live" messages entered into storage during fetch
-               // and end-time value was given
-                   //if no messages entered then wake up queue-processing
-                   // thread to make sure it's not waiting indefinitely:
-              if(lastMsgNumQueuedVal < 0 || msgsArr.length <= 0)
-                messageQueueObj.notifyThread();
+          {  //grab thread-synchronization lock for request
+            requestFollowFlag = followFlag;
+            requestCursorObj = cursorObj;   //start request (if cursor)
+            if(cursorObj == null)
+            {  //no cursor available; no requested messages
+              storeAddedMsgsFlag = false;   //clear storage flag
+              msgStorageListObj.clear();    //clear any stored messages
             }
+          }
+                   //save time values after request is started so the
+                   // transaction is not ended before messages are read:
+          transmitBeginTimeMs = beginTimeMs;
+          transmitEndTimeMs = endTimeMs;
+          fetchModeFlag = fetchFlag;
+          if(cursorObj != null || !followFlag)
+          {  //request in progress or transaction to be ended
+                   //wake up queue-processing thread to read messages
+                   // from cursor or end transaction:
+            messageQueueObj.notifyThread();
+            messageQueued();
+            return;   //exit method (leaving 'dataTransmitOnFlag'==false)
           }
         }
         catch(Exception ex)
         {  //some kind of exception error; log it
-          storeAddedMsgsFlag = false;       //clear storage flag
-          msgStorageListObj.clear();        //clear any stored messages
+          synchronized(msgStorageListObj)
+          {  //grab thread-synchronization lock for request
+            requestCursorObj = null;        //no request in progress
+            storeAddedMsgsFlag = false;     //clear storage flag
+            msgStorageListObj.clear();      //clear any stored messages
+          }
           requestedMessageNumber = -1;      //clear request values
           requestedBeginTime = null;
           requestedEndTime = null;
@@ -926,6 +1187,13 @@ public class SLinkConnection
           transmitEndTimeMs = 0;            //no end-time value
           LogMgr.usrMsgWarning(msgPromptStr +
                                "Error fetching requested messages:  " + ex);
+          if(fetchFlag)
+          {  //FETCH request; end transaction without "live" messages
+            fetchModeFlag = true;
+            messageQueueObj.notifyThread();
+            messageQueued();
+            return;   //exit method (leaving 'dataTransmitOnFlag'==false)
+          }
         }
       }
       else
@@ -965,8 +1233,8 @@ public class SLinkConnection
             {  //debug mask-bit set; output message
               LogMgr.usrMsgDebug(msgPromptStr + "Message number (" +
                       msgNum + ") lower than previous; discarding message");
-              return;        //reject message
             }
+            return;          //reject message
           }
           if(LogMgr.isDebugLevel1())
           {  //debug mask-bit set; output message
@@ -975,11 +1243,11 @@ public class SLinkConnection
                            lastMsgNumQueuedVal + ", cur=" + msgNum + ')');
           }
         }
-            //set local handle to selected-chans set (to be thread safe):
-        final Set selChansSet = selectedChannelsSet;
-        if(selChansSet == null ||
-                        selChansSet.contains(msgObj.getStaChaNetLocObj()))
-        {  //no selected-channels set or msg SCNL matches entry in set
+            //set local handle to select matcher (to be thread safe):
+        final SLinkSelectMatcher selMatcherObj = selectMatcherObj;
+        if(selMatcherObj == null ||
+                          selMatcherObj.isSelected(msgObj.getChannelId()))
+        {  //no select matcher or msg channel is selected
           if(LogMgr.isDebugLevel4())
           {  //debug-mask bit is set; output debug message
             LogMgr.usrMsgDebug(msgPromptStr +
@@ -1010,21 +1278,18 @@ public class SLinkConnection
 
   /**
    * Adds the given array of messages to the queue of messages to be sent.
-   * The thread-synchronization lock for the queue is held during the
-   * transfer so the queue-processing thread will wait until all the
-   * messages are added.
+   * The thread-synchronization lock for adding to the queue is held during
+   * the transfer so messages added by other threads are not entered
+   * between the messages.
    * @param msgsArr array of message objects to be sent.
-   * @param lessDbgLogFlag true to log "discarding message" messages
-   * at "debug4" level; to log "discarding message" messages at "debug1"
-   * level.
+   * @param count number of messages in the array to be sent.
    */
-  private void queuePutMessageArr(MiniSeedMsgHldr [] msgsArr,
-                                                     boolean lessDbgLogFlag)
+  private void queuePutMessageArr(MiniSeedMsgHldr [] msgsArr, int count)
   {
     synchronized(msgQueueSyncObj)
     {  //thread-synchronize while using queue
-      for(int i=0; i<msgsArr.length; ++i)             //enter messages
-        queuePutMessage(msgsArr[i],lessDbgLogFlag);   // into queue
+      for(int i=0; i<count; ++i)                      //enter messages
+        queuePutMessage(msgsArr[i],false);            // into queue
     }
   }
 
@@ -1058,35 +1323,259 @@ public class SLinkConnection
         }
       }
       msgAddedToQueueFlag = true;          //indicate message added
+      messageQueued();                     //indicate message added
     }
   }
 
   /**
-   * Tests the match between the two strings, with single-character
-   * wildcard support on the "pattern" string.
-   * @param patStr "pattern" string, where occurrences of the '?' wildcard
-   * character are treated as "match any character".
-   * @param matchStr "match" string.
-   * @return true if match; false if not.
+   * Called after a message is added to the queue.  This method may be
+   * overridden to wake up a thread that services the queue; the
+   * default implementation does nothing because the queue-processing
+   * thread is notified by the queue.
    */
-  private boolean matchPatStr(String patStr, String matchStr)
+  protected void messageQueued()
   {
-    final int len = patStr.length();
-    if(matchStr.length() != len)
-      return false;          //if different lengths then no match
-    char ch;
-    for(int p=0; p<len; ++p)
-    {  //for each character in strings
-      if((ch=patStr.charAt(p)) != '?')
-      {  //pattern string character is not match-any wildcard
-        if(Character.toUpperCase(ch) !=
-                                  Character.toUpperCase(matchStr.charAt(p)))
-        {  //case-insensitive match failed
-          return false;
+  }
+
+  /**
+   * Sends the SeedLink packet ("SL" prefix, message number and data)
+   * for the given message to the client.
+   * @param msgObj message object to be sent.
+   * @throws IOException if an error occurs while writing the packet.
+   */
+  protected void writeMessagePacket(MiniSeedMsgHldr msgObj)
+                                                         throws IOException
+  {
+    final byte [] packetArr = msgObj.getSLinkPacketArray();
+    synchronized(batchSyncObj)
+    {  //grab thread-synchronization lock for batch
+      if(batchByteCount + packetArr.length > outputBatchSize)
+        flushMessageBatch();    //if batch size reached then send batch
+      socketOutStmObj.write(packetArr);
+      ++batchMsgCount;
+      batchByteCount += packetArr.length;
+    }
+  }
+
+  /**
+   * Sends the batch of messages written via 'writeMessagePacket()' (if
+   * any) to the client.
+   * @throws IOException if an error occurs while sending the messages.
+   */
+  protected void flushMessageBatch() throws IOException
+  {
+    synchronized(batchSyncObj)
+    {  //grab thread-synchronization lock for batch
+      if(batchMsgCount <= 0)
+        return;                 //if no messages in batch then exit method
+      socketOutStmObj.flush();
+      messageBatchFlushed();
+    }
+  }
+
+  /**
+   * Counts the batch of messages written via 'writeMessagePacket()' (if
+   * any) as sent, after the output has been flushed.  The caller must
+   * hold the 'batchSyncObj' lock across the flush and this call, so
+   * that no packet is added to the batch in between.
+   */
+  private void messageBatchFlushed()
+  {
+    if(batchMsgCount <= 0)
+      return;                   //if no messages in batch then exit method
+    messageBatchSent(batchMsgCount);
+    batchMsgCount = 0;
+    batchByteCount = 0;
+  }
+
+  /**
+   * Updates the batch counters after a batch of messages is sent.
+   * @param numMsgs number of messages in the batch.
+   */
+  protected void messageBatchSent(int numMsgs)
+  {
+    batchedMsgsSentCount += numMsgs;
+    ++msgBatchesSentCount;
+    if(numMsgs > maxMsgBatchCount)
+      maxMsgBatchCount = numMsgs;
+  }
+
+  /**
+   * Returns the number of batches of messages sent.
+   * @return The number of batches of messages sent.
+   */
+  public long getMessageBatchCount()
+  {
+    return msgBatchesSentCount;
+  }
+
+  /**
+   * Returns the number of messages sent in batches.
+   * @return The number of messages sent in batches.
+   */
+  public long getBatchedMessageCount()
+  {
+    return batchedMsgsSentCount;
+  }
+
+  /**
+   * Returns the largest number of messages sent in one batch.
+   * @return The largest number of messages sent in one batch.
+   */
+  public int getMaxMessageBatchCount()
+  {
+    return maxMsgBatchCount;
+  }
+
+  /**
+   * Sends messages from the queue without waiting, for connections
+   * that are serviced by a selector I/O thread instead of by the
+   * queue-processing thread.  The begin-time and end-time filtering
+   * and the end-of-transaction handling are the same as for the
+   * queue-processing thread.
+   * @param maxCount maximum number of messages to send.
+   * @return true if messages remain in the queue; false if not.
+   */
+  protected boolean sendQueuedMessages(int maxCount)
+  {
+    Object obj;
+    MiniSeedMsgHldr mSeedMsgObj;
+    int count = 0;
+    try
+    {
+      while(count < maxCount &&
+                    ((obj=messageQueueObj.pullEvent()) != null ||
+                                           (readRequestCursor() &&
+                            (obj=messageQueueObj.pullEvent()) != null) ||
+                                              (readMessageLog() &&
+                            (obj=messageQueueObj.pullEvent()) != null)))
+      {  //for each message pulled from queue
+        if(!(obj instanceof MiniSeedMsgHldr))
+        {  //unexpected object found in queue
+          LogMgr.usrMsgWarning(msgPromptStr +
+                              "Unexpected object type found in queue:  " +
+                                                          obj.getClass());
+          continue;
+        }
+        mSeedMsgObj = (MiniSeedMsgHldr)obj;
+        if(transmitEndTimeMs > 0 &&
+                        mSeedMsgObj.getStartTimeMsVal() > transmitEndTimeMs)
+        {  //end-time value was setup and message after end-time
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr + "Queued message (" +
+                                      mSeedMsgObj.getMessageNumber() + ',' +
+                                           mSeedMsgObj.getStartTimeMsVal() +
+                                  ") after end time (" + transmitEndTimeMs +
+                                                   "); ending transaction");
+          }
+          sendTransmitEndIndicator();    //send "END", etc
+          break;
+        }
+        if(transmitBeginTimeMs <= 0 ||
+                     mSeedMsgObj.getStartTimeMsVal() >= transmitBeginTimeMs)
+        {  //begin-time value not setup or msg not before begin-time
+          if(LogMgr.isDebugLevel4())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(msgPromptStr + "Sending message (" +
+                                      mSeedMsgObj.getMessageNumber() + ')');
+          }
+          writeMessagePacket(mSeedMsgObj);
+          ++count;
+        }
+        else if(LogMgr.isDebugLevel3())
+        {  //begin-time value was setup and msg before begin-time
+          LogMgr.usrMsgDebug(msgPromptStr + "Ignoring queued message (" +
+                                      mSeedMsgObj.getMessageNumber() + ',' +
+                                           mSeedMsgObj.getStartTimeMsVal() +
+                                                   ") before begin time (" +
+                                                 transmitBeginTimeMs + ')');
         }
       }
+      if(isFetchDone())
+      {  //FETCH transaction done; end it and close after output sent
+        if(LogMgr.isDebugLevel1())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(msgPromptStr +
+                    "Requested messages sent; ending FETCH transaction");
+        }
+        sendTransmitEndIndicator();      //send "END", etc
+        closeAfterOutputFlag = true;
+      }
+      else if(transmitEndTimeMs > 0 && messageQueueObj.isEmpty() &&
+                                               requestCursorObj == null &&
+              System.currentTimeMillis() > transmitEndTimeMs + 2000)
+      {  //end-time value was setup and reached (with 2 secs for all msgs
+         // in window to get through)
+        if(LogMgr.isDebugLevel1())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(msgPromptStr + "End time reached (" +
+                               transmitEndTimeMs + "); ending transaction");
+        }
+        sendTransmitEndIndicator();      //send "END", etc
+      }
     }
-    return true;
+    catch(IOException ex)
+    {  //error sending message; log warning and close connection
+      LogMgr.usrMsgWarning(msgPromptStr +
+                                       "Error sending message:  " + ex);
+      closeConnection();
+    }
+    return !messageQueueObj.isEmpty() || requestCursorObj != null ||
+                                                      (dataTransmitOnFlag &&
+            messageLogCursorObj != null && messageLogCursorObj.hasMessages());
+  }
+
+  /**
+   * Determines if a FETCH transaction is done:  the requested messages
+   * have been read from the cache cursor and sent from the queue.
+   * @return true if a FETCH transaction is done; false if not.
+   */
+  private boolean isFetchDone()
+  {
+    return fetchModeFlag && requestCursorObj == null &&
+                                                 messageQueueObj.isEmpty();
+  }
+
+  /**
+   * Determines if the connection is to be closed after the pending
+   * output is sent (because a FETCH transaction ended).
+   * @return true if the connection is to be closed after the pending
+   * output is sent; false if not.
+   */
+  protected boolean isCloseAfterOutput()
+  {
+    return closeAfterOutputFlag;
+  }
+
+  /**
+   * Turns off data transmission, sends "END" indicator and clears
+   * message queue.
+   */
+  private void sendTransmitEndIndicator()
+  {
+    setDataTransmitState(false);          //disable data transmission
+    sendOutputLine(END_CMD_STR,false);    //send "END"
+    messageQueueObj.clearEvents();        //clear any messages in queue
+  }
+
+  /**
+   * Determines if the client socket connection is open.
+   * @return true if the client socket connection is open; false if it
+   * has been closed.
+   */
+  public boolean isConnectionOpen()
+  {
+    return clientSocketOpenFlag;
+  }
+
+  /**
+   * Returns the prompt string used for log messages.
+   * @return The prompt string used for log messages.
+   */
+  protected String getMsgPromptStr()
+  {
+    return msgPromptStr;
   }
 
   /**
@@ -1103,10 +1592,14 @@ public class SLinkConnection
     {  //loop if processing thread not terminated and send fails
       try
       {          //send line of characters:
-        socketOutWtrObj.print(outLineStr);
-        if(crLfFlag)                                  //if flag then
-          socketOutWtrObj.print(RESPONSE_TERM_STR);   //send CR+LF
-        socketOutWtrObj.flush();                      //send it now
+        synchronized(batchSyncObj)
+        {  //grab lock so batch is counted with the flush that sends it
+          socketOutWtrObj.print(outLineStr);
+          if(crLfFlag)                                //if flag then
+            socketOutWtrObj.print(RESPONSE_TERM_STR); //send CR+LF
+          socketOutWtrObj.flush();                    //send it now
+          messageBatchFlushed();   //count any messages sent with line
+        }
         return true;
       }
       catch(Exception ex)
@@ -1174,6 +1667,7 @@ public class SLinkConnection
   protected class MessageQueue extends NotifyEventQueue
   {
     private final String qMsgPromptStr;
+    private final Object threadSyncLockObj = new Object();
 
     /**
      * Creates the queue.
@@ -1203,6 +1697,8 @@ public class SLinkConnection
         while(!finishRunning())
         {  //loop until thread is terminated
           curTimeVal = System.currentTimeMillis();  //get current time
+          readRequestCursor();    //read any requested messages
+          readMessageLog();       //read any messages from shared log
           if(!isEmpty())
           {  //queue contains objects
             if(!waitBeforeSendFlag ||
@@ -1235,15 +1731,8 @@ public class SLinkConnection
                                       mSeedMsgObj.getMessageNumber() + ')');
                   }
                   try   //send message out client socket:
-                  {          //start with "SL" prefix:
-                    socketOutStmObj.write(SLMSG_PRESTR_ARR);
-                             //send bytes for message-number string:
-                    socketOutStmObj.write(
-                                        mSeedMsgObj.getSLinkMessageNumber().
-                                                      getBytes());
-                             //send bytes for minSEED message data:
-                    socketOutStmObj.write(mSeedMsgObj.getMessageDataArray());
-                    socketOutStmObj.flush();
+                  {          //send "SL" prefix, message number and data:
+                    writeMessagePacket(mSeedMsgObj);
                     waitBeforeSendFlag = false;       //clear wait flag
                     sendErrorCount = 0;               //clear error count
                   }
@@ -1323,8 +1812,40 @@ public class SLinkConnection
           }
           else
           {  //queue empty
-            if(transmitEndTimeMs > 0)
-            {  //end-time value was setup
+            try
+            {       //send batch of messages written while queue not empty:
+              flushMessageBatch();
+            }
+            catch(IOException ex)
+            {  //error sending messages; log warning
+              ++sendErrorCount;            //increment error count
+              LogMgr.usrMsgWarning(qMsgPromptStr +
+                          "Error sending messages (count=" + sendErrorCount +
+                                                               "):  " + ex);
+              if(sendErrorCount > WRITE_ERROR_LIMIT)
+              {  //too many errors; log message
+                LogMgr.usrMsgWarning(msgPromptStr +
+                                "Too many send errors, closing connection");
+                break;           //exit loop to close connection
+              }
+              if(messageRetryDelayMS > 0)          //if retry delay given
+                waitForNotify(messageRetryDelayMS);  // then wait for delay
+              else                                 //if no retry delay
+                waitForNotify();                     // then wait for notify
+              continue;          //loop to retry send
+            }
+            if(isFetchDone())
+            {  //FETCH transaction done; end it and close connection
+              if(LogMgr.isDebugLevel1())
+              {  //debug-mask bit is set; output debug message
+                LogMgr.usrMsgDebug(qMsgPromptStr +
+                    "Requested messages sent; ending FETCH transaction");
+              }
+              sendTransmitEndIndicator();        //send "END", etc
+              break;                   //exit loop to close connection
+            }
+            if(transmitEndTimeMs > 0 && requestCursorObj == null)
+            {  //end-time value was setup and no request in progress
                    //if end-time in future then setup wait until end-time
                    // (add 2 secs for all msgs in window to get through):
               if((waitTimeVal=transmitEndTimeMs-curTimeVal+2000) > 0)
@@ -1358,26 +1879,16 @@ public class SLinkConnection
       closeConnection();     //close socket connection
     }
 
-    /**
-     * Turns off data transmission, sends "END" indicator and clears
-     * message queue.
-     */
-    private void sendTransmitEndIndicator()
-    {
-      setDataTransmitState(false);          //disable data transmission
-      sendOutputLine(END_CMD_STR,false);    //send "END"
-      messageQueueObj.clearEvents();        //clear any messages in queue
-    }
-
     /**
      * Returns the object to be used for thread-synchronizations on
-     * modifications to the queue.
+     * additions to the queue.  (The queue itself is lock-free, so the
+     * queue-processing thread does not wait on this object.)
      * @return The object to be used for thread-synchronizations on
-     * modifications to the queue.
+     * additions to the queue.
      */
     public Object getThreadSyncLockObj()
     {
-      return m_queue;
+      return threadSyncLockObj;
     }
   }
 }
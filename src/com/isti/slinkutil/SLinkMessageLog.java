@@ -0,0 +1,175 @@
+//SLinkMessageLog.java:  Defines an append-only ring log of live messages
+//                       shared by SeedLink-client connections.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+/**
+ * Class SLinkMessageLog defines an append-only ring log of live messages
+ * shared by SeedLink-client connections.  Each message is appended once
+ * and every connection reads it via its own 'Cursor', so a message is
+ * not copied into a queue for each connection.  Messages are addressed
+ * by a sequence number that increases with each message appended; when
+ * the log is full the oldest message is overwritten.  A cursor that falls
+ * behind the oldest message in the log (a slow consumer) is moved to the
+ * oldest message and the number of messages it missed is recorded.
+ */
+public class SLinkMessageLog
+{
+  private final MiniSeedMsgHldr [] ringArr;
+  private long nextSequenceNum = 0;
+
+  /**
+   * Creates the message log.
+   * @param capacity the maximum number of messages held in the log.
+   */
+  public SLinkMessageLog(int capacity)
+  {
+    ringArr = new MiniSeedMsgHldr[Math.max(capacity,1)];
+  }
+
+  /**
+   * Appends the given message to the log, overwriting the oldest message
+   * if the log is full.
+   * @param msgObj message object.
+   */
+  public synchronized void append(MiniSeedMsgHldr msgObj)
+  {
+    ringArr[(int)(nextSequenceNum % ringArr.length)] = msgObj;
+    ++nextSequenceNum;
+  }
+
+  /**
+   * Creates a cursor positioned at the end of the log.
+   * @return A new cursor.
+   */
+  public Cursor createCursor()
+  {
+    return new Cursor();
+  }
+
+  /**
+   * Returns the maximum number of messages held in the log.
+   * @return The maximum number of messages held in the log.
+   */
+  public int getCapacity()
+  {
+    return ringArr.length;
+  }
+
+  /**
+   * Returns the sequence number to be used for the next message appended.
+   * @return The sequence number to be used for the next message appended.
+   */
+  public synchronized long getNextSequenceNum()
+  {
+    return nextSequenceNum;
+  }
+
+  /**
+   * Returns the sequence number of the oldest message in the log.
+   * @return The sequence number of the oldest message in the log.
+   */
+  public synchronized long getOldestSequenceNum()
+  {
+    return Math.max(nextSequenceNum - ringArr.length,0);
+  }
+
+
+  /**
+   * Class Cursor is a read position in the log.  Access to the cursor is
+   * synchronized on the log.
+   */
+  public class Cursor
+  {
+    private long sequenceNum;
+    private long lostCount = 0;
+
+    /**
+     * Creates a cursor positioned at the end of the log.
+     */
+    protected Cursor()
+    {
+      sequenceNum = getNextSequenceNum();
+    }
+
+    /**
+     * Returns the total number of messages missed because this cursor
+     * fell behind the oldest message in the log.
+     * @return The total number of messages missed.
+     */
+    public long getLostCount()
+    {
+      synchronized(SLinkMessageLog.this)
+      {
+        return lostCount;
+      }
+    }
+
+    /**
+     * Returns the sequence number of the next message to be read.
+     * @return The sequence number of the next message to be read.
+     */
+    public long getSequenceNum()
+    {
+      synchronized(SLinkMessageLog.this)
+      {
+        return sequenceNum;
+      }
+    }
+
+    /**
+     * Determines if messages are available to be read.
+     * @return true if messages are available to be read; false if not.
+     */
+    public boolean hasMessages()
+    {
+      synchronized(SLinkMessageLog.this)
+      {
+        return (sequenceNum < nextSequenceNum);
+      }
+    }
+
+    /**
+     * Moves this cursor to the end of the log, so that only messages
+     * appended after this call will be read.
+     */
+    public void moveToEnd()
+    {
+      synchronized(SLinkMessageLog.this)
+      {
+        sequenceNum = nextSequenceNum;
+      }
+    }
+
+    /**
+     * Reads messages from the log and advances this cursor.  If this
+     * cursor has fallen behind the oldest message in the log then it is
+     * first moved to the oldest message (see 'getLostCount()').
+     * @param msgsArr array to receive the messages.
+     * @return The number of messages read.
+     */
+    public int read(MiniSeedMsgHldr [] msgsArr)
+    {
+      synchronized(SLinkMessageLog.this)
+      {
+        final long oldestSeqNum = getOldestSequenceNum();
+        if(sequenceNum < oldestSeqNum)
+        {  //cursor fell behind oldest message in log
+          lostCount += oldestSeqNum - sequenceNum;
+          sequenceNum = oldestSeqNum;
+        }
+        final int count = (int)Math.min(msgsArr.length,
+                                          nextSequenceNum - sequenceNum);
+        for(int i=0; i<count; ++i)
+        {
+          msgsArr[i] = ringArr[(int)(sequenceNum % ringArr.length)];
+          ++sequenceNum;
+        }
+        return count;
+      }
+    }
+  }
+}
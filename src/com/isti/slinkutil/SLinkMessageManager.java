@@ -10,6 +10,12 @@
 //  9/28/2010 -- [KF]  Changed the sequence number to be by channel.
 // 10/27/2010 -- [ET]  Added "get/setTimeQualityValue()" methods.
 //  9/23/2011 -- [KF]  Modified to enhance channel parameter.
+// 10/17/2026 -- [KF]  Changed to get the message number from the atomic
+//                     message sequence number.
+// 10/17/2026 -- [KF]  Added 'openMessageCursor()' method.
+// 10/17/2026 -- [KF]  Added optional archive writer for the messages.
+// 10/17/2026 -- [KF]  Modified to continue the message numbers of the
+//                     messages restored from a file cache.
 //
 
 package com.isti.slinkutil;
@@ -22,12 +28,15 @@ import com.isti.slinkutil.mseed.MiniSeedGenerator;
  */
 public class SLinkMessageManager extends AbstractMessageManager implements
     RequestInfoIntf {
-  /** The message number. */
-  private int messageNumber = 0;
-
   /** The miniSEED message cache. */
   private final IMiniSeedMsgCache miniSeedMsgCacheObj;
 
+  /** The maximum time to wait for the archive writer to stop. */
+  private static final long ARCHIVE_STOP_WAIT_MS = 10000;
+
+  /** The archive writer or null if none. */
+  private MiniSeedArchiveWriter archiveWriterObj = null;
+
   // SeedLink clients manager for module:
   protected SLinkClientsMgr sLinkClientsMgrObj = null;
 
@@ -39,7 +48,9 @@ public class SLinkMessageManager extends AbstractMessageManager implements
   }
 
   /**
-   * Create the message manager.
+   * Create the message manager. If the cache is a file cache then the
+   * message numbers continue after the newest message restored from the
+   * file.
    * @param miniSeedMsgCacheObj the miniSEED message cache or null for the default.
    */
   public SLinkMessageManager(IMiniSeedMsgCache miniSeedMsgCacheObj) {
@@ -47,6 +58,12 @@ public class SLinkMessageManager extends AbstractMessageManager implements
       miniSeedMsgCacheObj = new MiniSeedMsgCache();
     }
     this.miniSeedMsgCacheObj = miniSeedMsgCacheObj;
+    if (miniSeedMsgCacheObj instanceof MiniSeedMsgFileCache) {
+      final int lastMsgNumVal = ((MiniSeedMsgFileCache) miniSeedMsgCacheObj)
+          .getLastMessageNumber();
+      if (lastMsgNumVal >= 0) // continue after the restored messages
+        setNextMessageSequenceNum(lastMsgNumVal + 1L);
+    }
   }
 
   /**
@@ -83,10 +100,26 @@ public class SLinkMessageManager extends AbstractMessageManager implements
    * @return the SeedLink message number.
    */
   public IMessageNumber getMessageNumber() {
-    if (messageNumber > SLinkMessageNumber.maxMsgNumVal) {
-      messageNumber = SLinkMessageNumber.minMsgNumVal;
-    }
-    return new SLinkMessageNumber(messageNumber++);
+    // the message number wraps to 0 after the maximum value
+    return new SLinkMessageNumber((int) (allocateMessageSequenceNum()
+        % (SLinkMessageNumber.maxMsgNumVal + 1)));
+  }
+
+  /**
+   * Returns the archive writer.
+   * @return The archive writer or null if none.
+   */
+  public MiniSeedArchiveWriter getArchiveWriter() {
+    return archiveWriterObj;
+  }
+
+  /**
+   * Sets the archive writer for the messages. This method should be called
+   * before 'startup()'.
+   * @param archiveWriterObj the archive writer or null for none.
+   */
+  public void setArchiveWriter(MiniSeedArchiveWriter archiveWriterObj) {
+    this.archiveWriterObj = archiveWriterObj;
   }
 
   /**
@@ -104,6 +137,10 @@ public class SLinkMessageManager extends AbstractMessageManager implements
   protected void processMiniSeedMessage(MiniSeedMsgHldr miniSeedMsg) {
     // add the message to the cache
     miniSeedMsgCacheObj.add(miniSeedMsg);
+    // queue the message for the archive
+    if (archiveWriterObj != null) {
+      archiveWriterObj.add(miniSeedMsg);
+    }
     // deliver the message
     if (sLinkClientsMgrObj != null) {
       sLinkClientsMgrObj.deliverMessage(miniSeedMsg);
@@ -123,11 +160,32 @@ public class SLinkMessageManager extends AbstractMessageManager implements
     return miniSeedMsgCacheObj.requestMessages(msgNumVal, beginTime, endTime);
   }
 
+  /**
+   * Opens a cursor for reading 'miniSEED' messages from the cache, starting
+   * with the given message number and filtered by the begin and end time.
+   * @param msgNumVal starting message number or -1 if any.
+   * @param beginTime the begin time or null if none.
+   * @param endTime the end time or null if none.
+   * @param followFlag true to continue reading the messages added to the
+   * cache after the requested messages, false to stop after the requested
+   * messages.
+   * @return The cursor.
+   */
+  public IMiniSeedMsgCursor openMessageCursor(int msgNumVal,
+      SLinkTime beginTime, SLinkTime endTime, boolean followFlag) {
+    return miniSeedMsgCacheObj.openCursor(msgNumVal, beginTime, endTime,
+        followFlag);
+  }
+
   /**
    * Shuts down this message manager.
    */
   public void shutdown() {
+    stopIngestionLanes(); // process queued data messages
     miniSeedMsgCacheObj.stopProcessingThread(); // stop queue-proc thread
+    if (archiveWriterObj != null) { // write queued messages and close files
+      archiveWriterObj.stopProcessingThread(ARCHIVE_STOP_WAIT_MS);
+    }
   }
 
   /**
@@ -143,5 +201,8 @@ public class SLinkMessageManager extends AbstractMessageManager implements
     miniSeedMsgCacheObj.setMaximumMessageAge(cParamObj.getMaxCacheAge());
     miniSeedMsgCacheObj.setMaximumMessageCount(cParamObj.getMaxCacheSize());
     miniSeedMsgCacheObj.startProcessingThread(); // start queue-proc thread
+    if (archiveWriterObj != null) {
+      archiveWriterObj.startProcessingThread(); // start archive thread
+    }
   }
 }
@@ -1,6 +1,8 @@
 //SLinkMessageNumber.java:  Defines a SeedLink message number.
 //
 //  9/16/2009 -- [KF]
+// 10/17/2026 -- [KF]  Added 'getMsgNumDistance()' method.
+// 10/17/2026 -- [KF]  Added constructor with time created.
 //
 
 package com.isti.slinkutil;
@@ -19,6 +21,18 @@ public class SLinkMessageNumber implements IMessageNumber {
   protected static final String[] SLMSGNUM_ZEROSTR_ARR = { "000000", "00000",
       "0000", "000", "00", "0" };
 
+  /**
+   * Returns the distance from one message number to another, taking the
+   * message-number rollover into account.
+   * @param fromMsgNum the "from" message number value, 0 to 0xFFFFFF.
+   * @param toMsgNum the "to" message number value, 0 to 0xFFFFFF.
+   * @return The number of message numbers from 'fromMsgNum' forward to
+   * 'toMsgNum', 0 to 0xFFFFFF.
+   */
+  public static int getMsgNumDistance(int fromMsgNum, int toMsgNum) {
+    return (toMsgNum - fromMsgNum) & maxMsgNumVal;
+  }
+
   /**
    * Converts the given message number to a SeedLink-format message-number
    * string.
@@ -76,7 +90,18 @@ public class SLinkMessageNumber implements IMessageNumber {
    * generate from 'msgNumVal'.
    */
   public SLinkMessageNumber(int msgNumVal, String msgNumStr) {
-    timeCreated = System.currentTimeMillis();
+    this(msgNumVal, msgNumStr, System.currentTimeMillis());
+  }
+
+  /**
+   * Creates the SeedLink message number.
+   * @param msgNumVal the message number value.
+   * @param msgNumStr string version of message number, or null to
+   * generate from 'msgNumVal'.
+   * @param timeCreated the time the message was created.
+   */
+  public SLinkMessageNumber(int msgNumVal, String msgNumStr, long timeCreated) {
+    this.timeCreated = timeCreated;
     this.msgNumVal = msgNumVal;
     // enter SeedLink-format-string version of message number:
     slMsgNumStr = buildSLMsgNumStr(msgNumVal, msgNumStr);
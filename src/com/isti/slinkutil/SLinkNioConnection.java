@@ -0,0 +1,367 @@
+//SLinkNioConnection.java:  Manages the connection to a SeedLink client
+//                          serviced by a selector I/O thread.
+//
+// 10/17/2026 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Modified to close the connection after the output
+//                     for a FETCH transaction is sent.
+// 10/17/2026 -- [KF]  Modified to update the message-batch counters.
+//
+
+package com.isti.slinkutil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+
+/**
+ * Class SLinkNioConnection manages the connection to a SeedLink client
+ * that is serviced by a selector I/O thread instead of by its own
+ * requests-processing and queue-processing threads.  Command handling and
+ * message queueing are the same as for 'SLinkConnection'; client input is
+ * read without blocking and output is held in a list of buffers that is
+ * sent with gathering writes.  Message packets are not copied; the
+ * shared pre-framed SeedLink packet of each message is wrapped in a
+ * buffer.
+ */
+public class SLinkNioConnection extends SLinkConnection
+{
+    /** Size of the input buffer. */
+  public static final int INPUT_BUFFER_SIZE = 1024;
+    /** Maximum number of messages to be sent per call. */
+  public static final int MESSAGE_BATCH_SIZE = 16;
+    /** Number of pending output bytes before messages stop being added. */
+  public static final int OUTPUT_HIGH_WATER_MARK = 64 * 1024;
+    /** Maximum number of send loops before yielding to other connections. */
+  protected static final int MAX_SEND_LOOPS = 16;
+  private final SocketChannel channelObj;
+  private final SLinkSelectorServer.IoThread ioThreadObj;
+  private final ChannelOutputStream channelOutStmObj;
+  private final ByteBuffer inBufferObj =
+                                   ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+  private final StringBuffer inLineBuff = new StringBuffer();
+  private int prevInVal = 0;
+  private int pendingMsgCount = 0;
+  private SelectionKey selectionKeyObj = null;
+    /** True if marked as ready by the I/O thread (access synchronized
+     * by the I/O thread). */
+  boolean readyFlag = false;
+
+  /**
+   * Creates the manager object for a SeedLink client connection.
+   * @param sLinkClientsMgrObj parent 'SLinkClientsMgr' object.
+   * @param channelObj socket channel for new client connection.
+   * @param ioThreadObj selector I/O thread servicing the connection.
+   * @param stationIdStr station ID string for module.
+   * @param networkIdStr network ID string for module.
+   * @param maximumQueueSize maximum number of messages allowed to be stored
+   * in the queue, or 0 for none.
+   * @param messageRetryDelayMS number of milliseconds to wait after a
+   * message-send failure before attemping a resend, or 0 to wait
+   * indefinitely (until another message is queued).
+   */
+  public SLinkNioConnection(SLinkClientsMgr sLinkClientsMgrObj,
+                             SocketChannel channelObj,
+                             SLinkSelectorServer.IoThread ioThreadObj,
+                             String stationIdStr, String networkIdStr,
+                             int maximumQueueSize, int messageRetryDelayMS)
+  {
+    this(sLinkClientsMgrObj,channelObj,ioThreadObj,stationIdStr,
+                 networkIdStr,maximumQueueSize,messageRetryDelayMS,
+                                                 new ChannelOutputStream());
+  }
+
+  /**
+   * Creates the manager object for a SeedLink client connection.
+   * @param sLinkClientsMgrObj parent 'SLinkClientsMgr' object.
+   * @param channelObj socket channel for new client connection.
+   * @param ioThreadObj selector I/O thread servicing the connection.
+   * @param stationIdStr station ID string for module.
+   * @param networkIdStr network ID string for module.
+   * @param maximumQueueSize maximum number of messages allowed to be stored
+   * in the queue, or 0 for none.
+   * @param messageRetryDelayMS number of milliseconds to wait after a
+   * message-send failure before attemping a resend, or 0 to wait
+   * indefinitely (until another message is queued).
+   * @param channelOutStmObj output stream holding the pending output.
+   */
+  private SLinkNioConnection(SLinkClientsMgr sLinkClientsMgrObj,
+                             SocketChannel channelObj,
+                             SLinkSelectorServer.IoThread ioThreadObj,
+                             String stationIdStr, String networkIdStr,
+                             int maximumQueueSize, int messageRetryDelayMS,
+                             ChannelOutputStream channelOutStmObj)
+  {
+    super(sLinkClientsMgrObj,channelObj.socket(),
+                 new ByteArrayInputStream(new byte[0]),channelOutStmObj,
+                        stationIdStr,networkIdStr,maximumQueueSize,
+                                               messageRetryDelayMS,false);
+    if(ioThreadObj == null)
+      throw new NullPointerException("Null parameter(s)");
+    this.channelObj = channelObj;
+    this.ioThreadObj = ioThreadObj;
+    this.channelOutStmObj = channelOutStmObj;
+  }
+
+  /**
+   * Returns the socket channel for the connection.
+   * @return The socket channel for the connection.
+   */
+  public SocketChannel getChannel()
+  {
+    return channelObj;
+  }
+
+  /**
+   * Sets the selection key for the connection.
+   * @param keyObj selection key.
+   */
+  void setSelectionKey(SelectionKey keyObj)
+  {
+    selectionKeyObj = keyObj;
+  }
+
+  /**
+   * Called after a message is added to the queue; marks the connection
+   * as ready for the I/O thread.
+   */
+  protected void messageQueued()
+  {
+    ioThreadObj.connectionReady(this);
+  }
+
+  /**
+   * Adds the shared SeedLink packet for the given message to the pending
+   * output (without copying it).
+   * @param msgObj message object to be sent.
+   * @throws IOException if the connection has been closed.
+   */
+  protected void writeMessagePacket(MiniSeedMsgHldr msgObj)
+                                                         throws IOException
+  {
+    channelOutStmObj.addBuffer(ByteBuffer.wrap(msgObj.getSLinkPacketArray()));
+    ++pendingMsgCount;
+  }
+
+  /**
+   * Reads the available client input and processes the received lines.
+   * A carriage return, linefeed, or both may be used to terminate a line.
+   * Called by the I/O thread when the channel is readable.
+   */
+  void readInput()
+  {
+    try
+    {
+      inBufferObj.clear();
+      if(channelObj.read(inBufferObj) < 0)
+      {  //end of input steam detected
+        if(LogMgr.isDebugLevel1())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(getMsgPromptStr() +
+                                             "Connection closed by client");
+        }
+        closeConnection();
+        return;
+      }
+      inBufferObj.flip();
+      int val;
+      while(inBufferObj.hasRemaining())
+      {  //for each received value
+        val = inBufferObj.get() & 0xFF;
+              //if received value is carriage return or linefeed then
+              // process received line of data (unless previous value
+              // was corresponding CR/LF; then just ignore):
+        if((val == (int)'\r' && prevInVal != (int)'\n') ||
+                             (val == (int)'\n' && prevInVal != (int)'\r'))
+        {  //end of line
+          prevInVal = val;
+          final String inLineStr = inLineBuff.toString();
+          inLineBuff.setLength(0);
+          if(!processInputLine(inLineStr))
+          {  //connection to be closed
+            closeConnection();
+            return;
+          }
+        }
+        else if(val != (int)'\r' && val != (int)'\n')
+        {  //received value is data
+          inLineBuff.append((char)val);
+          prevInVal = val;
+        }
+        else
+          prevInVal = val;
+      }
+      serviceOutput();
+    }
+    catch(Exception ex)
+    {  //error reading from client socket
+      LogMgr.usrMsgWarning(getMsgPromptStr() +
+                                   "Error reading from socket:  " + ex);
+      closeConnection();
+    }
+  }
+
+  /**
+   * Sends queued messages and pending output to the client.  Messages
+   * are moved from the queue while the pending output is below the
+   * high-water mark; if the channel cannot accept all of the output then
+   * the I/O thread is set to service the connection when it is writable.
+   */
+  void serviceOutput()
+  {
+    boolean moreFlag = false;
+    for(int loopCount=0; loopCount<MAX_SEND_LOOPS; ++loopCount)
+    {  //loop while messages are queued and output is sent
+      if(!isConnectionOpen())
+        return;
+      moreFlag = false;
+      while(channelOutStmObj.getPendingCount() < OUTPUT_HIGH_WATER_MARK &&
+                    (moreFlag=sendQueuedMessages(MESSAGE_BATCH_SIZE)));
+      if(!isConnectionOpen() || !writeOutput())
+        return;
+      if(isCloseAfterOutput())
+      {  //FETCH transaction ended and all output sent
+        closeConnection();
+        return;
+      }
+      if(!moreFlag)
+        return;
+    }
+    if(moreFlag)                            //if messages remain then
+      ioThreadObj.connectionReady(this);    //service again after others
+  }
+
+  /**
+   * Writes the pending output to the channel.
+   * @return true if all of the pending output was written; false if not.
+   */
+  private boolean writeOutput()
+  {
+    try
+    {
+      final boolean doneFlag = channelOutStmObj.writeTo(channelObj);
+      if(doneFlag && pendingMsgCount > 0)
+      {  //all pending output written; count messages as sent batch
+        messageBatchSent(pendingMsgCount);
+        pendingMsgCount = 0;
+      }
+      final SelectionKey keyObj;
+      if((keyObj=selectionKeyObj) != null && keyObj.isValid())
+      {  //set interest in writable events if output remains
+        keyObj.interestOps(doneFlag ? SelectionKey.OP_READ :
+                           (SelectionKey.OP_READ | SelectionKey.OP_WRITE));
+      }
+      return doneFlag;
+    }
+    catch(Exception ex)
+    {  //error writing to client socket
+      LogMgr.usrMsgWarning(getMsgPromptStr() +
+                                     "Error writing to socket:  " + ex);
+      closeConnection();
+      return false;
+    }
+  }
+
+
+  /**
+   * Class ChannelOutputStream holds the pending output for a channel as
+   * a list of buffers.
+   */
+  protected static class ChannelOutputStream extends OutputStream
+  {
+      /** Maximum number of buffers per gathering write. */
+    public static final int MAX_WRITE_BUFFERS = 64;
+    private final LinkedList buffersList = new LinkedList();
+    private int pendingCount = 0;
+    private boolean closedFlag = false;
+
+    /**
+     * Adds the given buffer to the pending output.
+     * @param bufferObj buffer.
+     * @throws IOException if the stream has been closed.
+     */
+    public synchronized void addBuffer(ByteBuffer bufferObj)
+                                                         throws IOException
+    {
+      if(closedFlag)
+        throw new IOException("Stream closed");
+      buffersList.add(bufferObj);
+      pendingCount += bufferObj.remaining();
+    }
+
+    /**
+     * Returns the number of pending output bytes.
+     * @return The number of pending output bytes.
+     */
+    public synchronized int getPendingCount()
+    {
+      return pendingCount;
+    }
+
+    /**
+     * Writes the pending output to the given channel.
+     * @param channelObj channel.
+     * @return true if all of the pending output was written; false if not.
+     * @throws IOException if an I/O error occurs.
+     */
+    public synchronized boolean writeTo(SocketChannel channelObj)
+                                                         throws IOException
+    {
+      ByteBuffer [] buffersArr;
+      long count;
+      while(!buffersList.isEmpty())
+      {  //loop while output is pending
+        buffersArr = new ByteBuffer[Math.min(buffersList.size(),
+                                                        MAX_WRITE_BUFFERS)];
+        for(int i=0; i<buffersArr.length; ++i)
+          buffersArr[i] = (ByteBuffer)buffersList.get(i);
+        if((count=channelObj.write(buffersArr)) <= 0)
+          return false;              //if nothing written then return
+        pendingCount -= (int)count;
+        while(!buffersList.isEmpty() &&
+                      !((ByteBuffer)buffersList.getFirst()).hasRemaining())
+        {  //remove written buffers
+          buffersList.removeFirst();
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Writes the specified byte to the pending output.
+     * @param b the byte.
+     * @throws IOException if the stream has been closed.
+     */
+    public void write(int b) throws IOException
+    {
+      write(new byte[] {(byte)b},0,1);
+    }
+
+    /**
+     * Writes the given bytes to the pending output.
+     * @param b the data.
+     * @param off the start offset in the data.
+     * @param len the number of bytes to write.
+     * @throws IOException if the stream has been closed.
+     */
+    public void write(byte [] b, int off, int len) throws IOException
+    {
+      final byte [] arr = new byte[len];
+      System.arraycopy(b,off,arr,0,len);
+      addBuffer(ByteBuffer.wrap(arr));
+    }
+
+    /**
+     * Closes this stream and discards the pending output.
+     */
+    public synchronized void close()
+    {
+      closedFlag = true;
+      buffersList.clear();
+      pendingCount = 0;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+//SLinkRoutingIndex.java:  Defines an index of the SeedLink-client
+//                         connections subscribed to each channel.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Class SLinkRoutingIndex defines an index of the SeedLink-client
+ * connections subscribed to each channel, so a live message is handed
+ * only to the connections that selected its channel.  Channels are
+ * indexed by channel ID (see 'SLinkChannelRegistry').  Connections with
+ * no selected channels (all channels) are subscribed to every channel.
+ * Channels registered after the index was built are not indexed (see
+ * 'isIndexed()'), since they may be selected by the connections' SELECT
+ * patterns.  The index is a snapshot built from the connections' selected channels;
+ * it is not modified after it is built, so it may be used by the
+ * delivering thread without a lock and replaced when a selection changes.
+ */
+public class SLinkRoutingIndex
+{
+  private static final SLinkConnection [] EMPTY_CONN_ARR =
+                                                    new SLinkConnection[0];
+  private final SLinkConnection [][] channelConnsArr;
+  private final SLinkConnection [] allChannelsConnArr;
+  private final int numIndexedChannels;
+  private int numChannels = 0;
+
+  /**
+   * Creates the routing index.
+   * @param sLConnList list of 'SLinkConnection' objects.
+   */
+  public SLinkRoutingIndex(List sLConnList)
+  {
+         //get number of channels before selections are checked so the
+         // selections will include all indexed channels:
+    numIndexedChannels = SLinkChannelRegistry.getNumChannels();
+    final int numConns = sLConnList.size();
+    final SLinkSelectMatcher [] matcherArr =
+                                       new SLinkSelectMatcher[numConns];
+    final SLinkConnection [] connArr = new SLinkConnection[numConns];
+    final BitSet [] selChansBitsArr = new BitSet[numConns];
+    final BitSet allSelChansBits = new BitSet();
+    final ArrayList allConnsList = new ArrayList();
+    Object obj;
+    for(int i=0; i<numConns; ++i)
+    {  //for each connection; collect its selected channels
+      if((obj=sLConnList.get(i)) instanceof SLinkConnection)
+      {  //connection object fetched OK
+        connArr[i] = (SLinkConnection)obj;
+        if((matcherArr[i]=connArr[i].getSelectMatcher()) != null)
+        {  //connection has selected channels
+          selChansBitsArr[i] = matcherArr[i].getSelectedChannels();
+          allSelChansBits.or(selChansBitsArr[i]);
+        }
+        else          //no selected channels; subscribed to all channels
+          allConnsList.add(connArr[i]);
+      }
+    }
+    allChannelsConnArr = toConnArray(allConnsList);
+    channelConnsArr = new SLinkConnection[allSelChansBits.length()][];
+    final ArrayList connsList = new ArrayList();
+    for(int id=allSelChansBits.nextSetBit(0); id>=0;
+                                         id=allSelChansBits.nextSetBit(id+1))
+    {  //for each selected channel ID; enter subscribed connections
+      connsList.clear();
+      for(int i=0; i<numConns; ++i)
+      {  //for each connection (in list order)
+        if(connArr[i] != null && (matcherArr[i] == null ||
+                                              selChansBitsArr[i].get(id)))
+        {  //connection subscribed to all channels or selected channel
+          connsList.add(connArr[i]);
+        }
+      }
+      channelConnsArr[id] = toConnArray(connsList);
+      ++numChannels;
+    }
+  }
+
+  /**
+   * Returns the connections subscribed to the given channel.
+   * @param channelId channel ID for the channel.
+   * @return An array of 'SLinkConnection' objects (not to be modified).
+   */
+  public SLinkConnection [] getConnections(int channelId)
+  {
+    final SLinkConnection [] connArr;
+    return (channelId < channelConnsArr.length &&
+                         (connArr=channelConnsArr[channelId]) != null) ?
+                                              connArr : allChannelsConnArr;
+  }
+
+  /**
+   * Determines if the given channel is indexed.  A channel registered
+   * after the index was built is not indexed, and the index should be
+   * rebuilt before it is used for the channel.
+   * @param channelId channel ID for the channel.
+   * @return true if the channel is indexed; false if not.
+   */
+  public boolean isIndexed(int channelId)
+  {
+    return (channelId < numIndexedChannels);
+  }
+
+  /**
+   * Returns the number of channels with selected connections.
+   * @return The number of channels with selected connections.
+   */
+  public int getNumChannels()
+  {
+    return numChannels;
+  }
+
+  /**
+   * Converts the given list of connections to an array.
+   * @param listObj list of 'SLinkConnection' objects.
+   * @return An array of 'SLinkConnection' objects.
+   */
+  private static SLinkConnection [] toConnArray(List listObj)
+  {
+    return (listObj.size() > 0) ? (SLinkConnection [])(listObj.toArray(
+                   new SLinkConnection[listObj.size()])) : EMPTY_CONN_ARR;
+  }
+}
@@ -0,0 +1,158 @@
+//SLinkSelectMatcher.java:  Defines a compiled set of SeedLink SELECT
+//                          patterns.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Class SLinkSelectMatcher defines a compiled set of SeedLink SELECT
+ * patterns ("LLCCC" or "CCC", with '?' wildcards).  Each channel is
+ * matched against the patterns once, the first time its channel ID (see
+ * 'SLinkChannelRegistry') is tested, and the result is kept as a bit, so
+ * channels that appear after the patterns were entered are selected and
+ * testing a message's channel is a single bit probe.  The matcher is not
+ * modified after it is created other than to record the results for new
+ * channels, so it may be shared by threads.
+ */
+public class SLinkSelectMatcher
+{
+  private final char [][] locPatArr;
+  private final char [][] chaPatArr;
+  private volatile BitSet matchedChannelsBits = new BitSet();
+  private volatile int numCheckedChannels = 0;
+
+  /**
+   * Creates a compiled set of SELECT patterns.
+   * @param patsList list of pattern strings ("LLCCC" or "CCC", with the
+   * trailing ".T" type characters removed).
+   * @throws IllegalArgumentException if a pattern is not valid.
+   */
+  public SLinkSelectMatcher(List patsList)
+  {
+    final int numPats = patsList.size();
+    locPatArr = new char[numPats][];
+    chaPatArr = new char[numPats][];
+    String patStr;
+    int len;
+    for(int i=0; i<numPats; ++i)
+    {  //for each pattern string; compile location and channel patterns
+      patStr = ((String)(patsList.get(i))).toUpperCase();
+      if((len=patStr.length()) < 2 || len > 5)
+      {  //length not between 2 and 5
+        throw new IllegalArgumentException(
+                                "Invalid SELECT pattern \"" + patStr + "\"");
+      }
+      if(len < 5)
+      {  //length is 2-4
+        chaPatArr[i] = patStr.toCharArray();      //accept as channel pattern
+        locPatArr[i] = null;                      //no location code
+      }
+      else
+      {  //length is 5
+        chaPatArr[i] = patStr.substring(2).toCharArray();  //trailing 3 chan
+        locPatArr[i] = patStr.substring(0,2).toCharArray(); //leading 2 loc
+      }
+    }
+  }
+
+  /**
+   * Determines if the given channel is selected.
+   * @param channelId channel ID for the channel.
+   * @return true if the channel matches one of the patterns; false if not.
+   */
+  public boolean isSelected(int channelId)
+  {
+    if(channelId >= numCheckedChannels)     //if channel not yet checked then
+      checkNewChannels();                   //check new channels
+    return matchedChannelsBits.get(channelId);
+  }
+
+  /**
+   * Returns the selected channels, after checking any new channels.
+   * @return A 'BitSet' with the bits for the selected channel IDs set
+   * (not to be modified).
+   */
+  public BitSet getSelectedChannels()
+  {
+    checkNewChannels();
+    return matchedChannelsBits;
+  }
+
+  /**
+   * Returns the number of channels checked against the patterns.
+   * @return The number of channels checked (one more than the highest
+   * channel ID checked).
+   */
+  public int getNumCheckedChannels()
+  {
+    return numCheckedChannels;
+  }
+
+  /**
+   * Determines if the given channel matches one of the patterns.
+   * @param scnlObj channel-ID object for the channel.
+   * @return true if the channel matches one of the patterns; false if not.
+   */
+  public boolean matches(IStaChaNetLoc scnlObj)
+  {
+    final String chaStr = scnlObj.getChannelCode();
+    final String locStr = scnlObj.getLocationCode();
+    for(int i=0; i<chaPatArr.length; ++i)
+    {  //for each pattern
+      if(matchPat(chaPatArr[i],chaStr) &&
+                    (locPatArr[i] == null || matchPat(locPatArr[i],locStr)))
+      {  //channel pattern and location pattern (if given) matched
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks the channels added to the channel registry since the last check
+   * against the patterns.  The results are entered into a new 'BitSet' so
+   * the current one may be used without a lock.
+   */
+  private synchronized void checkNewChannels()
+  {
+    final int numChannels = SLinkChannelRegistry.getNumChannels();
+    if(numCheckedChannels >= numChannels)
+      return;                    //if no new channels then exit method
+    final BitSet bitsObj = (BitSet)(matchedChannelsBits.clone());
+    for(int id=numCheckedChannels; id<numChannels; ++id)
+    {  //for each new channel; set bit if matched
+      if(matches(SLinkChannelRegistry.getChannel(id)))
+        bitsObj.set(id);
+    }
+    matchedChannelsBits = bitsObj;     //enter bits before count
+    numCheckedChannels = numChannels;
+  }
+
+  /**
+   * Determines if the given string matches the given pattern.  The match
+   * is case insensitive and a '?' in the pattern matches any character.
+   * @param patArr upper-case pattern characters.
+   * @param matchStr string to be matched.
+   * @return true if matched; false if not.
+   */
+  private static boolean matchPat(char [] patArr, String matchStr)
+  {
+    if(matchStr.length() != patArr.length)
+      return false;          //if different lengths then no match
+    char ch;
+    for(int p=0; p<patArr.length; ++p)
+    {  //for each character in pattern
+      if((ch=patArr[p]) != '?' &&
+                         ch != Character.toUpperCase(matchStr.charAt(p)))
+      {  //not match-any wildcard and case-insensitive match failed
+        return false;
+      }
+    }
+    return true;
+  }
+}
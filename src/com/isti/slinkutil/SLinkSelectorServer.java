@@ -0,0 +1,393 @@
+//SLinkSelectorServer.java:  Services SeedLink-client connections via a
+//                           fixed pool of NIO selector threads.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Class SLinkSelectorServer services SeedLink-client connections via a
+ * fixed pool of NIO selector threads.  The first I/O thread also accepts
+ * new connections, which are assigned to the I/O threads in round-robin
+ * order.  Each I/O thread reads and processes client commands, sends
+ * queued messages and flushes pending output for its connections, so
+ * the number of threads does not grow with the number of connections.
+ */
+public class SLinkSelectorServer
+{
+    /** Maximum time to wait for a selector event, in milliseconds. */
+  public static final int SELECT_TIMEOUT_MS = 1000;
+  private final SLinkClientsMgr sLinkClientsMgrObj;
+  private final ServerSocketChannel serverChannelObj;
+  private final IoThread [] ioThreadsArr;
+  private int nextIoThreadIndex = 0;
+
+  /**
+   * Creates the selector threads.
+   * @param sLinkClientsMgrObj parent 'SLinkClientsMgr' object.
+   * @param serverChannelObj server-socket channel for the listen port.
+   * @param numIoThreads number of I/O threads.
+   * @param threadNameStr name prefix for I/O threads.
+   * @throws IOException if a selector cannot be opened.
+   */
+  public SLinkSelectorServer(SLinkClientsMgr sLinkClientsMgrObj,
+                     ServerSocketChannel serverChannelObj, int numIoThreads,
+                                  String threadNameStr) throws IOException
+  {
+    if(sLinkClientsMgrObj == null || serverChannelObj == null)
+      throw new NullPointerException("Null parameter(s)");
+    this.sLinkClientsMgrObj = sLinkClientsMgrObj;
+    this.serverChannelObj = serverChannelObj;
+    ioThreadsArr = new IoThread[Math.max(numIoThreads,1)];
+    try
+    {
+      for(int i=0; i<ioThreadsArr.length; ++i)
+        ioThreadsArr[i] = new IoThread(threadNameStr + "Io" + (i+1));
+      serverChannelObj.configureBlocking(false);
+              //first I/O thread accepts new connections:
+      serverChannelObj.register(ioThreadsArr[0].selectorObj,
+                                                   SelectionKey.OP_ACCEPT);
+    }
+    catch(IOException ex)
+    {  //error setting up selectors; close any opened
+      for(int i=0; i<ioThreadsArr.length; ++i)
+      {
+        if(ioThreadsArr[i] != null)
+          ioThreadsArr[i].closeSelector();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Starts the I/O threads.
+   */
+  public void start()
+  {
+    for(int i=0; i<ioThreadsArr.length; ++i)
+      ioThreadsArr[i].start();
+  }
+
+  /**
+   * Terminates the I/O threads and closes their connections.
+   */
+  public void terminate()
+  {
+    for(int i=0; i<ioThreadsArr.length; ++i)
+      ioThreadsArr[i].terminate();
+  }
+
+  /**
+   * Returns the I/O thread to be used for the next new connection.
+   * @return The I/O thread to be used for the next new connection.
+   */
+  private IoThread getNextIoThread()
+  {
+    final IoThread ioThreadObj = ioThreadsArr[nextIoThreadIndex];
+    if(++nextIoThreadIndex >= ioThreadsArr.length)
+      nextIoThreadIndex = 0;
+    return ioThreadObj;
+  }
+
+
+  /**
+   * Class IoThread services the connections registered with its
+   * selector.
+   */
+  public class IoThread extends NotifyThread
+  {
+    private final String ioMsgPromptStr;
+    private final Selector selectorObj;
+    private final List pendingConnsList = new ArrayList();
+    private List readyConnsList = new ArrayList();
+    private List readyConnsSwapList = new ArrayList();
+    private long nextServiceAllTime = 0;
+
+    /**
+     * Creates the I/O thread.
+     * @param threadNameStr name for thread.
+     * @throws IOException if the selector cannot be opened.
+     */
+    public IoThread(String threadNameStr) throws IOException
+    {
+      super(threadNameStr);
+                   //setup local prompt for user messages:
+      ioMsgPromptStr = threadNameStr + ":  ";
+      selectorObj = Selector.open();
+    }
+
+    /**
+     * Adds the given connection to be registered with the selector of
+     * this thread.
+     * @param connObj connection object.
+     */
+    public void addConnection(SLinkNioConnection connObj)
+    {
+      synchronized(pendingConnsList)
+      {
+        pendingConnsList.add(connObj);
+      }
+      selectorObj.wakeup();            //register it now
+    }
+
+    /**
+     * Indicates that the given connection has queued messages to be sent.
+     * @param connObj connection object.
+     */
+    public void connectionReady(SLinkNioConnection connObj)
+    {
+      final boolean wakeupFlag;
+      synchronized(pendingConnsList)
+      {
+        if(connObj.readyFlag)          //if already marked as ready then
+          return;                      //nothing to do
+        connObj.readyFlag = true;
+        wakeupFlag = readyConnsList.isEmpty();
+        readyConnsList.add(connObj);
+      }
+      if(wakeupFlag)                   //if first ready connection then
+        selectorObj.wakeup();          //wake up selector
+    }
+
+    /**
+     * Overridden version of 'notifyThread()' that also wakes up the
+     * selector (so that 'terminate()' does not wait for the select
+     * timeout).
+     */
+    public void notifyThread()
+    {
+      super.notifyThread();
+      selectorObj.wakeup();
+    }
+
+    /**
+     * Executing method for thread.
+     */
+    public void run()
+    {
+      if(LogMgr.isDebugLevel2())
+        LogMgr.usrMsgDebug(ioMsgPromptStr + "I/O thread started");
+      try
+      {
+        Iterator iterObj;
+        SelectionKey keyObj;
+        while(!isTerminated())
+        {  //loop while thread not terminated
+          registerPendingConnections();
+          selectorObj.select(SELECT_TIMEOUT_MS);
+          if(isTerminated())
+            break;
+          iterObj = selectorObj.selectedKeys().iterator();
+          while(iterObj.hasNext())
+          {  //for each selected key
+            keyObj = (SelectionKey)iterObj.next();
+            iterObj.remove();
+            if(!keyObj.isValid())
+              continue;
+            if(keyObj.isAcceptable())
+              acceptConnections();
+            else if(keyObj.attachment() instanceof SLinkNioConnection)
+            {  //connection channel is ready
+              final SLinkNioConnection connObj =
+                                   (SLinkNioConnection)keyObj.attachment();
+              if(keyObj.isReadable())
+                connObj.readInput();
+              if(keyObj.isValid() && keyObj.isWritable())
+                connObj.serviceOutput();
+            }
+          }
+          serviceReadyConnections();
+        }
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; log it
+        LogMgr.usrMsgWarning(ioMsgPromptStr +
+                                       "Exception error in thread:  " + ex);
+        LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+      }
+      closeConnections();
+      closeSelector();
+      if(LogMgr.isDebugLevel2())
+        LogMgr.usrMsgDebug(ioMsgPromptStr + "I/O thread stopped");
+    }
+
+    /**
+     * Accepts new connections from the server-socket channel.
+     */
+    private void acceptConnections()
+    {
+      SocketChannel channelObj;
+      while(true)
+      {  //loop while new connections are available
+        try
+        {
+          if((channelObj=serverChannelObj.accept()) == null)
+            break;
+        }
+        catch(IOException ex)
+        {  //error accepting connection; log message
+          LogMgr.usrMsgWarning(ioMsgPromptStr +
+                              "Error accepting connection:  " + ex);
+          break;
+        }
+        if(LogMgr.isDebugLevel1())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(ioMsgPromptStr + "Processing " +
+                                    "connection from remote client at " +
+                                channelObj.socket().getInetAddress() + ':' +
+                                           channelObj.socket().getPort());
+        }
+        try
+        {
+          channelObj.configureBlocking(false);
+          if(sLinkClientsMgrObj.processNewConnection(channelObj.socket(),
+                                                        getNextIoThread()))
+          {
+            continue;
+          }
+        }
+        catch(IOException ex)
+        {  //error setting up channel
+          LogMgr.usrMsgWarning(ioMsgPromptStr +
+                             "Error setting up client connection:  " + ex);
+        }
+        try
+        {     //close rejected channel:
+          channelObj.close();
+        }
+        catch(IOException ex)
+        {  //error closing channel
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(ioMsgPromptStr +
+                            "Error closing rejected client socket:  " + ex);
+          }
+        }
+      }
+    }
+
+    /**
+     * Registers pending connections with the selector.
+     */
+    private void registerPendingConnections()
+    {
+      final Object [] connsArr;
+      synchronized(pendingConnsList)
+      {
+        if(pendingConnsList.isEmpty())
+          return;
+        connsArr = pendingConnsList.toArray();
+        pendingConnsList.clear();
+      }
+      SLinkNioConnection connObj;
+      for(int i=0; i<connsArr.length; ++i)
+      {  //for each pending connection
+        connObj = (SLinkNioConnection)connsArr[i];
+        try
+        {
+          connObj.setSelectionKey(connObj.getChannel().register(
+                                 selectorObj,SelectionKey.OP_READ,connObj));
+        }
+        catch(IOException ex)
+        {  //error registering channel (closed by client)
+          if(LogMgr.isDebugLevel1())
+          {  //debug-mask bit is set; output debug message
+            LogMgr.usrMsgDebug(ioMsgPromptStr +
+                                  "Error registering connection:  " + ex);
+          }
+          connObj.closeConnection();
+        }
+      }
+    }
+
+    /**
+     * Sends queued messages for the connections marked as ready and,
+     * once per select timeout, for all connections (so that end-time
+     * checks are performed).
+     */
+    private void serviceReadyConnections()
+    {
+      final List connsList;
+      synchronized(pendingConnsList)
+      {  //swap ready list so connections may be marked while servicing
+        connsList = readyConnsList;
+        readyConnsList = readyConnsSwapList;
+        readyConnsSwapList = connsList;
+        for(int i=0; i<connsList.size(); ++i)
+          ((SLinkNioConnection)connsList.get(i)).readyFlag = false;
+      }
+      for(int i=0; i<connsList.size(); ++i)
+        ((SLinkNioConnection)connsList.get(i)).serviceOutput();
+      connsList.clear();
+      final long curTimeVal = System.currentTimeMillis();
+      if(curTimeVal >= nextServiceAllTime)
+      {  //time to service all connections
+        nextServiceAllTime = curTimeVal + SELECT_TIMEOUT_MS;
+        final Iterator iterObj = selectorObj.keys().iterator();
+        Object obj;
+        while(iterObj.hasNext())
+        {  //for each registered key
+          if((obj=((SelectionKey)iterObj.next()).attachment()) instanceof
+                                                         SLinkNioConnection)
+          {
+            ((SLinkNioConnection)obj).serviceOutput();
+          }
+        }
+      }
+    }
+
+    /**
+     * Closes the connections registered with the selector.
+     */
+    private void closeConnections()
+    {
+      try
+      {
+        final Object [] keysArr = selectorObj.keys().toArray();
+        Object obj;
+        for(int i=0; i<keysArr.length; ++i)
+        {  //for each registered key
+          if((obj=((SelectionKey)keysArr[i]).attachment()) instanceof
+                                                         SLinkNioConnection)
+          {
+            ((SLinkNioConnection)obj).closeConnection();
+          }
+        }
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; log it
+        LogMgr.usrMsgWarning(ioMsgPromptStr +
+                                     "Error closing connections:  " + ex);
+      }
+    }
+
+    /**
+     * Closes the selector.
+     */
+    private void closeSelector()
+    {
+      try
+      {
+        selectorObj.close();
+      }
+      catch(IOException ex)
+      {  //error closing selector
+        if(LogMgr.isDebugLevel1())
+        {  //debug-mask bit is set; output debug message
+          LogMgr.usrMsgDebug(ioMsgPromptStr +
+                                        "Error closing selector:  " + ex);
+        }
+      }
+    }
+  }
+}
@@ -1,6 +1,9 @@
 //SLinkTime.java:  Defines the SEED Link time.
 //
 //  10/6/2009 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Changed to use 'SeedTimeFns' (without a lock) for
+//                     times after the Gregorian change; fixed seconds in
+//                     the text from a calendar.
 //
 
 package com.isti.slinkutil;
@@ -75,6 +78,9 @@ public class SLinkTime {
    * @return a string representation of the time.
    */
   public String toString() {
+    if (SeedTimeFns.isGregorianTime(time)) {
+      return SeedTimeFns.getText(time);
+    }
     synchronized (calendarSyncObject) {
       return getText(getCalendar(time));
     }
@@ -138,7 +144,7 @@ public class SLinkTime {
     return getText(cal.get(SLinkCalendar.YEAR), cal.get(SLinkCalendar.MONTH),
         cal.get(SLinkCalendar.DAY_OF_MONTH),
         cal.get(SLinkCalendar.HOUR_OF_DAY), cal.get(SLinkCalendar.MINUTE), cal
-            .get(SLinkCalendar.MILLISECOND));
+            .get(SLinkCalendar.SECOND));
   }
 
   /**
@@ -153,6 +159,9 @@ public class SLinkTime {
    */
   public static long getTime(int year, int month, int day, int hour, int min,
       int sec) {
+    if (SeedTimeFns.isGregorianYear(year)) {
+      return SeedTimeFns.getTime(year, month, day, hour, min, sec);
+    }
     synchronized (calendarSyncObject) {
       final SLinkCalendar cal = getCalendar();
       return setTime(cal, year, month, day, hour, min, sec);
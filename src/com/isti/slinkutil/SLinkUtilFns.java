@@ -1,11 +1,13 @@
 //SLinkUtilFns.java:  Defines various static SeedLink utility functions.
 //
 //  10/2/2009 -- [KF]
+// 10/17/2026 -- [KF]  Added 'close(RandomAccessFile)'.
 //
 
 package com.isti.slinkutil;
 
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 
 /**
  * Class SLinkUtilFns various static SeedLink utility functions.
@@ -57,6 +59,18 @@ public class SLinkUtilFns {
     }
   }
 
+  /**
+   * Close the random access file quietly.
+   * @param raf the random access file or null if none.
+   */
+  public static void close(RandomAccessFile raf) {
+    try {
+      if (raf != null)
+        raf.close();
+    } catch (Exception ex) {
+    }
+  }
+
   /**
    * Encodes this <tt>String</tt> into a sequence of ASCII bytes.
    * @param s the character string.
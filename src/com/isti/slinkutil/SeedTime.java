@@ -2,6 +2,8 @@
 //
 //  9/17/2009 -- [KF]  Initial version.
 //  1/29/2010 -- [ET]  Minor improvements.
+// 10/17/2026 -- [KF]  Changed to use 'SeedTimeFns' (without a lock) for
+//                     times after the Gregorian change.
 //
 
 package com.isti.slinkutil;
@@ -18,9 +20,6 @@ public class SeedTime {
 	/** The calendar sync object. */
 	private static final Object calendarSyncObject = new Object();
 
-	/** The number of days for 1/1/1970 GMT. */
-	private static final long epochDays = 719162; // same as getDays(1970)
-
 	/**
 	 * Creates a calendar.
 	 * 
@@ -56,7 +55,7 @@ public class SeedTime {
 	 * @return the 'Btime' value.
 	 */
 	public static Btime getBtime(long time) {
-		return getBtime(time, time < 0);
+		return getBtime(time, !SeedTimeFns.isGregorianTime(time));
 	}
 
 	/**
@@ -83,30 +82,7 @@ public class SeedTime {
 			}
 			return btime;
 		}
-		// get the tenths of ms
-		btime.tenthMilli = (int) ((time % 1000)) * 10;
-		// convert ms to seconds
-		time /= 1000;
-		// get the seconds
-		btime.sec = (int) (time % 60);
-		// convert seconds to minutes
-		time /= 60;
-		// get the minutes
-		btime.min = (int) (time % 60);
-		// convert minutes to hours
-		time /= 60;
-		// get the hours
-		btime.hour = (int) (time % 24);
-		// convert hours to days
-		time /= 24;
-		// add the epoch days
-		time += epochDays;
-		// get the year
-		btime.year = getYear(time);
-		// get the Julian day
-		time -= getDays(btime.year);
-		btime.jday = (int) time + 1;
-		return btime;
+		return SeedTimeFns.getBtime(time, btime);
 	}
 
 	/**
@@ -123,21 +99,6 @@ public class SeedTime {
 		}
 	}
 
-	/**
-	 * Return the number of days for the specified year.
-	 * 
-	 * @param year
-	 *            the year.
-	 * @return the number of days for the specified year.
-	 */
-	private static long getDays(int year) {
-		// This logic is from "sun.util.calendar.BaseCalendar"
-		int prevyear = year - 1;
-		long days = (365 * prevyear) + (prevyear / 4) - (prevyear / 100)
-				+ (prevyear / 400);
-		return days;
-	}
-
 	/**
 	 * Return the time.
 	 * 
@@ -146,7 +107,7 @@ public class SeedTime {
 	 * @return the time.
 	 */
 	public static long getTime(final Btime btime) {
-		return getTime(btime, btime.year < 1970);
+		return getTime(btime, !SeedTimeFns.isGregorianYear(btime.year));
 	}
 
 	/**
@@ -173,27 +134,7 @@ public class SeedTime {
 				return cal.getTimeInMillis();
 			}
 		}
-		// convert year to days since the epoch
-		long time = getDays(btime.year) - epochDays;
-		// add the days
-		time += btime.jday - 1;
-		// convert days to hours
-		time *= 24;
-		// add the hours
-		time += btime.hour;
-		// convert hours to minutes
-		time *= 60;
-		// add the minutes
-		time += btime.min;
-		// convert minutes to seconds
-		time *= 60;
-		// add the seconds
-		time += btime.sec;
-		// convert seconds to ms
-		time *= 1000;
-		// add the ms
-		time += ms;
-		return time;
+		return SeedTimeFns.getTime(btime);
 	}
 
 	/**
@@ -204,20 +145,7 @@ public class SeedTime {
 	 * @return the year.
 	 */
 	protected static int getYear(long days) {
-		// This logic is from "sun.util.calendar.BaseCalendar"
-		long d0 = days;
-		int n400 = (int) (d0 / 146097);
-		int d1 = (int) (d0 % 146097);
-		int n100 = d1 / 36524;
-		int d2 = d1 % 36524;
-		int n4 = d2 / 1461;
-		int d3 = d2 % 1461;
-		int n1 = d3 / 365;
-		long year = 400 * n400 + 100 * n100 + 4 * n4 + n1;
-		if (!(n100 == 4 || n1 == 4)) {
-			++year;
-		}
-		return (int) year;
+		return SeedTimeFns.getYear(days);
 	}
 
 	/**
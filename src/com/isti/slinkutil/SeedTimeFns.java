@@ -0,0 +1,279 @@
+//SeedTimeFns.java:  Defines time conversion functions.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil;
+
+import com.isti.slinkutil.seisFile.mseed.Btime;
+
+/**
+ * Class SeedTimeFns defines functions for converting between milliseconds
+ * since 1/1/1970 GMT, 'Btime' values and SeedLink time values.  The
+ * conversions use integer arithmetic instead of a calendar, so they are
+ * thread-safe without a lock.  The fields of the day containing the last
+ * time converted are cached, so times on the same day only need the
+ * time of day to be computed.
+ * <p>
+ * The conversions use the Gregorian calendar, so they only match
+ * 'SLinkCalendar' for times in the years after the Gregorian change
+ * (1583 and later); see 'isGregorianTime()' and 'isGregorianYear()'.
+ */
+public class SeedTimeFns {
+  /** The number of milliseconds per day. */
+  public static final long MS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  /** The first full year of the Gregorian calendar. */
+  public static final int GREGORIAN_YEAR = 1583;
+
+  /** The number of days for 1/1/1970 GMT. */
+  private static final long epochDays = 719162; // same as getDays(1970)
+
+  /** The time at the start of the first full year of the Gregorian calendar. */
+  public static final long GREGORIAN_YEAR_TIME = (getDays(GREGORIAN_YEAR)
+      - epochDays) * MS_PER_DAY;
+
+  /** The day of the year before the first day of each month. */
+  private static final int[] monthDays = { 0, 31, 59, 90, 120, 151, 181, 212,
+      243, 273, 304, 334 };
+
+  /** The delimiter for SeedLink time values. */
+  private static final String delimiter = ",";
+
+  /** The last day information or null if none. */
+  private static volatile DayInfo lastDayInfo = null;
+
+  /**
+   * Defines the fields of a day.  Objects are not modified after they are
+   * created, so they may be shared between threads.
+   */
+  private static class DayInfo {
+    /** The time at the start of the day. */
+    private final long dayTime;
+
+    /** The year. */
+    private final int year;
+
+    /** The day of the year (1-366.) */
+    private final int jday;
+
+    /** The month (0-11.) */
+    private final int month;
+
+    /** The day of the month (1-31.) */
+    private final int day;
+
+    /**
+     * Creates the day information.
+     * @param dayTime the time at the start of the day.
+     */
+    private DayInfo(long dayTime) {
+      this.dayTime = dayTime;
+      final long days = dayTime / MS_PER_DAY + epochDays;
+      year = getYear(days);
+      jday = (int) (days - getDays(year)) + 1;
+      int m = 11;
+      while (m > 0 && jday <= getMonthDays(year, m)) {
+        m--;
+      }
+      month = m;
+      day = jday - getMonthDays(year, m);
+    }
+  }
+
+  /**
+   * Returns the 'Btime' value.
+   * @param time the milliseconds since 1/1/1970 GMT.
+   * @param btime the 'Btime' value to set.
+   * @return the 'Btime' value.
+   */
+  public static Btime getBtime(long time, Btime btime) {
+    final DayInfo dayInfo = getDayInfo(time);
+    int ms = (int) (time - dayInfo.dayTime);
+    btime.year = dayInfo.year;
+    btime.jday = dayInfo.jday;
+    btime.hour = ms / 3600000;
+    ms -= btime.hour * 3600000;
+    btime.min = ms / 60000;
+    ms -= btime.min * 60000;
+    btime.sec = ms / 1000;
+    btime.tenthMilli = (ms - btime.sec * 1000) * 10;
+    return btime;
+  }
+
+  /**
+   * Returns the day information for the specified time.
+   * @param time the milliseconds since 1/1/1970 GMT.
+   * @return the day information.
+   */
+  private static DayInfo getDayInfo(long time) {
+    DayInfo dayInfo = lastDayInfo;
+    if (dayInfo == null || time < dayInfo.dayTime
+        || time >= dayInfo.dayTime + MS_PER_DAY) { // not the same day
+      long dayTime = time - time % MS_PER_DAY;
+      if (dayTime > time) { // negative time
+        dayTime -= MS_PER_DAY;
+      }
+      dayInfo = new DayInfo(dayTime);
+      lastDayInfo = dayInfo;
+    }
+    return dayInfo;
+  }
+
+  /**
+   * Return the number of days from 1/1/0001 to the start of the specified
+   * year.
+   * @param year the year.
+   * @return the number of days.
+   */
+  public static long getDays(int year) {
+    // This logic is from "sun.util.calendar.BaseCalendar"
+    int prevyear = year - 1;
+    long days = (365 * prevyear) + (prevyear / 4) - (prevyear / 100)
+        + (prevyear / 400);
+    return days;
+  }
+
+  /**
+   * Returns the number of days in the year before the specified month.
+   * @param year the year.
+   * @param month the month (0-11.)
+   * @return the number of days.
+   */
+  private static int getMonthDays(int year, int month) {
+    if (month > 1 && isLeapYear(year)) {
+      return monthDays[month] + 1;
+    }
+    return monthDays[month];
+  }
+
+  /**
+   * Return the SeedLink time text.
+   * @param time the milliseconds since 1/1/1970 GMT.
+   * @return the text (year,month,day,hour,minute,second.)
+   */
+  public static String getText(long time) {
+    final DayInfo dayInfo = getDayInfo(time);
+    final int sec = (int) ((time - dayInfo.dayTime) / 1000);
+    // convert month from 0-11 to 1-12
+    return dayInfo.year + delimiter + (dayInfo.month + 1) + delimiter
+        + dayInfo.day + delimiter + (sec / 3600) + delimiter
+        + (sec / 60 % 60) + delimiter + (sec % 60);
+  }
+
+  /**
+   * Return the time.
+   * @param btime the 'Btime' value.
+   * @return the milliseconds since 1/1/1970 GMT.
+   */
+  public static long getTime(Btime btime) {
+    return getTime(btime.year, btime.jday, btime.hour, btime.min, btime.sec,
+        Math.round(btime.tenthMilli / 10.0));
+  }
+
+  /**
+   * Return the time.
+   * @param year the year.
+   * @param jday the day of the year (1-366.)
+   * @param hour the hour.
+   * @param min the minute.
+   * @param sec the seconds.
+   * @param ms the milliseconds.
+   * @return the milliseconds since 1/1/1970 GMT.
+   */
+  private static long getTime(int year, int jday, int hour, int min,
+      int sec, long ms) {
+    final DayInfo dayInfo = lastDayInfo;
+    final long dayTime;
+    if (dayInfo != null && dayInfo.year == year && dayInfo.jday == jday) {
+      dayTime = dayInfo.dayTime; // same day
+    } else {
+      dayTime = (getDays(year) - epochDays + jday - 1) * MS_PER_DAY;
+    }
+    return dayTime + ((hour * 60L + min) * 60L + sec) * 1000L + ms;
+  }
+
+  /**
+   * Return the time.
+   * @param year the year.
+   * @param month the month (0-11.)
+   * @param day the day of the month.
+   * @param hour the hour.
+   * @param min the minute.
+   * @param sec the seconds.
+   * @return the milliseconds since 1/1/1970 GMT.
+   * @throws IllegalArgumentException if there is an invalid value.
+   */
+  public static long getTime(int year, int month, int day, int hour, int min,
+      int sec) {
+    if (month < 0 || month > 11) {
+      throw new IllegalArgumentException("Invalid month: " + month);
+    }
+    final int monthLength = (month == 11 ? 365 : monthDays[month + 1])
+        - monthDays[month] + (month == 1 && isLeapYear(year) ? 1 : 0);
+    if (day < 1 || day > monthLength) {
+      throw new IllegalArgumentException("Invalid day of month: " + day);
+    }
+    if (hour < 0 || hour > 23) {
+      throw new IllegalArgumentException("Invalid hour: " + hour);
+    }
+    if (min < 0 || min > 59) {
+      throw new IllegalArgumentException("Invalid minute: " + min);
+    }
+    if (sec < 0 || sec > 59) {
+      throw new IllegalArgumentException("Invalid second: " + sec);
+    }
+    return getTime(year, getMonthDays(year, month) + day, hour, min, sec, 0L);
+  }
+
+  /**
+   * Return the year for the specified number of days.
+   * @param days the number of days from 1/1/0001.
+   * @return the year.
+   */
+  public static int getYear(long days) {
+    // This logic is from "sun.util.calendar.BaseCalendar"
+    long d0 = days;
+    int n400 = (int) (d0 / 146097);
+    int d1 = (int) (d0 % 146097);
+    int n100 = d1 / 36524;
+    int d2 = d1 % 36524;
+    int n4 = d2 / 1461;
+    int d3 = d2 % 1461;
+    int n1 = d3 / 365;
+    long year = 400 * n400 + 100 * n100 + 4 * n4 + n1;
+    if (!(n100 == 4 || n1 == 4)) {
+      ++year;
+    }
+    return (int) year;
+  }
+
+  /**
+   * Determines if the time may be converted by these functions.
+   * @param time the milliseconds since 1/1/1970 GMT.
+   * @return true if the time is in a year after the Gregorian change, false
+   *         otherwise.
+   */
+  public static boolean isGregorianTime(long time) {
+    return time >= GREGORIAN_YEAR_TIME;
+  }
+
+  /**
+   * Determines if the year may be converted by these functions.
+   * @param year the year.
+   * @return true if the year is after the Gregorian change, false
+   *         otherwise.
+   */
+  public static boolean isGregorianYear(int year) {
+    return year >= GREGORIAN_YEAR;
+  }
+
+  /**
+   * Determines if the year is a leap year.
+   * @param year the year.
+   * @return true if the year is a leap year, false otherwise.
+   */
+  public static boolean isLeapYear(int year) {
+    return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+  }
+}
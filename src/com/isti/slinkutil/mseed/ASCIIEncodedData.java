@@ -1,6 +1,7 @@
 //ASCIIEncodedData.java:  Defines ASCII encoded data.
 //
 //  9/29/2009 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Added methods to write the data into an array.
 //
 
 package com.isti.slinkutil.mseed;
@@ -36,6 +37,26 @@ public class ASCIIEncodedData implements EncodedData {
     return encodedData;
   }
 
+  /**
+   * Writes the compressed byte representation of the data into the given
+   * array.
+   * @param b the array to receive the data.
+   * @param offset the offset in the array.
+   * @return the number of bytes written.
+   */
+  public int getEncodedData(byte[] b, int offset) {
+    System.arraycopy(encodedData, 0, b, offset, encodedData.length);
+    return encodedData.length;
+  }
+
+  /**
+   * Returns the length of the compressed byte representation of the data.
+   * @return the number of bytes.
+   */
+  public int getEncodedDataLength() {
+    return encodedData.length;
+  }
+
   /**
    * Returns the encoding format.
    * @return the encoding format.
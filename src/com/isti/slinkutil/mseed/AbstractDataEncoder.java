@@ -21,11 +21,19 @@ public abstract class AbstractDataEncoder implements DataEncoder {
   }
 
   /**
-   * Set the bias.
+   * Resets the encoder to start a new record.
+   * This implementation does nothing.
+   */
+  public void reset() {
+  }
+
+  /**
+   * Set the bias and reset the encoder.
    * @param bias offset for use as a constant for the first difference,
    *          otherwise set to 0.
    */
   public void setBias(int bias) {
     this.bias = bias;
+    reset();
   }
 }
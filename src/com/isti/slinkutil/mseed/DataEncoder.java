@@ -1,6 +1,7 @@
 //DataEncoder.java:  Defines a data encoder.
 //
 //  9/18/2009 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Added 'reset()' method.
 //
 
 package com.isti.slinkutil.mseed;
@@ -24,6 +25,12 @@ public interface DataEncoder {
    */
   public int getBias();
 
+  /**
+   * Resets the encoder to start a new record.  An encoder that keeps the
+   * samples encoded by previous calls to 'encode' should discard them.
+   */
+  public void reset();
+
   /**
    * Set the bias.
    * @param bias offset for use as a constant for the first difference,
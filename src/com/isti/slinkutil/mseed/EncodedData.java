@@ -1,6 +1,7 @@
 //EncodedData.java:  Defines encoded data.
 //
 //  9/18/2009 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Added methods to write the data into an array.
 //
 
 package com.isti.slinkutil.mseed;
@@ -16,6 +17,21 @@ public interface EncodedData {
    */
   public byte[] getEncodedData();
 
+  /**
+   * Writes the compressed byte representation of the data into the given
+   * array.
+   * @param b the array to receive the data.
+   * @param offset the offset in the array.
+   * @return the number of bytes written.
+   */
+  public int getEncodedData(byte[] b, int offset);
+
+  /**
+   * Returns the length of the compressed byte representation of the data.
+   * @return the number of bytes.
+   */
+  public int getEncodedDataLength();
+
   /**
    * Returns the encoding format.
    * @return the encoding format.
@@ -22,11 +22,26 @@ public class FloatEncodedData implements EncodedData {
       final int numSamples) {
     final byte[] encodedData = new byte[numSamples
         * FloatCodec.BYTES_PER_SAMPLE];
+    getEncodedData(samples, numSamples, encodedData, 0);
+    return encodedData;
+  }
+
+  /**
+   * Writes the compressed byte representation of the data into the given
+   * array.
+   * @param samples the samples.
+   * @param numSamples the number of samples.
+   * @param b the array to receive the data.
+   * @param offset the offset in the array.
+   * @return the number of bytes written.
+   */
+  public static int getEncodedData(final float[] samples,
+      final int numSamples, final byte[] b, final int offset) {
     for (int index = 0; index < numSamples; index++) {
-      Utility.intToBytes(Utility.floatToIntBits(samples[index]), encodedData,
-          index * FloatCodec.BYTES_PER_SAMPLE);
+      Utility.intToBytes(Utility.floatToIntBits(samples[index]), b, offset
+          + index * FloatCodec.BYTES_PER_SAMPLE);
     }
-    return encodedData;
+    return numSamples * FloatCodec.BYTES_PER_SAMPLE;
   }
 
   /**
@@ -79,6 +94,30 @@ public class FloatEncodedData implements EncodedData {
     return getEncodedData(samples, numSamples);
   }
 
+  /**
+   * Writes the compressed byte representation of the data into the given
+   * array.
+   * @param b the array to receive the data.
+   * @param offset the offset in the array.
+   * @return the number of bytes written.
+   */
+  public int getEncodedData(byte[] b, int offset) {
+    if (samples instanceof float[]) {
+      return getEncodedData((float[]) samples, numSamples, b, offset);
+    } else {
+      return IntEncodedData.getEncodedData((int[]) samples, numSamples, b,
+          offset);
+    }
+  }
+
+  /**
+   * Returns the length of the compressed byte representation of the data.
+   * @return the number of bytes.
+   */
+  public int getEncodedDataLength() {
+    return numSamples * FloatCodec.BYTES_PER_SAMPLE;
+  }
+
   /**
    * Returns the encoding format.
    * @return the encoding format.
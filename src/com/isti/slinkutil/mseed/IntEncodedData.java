@@ -20,11 +20,26 @@ public class IntEncodedData implements EncodedData {
    */
   public static byte[] getEncodedData(final int[] samples, final int numSamples) {
     final byte[] encodedData = new byte[numSamples * IntCodec.BYTES_PER_SAMPLE];
+    getEncodedData(samples, numSamples, encodedData, 0);
+    return encodedData;
+  }
+
+  /**
+   * Writes the compressed byte representation of the data into the given
+   * array.
+   * @param samples the samples.
+   * @param numSamples the number of samples.
+   * @param b the array to receive the data.
+   * @param offset the offset in the array.
+   * @return the number of bytes written.
+   */
+  public static int getEncodedData(final int[] samples, final int numSamples,
+      final byte[] b, final int offset) {
     for (int index = 0; index < numSamples; index++) {
-      Utility.intToBytes(samples[index], encodedData, index
+      Utility.intToBytes(samples[index], b, offset + index
           * IntCodec.BYTES_PER_SAMPLE);
     }
-    return encodedData;
+    return numSamples * IntCodec.BYTES_PER_SAMPLE;
   }
 
   /** The number of samples. */
@@ -52,6 +67,25 @@ public class IntEncodedData implements EncodedData {
     return getEncodedData(samples, numSamples);
   }
 
+  /**
+   * Writes the compressed byte representation of the data into the given
+   * array.
+   * @param b the array to receive the data.
+   * @param offset the offset in the array.
+   * @return the number of bytes written.
+   */
+  public int getEncodedData(byte[] b, int offset) {
+    return getEncodedData(samples, numSamples, b, offset);
+  }
+
+  /**
+   * Returns the length of the compressed byte representation of the data.
+   * @return the number of bytes.
+   */
+  public int getEncodedDataLength() {
+    return numSamples * IntCodec.BYTES_PER_SAMPLE;
+  }
+
   /**
    * Returns the encoding format.
    * @return the encoding format.
@@ -9,6 +9,12 @@
 //                     message.
 //  9/28/2010 -- [KF]  Changed the sequence number to be by channel.
 // 11/01/2010 -- [KF]  Added blockette 1001.
+// 10/17/2026 -- [KF]  Changed to reset the data encoder when the data to
+//                     encode is cleared (for incremental encoding).
+// 10/17/2026 -- [KF]  Added record header template so that records are
+//                     written by patching only the changing fields.
+// 10/17/2026 -- [KF]  Changed to get the message number after the record
+//                     is created.
 //
 
 package com.isti.slinkutil.mseed;
@@ -61,6 +67,43 @@ public class MiniSeedGenerator implements MiniSeedConstants {
 	private final static int maxSteimFrames = SteimCodec
 			.getFrames(PREFERRED_MAX_BYTE_LENGTH);
 
+	/** The length of the record header template (header and blockettes). */
+	private final static int RECORD_TEMPLATE_LENGTH = PREFERRED_BEGINNING_OF_DATA
+			+ BLOCKETTE_TOTAL_SIZE;
+
+	/** The offset of the sequence number in the data header. */
+	private final static int SEQUENCE_NUM_OFFSET = 0;
+
+	/** The length of the sequence number in the data header. */
+	private final static int SEQUENCE_NUM_LENGTH = 6;
+
+	/** The offset of the start time in the data header. */
+	private final static int START_TIME_OFFSET = 20;
+
+	/** The offset of the number of samples in the data header. */
+	private final static int NUM_SAMPLES_OFFSET = 30;
+
+	/** The offset of the sample rate factor in the data header. */
+	private final static int SAMPLE_RATE_FACTOR_OFFSET = 32;
+
+	/** The offset of the sample rate multiplier in the data header. */
+	private final static int SAMPLE_RATE_MULTIPLIER_OFFSET = 34;
+
+	/** The offset of the beginning of data in the data header. */
+	private final static int DATA_OFFSET_OFFSET = 44;
+
+	/** The offset of the encoding format in blockette 1000. */
+	private final static int B1000_ENCODING_FORMAT_OFFSET = PREFERRED_BEGINNING_OF_DATA
+			+ 4;
+
+	/** The offset of the timing quality in blockette 1001. */
+	private final static int B1001_TIMING_QUALITY_OFFSET = PREFERRED_BEGINNING_OF_DATA
+			+ 12;
+
+	/** The offset of the frame count in blockette 1001. */
+	private final static int B1001_FRAME_COUNT_OFFSET = PREFERRED_BEGINNING_OF_DATA
+			+ 15;
+
 	/**
 	 * Creates the miniSEED log record message.
 	 * 
@@ -230,6 +273,18 @@ public class MiniSeedGenerator implements MiniSeedConstants {
 	/** The number of old samples to save. */
 	private int numOldSamplesSave = 0;
 
+	/**
+	 * The record header template (data header, blockette 1000 and blockette
+	 * 1001) or null if not created.
+	 */
+	private byte[] recordTemplate = null;
+
+	/** The sample rate information for the last record or null if none. */
+	private SampleRateInfo sampleRateInfo = null;
+
+	/** The sample rate used to create the sample rate information. */
+	private double sampleRateInfoRate;
+
 	/** The station, channel, network and location. */
 	private final IStaChaNetLoc staChaNetLoc;
 
@@ -361,6 +416,7 @@ public class MiniSeedGenerator implements MiniSeedConstants {
 		dataToEncodeDelta = 0;
 		dataToEncodeIndex = 0;
 		numOldSamplesSave = 0;
+		dataEncoder.reset();
 	}
 
 	/**
@@ -388,7 +444,10 @@ public class MiniSeedGenerator implements MiniSeedConstants {
 	}
 
 	/**
-	 * Creates the miniSEED message.
+	 * Creates the miniSEED message. The first record for the channel is
+	 * written with the data header and blockette classes and its header and
+	 * blockettes are saved as the record header template; later records are
+	 * written by copying the template and patching only the changing fields.
 	 * 
 	 * @param encodedData
 	 *            the encoded data.
@@ -409,10 +468,130 @@ public class MiniSeedGenerator implements MiniSeedConstants {
 		final int sequenceNum = getDataRecordSequenceNum();
 		final long endTime = getTimeStamp(startTime, delta, numSamples - 1);
 		final SeedTime startSeedTime = new SeedTime(startTime);
-		final Btime startBtime = startSeedTime.getBtime();
-		final SampleRateInfo sampleRateInfo = new SampleRateInfo(
-				SampleRateInfo.getSampleRate(startTime, endTime, numSamples));
+		final double sampleRate = SampleRateInfo.getSampleRate(startTime,
+				endTime, numSamples);
+		if (sampleRateInfo == null || sampleRateInfoRate != sampleRate) {
+			sampleRateInfo = new SampleRateInfo(sampleRate);
+			sampleRateInfoRate = sampleRate;
+		}
+		final byte[] miniSeedData;
+		if (recordTemplate == null) {
+			miniSeedData = writeMiniSeedRecord(encodedData, sequenceNum,
+					startSeedTime, sampleRateInfo);
+			recordTemplate = new byte[RECORD_TEMPLATE_LENGTH];
+			System.arraycopy(miniSeedData, 0, recordTemplate, 0,
+					RECORD_TEMPLATE_LENGTH);
+		} else {
+			miniSeedData = patchMiniSeedRecord(encodedData, sequenceNum,
+					startSeedTime.getBtime(), sampleRateInfo);
+		}
+		// get the message number after the record is created so that it is
+		// not used if there is an error
 		final IMessageNumber messageNumber = messageManager.getMessageNumber();
+		final MiniSeedMsgHldr miniSeedMsgHldr = new MiniSeedMsgHldr(
+				staChaNetLoc, startSeedTime, miniSeedData, numSamples,
+				messageNumber);
+		return miniSeedMsgHldr;
+	}
+
+	/**
+	 * Writes the miniSEED record by copying the record header template and
+	 * patching the changing fields.
+	 * 
+	 * @param encodedData
+	 *            the encoded data.
+	 * @param sequenceNum
+	 *            the data record sequence number.
+	 * @param startBtime
+	 *            the start time.
+	 * @param sampleRateInfo
+	 *            the sample rate information.
+	 * @return the miniSEED record.
+	 * @throws SeedFormatException
+	 *             if the data does not fit in the record.
+	 */
+	protected byte[] patchMiniSeedRecord(EncodedData encodedData,
+			int sequenceNum, Btime startBtime, SampleRateInfo sampleRateInfo)
+			throws SeedFormatException {
+		final int dataLength = encodedData.getEncodedDataLength();
+		if (RECORD_TEMPLATE_LENGTH + dataLength > PREFERRED_DATA_LENGTH) {
+			throw new SeedFormatException(
+					"Can't fit blockettes and data in record "
+							+ (RECORD_TEMPLATE_LENGTH + dataLength));
+		}
+		final byte[] b = new byte[PREFERRED_DATA_LENGTH];
+		System.arraycopy(recordTemplate, 0, b, 0, RECORD_TEMPLATE_LENGTH);
+		// sequence number as 6 ASCII digits
+		for (int i = SEQUENCE_NUM_OFFSET + SEQUENCE_NUM_LENGTH - 1;
+				i >= SEQUENCE_NUM_OFFSET; i--) {
+			b[i] = (byte) ('0' + sequenceNum % 10);
+			sequenceNum /= 10;
+		}
+		// start time
+		int offset = START_TIME_OFFSET;
+		b[offset++] = (byte) (startBtime.year >> 8);
+		b[offset++] = (byte) startBtime.year;
+		b[offset++] = (byte) (startBtime.jday >> 8);
+		b[offset++] = (byte) startBtime.jday;
+		b[offset++] = (byte) startBtime.hour;
+		b[offset++] = (byte) startBtime.min;
+		b[offset++] = (byte) startBtime.sec;
+		b[offset++] = 0; // unused
+		b[offset++] = (byte) (startBtime.tenthMilli >> 8);
+		b[offset++] = (byte) startBtime.tenthMilli;
+		putShort(b, NUM_SAMPLES_OFFSET, encodedData.getNumSamples());
+		putShort(b, SAMPLE_RATE_FACTOR_OFFSET,
+				sampleRateInfo.getSampleRateFactor());
+		putShort(b, SAMPLE_RATE_MULTIPLIER_OFFSET,
+				sampleRateInfo.getSampleRateMultiplier());
+		// the data is at the end of the record (padding is before the data)
+		final int dataOffset = PREFERRED_DATA_LENGTH - dataLength;
+		putShort(b, DATA_OFFSET_OFFSET, dataOffset);
+		b[B1000_ENCODING_FORMAT_OFFSET] = encodedData.getEncodingFormat();
+		b[B1001_TIMING_QUALITY_OFFSET] = DEFAULT_TIMING_QUALITY;
+		b[B1001_FRAME_COUNT_OFFSET] = (byte) maxSteimFrames;
+		encodedData.getEncodedData(b, dataOffset);
+		return b;
+	}
+
+	/**
+	 * Put the short value into the array (big-endian.)
+	 * 
+	 * @param b
+	 *            the array.
+	 * @param offset
+	 *            the offset in the array.
+	 * @param value
+	 *            the value.
+	 */
+	private static void putShort(byte[] b, int offset, int value) {
+		b[offset] = (byte) (value >> 8);
+		b[offset + 1] = (byte) value;
+	}
+
+	/**
+	 * Writes the miniSEED record with the data header and blockette classes.
+	 * 
+	 * @param encodedData
+	 *            the encoded data.
+	 * @param sequenceNum
+	 *            the data record sequence number.
+	 * @param startSeedTime
+	 *            the start time.
+	 * @param sampleRateInfo
+	 *            the sample rate information.
+	 * @return the miniSEED record.
+	 * @throws SeedFormatException
+	 *             if a SEED format exception occurs.
+	 * @throws IOException
+	 *             if an I/O exception occurs.
+	 */
+	protected byte[] writeMiniSeedRecord(EncodedData encodedData,
+			int sequenceNum, SeedTime startSeedTime,
+			SampleRateInfo sampleRateInfo) throws IOException,
+			SeedFormatException {
+		final int numSamples = encodedData.getNumSamples();
+		final Btime startBtime = startSeedTime.getBtime();
 		final DataHeader dataHeader = new DataHeader(sequenceNum,
 				dataHeaderTypeCode, continuationCode);
 		dataHeader.setStationIdentifier(staChaNetLoc.getStationCode());
@@ -453,11 +632,7 @@ public class MiniSeedGenerator implements MiniSeedConstants {
 		final DataOutputStream dos = new DataOutputStream(baos);
 		dataRecord.write(dos);
 		dos.flush();
-		final byte[] miniSeedData = baos.toByteArray();
-		final MiniSeedMsgHldr miniSeedMsgHldr = new MiniSeedMsgHldr(
-				staChaNetLoc, startSeedTime, miniSeedData, numSamples,
-				messageNumber);
-		return miniSeedMsgHldr;
+		return baos.toByteArray();
 	}
 
 	/**
@@ -2,13 +2,11 @@
 //
 //  9/18/2009 -- [KF]  Initial version.
 //  9/22/2010 -- [KF]  Changed to extend new SteimCodec class.
+// 10/17/2026 -- [KF]  Changed to use the incremental Steim encoder.
 //
 
 package com.isti.slinkutil.mseed;
 
-import com.isti.slinkutil.LogMgr;
-import com.isti.slinkutil.seedcodec.Steim1;
-
 /**
  * Class Steim1Encoder defines Steim1 Codec.
  */
@@ -27,18 +25,18 @@ public class Steim1Codec extends SteimCodec {
   }
 
   /**
-   * Encode the array of integer values into a compressed byte frame block.
-   * @param samples the data points represented as signed integers.
-   * @param samplesLength the samples length.
-   * @return the encoded data or null if error.
+   * Returns the encoding format.
+   * @return the encoding format.
+   */
+  public byte getEncodingFormat() {
+    return STEIM1_ENCODING_FORMAT;
+  }
+
+  /**
+   * Returns the Steim version.
+   * @return the Steim version (1).
    */
-  public EncodedData encode(int[] samples, int samplesLength) {
-    try {
-      return new SteimData(STEIM1_ENCODING_FORMAT, Steim1.encode(samples,
-          getFrames(), getBias(), samplesLength));
-    } catch (Exception ex) {
-      LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
-    }
-    return null;
+  public int getSteimVersion() {
+    return 1;
   }
 }
@@ -1,16 +1,27 @@
 //SteimCodec:  Defines an abstract Steim Codec.
 //
 //  9/22/2010 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Changed to encode the samples incrementally.
+// 10/17/2026 -- [KF]  Added methods to write the data into an array.
 //
 
 package com.isti.slinkutil.mseed;
 
 import java.io.IOException;
 
+import com.isti.slinkutil.LogMgr;
+import com.isti.slinkutil.seedcodec.SteimEncoder;
+import com.isti.slinkutil.seedcodec.SteimException;
 import com.isti.slinkutil.seedcodec.SteimFrameBlock;
 
 /**
  * Class SteimCodec defines a Steim Codec.
+ * <p>
+ * The samples are encoded incrementally: each call to 'encode' with the
+ * same samples array only appends the samples after those encoded by the
+ * previous call, so each sample is differenced and packed once per record.
+ * The samples that were already encoded must not be changed until the
+ * codec is reset (see 'reset' and 'setBias').
  */
 public abstract class SteimCodec extends AbstractDataEncoder {
   /**
@@ -48,6 +59,26 @@ public abstract class SteimCodec extends AbstractDataEncoder {
       return encodedData;
     }
 
+    /**
+     * Writes the compressed byte representation of the data into the given
+     * array.
+     * @param b the array to receive the data.
+     * @param offset the offset in the array.
+     * @return the number of bytes written.
+     */
+    public int getEncodedData(byte[] b, int offset) {
+      System.arraycopy(encodedData, 0, b, offset, encodedData.length);
+      return encodedData.length;
+    }
+
+    /**
+     * Returns the length of the compressed byte representation of the data.
+     * @return the number of bytes.
+     */
+    public int getEncodedDataLength() {
+      return encodedData.length;
+    }
+
     /**
      * Returns the encoding format.
      * @return the encoding format.
@@ -73,6 +104,85 @@ public abstract class SteimCodec extends AbstractDataEncoder {
     }
   }
 
+  /**
+   * Defines the Steim data for the incremental encoder.  The data is valid
+   * until the next call to 'encode' or 'reset'.
+   */
+  private class IncrementalSteimData implements EncodedData {
+    private boolean fullFlag;
+
+    private int numSamples;
+
+    /**
+     * Updates the Steim data from the encoder.
+     * @throws SteimException if a difference cannot be encoded.
+     */
+    private void update() throws SteimException {
+      numSamples = steimEncoder.getNumSamples();
+      fullFlag = steimEncoder.isFull();
+    }
+
+    /**
+     * Return the compressed byte representation of the data for inclusion in a
+     * data record.
+     * @return byte array containing the encoded, compressed data.
+     */
+    public byte[] getEncodedData() {
+      try {
+        return steimEncoder.getEncodedData();
+      } catch (SteimException ex) { // should not happen after 'update()'
+        throw new IllegalStateException(ex.toString());
+      }
+    }
+
+    /**
+     * Writes the compressed byte representation of the data into the given
+     * array.
+     * @param b the array to receive the data.
+     * @param offset the offset in the array.
+     * @return the number of bytes written.
+     */
+    public int getEncodedData(byte[] b, int offset) {
+      try {
+        return steimEncoder.getEncodedData(b, offset);
+      } catch (SteimException ex) { // should not happen after 'update()'
+        throw new IllegalStateException(ex.toString());
+      }
+    }
+
+    /**
+     * Returns the length of the compressed byte representation of the data.
+     * @return the number of bytes.
+     */
+    public int getEncodedDataLength() {
+      return steimEncoder.getNumFrames() * STEIM_FRAME_LENGTH;
+    }
+
+    /**
+     * Returns the encoding format.
+     * @return the encoding format.
+     */
+    public byte getEncodingFormat() {
+      return SteimCodec.this.getEncodingFormat();
+    }
+
+    /**
+     * Return the number of data samples.
+     * @return the number of samples.
+     */
+    public int getNumSamples() {
+      return numSamples;
+    }
+
+    /**
+     * Determines if the data is full.
+     * @return true if the data is full, false otherwise.
+     */
+    public boolean isFull() {
+      return fullFlag;
+    }
+  }
+
   /**
    * The Steim frame length.
    */
@@ -100,6 +210,15 @@ public abstract class SteimCodec extends AbstractDataEncoder {
   /** The number of frames. */
   private int frames;
 
+  /** The Steim encoder or null if not created. */
+  private SteimEncoder steimEncoder = null;
+
+  /** The Steim data for the encoder. */
+  private final IncrementalSteimData steimData = new IncrementalSteimData();
+
+  /** The samples appended to the encoder or null if none. */
+  private int[] encoderSamples = null;
+
   /**
    * Creates a Steim Codec.
    * @param frames the number of frames to use in the encoding.
@@ -108,6 +227,50 @@ public abstract class SteimCodec extends AbstractDataEncoder {
     setFrames(frames);
   }
 
+  /**
+   * Encode the array of integer values into a compressed byte frame block.
+   * Only the samples after those encoded by the previous call are encoded
+   * unless the codec was reset or a different samples array is used.
+   * @param samples the data points represented as signed integers.
+   * @param samplesLength the samples length.
+   * @return the encoded data or null if error.
+   */
+  public EncodedData encode(int[] samples, int samplesLength) {
+    try {
+      if (steimEncoder == null) {
+        steimEncoder = new SteimEncoder(frames, getSteimVersion());
+      }
+      if (samples != encoderSamples
+          || samplesLength < steimEncoder.getNumAppended()) {
+        reset();
+        encoderSamples = samples;
+      }
+      final int numAppended = steimEncoder.getNumAppended();
+      if (samplesLength > numAppended) {
+        steimEncoder.append(samples, numAppended, samplesLength
+            - numAppended);
+      }
+      steimData.update();
+      return steimData;
+    } catch (Exception ex) {
+      reset();
+      LogMgr.usrMsgWarning(LogMgr.getStackTraceString(ex));
+    }
+    return null;
+  }
+
+  /**
+   * Returns the encoding format.
+   * @return the encoding format.
+   */
+  public abstract byte getEncodingFormat();
+
+  /**
+   * Returns the Steim version.
+   * @return the Steim version (1 or 2).
+   */
+  public abstract int getSteimVersion();
+
   /**
    * Get the number of frames.
    * @return the number of frames.
@@ -127,5 +290,17 @@ public abstract class SteimCodec extends AbstractDataEncoder {
       frames = STEIM_MAX_FRAMES;
     }
     this.frames = frames;
+    steimEncoder = null;
+    encoderSamples = null;
+  }
+
+  /**
+   * Resets the encoder to start a new record.
+   */
+  public void reset() {
+    if (steimEncoder != null) {
+      steimEncoder.reset(getBias());
+    }
+    encoderSamples = null;
   }
 }
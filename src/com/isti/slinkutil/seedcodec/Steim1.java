@@ -1,5 +1,8 @@
 package com.isti.slinkutil.seedcodec;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import com.isti.slinkutil.Utility;
 
 //import edu.iris.Fissures.seed.util.*;
@@ -121,6 +124,114 @@ public class Steim1 {
     return samples;
   }
 
+  /**
+   *  Decode the indicated number of samples from the encoded data in the
+   *  buffer into the provided integer array, without allocating any arrays.
+   *  The position, limit and byte order of the buffer are not used or
+   *  changed, so the data may be decoded in place from a record in a larger
+   *  (or memory-mapped) buffer.  Being differencing compression, there may be
+   *  an offset carried over from a previous data record.  This offset value
+   *  can be placed in <b>bias</b>, otherwise leave the value as 0.
+   *  @param buf the buffer containing the encoded data.
+   *  @param pos the position of the encoded data in the buffer.
+   *  @param length the length of the encoded data.
+   *  @param numSamples the number of samples that can be decoded from the
+   *  data.
+   *  @param swapBytes if true, swap reverse the endian-ness of the elements
+   *  of the data.
+   *  @param bias the first difference value will be computed from this value.
+   *  If set to 0, the method will attempt to use the X(0) constant instead.
+   *  @param samples the array for the decoded samples.
+   *  @param offset the offset of the first sample in the array.
+   *  @return the number of samples decoded (<b>numSamples</b>.)
+   *  @throws SteimException - encoded data length is not multiple of 64
+   *  bytes, the array is too small or the number of samples decoded does not
+   *  match.
+   */
+  public static int decode(ByteBuffer buf, int pos, int length,
+      int numSamples, boolean swapBytes, int bias, int[] samples, int offset)
+      throws SteimException {
+    if (length % 64 != 0) {
+      throw new SteimException(
+          "encoded data length is not multiple of 64 bytes (" + length + ")");
+    }
+    if (numSamples < 0 || offset < 0 || offset + numSamples > samples.length) {
+      throw new SteimException("sample array is too small for " + numSamples
+          + " samples");
+    }
+    // reverse the values if the byte order of the data and buffer differ
+    final boolean reverse = swapBytes != (buf.order() == ByteOrder.LITTLE_ENDIAN);
+    final int end = offset + numSamples;
+    int current = offset;
+    int lastValue = bias;
+    int framePos, wordPos, nibbles, firstWord;
+    int value;
+    for (framePos = pos; framePos < pos + length && current < end;
+        framePos += 64) {
+      nibbles = getInt(buf, framePos, reverse);
+      // X(0) is word 1 and X(n) is word 2 of the first frame
+      firstWord = (framePos == pos) ? 3 : 1;
+      for (int i = firstWord; i < 16 && current < end; i++) {
+        wordPos = framePos + i * 4;
+        switch ((nibbles >> (30 - i * 2)) & 0x03) {
+        case 1: // 4 one byte differences
+          for (int n = 0; n < 4 && current < end; n++) {
+            samples[current++] = lastValue += buf.get(wordPos + n);
+          }
+          break;
+        case 2: // 2 two byte differences
+          for (int n = 0; n < 4 && current < end; n += 2) {
+            value = buf.getShort(wordPos + n);
+            if (reverse)
+              value = Short.reverseBytes((short) value);
+            samples[current++] = lastValue += value;
+          }
+          break;
+        case 3: // 1 four byte difference
+          samples[current++] = lastValue += getInt(buf, wordPos, reverse);
+          break;
+        }
+      }
+    }
+    if (current != end) {
+      throw new SteimException(
+          "Number of samples decompressed doesn't match number in header: "
+              + (current - offset) + " != " + numSamples);
+    }
+    if (bias == 0 && numSamples > 0) { // X(-1) = X(0) - d(0)
+      adjust(samples, offset, end, getInt(buf, pos + 4, reverse)
+          - samples[offset]);
+    }
+    return numSamples;
+  }
+
+  /**
+   * Adds the adjustment to the samples.
+   * @param samples the samples.
+   * @param start the index of the first sample.
+   * @param end the index after the last sample.
+   * @param adjustment the adjustment.
+   */
+  static void adjust(int[] samples, int start, int end, int adjustment) {
+    if (adjustment != 0) {
+      for (int i = start; i < end; i++) {
+        samples[i] += adjustment;
+      }
+    }
+  }
+
+  /**
+   * Gets the integer value.
+   * @param buf the buffer.
+   * @param pos the position of the value.
+   * @param reverse true to reverse the bytes of the value.
+   * @return the value.
+   */
+  static int getInt(ByteBuffer buf, int pos, boolean reverse) {
+    final int value = buf.getInt(pos);
+    return reverse ? Integer.reverseBytes(value) : value;
+  }
+
   /**
    * Abbreviated zero-bias version of encode().
    * @param samples the samples.
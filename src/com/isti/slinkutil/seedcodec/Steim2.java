@@ -1,5 +1,8 @@
 package com.isti.slinkutil.seedcodec;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import com.isti.slinkutil.Utility;
 
 //import edu.iris.Fissures.seed.util.*;
@@ -112,6 +115,123 @@ public class Steim2 {
     return samples;
   }
 
+  /**
+   *  Decode the indicated number of samples from the encoded data in the
+   *  buffer into the provided integer array, without allocating any arrays.
+   *  The position, limit and byte order of the buffer are not used or
+   *  changed, so the data may be decoded in place from a record in a larger
+   *  (or memory-mapped) buffer.  Being differencing compression, there may be
+   *  an offset carried over from a previous data record.  This offset value
+   *  can be placed in <b>bias</b>, otherwise leave the value as 0.
+   *  @param buf the buffer containing the encoded data.
+   *  @param pos the position of the encoded data in the buffer.
+   *  @param length the length of the encoded data.
+   *  @param numSamples the number of samples that can be decoded from the
+   *  data.
+   *  @param swapBytes if true, swap reverse the endian-ness of the elements
+   *  of the data.
+   *  @param bias the first difference value will be computed from this value.
+   *  If set to 0, the method will attempt to use the X(0) constant instead.
+   *  @param samples the array for the decoded samples.
+   *  @param offset the offset of the first sample in the array.
+   *  @return the number of samples decoded (<b>numSamples</b>.)
+   *  @throws SteimException - encoded data length is not multiple of 64
+   *  bytes, the array is too small or the number of samples decoded does not
+   *  match.
+   */
+  public static int decode(ByteBuffer buf, int pos, int length,
+      int numSamples, boolean swapBytes, int bias, int[] samples, int offset)
+      throws SteimException {
+    if (length % 64 != 0) {
+      throw new SteimException(
+          "encoded data length is not multiple of 64 bytes (" + length + ")");
+    }
+    if (numSamples < 0 || offset < 0 || offset + numSamples > samples.length) {
+      throw new SteimException("sample array is too small for " + numSamples
+          + " samples");
+    }
+    // reverse the values if the byte order of the data and buffer differ
+    final boolean reverse = swapBytes != (buf.order() == ByteOrder.LITTLE_ENDIAN);
+    final int end = offset + numSamples;
+    int current = offset;
+    int lastValue = bias;
+    int framePos, wordPos, nibbles, firstWord;
+    int word, count, bitSize, headerSize;
+    for (framePos = pos; framePos < pos + length && current < end;
+        framePos += 64) {
+      nibbles = Steim1.getInt(buf, framePos, reverse);
+      // X(0) is word 1 and X(n) is word 2 of the first frame
+      firstWord = (framePos == pos) ? 3 : 1;
+      for (int i = firstWord; i < 16 && current < end; i++) {
+        wordPos = framePos + i * 4;
+        switch ((nibbles >> (30 - i * 2)) & 0x03) {
+        case 1: // 4 one byte differences
+          for (int n = 0; n < 4 && current < end; n++) {
+            samples[current++] = lastValue += buf.get(wordPos + n);
+          }
+          continue;
+        case 2:
+          word = Steim1.getInt(buf, wordPos, reverse);
+          headerSize = 2;
+          switch ((word >> 30) & 0x03) {
+          case 1: // 1 thirty bit difference
+            count = 1;
+            bitSize = 30;
+            break;
+          case 2: // 2 fifteen bit differences
+            count = 2;
+            bitSize = 15;
+            break;
+          case 3: // 3 ten bit differences
+            count = 3;
+            bitSize = 10;
+            break;
+          default:
+            continue;
+          }
+          break;
+        case 3:
+          word = Steim1.getInt(buf, wordPos, reverse);
+          headerSize = 2;
+          switch ((word >> 30) & 0x03) {
+          case 0: // 5 six bit differences
+            count = 5;
+            bitSize = 6;
+            break;
+          case 1: // 6 five bit differences
+            count = 6;
+            bitSize = 5;
+            break;
+          case 2: // 7 four bit differences, with 2 unused bits
+            headerSize = 4;
+            count = 7;
+            bitSize = 4;
+            break;
+          default:
+            continue;
+          }
+          break;
+        default:
+          continue;
+        }
+        for (int d = 0; d < count && current < end; d++) {
+          samples[current++] = lastValue += (word << (headerSize + d
+              * bitSize)) >> (32 - bitSize);
+        }
+      }
+    }
+    if (current != end) {
+      throw new SteimException(
+          "Number of samples decompressed doesn't match number in header: "
+              + (current - offset) + " != " + numSamples);
+    }
+    if (bias == 0 && numSamples > 0) { // X(-1) = X(0) - d(0)
+      Steim1.adjust(samples, offset, end, Steim1.getInt(buf, pos + 4, reverse)
+          - samples[offset]);
+    }
+    return numSamples;
+  }
+
   /**
    * Abbreviated, zero-bias version of decode().
    * @param b the bytes.
@@ -321,7 +441,7 @@ public class Steim2 {
     return frameBlock;
   }
 
-  private static int minBitsNeeded(int diff) {
+  static int minBitsNeeded(int diff) {
     int minbits = 0;
     if (diff >= -8 && diff < 8)
       minbits = 4;
@@ -342,7 +462,7 @@ public class Steim2 {
     return minbits;
   }
 
-  private static int bitsForPack(int[] minbits, int points_remaining) {
+  static int bitsForPack(int[] minbits, int points_remaining) {
     if (points_remaining >= 7 && (minbits[0] <= 4) && (minbits[1] <= 4)
         && (minbits[2] <= 4) && (minbits[3] <= 4) && (minbits[4] <= 4)
         && (minbits[5] <= 4) && (minbits[6] <= 4))
@@ -375,7 +495,7 @@ public class Steim2 {
    * @param bitmask the bit mask
    * @param submask the sub mask or 0 if none
    */
-  private static int steimPackWord(int[] diff, int nbits, int ndiff,
+  static int steimPackWord(int[] diff, int nbits, int ndiff,
       int bitmask, int submask) {
     int val = 0;
     int i = 0;
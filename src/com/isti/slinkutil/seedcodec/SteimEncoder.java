@@ -0,0 +1,467 @@
+package com.isti.slinkutil.seedcodec;
+
+/**
+ * Class for incrementally encoding integer values into a Steim1 or
+ * Steim2 compressed frame block.
+ * <p>
+ * Samples are appended as they arrive and each difference is computed and
+ * packed once.  A compressed word is only committed to the frame block
+ * when enough differences are pending to determine its packing (4 for
+ * Steim1, 7 for Steim2), so the committed words are the same as those
+ * produced by <code>Steim1.encode()</code> and <code>Steim2.encode()</code>
+ * for the same samples.  The remaining pending differences are packed
+ * (with the end-of-data rules) only when the encoded data, the number of
+ * samples or the full flag is requested.  Once the frames run out no
+ * more samples are accepted.
+ *
+ * @author Kevin Frechette (ISTI)
+ * @version 10/17/2026
+ */
+public class SteimEncoder {
+  /** The number of words in a frame. */
+  private static final int FRAME_WORDS = 16;
+
+  /** The word index of the reverse integration constant X(N). */
+  private static final int XSUBN_INDEX = 2;
+
+  /** The word index of the first data word. */
+  private static final int FIRST_DATA_INDEX = 3;
+
+  private final int steimVersion; // Steim version number (1 or 2)
+
+  private final int numFrames; // number of frames in the block
+
+  private final int maxDiffs; // differences needed to determine a packing
+
+  private final int[] words; // committed words of all frames
+
+  private int wordIndex; // index of next free word
+
+  private boolean fullFlag; // true if committed words fill the block
+
+  private int numSamples; // number of samples in committed words
+
+  private int lastSample; // last sample in committed words
+
+  private int numAppended; // number of samples appended
+
+  private int prevSample; // last sample appended (or bias)
+
+  private final int[] pendingDiffs; // differences not yet committed
+
+  private final int[] pendingSamples; // samples for pending differences
+
+  private int numPending; // number of pending differences
+
+  private final int[] diff = new int[7]; // differences being packed
+
+  private final int[] minbits = new int[7]; // Steim2 bits for differences
+
+  private int packWord; // packed word
+
+  private int packNibble; // packed word nibble
+
+  private int packCount; // number of differences in packed word
+
+  private boolean tailValidFlag; // true if tail is up to date
+
+  private final int[] tailWords; // words for pending differences
+
+  private final int[] tailNibbles; // nibbles for tail words
+
+  private final int[] tailIndexes; // word indexes for tail words
+
+  private int numTailWords; // number of tail words
+
+  private int tailSamples; // number of samples in tail words
+
+  private int tailLastSample; // last sample in committed or tail words
+
+  private boolean tailFullFlag; // true if block full with tail words
+
+  /**
+   * Creates an encoder for a block of Steim frames.
+   * @param numFrames the number of frames in this Steim record
+   * @param steimVersion which version of Steim compression is being used
+   * (1 or 2).
+   * @throws SteimException number of frames is not a positive value
+   * @throws SteimException cannot encode more than 63 frames
+   * @throws SteimException Steim version is not 1 or 2
+   */
+  public SteimEncoder(int numFrames, int steimVersion) throws SteimException {
+    if (numFrames <= 0) {
+      throw new SteimException("number of frames is not a positive value");
+    }
+    if (numFrames > 63) {
+      throw new SteimException(
+          "cannot encode more than 63 frames, you asked for " + numFrames);
+    }
+    if (steimVersion == 1) {
+      maxDiffs = 4;
+    } else if (steimVersion == 2) {
+      maxDiffs = 7;
+    } else {
+      throw new SteimException("unsupported Steim version " + steimVersion);
+    }
+    this.numFrames = numFrames;
+    this.steimVersion = steimVersion;
+    words = new int[numFrames * FRAME_WORDS];
+    pendingDiffs = new int[maxDiffs];
+    pendingSamples = new int[maxDiffs];
+    tailWords = new int[maxDiffs];
+    tailNibbles = new int[maxDiffs];
+    tailIndexes = new int[maxDiffs];
+    reset(0);
+  }
+
+  /**
+   * Appends samples to the frame block.  Samples are not accepted once the
+   * frame block is full.
+   * @param samples the data points represented as signed integers
+   * @param offset the offset of the first sample to append
+   * @param length the number of samples to append
+   * @return the number of samples accepted
+   * @throws SteimException if a difference cannot be encoded
+   */
+  public int append(int[] samples, int offset, int length)
+      throws SteimException {
+    int count = 0;
+    int sample;
+    while (count < length && !fullFlag) {
+      sample = samples[offset + count];
+      if (numAppended == 0) {
+        words[1] = sample; // X(0) -- first sample value
+      }
+      pendingDiffs[numPending] = sample - prevSample;
+      pendingSamples[numPending] = sample;
+      numPending++;
+      prevSample = sample;
+      numAppended++;
+      count++;
+      if (numPending >= maxDiffs) { // packing can be determined
+        commitPendingWord();
+      }
+    }
+    tailValidFlag = false;
+    return count;
+  }
+
+  /**
+   * Commits a word for the pending differences.
+   * @throws SteimException if a difference cannot be encoded
+   */
+  private void commitPendingWord() throws SteimException {
+    pack(pendingDiffs, 0, numPending);
+    words[wordIndex] = packWord;
+    words[wordIndex - wordIndex % FRAME_WORDS] |= packNibble << ((FRAME_WORDS
+        - 1 - wordIndex % FRAME_WORDS) * 2);
+    numSamples += packCount;
+    lastSample = pendingSamples[packCount - 1];
+    numPending -= packCount;
+    System.arraycopy(pendingDiffs, packCount, pendingDiffs, 0, numPending);
+    System.arraycopy(pendingSamples, packCount, pendingSamples, 0, numPending);
+    wordIndex = nextWordIndex(wordIndex);
+    if (wordIndex < 0) { // exceeded frame limit
+      fullFlag = true;
+    }
+  }
+
+  /**
+   * Updates the tail words for the pending differences if needed.
+   * @throws SteimException if a difference cannot be encoded
+   */
+  private void computeTail() throws SteimException {
+    if (tailValidFlag) {
+      return;
+    }
+    numTailWords = 0;
+    tailSamples = 0;
+    tailLastSample = lastSample;
+    tailFullFlag = fullFlag;
+    int index = wordIndex;
+    int offset = 0;
+    while (!tailFullFlag && offset < numPending) {
+      pack(pendingDiffs, offset, numPending - offset);
+      tailWords[numTailWords] = packWord;
+      tailNibbles[numTailWords] = packNibble;
+      tailIndexes[numTailWords] = index;
+      numTailWords++;
+      tailSamples += packCount;
+      offset += packCount;
+      tailLastSample = pendingSamples[offset - 1];
+      if ((index = nextWordIndex(index)) < 0) { // exceeded frame limit
+        tailFullFlag = true;
+      }
+    }
+    tailValidFlag = true;
+  }
+
+  /**
+   * Return the compressed byte representation of the data for inclusion
+   * in a data record.
+   * @return byte array containing the encoded, compressed data
+   * @throws SteimException if a difference cannot be encoded
+   */
+  public byte[] getEncodedData() throws SteimException {
+    final byte[] b = new byte[numFrames * FRAME_WORDS * 4];
+    getEncodedData(b, 0);
+    return b;
+  }
+
+  /**
+   * Writes the compressed byte representation of the data into the given
+   * array.
+   * @param b the array to receive the data
+   * @param offset the offset in the array
+   * @return the number of bytes written
+   * @throws SteimException if a difference cannot be encoded
+   */
+  public int getEncodedData(byte[] b, int offset) throws SteimException {
+    computeTail();
+    int tailIndex = 0;
+    int word;
+    int pos = offset;
+    for (int i = 0; i < words.length; i++) {
+      if (i == XSUBN_INDEX) {
+        word = tailLastSample; // X(N) -- last encoded sample value
+      } else if (tailIndex < numTailWords && tailIndexes[tailIndex] == i) {
+        word = tailWords[tailIndex++];
+      } else {
+        word = words[i];
+      }
+      if (i % FRAME_WORDS == 0) { // add the nibbles for the tail words
+        for (int t = 0; t < numTailWords; t++) {
+          if (tailIndexes[t] - tailIndexes[t] % FRAME_WORDS == i) {
+            word |= tailNibbles[t] << ((FRAME_WORDS - 1 - tailIndexes[t]
+                % FRAME_WORDS) * 2);
+          }
+        }
+      }
+      b[pos++] = (byte) (word >>> 24);
+      b[pos++] = (byte) (word >>> 16);
+      b[pos++] = (byte) (word >>> 8);
+      b[pos++] = (byte) word;
+    }
+    return pos - offset;
+  }
+
+  /**
+   * Return the number of frames in this frame block
+   * @return integer value indicating number of frames
+   */
+  public int getNumFrames() {
+    return numFrames;
+  }
+
+  /**
+   * Return the number of samples appended since the last reset.  This
+   * may be larger than the number of samples represented by the frame
+   * block if the block is full.
+   * @return the number of samples appended
+   */
+  public int getNumAppended() {
+    return numAppended;
+  }
+
+  /**
+   * Return the number of data samples represented by this frame block
+   * @return integer value indicating number of samples
+   * @throws SteimException if a difference cannot be encoded
+   */
+  public int getNumSamples() throws SteimException {
+    computeTail();
+    return numSamples + tailSamples;
+  }
+
+  /**
+   * Return the version of Steim compression used
+   * @return integer value representing the Steim version (1 or 2)
+   */
+  public int getSteimVersion() {
+    return steimVersion;
+  }
+
+  /**
+   * Determines if the block is full.
+   * @return true if the block is full, false otherwise.
+   * @throws SteimException if a difference cannot be encoded
+   */
+  public boolean isFull() throws SteimException {
+    computeTail();
+    return tailFullFlag;
+  }
+
+  /**
+   * Returns the index of the data word after the given word index.
+   * @param index the word index
+   * @return the next data word index or -1 if the frame limit is exceeded
+   */
+  private int nextWordIndex(int index) {
+    index++;
+    if (index % FRAME_WORDS == 0) { // need next frame?
+      if (index >= words.length) { // exceeded frame limit?
+        return -1;
+      }
+      index++; // skip W0 of next frame
+    }
+    return index;
+  }
+
+  /**
+   * Packs the next word from the given differences.
+   * The packed word, nibble and number of differences are saved in
+   * 'packWord', 'packNibble' and 'packCount'.
+   * @param diffs the differences
+   * @param offset the offset of the first difference
+   * @param count the number of differences available
+   * @throws SteimException if a difference cannot be encoded
+   */
+  private void pack(int[] diffs, int offset, int count) throws SteimException {
+    if (steimVersion == 1) {
+      packSteim1(diffs, offset, count);
+    } else {
+      packSteim2(diffs, offset, count);
+    }
+  }
+
+  /**
+   * Packs the next Steim1 word from the given differences
+   * (as in <code>Steim1.encode()</code>.)
+   * @param diffs the differences
+   * @param offset the offset of the first difference
+   * @param count the number of differences available
+   */
+  private void packSteim1(int[] diffs, int offset, int count) {
+    int diffCount = 0; // how many sample diffs we put into current word
+    int maxSize = 0; // the maximum diff value size encountered
+    int curSize = 0; // size of diff value currently looked at
+    for (int i = 0; i < 4 && i < count; i++) {
+      diff[i] = diffs[offset + i];
+      diffCount++;
+      // curSize indicates how many bytes the number would fill
+      if (diff[i] <= 127 && diff[i] >= -128)
+        curSize = 1;
+      else if (diff[i] <= 32767 && diff[i] >= -32768)
+        curSize = 2;
+      else
+        curSize = 4;
+      // get the maximum size
+      if (curSize > maxSize)
+        maxSize = curSize;
+      // stop at the proper fit (cannot end with a 3 byte count)
+      if (maxSize * diffCount == 4)
+        break;
+      else if (maxSize * diffCount > 4) {
+        diffCount--;
+        if (diffCount == 3)
+          diffCount--;
+        break;
+      }
+    }
+    if (diffCount == 1) {
+      packWord = diff[0];
+      packNibble = 3; // size 4 = 11
+    } else if (diffCount == 2) {
+      packWord = (diff[0] & 0xffff) << 16; // clip to 16 bits, then shift
+      packWord |= (diff[1] & 0xffff);
+      packNibble = 2; // size 2 = 10
+    } else { // diffCount == 4 (or 3 at the end of the data)
+      if (diffCount == 3) {
+        diff[3] = 0; // unused byte
+      }
+      packWord = (diff[0] & 0xff) << 24; // clip to 8 bits, then shift
+      packWord |= (diff[1] & 0xff) << 16;
+      packWord |= (diff[2] & 0xff) << 8;
+      packWord |= (diff[3] & 0xff);
+      packNibble = 1; // size 1 = 01
+    }
+    packCount = diffCount;
+  }
+
+  /**
+   * Packs the next Steim2 word from the given differences
+   * (as in <code>Steim2.encode()</code>.)
+   * @param diffs the differences
+   * @param offset the offset of the first difference
+   * @param count the number of differences available
+   * @throws SteimException if a difference cannot be encoded
+   */
+  private void packSteim2(int[] diffs, int offset, int count)
+      throws SteimException {
+    final int points_remaining = Math.min(count, 7);
+    for (int i = 0; i < points_remaining; i++) {
+      diff[i] = diffs[offset + i];
+      minbits[i] = Steim2.minBitsNeeded(diff[i]);
+    }
+    final int nbits = Steim2.bitsForPack(minbits, points_remaining);
+    final int bitmask;
+    final int submask;
+    switch (nbits) {
+    case 4:
+      packCount = 7;
+      bitmask = 0x0000000f;
+      submask = 0x02;
+      packNibble = 3;
+      break;
+    case 5:
+      packCount = 6;
+      bitmask = 0x0000001f;
+      submask = 0x01;
+      packNibble = 3;
+      break;
+    case 6:
+      packCount = 5;
+      bitmask = 0x0000003f;
+      submask = 0x00;
+      packNibble = 3;
+      break;
+    case 8:
+      packCount = 4;
+      bitmask = 0x000000ff;
+      submask = 0;
+      packNibble = 1;
+      break;
+    case 10:
+      packCount = 3;
+      bitmask = 0x000003ff;
+      submask = 0x03;
+      packNibble = 2;
+      break;
+    case 15:
+      packCount = 2;
+      bitmask = 0x00007fff;
+      submask = 0x02;
+      packNibble = 2;
+      break;
+    case 30:
+      packCount = 1;
+      bitmask = 0x3fffffff;
+      submask = 0x01;
+      packNibble = 2;
+      break;
+    default:
+      throw new SteimException("Unable to encode " + nbits
+          + " bit difference in Steim2 format");
+    }
+    packWord = Steim2.steimPackWord(diff, nbits, packCount, bitmask, submask);
+  }
+
+  /**
+   * Resets the encoder to start a new frame block.
+   * @param bias offset for use as a constant for the first difference,
+   * otherwise set to 0
+   */
+  public void reset(int bias) {
+    for (int i = 0; i < words.length; i++) {
+      words[i] = 0;
+    }
+    wordIndex = FIRST_DATA_INDEX;
+    fullFlag = false;
+    numSamples = 0;
+    lastSample = 0;
+    numAppended = 0;
+    prevSample = bias;
+    numPending = 0;
+    tailValidFlag = false;
+  }
+}
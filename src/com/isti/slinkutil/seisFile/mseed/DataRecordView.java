@@ -0,0 +1,565 @@
+//DataRecordView:  A reusable view of a data record in a byte buffer.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil.seisFile.mseed;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.isti.slinkutil.SeedTimeFns;
+
+/**
+ * A reusable view of a miniSEED data record in a byte buffer. The view is
+ * set to a record with 'wrap()' and the header fields, blockette 1000 and
+ * 1001 values and the data are read from the buffer in place when they are
+ * requested, so one view may be used to scan any number of records without
+ * allocating objects for each record (other than for the methods that return
+ * a 'String' or a new object.) The values are only valid until the view is
+ * set to another record or the buffer is changed.
+ */
+public class DataRecordView {
+  /** The fixed header size. */
+  public static final int FIXED_HEADER_SIZE = 48;
+
+  /** The maximum number of blockettes checked. */
+  private static final int MAX_NUM_BLOCKETTES = 32;
+
+  /** The buffer the view was created from or null if none. */
+  private ByteBuffer srcBuf = null;
+
+  /** The big-endian view of the buffer. */
+  private ByteBuffer buf = null;
+
+  /** The position of the record in the buffer. */
+  private int pos = 0;
+
+  /** The record length. */
+  private int recordLength = 0;
+
+  /** True if the record is little-endian. */
+  private boolean swapBytesFlag = false;
+
+  /** The position of blockette 100 in the record or 0 if none. */
+  private int b100Pos = 0;
+
+  /** The position of blockette 1000 in the record or 0 if none. */
+  private int b1000Pos = 0;
+
+  /** The position of blockette 1001 in the record or 0 if none. */
+  private int b1001Pos = 0;
+
+  /** The 'Btime' for the start time. */
+  private final Btime btime = new Btime();
+
+  /**
+   * Create an empty data record view.
+   */
+  public DataRecordView() {
+  }
+
+  /**
+   * Sets the view to the record in the buffer.
+   * @param buffer the buffer.
+   * @param position the position of the record in the buffer.
+   * @param length the number of bytes available in the buffer for the record.
+   * @param defaultRecordSize the record length if the record has no
+   *          blockette 1000 or 0 if blockette 1000 is required.
+   * @throws SeedFormatException if the bytes are not a data record header or
+   *           the record has no blockette 1000 and the default record size
+   *           is 0 ('MissingBlockette1000'.)
+   */
+  public void wrap(ByteBuffer buffer, int position, int length,
+      int defaultRecordSize) throws SeedFormatException {
+    if (buffer != srcBuf) { // new buffer; get big-endian view
+      buf = buffer.duplicate();
+      buf.order(ByteOrder.BIG_ENDIAN);
+      srcBuf = buffer;
+    }
+    pos = position;
+    recordLength = 0;
+    b100Pos = b1000Pos = b1001Pos = 0;
+    if (length < FIXED_HEADER_SIZE) {
+      throw new SeedFormatException("Record header is incomplete ("
+          + length + " bytes)");
+    }
+    byte b;
+    for (int i = 0; i < 6; i++) {
+      b = buf.get(pos + i);
+      if ((b < '0' || b > '9') && b != ' ' && b != 0) {
+        throw new SeedFormatException("Invalid sequence number");
+      }
+    }
+    b = buf.get(pos + 6);
+    if (b != 'D' && b != 'R' && b != 'Q' && b != 'M') {
+      throw new SeedFormatException("Not a data record, type code "
+          + (char) b);
+    }
+    swapBytesFlag = false;
+    int year = getUShort(20);
+    if (year < 1960 || year > 2055) { // try the other byte order
+      swapBytesFlag = true;
+      year = getUShort(20);
+      if (year < 1960 || year > 2055) {
+        throw new SeedFormatException("Invalid start time year");
+      }
+    }
+    // find the blockettes
+    int offset = getUShort(46);
+    for (int i = 0; i < MAX_NUM_BLOCKETTES && offset >= FIXED_HEADER_SIZE
+        && offset + 4 <= length; i++) {
+      switch (getUShort(offset)) {
+      case 100:
+        b100Pos = offset;
+        break;
+      case 1000:
+        b1000Pos = offset;
+        break;
+      case 1001:
+        b1001Pos = offset;
+        break;
+      }
+      offset = getUShort(offset + 2);
+    }
+    if (b1000Pos != 0 && b1000Pos + 8 <= length) {
+      final int exp = buf.get(pos + b1000Pos + 6);
+      if (exp < 7 || exp > 30) {
+        throw new SeedFormatException("Invalid record length exponent " + exp);
+      }
+      recordLength = 1 << exp;
+    } else {
+      b1000Pos = 0;
+      if (defaultRecordSize == 0) {
+        throw new MissingBlockette1000();
+      }
+      recordLength = defaultRecordSize;
+    }
+    if (b100Pos != 0 && b100Pos + 8 > length)
+      b100Pos = 0;
+    if (b1001Pos != 0 && b1001Pos + 8 > length)
+      b1001Pos = 0;
+  }
+
+  /**
+   * Get the buffer (a big-endian view of the buffer given to 'wrap()'.)
+   * @return the buffer.
+   */
+  public ByteBuffer getBuffer() {
+    return buf;
+  }
+
+  /**
+   * Get the position of the record in the buffer.
+   * @return the position.
+   */
+  public int getPosition() {
+    return pos;
+  }
+
+  /**
+   * Get the record length (from blockette 1000 or the default record size.)
+   * @return the record length.
+   */
+  public int getRecordLength() {
+    return recordLength;
+  }
+
+  /**
+   * Determines if the record is little-endian.
+   * @return true if the bytes need to be swapped.
+   */
+  public boolean isSwapBytes() {
+    return swapBytesFlag;
+  }
+
+  /**
+   * Get the sequence number.
+   * @return the sequence number.
+   */
+  public int getSequenceNum() {
+    int seq = 0;
+    byte b;
+    for (int i = 0; i < 6; i++) {
+      b = buf.get(pos + i);
+      if (b >= '0' && b <= '9')
+        seq = seq * 10 + (b - '0');
+    }
+    return seq;
+  }
+
+  /**
+   * Get the type code.
+   * @return the type code.
+   */
+  public char getTypeCode() {
+    return (char) buf.get(pos + 6);
+  }
+
+  /**
+   * Determines if this record is flagged as a continuation.
+   * @return true if a continuation.
+   */
+  public boolean isContinuation() {
+    return buf.get(pos + 7) == '*';
+  }
+
+  /**
+   * Get the station identifier.
+   * @return the station identifier.
+   */
+  public String getStationIdentifier() {
+    return getString(8, 5);
+  }
+
+  /**
+   * Get the location identifier.
+   * @return the location identifier.
+   */
+  public String getLocationIdentifier() {
+    return getString(13, 2);
+  }
+
+  /**
+   * Get the channel identifier.
+   * @return the channel identifier.
+   */
+  public String getChannelIdentifier() {
+    return getString(15, 3);
+  }
+
+  /**
+   * Get the network code.
+   * @return the network code.
+   */
+  public String getNetworkCode() {
+    return getString(18, 2);
+  }
+
+  /**
+   * Determines if the record is for the channel. The codes are compared in
+   * place, ignoring trailing spaces.
+   * @param networkCode the network code.
+   * @param stationIdentifier the station identifier.
+   * @param locationIdentifier the location identifier.
+   * @param channelIdentifier the channel identifier.
+   * @return true if the record is for the channel.
+   */
+  public boolean isChannel(String networkCode, String stationIdentifier,
+      String locationIdentifier, String channelIdentifier) {
+    return isString(18, 2, networkCode) && isString(8, 5, stationIdentifier)
+        && isString(13, 2, locationIdentifier)
+        && isString(15, 3, channelIdentifier);
+  }
+
+  /**
+   * Get the start time.
+   * @param btime the 'Btime' to set.
+   * @return the 'Btime'.
+   */
+  public Btime getStartBtime(Btime btime) {
+    btime.year = getUShort(20);
+    btime.jday = getUShort(22);
+    btime.hour = buf.get(pos + 24) & 0xff;
+    btime.min = buf.get(pos + 25) & 0xff;
+    btime.sec = buf.get(pos + 26) & 0xff;
+    btime.tenthMilli = getUShort(28);
+    return btime;
+  }
+
+  /**
+   * Get the start time.
+   * @return the start time in milliseconds.
+   */
+  public long getStartTime() {
+    return SeedTimeFns.getTime(getStartBtime(btime));
+  }
+
+  /**
+   * Get the time of the last sample.
+   * @return the time of the last sample in milliseconds.
+   */
+  public long getLastSampleTime() {
+    final long startTime = getStartTime();
+    final int numSamples = getNumSamples();
+    final double sampleRate = getSampleRate();
+    if (numSamples <= 1 || sampleRate <= 0)
+      return startTime;
+    return startTime + Math.round((numSamples - 1) * 1000.0 / sampleRate);
+  }
+
+  /**
+   * Get the number of samples.
+   * @return the number of samples.
+   */
+  public int getNumSamples() {
+    return getUShort(30);
+  }
+
+  /**
+   * Get the sample rate factor.
+   * @return the sample rate factor.
+   */
+  public int getSampleRateFactor() {
+    return getShort(32);
+  }
+
+  /**
+   * Get the sample rate multiplier.
+   * @return the sample rate multiplier.
+   */
+  public int getSampleRateMultiplier() {
+    return getShort(34);
+  }
+
+  /**
+   * Get the sample rate from blockette 100 if present or from the sample
+   * rate factor and multiplier otherwise.
+   * @return the sample rate in samples per second or 0 if none.
+   */
+  public double getSampleRate() {
+    if (b100Pos != 0) {
+      return Float.intBitsToFloat(getInt(b100Pos + 4));
+    }
+    final int factor = getSampleRateFactor();
+    final int multiplier = getSampleRateMultiplier();
+    if (factor == 0 || multiplier == 0)
+      return 0;
+    double rate = (factor > 0) ? factor : -1.0 / factor;
+    if (multiplier > 0)
+      rate *= multiplier;
+    else
+      rate /= -multiplier;
+    return rate;
+  }
+
+  /**
+   * Get the activity flags.
+   * @return the activity flags.
+   */
+  public byte getActivityFlags() {
+    return buf.get(pos + 36);
+  }
+
+  /**
+   * Get the I/O and clock flags.
+   * @return the I/O and clock flags.
+   */
+  public byte getIOClockFlags() {
+    return buf.get(pos + 37);
+  }
+
+  /**
+   * Get the data quality flags.
+   * @return the data quality flags.
+   */
+  public byte getDataQualityFlags() {
+    return buf.get(pos + 38);
+  }
+
+  /**
+   * Get the number of blockettes.
+   * @return the number of blockettes.
+   */
+  public int getNumBlockettes() {
+    return buf.get(pos + 39) & 0xff;
+  }
+
+  /**
+   * Get the time correction.
+   * @return the time correction in ten thousandths of a second.
+   */
+  public int getTimeCorrection() {
+    return getInt(40);
+  }
+
+  /**
+   * Get the offset of the data in the record.
+   * @return the data offset or 0 if no data.
+   */
+  public int getDataOffset() {
+    return getUShort(44);
+  }
+
+  /**
+   * Get the offset of the first blockette in the record.
+   * @return the data blockette offset or 0 if none.
+   */
+  public int getDataBlocketteOffset() {
+    return getUShort(46);
+  }
+
+  /**
+   * Determines if the record has blockette 1000.
+   * @return true if the record has blockette 1000.
+   */
+  public boolean hasBlockette1000() {
+    return b1000Pos != 0;
+  }
+
+  /**
+   * Get the encoding format from blockette 1000.
+   * @return the encoding format or -1 if no blockette 1000.
+   */
+  public int getEncodingFormat() {
+    return (b1000Pos != 0) ? buf.get(pos + b1000Pos + 4) : -1;
+  }
+
+  /**
+   * Get the word order from blockette 1000.
+   * @return the word order (1 for big-endian) or -1 if no blockette 1000.
+   */
+  public int getWordOrder() {
+    return (b1000Pos != 0) ? buf.get(pos + b1000Pos + 5) : -1;
+  }
+
+  /**
+   * Determines if the record has blockette 1001.
+   * @return true if the record has blockette 1001.
+   */
+  public boolean hasBlockette1001() {
+    return b1001Pos != 0;
+  }
+
+  /**
+   * Get the timing quality from blockette 1001.
+   * @return the timing quality (0-100%) or -1 if no blockette 1001.
+   */
+  public int getTimingQuality() {
+    return (b1001Pos != 0) ? buf.get(pos + b1001Pos + 4) & 0xff : -1;
+  }
+
+  /**
+   * Get the number of microseconds from blockette 1001.
+   * @return the number of microseconds or 0 if no blockette 1001.
+   */
+  public int getMicroSeconds() {
+    return (b1001Pos != 0) ? buf.get(pos + b1001Pos + 5) : 0;
+  }
+
+  /**
+   * Get the frame count from blockette 1001.
+   * @return the frame count or -1 if no blockette 1001.
+   */
+  public int getFrameCount() {
+    return (b1001Pos != 0) ? buf.get(pos + b1001Pos + 7) & 0xff : -1;
+  }
+
+  /**
+   * Get the position of the data in the buffer.
+   * @return the position of the data.
+   */
+  public int getDataPosition() {
+    return pos + getDataOffset();
+  }
+
+  /**
+   * Get the length of the data.
+   * @return the length of the data or 0 if no data.
+   */
+  public int getDataLength() {
+    final int dataOffset = getDataOffset();
+    return (dataOffset != 0 && dataOffset < recordLength) ? recordLength
+        - dataOffset : 0;
+  }
+
+  /**
+   * Get a new buffer that shares the data of the record (without copying.)
+   * The byte order of the buffer is the word order of the data.
+   * @return the data buffer.
+   */
+  public ByteBuffer sliceData() {
+    final ByteBuffer dup = buf.duplicate();
+    final int dataPos = getDataPosition();
+    dup.limit(dataPos + getDataLength()).position(dataPos);
+    return dup.slice().order(
+        (getWordOrder() == 0) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+  }
+
+  /**
+   * Copies the record into a new data record.
+   * @return the data record.
+   * @throws IOException if the record is not complete in the buffer.
+   * @throws SeedFormatException if a SEED format exception occurs.
+   */
+  public DataRecord toDataRecord() throws IOException, SeedFormatException {
+    final byte[] arr = new byte[recordLength];
+    final ByteBuffer dup = buf.duplicate();
+    dup.position(pos);
+    dup.get(arr);
+    return DataRecord.read(new DataInputStream(new ByteArrayInputStream(arr)),
+        recordLength);
+  }
+
+  /**
+   * Get the unsigned short value.
+   * @param offset the offset in the record.
+   * @return the value.
+   */
+  private int getUShort(int offset) {
+    return getShort(offset) & 0xFFFF;
+  }
+
+  /**
+   * Get the short value.
+   * @param offset the offset in the record.
+   * @return the value.
+   */
+  private short getShort(int offset) {
+    final short value = buf.getShort(pos + offset);
+    return swapBytesFlag ? Short.reverseBytes(value) : value;
+  }
+
+  /**
+   * Get the int value.
+   * @param offset the offset in the record.
+   * @return the value.
+   */
+  private int getInt(int offset) {
+    final int value = buf.getInt(pos + offset);
+    return swapBytesFlag ? Integer.reverseBytes(value) : value;
+  }
+
+  /**
+   * Get the string value.
+   * @param offset the offset in the record.
+   * @param length the length.
+   * @return the value.
+   */
+  private String getString(int offset, int length) {
+    final byte[] arr = new byte[length];
+    for (int i = 0; i < length; i++) {
+      arr[i] = buf.get(pos + offset + i);
+    }
+    return new String(arr);
+  }
+
+  /**
+   * Determines if the string value is the string, ignoring trailing spaces.
+   * @param offset the offset in the record.
+   * @param length the length.
+   * @param s the string.
+   * @return true if the same.
+   */
+  private boolean isString(int offset, int length, String s) {
+    int sLength = s.length();
+    while (sLength > 0 && s.charAt(sLength - 1) == ' ')
+      sLength--;
+    if (sLength > length)
+      return false;
+    byte b;
+    for (int i = 0; i < length; i++) {
+      b = buf.get(pos + offset + i);
+      if (i < sLength) {
+        if (b != s.charAt(i))
+          return false;
+      } else if (b != ' ' && b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,21 @@
+//IDataRecordHandler:  Handles the data records read by a reader.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil.seisFile.mseed;
+
+/**
+ * Handles the data records read by a reader such as 'ParallelMSeedRead'.
+ */
+public interface IDataRecordHandler {
+  /**
+   * Handles the data record. The view and the samples are only valid until
+   * this method returns.
+   * @param view the data record view.
+   * @param samples the decoded samples or null if the data encoding is not
+   *          an integer encoding that can be decoded.
+   * @param numSamples the number of samples.
+   */
+  public void handleRecord(DataRecordView view, int[] samples, int numSamples);
+}
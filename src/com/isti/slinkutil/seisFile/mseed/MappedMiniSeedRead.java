@@ -0,0 +1,213 @@
+//MappedMiniSeedRead:  Reads miniSEED records in place from a memory-mapped
+//                     file or a byte buffer.
+//
+// 10/17/2026 -- [KF]  Initial version.
+//
+
+package com.isti.slinkutil.seisFile.mseed;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The memory-mapped miniSEED reader. The records of a file (mapped in
+ * windows) or a byte buffer are read in place into a 'DataRecordView', so
+ * scanning the records does not copy them or allocate objects for each
+ * record:
+ * <pre>
+ * final DataRecordView view = new DataRecordView();
+ * while (reader.next(view)) {
+ *   ...
+ * }
+ * </pre>
+ */
+public class MappedMiniSeedRead {
+  /** The default size of the mapped windows of a file. */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  /** The file or null if reading a buffer. */
+  private RandomAccessFile raf = null;
+
+  /** The file channel or null if reading a buffer. */
+  private FileChannel channel = null;
+
+  /** The length of the file or buffer. */
+  private final long length;
+
+  /** The window size. */
+  private final int windowSize;
+
+  /** The default record size or 0 if blockette 1000 is required. */
+  private int defaultRecordSize = 0;
+
+  /** The current window or null if none. */
+  private ByteBuffer window = null;
+
+  /** The position of the current window in the file. */
+  private long windowPos = 0;
+
+  /** The position of the next record. */
+  private long position = 0;
+
+  /** The number of records read. */
+  private int numRead = 0;
+
+  /**
+   * Create the memory-mapped miniSEED reader for the file.
+   * @param file the file.
+   * @throws IOException if an I/O Exception occurs.
+   */
+  public MappedMiniSeedRead(File file) throws IOException {
+    this(file, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Create the memory-mapped miniSEED reader for the file.
+   * @param file the file.
+   * @param windowSize the size of the mapped windows of the file, which
+   *          must be at least the record length.
+   * @throws IOException if an I/O Exception occurs.
+   */
+  public MappedMiniSeedRead(File file, int windowSize) throws IOException {
+    raf = new RandomAccessFile(file, "r");
+    channel = raf.getChannel();
+    length = channel.size();
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Create the miniSEED reader for the records in the buffer between its
+   * position and limit.
+   * @param buffer the buffer.
+   */
+  public MappedMiniSeedRead(ByteBuffer buffer) {
+    window = buffer.slice();
+    length = window.limit();
+    windowSize = window.limit();
+  }
+
+  /**
+   * Close the reader. The mapped windows are released when they are no
+   * longer referenced.
+   */
+  public void close() {
+    window = null;
+    if (raf != null) {
+      try {
+        raf.close();
+      } catch (IOException ex) {
+      }
+      raf = null;
+      channel = null;
+    }
+    position = length; // make sure no read after close
+  }
+
+  /**
+   * Get the default record size.
+   * @return the record size used for records without blockette 1000 or 0
+   *         if blockette 1000 is required.
+   */
+  public int getDefaultRecordSize() {
+    return defaultRecordSize;
+  }
+
+  /**
+   * Get the length of the file or buffer.
+   * @return the length.
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Get the number of records read.
+   * @return the number of records read.
+   */
+  public int getNumRecordsRead() {
+    return numRead;
+  }
+
+  /**
+   * Get the position of the next record.
+   * @return the position.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * Sets the view to the next record.
+   * @param view the data record view.
+   * @return true if the view was set to the next record, false if there are
+   *         no more records or the rest of the file or buffer is less than
+   *         a record (see 'getPosition()'.)
+   * @throws SeedFormatException if the next record is not a data record or
+   *           has no blockette 1000 and the default record size is 0.
+   * @throws IOException if an I/O Exception occurs.
+   */
+  public boolean next(DataRecordView view) throws SeedFormatException,
+      IOException {
+    if (position >= length)
+      return false;
+    int offset = getWindowOffset(DataRecordView.FIXED_HEADER_SIZE);
+    if (offset < 0)
+      return false;
+    int available = (int) Math.min(window.limit() - offset, length - position);
+    view.wrap(window, offset, available, defaultRecordSize);
+    final int recordLength = view.getRecordLength();
+    if (recordLength > available) { // record not in window
+      if (position + recordLength > length)
+        return false; // partial record
+      if ((offset = getWindowOffset(recordLength)) < 0)
+        return false;
+      view.wrap(window, offset, recordLength, defaultRecordSize);
+    }
+    position += recordLength;
+    numRead++;
+    return true;
+  }
+
+  /**
+   * Set the default record size.
+   * @param defaultRecordSize the record size used for records without
+   *          blockette 1000 or 0 if blockette 1000 is required.
+   */
+  public void setDefaultRecordSize(int defaultRecordSize) {
+    this.defaultRecordSize = defaultRecordSize;
+  }
+
+  /**
+   * Set the position of the next record, such as the offset of a record
+   * from an index.
+   * @param position the position.
+   */
+  public void setPosition(long position) {
+    this.position = position;
+  }
+
+  /**
+   * Get the offset of the next record in the window, mapping a new window
+   * if needed.
+   * @param minLength the minimum number of bytes needed in the window.
+   * @return the offset or -1 if fewer bytes remain.
+   * @throws IOException if an I/O Exception occurs.
+   */
+  private int getWindowOffset(int minLength) throws IOException {
+    if (length - position < minLength)
+      return -1;
+    if (window != null && position >= windowPos
+        && position + minLength <= windowPos + window.limit()) {
+      return (int) (position - windowPos);
+    }
+    if (channel == null || minLength > windowSize)
+      return -1;
+    windowPos = position;
+    window = channel.map(FileChannel.MapMode.READ_ONLY, windowPos, Math.min(
+        windowSize, length - windowPos));
+    return 0;
+  }
+}
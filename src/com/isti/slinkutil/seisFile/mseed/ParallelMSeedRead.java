@@ -0,0 +1,710 @@
+//ParallelMSeedRead:  Reads multiple miniSEED files in parallel.
+//
+// 10/17/2026 -- [KF]  Initial version.
+// 10/17/2026 -- [KF]  Decode the samples in place into reused arrays.
+//
+
+package com.isti.slinkutil.seisFile.mseed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.isti.slinkutil.seedcodec.CodecException;
+import com.isti.slinkutil.seedcodec.Steim1;
+import com.isti.slinkutil.seedcodec.Steim2;
+
+/**
+ * The parallel multiple file miniSEED reader. The files are read with a
+ * fork-join pool: each file is memory-mapped (see 'MappedMiniSeedRead') and
+ * its records are split into ranges that are decoded by the threads of the
+ * pool, so all of the processors are used to read many files or a large
+ * file. The records may be read in one of two ways:
+ * <ul>
+ * <li>'readUnordered()' hands each record to the handler as soon as it is
+ * decoded, from any of the threads of the pool and in no particular order.
+ * </li>
+ * <li>'readOrdered()' hands the records of each channel to the handler in
+ * order of start time. The records of a channel are handed from one thread
+ * at a time, while the channels are read in parallel. The files of each
+ * channel are ordered by their earliest record and are decoded ahead in
+ * parallel; records are held only until no later file may have an earlier
+ * record.</li>
+ * </ul>
+ * In both cases the handler may be called by more than one thread at the
+ * same time (for different channels when ordered) and must be thread-safe.
+ * Reading stops at the first error, which is thrown by the read method.
+ */
+public class ParallelMSeedRead {
+  /** The number of records in each range decoded by a task. */
+  public static final int RANGE_RECORDS = 256;
+
+  /** The 16-bit integer encoding format. */
+  private static final int ENCODING_INT16 = 1;
+
+  /** The 32-bit integer encoding format. */
+  private static final int ENCODING_INT32 = 3;
+
+  /** The Steim1 encoding format. */
+  private static final int ENCODING_STEIM1 = 10;
+
+  /** The Steim2 encoding format. */
+  private static final int ENCODING_STEIM2 = 11;
+
+  /** Orders the decoded records by start time and then input order. */
+  private static final Comparator DECODED_RECORD_COMPARATOR = new Comparator() {
+    public int compare(Object o1, Object o2) {
+      final DecodedRecord r1 = (DecodedRecord) o1;
+      final DecodedRecord r2 = (DecodedRecord) o2;
+      if (r1.startTime != r2.startTime)
+        return (r1.startTime < r2.startTime) ? -1 : 1;
+      return (r1.order < r2.order) ? -1 : ((r1.order == r2.order) ? 0 : 1);
+    }
+  };
+
+  /** Orders the file channel information by earliest start time. */
+  private static final Comparator FILE_INFO_COMPARATOR = new Comparator() {
+    public int compare(Object o1, Object o2) {
+      final FileChannelInfo i1 = (FileChannelInfo) o1;
+      final FileChannelInfo i2 = (FileChannelInfo) o2;
+      if (i1.minStartTime != i2.minStartTime)
+        return (i1.minStartTime < i2.minStartTime) ? -1 : 1;
+      return i1.fileIndex - i2.fileIndex;
+    }
+  };
+
+  /** The files. */
+  private final File[] files;
+
+  /** The fork-join pool or null to create one for each read. */
+  private final ForkJoinPool pool;
+
+  /** The default record size or 0 if blockette 1000 is required. */
+  private int defaultRecordSize = 0;
+
+  /** The number of records read. */
+  private final AtomicLong numRead = new AtomicLong();
+
+  /** The first error or null if none. */
+  private final AtomicReference errorRef = new AtomicReference();
+
+  /**
+   * Create the parallel multiple file miniSEED reader, which uses a new
+   * fork-join pool with a thread for each processor for each read.
+   * @param files the files.
+   */
+  public ParallelMSeedRead(File[] files) {
+    this(files, null);
+  }
+
+  /**
+   * Create the parallel multiple file miniSEED reader.
+   * @param files the files.
+   * @param pool the fork-join pool or null to create one for each read.
+   */
+  public ParallelMSeedRead(File[] files, ForkJoinPool pool) {
+    this.files = files;
+    this.pool = pool;
+  }
+
+  /**
+   * Get the default record size.
+   * @return the record size used for records without blockette 1000 or 0
+   *         if blockette 1000 is required.
+   */
+  public int getDefaultRecordSize() {
+    return defaultRecordSize;
+  }
+
+  /**
+   * Get the number of records read by the last read.
+   * @return the number of records read.
+   */
+  public long getNumRecordsRead() {
+    return numRead.get();
+  }
+
+  /**
+   * Reads the records of the files and hands them to the handler as they
+   * are decoded, in no particular order.
+   * @param handler the handler.
+   * @throws IOException if an I/O Exception occurs.
+   * @throws SeedFormatException if a SEED format exception occurs.
+   * @throws CodecException if the data could not be decoded.
+   */
+  public void readUnordered(final IDataRecordHandler handler)
+      throws IOException, SeedFormatException, CodecException {
+    final List taskList = new ArrayList(files.length);
+    for (int i = 0; i < files.length; i++) {
+      taskList.add(new FileTask(files[i], handler));
+    }
+    invoke(new RecursiveAction() {
+      private static final long serialVersionUID = 1L;
+
+      protected void compute() {
+        invokeAll(taskList);
+      }
+    });
+  }
+
+  /**
+   * Reads the records of the files and hands the records of each channel to
+   * the handler in order of start time.
+   * @param handler the handler.
+   * @throws IOException if an I/O Exception occurs.
+   * @throws SeedFormatException if a SEED format exception occurs.
+   * @throws CodecException if the data could not be decoded.
+   */
+  public void readOrdered(final IDataRecordHandler handler)
+      throws IOException, SeedFormatException, CodecException {
+    invoke(new RecursiveAction() {
+      private static final long serialVersionUID = 1L;
+
+      protected void compute() {
+        // find the channels of each file
+        final List scanList = new ArrayList(files.length);
+        for (int i = 0; i < files.length; i++) {
+          scanList.add(new ScanTask(i));
+        }
+        invokeAll(scanList);
+        if (errorRef.get() != null)
+          return;
+        // group the files by channel
+        final Map channelMap = new HashMap();
+        Iterator it;
+        FileChannelInfo info;
+        List list;
+        for (int i = 0; i < scanList.size(); i++) {
+          it = ((List) ((ScanTask) scanList.get(i)).getRawResult()).iterator();
+          while (it.hasNext()) {
+            info = (FileChannelInfo) it.next();
+            if ((list = (List) channelMap.get(info.key)) == null) {
+              channelMap.put(info.key, list = new ArrayList());
+            }
+            list.add(info);
+          }
+        }
+        final List channelList = new ArrayList(channelMap.size());
+        it = channelMap.values().iterator();
+        while (it.hasNext()) {
+          channelList.add(new ChannelTask((List) it.next(), handler));
+        }
+        invokeAll(channelList);
+      }
+    });
+  }
+
+  /**
+   * Set the default record size.
+   * @param defaultRecordSize the record size used for records without
+   *          blockette 1000 or 0 if blockette 1000 is required.
+   */
+  public void setDefaultRecordSize(int defaultRecordSize) {
+    this.defaultRecordSize = defaultRecordSize;
+  }
+
+  /**
+   * Decodes the samples of the record in place from the buffer.
+   * @param view the data record view.
+   * @param samples the array for the samples or null if none.
+   * @return the samples (in the given array if it is large enough or in a
+   *         new array otherwise) or null if there are no samples or the data
+   *         encoding is not an integer encoding that can be decoded.
+   * @throws CodecException if the data could not be decoded.
+   */
+  static int[] decode(DataRecordView view, int[] samples)
+      throws CodecException {
+    final int numSamples = view.getNumSamples();
+    final int encoding = view.getEncodingFormat();
+    final boolean swapBytes = view.getWordOrder() == 0;
+    final ByteBuffer buf = view.getBuffer();
+    final int dataPos = view.getDataPosition();
+    int length = view.getDataLength();
+    if (numSamples == 0 || length == 0)
+      return null;
+    switch (encoding) {
+    case ENCODING_INT16:
+    case ENCODING_INT32: {
+      final int size = (encoding == ENCODING_INT16) ? 2 : 4;
+      if (numSamples * size > length) {
+        throw new CodecException("Not enough data for " + numSamples
+            + " samples");
+      }
+      if (samples == null || samples.length < numSamples) {
+        samples = new int[numSamples];
+      }
+      for (int i = 0; i < numSamples; i++) {
+        if (size == 2) {
+          final short value = buf.getShort(dataPos + i * 2);
+          samples[i] = swapBytes ? Short.reverseBytes(value) : value;
+        } else {
+          final int value = buf.getInt(dataPos + i * 4);
+          samples[i] = swapBytes ? Integer.reverseBytes(value) : value;
+        }
+      }
+      return samples;
+    }
+    case ENCODING_STEIM1:
+    case ENCODING_STEIM2: {
+      length -= length % 64; // whole frames only
+      if (samples == null || samples.length < numSamples) {
+        samples = new int[numSamples];
+      }
+      if (encoding == ENCODING_STEIM1) {
+        Steim1.decode(buf, dataPos, length, numSamples, swapBytes, 0,
+            samples, 0);
+      } else {
+        Steim2.decode(buf, dataPos, length, numSamples, swapBytes, 0,
+            samples, 0);
+      }
+      return samples;
+    }
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Gets the channel key for the record.
+   * @param view the data record view.
+   * @return the channel key.
+   */
+  private static String getChannelKey(DataRecordView view) {
+    return view.getNetworkCode().trim() + '.'
+        + view.getStationIdentifier().trim() + '.'
+        + view.getLocationIdentifier().trim() + '.'
+        + view.getChannelIdentifier().trim();
+  }
+
+  /**
+   * Runs the task in the pool and throws the first error.
+   * @param task the task.
+   * @throws IOException if an I/O Exception occurs.
+   * @throws SeedFormatException if a SEED format exception occurs.
+   * @throws CodecException if the data could not be decoded.
+   */
+  private void invoke(ForkJoinTask task) throws IOException,
+      SeedFormatException, CodecException {
+    numRead.set(0);
+    errorRef.set(null);
+    final ForkJoinPool p = (pool != null) ? pool : new ForkJoinPool();
+    try {
+      p.invoke(task);
+    } catch (RuntimeException ex) { // should not happen
+      errorRef.compareAndSet(null, ex);
+    } finally {
+      if (p != pool) {
+        p.shutdown();
+      }
+    }
+    final Object err = errorRef.get();
+    if (err instanceof IOException)
+      throw (IOException) err;
+    if (err instanceof SeedFormatException)
+      throw (SeedFormatException) err;
+    if (err instanceof CodecException)
+      throw (CodecException) err;
+    if (err instanceof RuntimeException)
+      throw (RuntimeException) err;
+    if (err instanceof Error)
+      throw (Error) err;
+  }
+
+  /**
+   * Decodes the record and hands it to the handler.
+   * @param view the data record view.
+   * @param handler the handler.
+   * @param samples the array for the samples or null if none.
+   * @return the array for the samples (to be used for the next record.)
+   * @throws CodecException if the data could not be decoded.
+   */
+  private int[] handleRecord(DataRecordView view, IDataRecordHandler handler,
+      int[] samples) throws CodecException {
+    final int[] decoded = decode(view, samples);
+    numRead.incrementAndGet();
+    handler.handleRecord(view, decoded, (decoded != null) ? view
+        .getNumSamples() : 0);
+    return (decoded != null) ? decoded : samples;
+  }
+
+  /**
+   * Saves the error if it is the first error.
+   * @param err the error.
+   */
+  private void setError(Throwable err) {
+    errorRef.compareAndSet(null, err);
+  }
+
+  /**
+   * Class FileTask reads a file, forking a range task for each range of
+   * records.
+   */
+  private class FileTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /** The file. */
+    private final File file;
+
+    /** The handler. */
+    private final IDataRecordHandler handler;
+
+    /**
+     * Create the file task.
+     * @param file the file.
+     * @param handler the handler.
+     */
+    FileTask(File file, IDataRecordHandler handler) {
+      this.file = file;
+      this.handler = handler;
+    }
+
+    protected void compute() {
+      final List rangeList = new ArrayList();
+      MappedMiniSeedRead reader = null;
+      try {
+        reader = new MappedMiniSeedRead(file);
+        reader.setDefaultRecordSize(defaultRecordSize);
+        final DataRecordView view = new DataRecordView();
+        long rangePos = 0;
+        int count = 0;
+        while (errorRef.get() == null && reader.next(view)) {
+          if (++count >= RANGE_RECORDS) {
+            rangeList.add(new RangeTask(file, rangePos, count, handler)
+                .fork());
+            rangePos = reader.getPosition();
+            count = 0;
+          }
+        }
+        if (count > 0) { // decode the last range
+          reader.setPosition(rangePos);
+          int[] samples = null;
+          while (count-- > 0 && errorRef.get() == null && reader.next(view)) {
+            samples = handleRecord(view, handler, samples);
+          }
+        }
+      } catch (Throwable ex) {
+        setError(ex);
+      } finally {
+        if (reader != null) {
+          reader.close();
+        }
+      }
+      for (int i = 0; i < rangeList.size(); i++) {
+        ((ForkJoinTask) rangeList.get(i)).join();
+      }
+    }
+  }
+
+  /**
+   * Class RangeTask decodes a range of records of a file.
+   */
+  private class RangeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /** The file. */
+    private final File file;
+
+    /** The position of the first record. */
+    private final long position;
+
+    /** The number of records. */
+    private final int count;
+
+    /** The handler. */
+    private final IDataRecordHandler handler;
+
+    /**
+     * Create the range task.
+     * @param file the file.
+     * @param position the position of the first record.
+     * @param count the number of records.
+     * @param handler the handler.
+     */
+    RangeTask(File file, long position, int count, IDataRecordHandler handler) {
+      this.file = file;
+      this.position = position;
+      this.count = count;
+      this.handler = handler;
+    }
+
+    protected void compute() {
+      MappedMiniSeedRead reader = null;
+      try {
+        reader = new MappedMiniSeedRead(file);
+        reader.setDefaultRecordSize(defaultRecordSize);
+        reader.setPosition(position);
+        final DataRecordView view = new DataRecordView();
+        int[] samples = null;
+        for (int i = 0; i < count && errorRef.get() == null
+            && reader.next(view); i++) {
+          samples = handleRecord(view, handler, samples);
+        }
+      } catch (Throwable ex) {
+        setError(ex);
+      } finally {
+        if (reader != null) {
+          reader.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Class FileChannelInfo is the information for the records of a channel
+   * in a file.
+   */
+  private static class FileChannelInfo {
+    /** The channel key. */
+    final String key;
+
+    /** The index of the file. */
+    final int fileIndex;
+
+    /** The earliest start time of the records. */
+    long minStartTime;
+
+    /** The codes of the channel. */
+    final String networkCode, stationIdentifier, locationIdentifier,
+        channelIdentifier;
+
+    /**
+     * Create the information for the channel of the record.
+     * @param key the channel key.
+     * @param fileIndex the index of the file.
+     * @param view the data record view.
+     */
+    FileChannelInfo(String key, int fileIndex, DataRecordView view) {
+      this.key = key;
+      this.fileIndex = fileIndex;
+      minStartTime = view.getStartTime();
+      networkCode = view.getNetworkCode();
+      stationIdentifier = view.getStationIdentifier();
+      locationIdentifier = view.getLocationIdentifier();
+      channelIdentifier = view.getChannelIdentifier();
+    }
+
+    /**
+     * Determines if the record is for the channel.
+     * @param view the data record view.
+     * @return true if the record is for the channel.
+     */
+    boolean isChannel(DataRecordView view) {
+      return view.isChannel(networkCode, stationIdentifier,
+          locationIdentifier, channelIdentifier);
+    }
+  }
+
+  /**
+   * Class ScanTask finds the channels of a file and the earliest start time
+   * for each channel.
+   */
+  private class ScanTask extends RecursiveTask {
+    private static final long serialVersionUID = 1L;
+
+    /** The index of the file. */
+    private final int fileIndex;
+
+    /**
+     * Create the scan task.
+     * @param fileIndex the index of the file.
+     */
+    ScanTask(int fileIndex) {
+      this.fileIndex = fileIndex;
+    }
+
+    protected Object compute() {
+      final List infoList = new ArrayList(1);
+      MappedMiniSeedRead reader = null;
+      try {
+        reader = new MappedMiniSeedRead(files[fileIndex]);
+        reader.setDefaultRecordSize(defaultRecordSize);
+        final DataRecordView view = new DataRecordView();
+        FileChannelInfo info = null;
+        long startTime;
+        while (errorRef.get() == null && reader.next(view)) {
+          if (info == null || !info.isChannel(view)) { // find channel
+            info = null;
+            for (int i = 0; i < infoList.size(); i++) {
+              if (((FileChannelInfo) infoList.get(i)).isChannel(view)) {
+                info = (FileChannelInfo) infoList.get(i);
+                break;
+              }
+            }
+            if (info == null) {
+              info = new FileChannelInfo(getChannelKey(view), fileIndex, view);
+              infoList.add(info);
+            }
+          }
+          if ((startTime = view.getStartTime()) < info.minStartTime) {
+            info.minStartTime = startTime;
+          }
+        }
+      } catch (Throwable ex) {
+        setError(ex);
+      } finally {
+        if (reader != null) {
+          reader.close();
+        }
+      }
+      return infoList;
+    }
+  }
+
+  /**
+   * Class DecodedRecord is a copy of a decoded record.
+   */
+  private static class DecodedRecord {
+    /** The start time. */
+    final long startTime;
+
+    /** The input order of the record. */
+    final long order;
+
+    /** The record. */
+    final byte[] recordArr;
+
+    /** The samples or null if none. */
+    final int[] samples;
+
+    /**
+     * Create the copy of the decoded record.
+     * @param view the data record view.
+     * @param order the input order of the record.
+     * @param samples the samples or null if none.
+     */
+    DecodedRecord(DataRecordView view, long order, int[] samples) {
+      startTime = view.getStartTime();
+      this.order = order;
+      recordArr = new byte[view.getRecordLength()];
+      final ByteBuffer dup = view.getBuffer().duplicate();
+      dup.position(view.getPosition());
+      dup.get(recordArr);
+      this.samples = samples;
+    }
+  }
+
+  /**
+   * Class DecodeTask decodes the records of a channel in a file.
+   */
+  private class DecodeTask extends RecursiveTask {
+    private static final long serialVersionUID = 1L;
+
+    /** The file channel information. */
+    private final FileChannelInfo info;
+
+    /** The input order of the first record. */
+    private final long firstOrder;
+
+    /**
+     * Create the decode task.
+     * @param info the file channel information.
+     * @param firstOrder the input order of the first record.
+     */
+    DecodeTask(FileChannelInfo info, long firstOrder) {
+      this.info = info;
+      this.firstOrder = firstOrder;
+    }
+
+    protected Object compute() {
+      final List recordList = new ArrayList();
+      MappedMiniSeedRead reader = null;
+      try {
+        reader = new MappedMiniSeedRead(files[info.fileIndex]);
+        reader.setDefaultRecordSize(defaultRecordSize);
+        final DataRecordView view = new DataRecordView();
+        long order = firstOrder;
+        while (errorRef.get() == null && reader.next(view)) {
+          if (info.isChannel(view)) {
+            recordList.add(new DecodedRecord(view, order++, decode(view,
+                null)));
+          }
+        }
+      } catch (Throwable ex) {
+        setError(ex);
+      } finally {
+        if (reader != null) {
+          reader.close();
+        }
+      }
+      return recordList;
+    }
+  }
+
+  /**
+   * Class ChannelTask reads the records of a channel in order of start time.
+   */
+  private class ChannelTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /** The file channel information sorted by earliest start time. */
+    private final FileChannelInfo[] infoArr;
+
+    /** The handler. */
+    private final IDataRecordHandler handler;
+
+    /**
+     * Create the channel task.
+     * @param infoList the file channel information for the channel.
+     * @param handler the handler.
+     */
+    ChannelTask(List infoList, IDataRecordHandler handler) {
+      infoArr = (FileChannelInfo[]) infoList
+          .toArray(new FileChannelInfo[infoList.size()]);
+      Arrays.sort(infoArr, FILE_INFO_COMPARATOR);
+      this.handler = handler;
+    }
+
+    protected void compute() {
+      final int lookAhead = Math.max(1, getPool().getParallelism());
+      final DecodeTask[] taskArr = new DecodeTask[infoArr.length];
+      final PriorityQueue pendingQueue = new PriorityQueue(64,
+          DECODED_RECORD_COMPARATOR);
+      final DataRecordView view = new DataRecordView();
+      int next = 0;
+      for (int i = 0; i < infoArr.length && errorRef.get() == null; i++) {
+        // decode the next files ahead
+        for (; next < infoArr.length && next <= i + lookAhead; next++) {
+          taskArr[next] = new DecodeTask(infoArr[next], (long) next << 32);
+          taskArr[next].fork();
+        }
+        pendingQueue.addAll((List) taskArr[i].join());
+        taskArr[i] = null;
+        // hand over the records that no later file may precede
+        final boolean lastFlag = i + 1 >= infoArr.length;
+        DecodedRecord rec;
+        try {
+          while ((rec = (DecodedRecord) pendingQueue.peek()) != null
+              && (lastFlag || rec.startTime < infoArr[i + 1].minStartTime)) {
+            pendingQueue.poll();
+            view.wrap(ByteBuffer.wrap(rec.recordArr), 0, rec.recordArr.length,
+                rec.recordArr.length);
+            numRead.incrementAndGet();
+            handler.handleRecord(view, rec.samples, (rec.samples != null)
+                ? rec.samples.length : 0);
+          }
+        } catch (Throwable ex) {
+          setError(ex);
+        }
+      }
+      for (; next > 0; next--) { // wait for any tasks after an error
+        if (taskArr[next - 1] != null) {
+          taskArr[next - 1].join();
+        }
+      }
+    }
+  }
+}
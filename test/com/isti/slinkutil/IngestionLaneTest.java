@@ -0,0 +1,131 @@
+package com.isti.slinkutil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ingestion lane test. Processes data messages for many channels on the
+ * ingestion lanes, with message numbers also allocated outside of the lanes,
+ * and checks that all of the messages from the lanes are delivered in the
+ * order of their message numbers.
+ */
+public class IngestionLaneTest {
+	/** The number of channels. */
+	private static final int NUM_CHANNELS = 16;
+
+	/** The number of data messages. */
+	private static final int NUM_DATA_MESSAGES = 20000;
+
+	/** The number of data messages between numbers allocated outside. */
+	private static final int OUTSIDE_INTERVAL = 100;
+
+	/** The first sample time. */
+	private static final long START_TIME = 1700000000000L;
+
+	/**
+	 * Ingestion lane test.
+	 *
+	 * @param args
+	 *            the arguments (the number of lanes, default 4.)
+	 */
+	public static void main(String[] args) {
+		final int numLanes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		final List deliveredList = new ArrayList();
+		final BasicMessageManager messageManager = new BasicMessageManager() {
+			public IMessageNumber getMessageNumber() {
+				return new SLinkMessageNumber(
+						(int) allocateMessageSequenceNum());
+			}
+
+			public void processMiniSeedMessage(MiniSeedMsgHldr miniSeedMsg) {
+				// delivered by one thread at a time
+				deliveredList.add(miniSeedMsg);
+			}
+		};
+		messageManager.setModConfigParams(new ConfigParams());
+		messageManager.setNumIngestionLanes(numLanes);
+		final DigChannel[] channels = new DigChannel[NUM_CHANNELS];
+		final long[] times = new long[NUM_CHANNELS];
+		for (int i = 0; i < NUM_CHANNELS; i++) {
+			channels[i] = new DigChannel(new StaChaNetLoc("S" + i, "HHZ",
+					"XX", ""), i + 1, true);
+			times[i] = START_TIME;
+		}
+		final Random random = new Random(1);
+		int numOutside = 0;
+		final long time = System.currentTimeMillis();
+		for (int i = 0; i < NUM_DATA_MESSAGES; i++) {
+			if (i % OUTSIDE_INTERVAL == 0) {
+				// a message numbered outside of a lane followed by lane traffic
+				messageManager.getMessageNumber();
+				numOutside++;
+			}
+			final int channel = random.nextInt(NUM_CHANNELS);
+			final int numSamples = 50 + random.nextInt(100);
+			final int[] samples = new int[numSamples];
+			for (int j = 0; j < numSamples; j++) {
+				samples[j] = random.nextInt(100000) - 50000;
+			}
+			final long firstTime = times[channel];
+			times[channel] += numSamples * 10L;
+			messageManager.processMessage(channels[channel], createDataInfo(
+					firstTime, samples));
+		}
+		messageManager.stopIngestionLanes();
+		System.out.println("Delivered " + deliveredList.size()
+				+ " messages (" + numOutside + " numbered outside) in "
+				+ (System.currentTimeMillis() - time) + " ms");
+		if (deliveredList.size() == 0) {
+			System.out.println("Failed: no messages delivered");
+			return;
+		}
+		// the lane messages are all delivered, in order of message number
+		int lastNum = -1;
+		for (int i = 0; i < deliveredList.size(); i++) {
+			final int msgNum = ((MiniSeedMsgHldr) deliveredList.get(i))
+					.getMessageNumber();
+			if (msgNum <= lastNum) {
+				System.out.println("Failed: message " + msgNum + " after "
+						+ lastNum);
+				return;
+			}
+			lastNum = msgNum;
+		}
+		if (deliveredList.size() + numOutside != lastNum + 1) {
+			System.out.println("Failed: expected "
+					+ (lastNum + 1 - numOutside) + " messages");
+			return;
+		}
+		System.out.println("Done");
+	}
+
+	/**
+	 * Creates the data information.
+	 *
+	 * @param firstTime
+	 *            the time of the first sample.
+	 * @param samples
+	 *            the samples (100 samples per second.)
+	 * @return the data information.
+	 */
+	static IDataInfo createDataInfo(final long firstTime, final int[] samples) {
+		return new IDataInfo() {
+			public long getFirstTimeStamp() {
+				return firstTime;
+			}
+
+			public long getLastTimeStamp() {
+				return firstTime + (samples.length - 1) * 10L;
+			}
+
+			public int getNumSamples() {
+				return samples.length;
+			}
+
+			public Object getSamples() {
+				return samples;
+			}
+		};
+	}
+}
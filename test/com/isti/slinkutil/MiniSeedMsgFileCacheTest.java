@@ -0,0 +1,216 @@
+package com.isti.slinkutil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * MiniSeedMsgFileCache test. Fills a ring file, creates a new cache for the
+ * file and reports the time taken to recover the index, then checks the
+ * recovered messages. The cache is then restarted with a message manager
+ * and the numbers of new messages are checked to continue after the
+ * recovered messages.
+ */
+public class MiniSeedMsgFileCacheTest {
+	/** The default ring file size in megabytes. */
+	private static final int DEFAULT_RING_SIZE_MB = 2048;
+
+	/** The number of channels. */
+	private static final int NUM_CHANNELS = 300;
+
+	/** The number of messages added after the restart. */
+	private static final int NUM_NEW_MESSAGES = 1000;
+
+	/** The first message start time. */
+	private static final long START_TIME = 1700000000000L;
+
+	/**
+	 * MiniSeedMsgFileCache test.
+	 *
+	 * @param args
+	 *            the arguments (the ring file size in megabytes, default
+	 *            2048, and the ring file, default a temporary file.)
+	 */
+	public static void main(String[] args) throws IOException {
+		final int ringSizeMb = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_RING_SIZE_MB;
+		final File file = args.length > 1 ? new File(args[1]) : File
+				.createTempFile("slinkcache", ".ring");
+		file.delete();
+		final int slotLength = MiniSeedMsgFileCache.SLOT_HEADER_LENGTH
+				+ MiniSeedMsgHldr.SLINK_HEADER_LENGTH
+				+ MiniSeedMsgFileCache.DEFAULT_RECORD_LENGTH;
+		final long ringSize = (long) ringSizeMb * 1024 * 1024
+				- MiniSeedMsgFileCache.FILE_HEADER_LENGTH;
+		final int capacity = (int) (ringSize / slotLength);
+		// fill the ring and wrap part way around again
+		final int numMessages = capacity + capacity / 4;
+		try {
+			long time = System.currentTimeMillis();
+			MiniSeedMsgFileCache cache = new MiniSeedMsgFileCache(file,
+					capacity);
+			for (int i = 0; i < numMessages; i++) {
+				cache.saveMessage(createMessage(i));
+			}
+			cache.force();
+			System.out.println("Wrote " + numMessages + " messages ("
+					+ capacity + " slots, " + (file.length() >> 20)
+					+ " MB) in " + (System.currentTimeMillis() - time)
+					+ " ms");
+			cache = null;
+			System.gc();
+
+			time = System.currentTimeMillis();
+			cache = new MiniSeedMsgFileCache(file, capacity);
+			System.out.println("Recovered " + cache.getNumMessages()
+					+ " messages in " + cache.getRecoveryTimeMs()
+					+ " ms (constructor " + (System.currentTimeMillis() - time)
+					+ " ms)");
+			if (!checkMessages(cache, numMessages - capacity, numMessages)) {
+				System.out.println("Failed");
+				return;
+			}
+			cache = null;
+			System.gc();
+
+			cache = new MiniSeedMsgFileCache(file, capacity);
+			if (!checkRestart(cache, numMessages)) {
+				System.out.println("Failed");
+				return;
+			}
+			System.out.println("Done");
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Checks the recovered messages.
+	 *
+	 * @param cache
+	 *            the cache.
+	 * @param first
+	 *            the number of the first message expected.
+	 * @param last
+	 *            the number after the last message expected.
+	 * @return true if the messages are correct, false otherwise.
+	 */
+	static boolean checkMessages(MiniSeedMsgFileCache cache, int first,
+			int last) {
+		if (cache.getNumMessages() != last - first) {
+			System.out.println("Expected " + (last - first) + " messages");
+			return false;
+		}
+		final int step = Math.max((last - first) / 1000, 1);
+		for (int i = first; i < last; i += step) {
+			final MiniSeedMsgHldr expected = createMessage(i);
+			// request the messages from this one to the end of its second
+			final MiniSeedMsgHldr[] msgArr = cache.requestMessages(
+					expected.getMessageNumber(), null, new SLinkTime(expected
+							.getStartTimeMsVal()));
+			final int count = Math.min(last, (i / NUM_CHANNELS + 1)
+					* NUM_CHANNELS)
+					- i;
+			if (msgArr.length != count) {
+				System.out.println("Expected " + count + " messages for "
+						+ expected + " (" + msgArr.length + ")");
+				return false;
+			}
+			final MiniSeedMsgHldr actual = msgArr[0];
+			if (actual.getMessageNumber() != expected.getMessageNumber()
+					|| actual.getStartTimeMsVal() != expected
+							.getStartTimeMsVal()
+					|| actual.getNumSamples() != expected.getNumSamples()
+					|| !actual.getStaChaNetLocObj().equals(
+							expected.getStaChaNetLocObj())
+					|| !Arrays.equals(actual.getSLinkPacketArray(), expected
+							.getSLinkPacketArray())) {
+				System.out.println("Mismatch: " + actual + " != " + expected);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that a message manager for the restarted cache continues the
+	 * message numbers after the recovered messages and that a client
+	 * resuming after the last recovered message is sent only the new
+	 * messages.
+	 *
+	 * @param cache
+	 *            the restarted cache.
+	 * @param numMessages
+	 *            the number of messages written before the restart.
+	 * @return true if the message numbers are correct, false otherwise.
+	 */
+	static boolean checkRestart(MiniSeedMsgFileCache cache, int numMessages) {
+		final int lastMsgNum = (numMessages - 1)
+				& SLinkMessageNumber.maxMsgNumVal;
+		if (cache.getLastMessageNumber() != lastMsgNum) {
+			System.out.println("Expected last message number " + lastMsgNum
+					+ " (" + cache.getLastMessageNumber() + ")");
+			return false;
+		}
+		final SLinkMessageManager messageManager = new SLinkMessageManager(
+				cache);
+		for (int i = numMessages; i < numMessages + NUM_NEW_MESSAGES; i++) {
+			final MiniSeedMsgHldr msg = createMessage(i);
+			final int msgNum = messageManager.getMessageNumber()
+					.getMessageNumber();
+			if (msgNum != msg.getMessageNumber()) {
+				System.out.println("Expected message number "
+						+ msg.getMessageNumber() + " (" + msgNum + ")");
+				return false;
+			}
+			cache.saveMessage(msg);
+		}
+		// resume after the last recovered message (DATA with the next
+		// message number)
+		final MiniSeedMsgHldr[] msgArr = cache.requestMessages(
+				(lastMsgNum + 1) & SLinkMessageNumber.maxMsgNumVal, null, null);
+		if (msgArr.length != NUM_NEW_MESSAGES) {
+			System.out.println("Expected " + NUM_NEW_MESSAGES
+					+ " new messages (" + msgArr.length + ")");
+			return false;
+		}
+		for (int i = 0; i < msgArr.length; i++) {
+			if (msgArr[i].getMessageNumber() != createMessage(numMessages + i)
+					.getMessageNumber()) {
+				System.out.println("Mismatch: " + msgArr[i]);
+				return false;
+			}
+		}
+		System.out.println("Restarted at message number "
+				+ ((lastMsgNum + 1) & SLinkMessageNumber.maxMsgNumVal));
+		return true;
+	}
+
+	/**
+	 * Creates a test message.
+	 *
+	 * @param i
+	 *            the message index.
+	 * @return the message.
+	 */
+	static MiniSeedMsgHldr createMessage(int i) {
+		final int channel = i % NUM_CHANNELS;
+		final StaChaNetLoc scnlObj = new StaChaNetLoc("S" + channel, "HHZ",
+				"XX", "00");
+		final byte[] data = new byte[MiniSeedMsgFileCache.DEFAULT_RECORD_LENGTH];
+		for (int j = 0; j < data.length; j++) {
+			data[j] = (byte) (i + j);
+		}
+		// station, location, channel and network codes of the record header
+		final StringBuffer sb = new StringBuffer();
+		SLinkUtilFns.append(sb, scnlObj.getStationCode(), 5);
+		SLinkUtilFns.append(sb, scnlObj.getLocationCode(), 2);
+		SLinkUtilFns.append(sb, scnlObj.getChannelCode(), 3);
+		SLinkUtilFns.append(sb, scnlObj.getNetworkCode(), 2);
+		final byte[] codes = SLinkUtilFns.getBytes(sb.toString());
+		System.arraycopy(codes, 0, data, 8, codes.length);
+		return new MiniSeedMsgHldr(scnlObj, new SeedTime(START_TIME
+				+ (i / NUM_CHANNELS) * 1000L), data, 100 + i % 300,
+				new SLinkMessageNumber(i & SLinkMessageNumber.maxMsgNumVal));
+	}
+}
@@ -0,0 +1,251 @@
+package com.isti.slinkutil;
+
+import java.util.Arrays;
+
+/**
+ * RingEventQueue test. Checks that objects are pulled in FIFO order as the
+ * queue grows through new rings and when the queue is bounded, and that
+ * objects pushed and pulled by several threads at once are neither lost nor
+ * duplicated and stay in order for each producer.
+ */
+public class RingEventQueueTest {
+	/** The number of objects pushed by each producer thread. */
+	private static final int NUM_OBJECTS = 200000;
+
+	/** The maximum queue size for the bounded tests. */
+	private static final int MAX_QUEUE_SIZE = 1000;
+
+	/**
+	 * RingEventQueue test.
+	 *
+	 * @param args
+	 *            the arguments (the number of producer threads and of
+	 *            consumer threads, default 4 and 2.)
+	 * @throws InterruptedException
+	 *             if interrupted.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		final int numProducers = args.length > 0 ? Integer.parseInt(args[0])
+				: 4;
+		final int numConsumers = args.length > 1 ? Integer.parseInt(args[1])
+				: 2;
+		if (!checkGrowOrder()
+				|| !checkBoundedOrder()
+				|| !checkConcurrent(numProducers, numConsumers, 0)
+				|| !checkConcurrent(numProducers, numConsumers,
+						MAX_QUEUE_SIZE)) {
+			System.out.println("Failed");
+			return;
+		}
+		System.out.println("Done");
+	}
+
+	/**
+	 * Checks the FIFO order on a single thread as the queue grows from its
+	 * initial ring through several new rings, with objects pulled part way
+	 * so the rings are drained while others are being filled.
+	 *
+	 * @return true if the order is correct, false otherwise.
+	 */
+	static boolean checkGrowOrder() {
+		final RingEventQueue queue = new RingEventQueue();
+		int next = 0;
+		int expected = 0;
+		Object obj;
+		for (int pass = 1; pass <= 8; pass++) {
+			// fill just past the size of the rings so far
+			final int count = RingEventQueue.INITIAL_CAPACITY << pass;
+			for (int i = 0; i < count; i++) {
+				queue.push(Integer.valueOf(next++));
+			}
+			if (queue.size() != next - expected) {
+				System.out.println("Grow: size " + queue.size() + " != "
+						+ (next - expected));
+				return false;
+			}
+			// pull half of the objects
+			for (int i = (next - expected) / 2; i > 0; i--) {
+				if ((obj = queue.pull()) == null
+						|| ((Integer) obj).intValue() != expected++) {
+					System.out.println("Grow: expected " + (expected - 1)
+							+ " (" + obj + ")");
+					return false;
+				}
+			}
+		}
+		while ((obj = queue.pull()) != null) {
+			if (((Integer) obj).intValue() != expected++) {
+				System.out.println("Grow: expected " + (expected - 1) + " ("
+						+ obj + ")");
+				return false;
+			}
+		}
+		if (expected != next || !queue.isEmpty()) {
+			System.out.println("Grow: pulled " + expected + " of " + next);
+			return false;
+		}
+		System.out.println("Grow order: " + next + " objects");
+		return true;
+	}
+
+	/**
+	 * Checks on a single thread that a bounded queue removes the oldest
+	 * objects and keeps the newest in FIFO order.
+	 *
+	 * @return true if the order is correct, false otherwise.
+	 */
+	static boolean checkBoundedOrder() {
+		final RingEventQueue queue = new RingEventQueue();
+		queue.setMaxQueueSize(MAX_QUEUE_SIZE);
+		final int count = MAX_QUEUE_SIZE * 5 + 7;
+		int numRemoved = 0;
+		for (int i = 0; i < count; i++) {
+			if (!queue.push(Integer.valueOf(i))) {
+				numRemoved++;
+			}
+		}
+		if (queue.size() != MAX_QUEUE_SIZE
+				|| numRemoved != count - MAX_QUEUE_SIZE) {
+			System.out.println("Bounded: size " + queue.size() + ", removed "
+					+ numRemoved);
+			return false;
+		}
+		Object obj;
+		for (int i = count - MAX_QUEUE_SIZE; i < count; i++) {
+			if ((obj = queue.pull()) == null
+					|| ((Integer) obj).intValue() != i) {
+				System.out.println("Bounded: expected " + i + " (" + obj
+						+ ")");
+				return false;
+			}
+		}
+		if (!queue.isEmpty()) {
+			System.out.println("Bounded: queue not empty");
+			return false;
+		}
+		System.out.println("Bounded order: " + count + " objects, "
+				+ numRemoved + " removed");
+		return true;
+	}
+
+	/**
+	 * Checks objects pushed and pulled by several threads at once. Each
+	 * consumer must see the objects of each producer in order and no object
+	 * may be pulled twice; if the queue is not bounded then every object
+	 * must be pulled.
+	 *
+	 * @param numProducers
+	 *            the number of producer threads.
+	 * @param numConsumers
+	 *            the number of consumer threads.
+	 * @param maxQueueSize
+	 *            the maximum queue size or 0 for no limit.
+	 * @return true if the objects are correct, false otherwise.
+	 * @throws InterruptedException
+	 *             if interrupted.
+	 */
+	static boolean checkConcurrent(final int numProducers,
+			final int numConsumers, int maxQueueSize)
+			throws InterruptedException {
+		final RingEventQueue queue = new RingEventQueue();
+		queue.setMaxQueueSize(maxQueueSize);
+		// the number of times each object was pulled by a consumer
+		final byte[][] pulledArr = new byte[numProducers][NUM_OBJECTS];
+		final boolean[] errorFlag = new boolean[1];
+		final int[] numDone = new int[1];
+		final Thread[] producers = new Thread[numProducers];
+		for (int p = 0; p < numProducers; p++) {
+			final int producer = p;
+			producers[p] = new Thread() {
+				public void run() {
+					for (int i = 0; i < NUM_OBJECTS; i++) {
+						queue.push(new long[] { producer, i });
+					}
+				}
+			};
+		}
+		final Thread[] consumers = new Thread[numConsumers];
+		for (int c = 0; c < numConsumers; c++) {
+			consumers[c] = new Thread() {
+				public void run() {
+					final int[] lastArr = new int[numProducers];
+					Arrays.fill(lastArr, -1);
+					Object obj;
+					boolean doneFlag = false;
+					while (true) {
+						if ((obj = queue.pull()) == null) {
+							if (doneFlag) {
+								break; // producers finished; queue empty
+							}
+							synchronized (numDone) {
+								doneFlag = numDone[0] == numProducers;
+							}
+							Thread.yield();
+							continue;
+						}
+						final long[] entry = (long[]) obj;
+						final int producer = (int) entry[0];
+						final int i = (int) entry[1];
+						if (i <= lastArr[producer]) {
+							System.out.println("Concurrent: producer "
+									+ producer + " object " + i + " after "
+									+ lastArr[producer]);
+							errorFlag[0] = true;
+						}
+						lastArr[producer] = i;
+						synchronized (pulledArr) {
+							pulledArr[producer][i]++;
+						}
+					}
+				}
+			};
+		}
+		final long time = System.currentTimeMillis();
+		for (int c = 0; c < numConsumers; c++) {
+			consumers[c].start();
+		}
+		for (int p = 0; p < numProducers; p++) {
+			producers[p].start();
+		}
+		for (int p = 0; p < numProducers; p++) {
+			producers[p].join();
+		}
+		synchronized (numDone) {
+			numDone[0] = numProducers;
+		}
+		for (int c = 0; c < numConsumers; c++) {
+			consumers[c].join();
+		}
+		final long elapsed = System.currentTimeMillis() - time;
+		if (errorFlag[0]) {
+			return false;
+		}
+		int numPulled = 0;
+		for (int p = 0; p < numProducers; p++) {
+			for (int i = 0; i < NUM_OBJECTS; i++) {
+				if (pulledArr[p][i] > 1) {
+					System.out.println("Concurrent: producer " + p
+							+ " object " + i + " pulled " + pulledArr[p][i]
+							+ " times");
+					return false;
+				}
+				if (pulledArr[p][i] == 0 && maxQueueSize <= 0) {
+					System.out.println("Concurrent: producer " + p
+							+ " object " + i + " lost");
+					return false;
+				}
+				numPulled += pulledArr[p][i];
+			}
+		}
+		if (!queue.isEmpty()) {
+			System.out.println("Concurrent: queue not empty");
+			return false;
+		}
+		System.out.println("Concurrent" + (maxQueueSize > 0 ? " bounded" : "")
+				+ ": " + numProducers + " producers, " + numConsumers
+				+ " consumers, " + numPulled + " of "
+				+ (numProducers * NUM_OBJECTS) + " objects pulled in "
+				+ elapsed + " ms");
+		return true;
+	}
+}
@@ -0,0 +1,190 @@
+package com.isti.slinkutil;
+
+import java.util.Random;
+
+import com.isti.slinkutil.seisFile.mseed.Btime;
+
+/**
+ * SeedTimeFns benchmark. Compares the time conversions against the
+ * synchronized calendar conversions and reports the conversion rate of each
+ * for one and several threads.
+ */
+public class SeedTimeFnsBenchmark {
+	/** The calendar sync object. */
+	private static final Object calendarSyncObject = new Object();
+
+	/** The calendar. */
+	private static final SLinkCalendar cal = new SLinkCalendar();
+
+	/** The number of conversions per thread. */
+	private static final int NUM_CONVERSIONS = 2000000;
+
+	/** The time step between conversions (10 ms, 100 samples per second.) */
+	private static final long TIME_STEP = 10;
+
+	/**
+	 * SeedTimeFns benchmark.
+	 *
+	 * @param args
+	 *            the arguments (the number of threads, default 4.)
+	 */
+	public static void main(String[] args) {
+		final int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		if (!checkConversions()) {
+			System.out.println("Failed");
+			return;
+		}
+		for (int pass = 0; pass < 2; pass++) { // first pass is warm-up
+			System.out.println(pass == 0 ? "Warm-up:" : "Results:");
+			run("calendar", true, 1);
+			run("arithmetic", false, 1);
+			run("calendar", true, numThreads);
+			run("arithmetic", false, numThreads);
+		}
+		System.out.println("Done");
+	}
+
+	/**
+	 * Returns the 'Btime' value using the calendar.
+	 *
+	 * @param time
+	 *            the milliseconds since 1/1/1970 GMT.
+	 * @param btime
+	 *            the 'Btime' value to set.
+	 * @return the 'Btime' value.
+	 */
+	static Btime getCalendarBtime(long time, Btime btime) {
+		synchronized (calendarSyncObject) {
+			cal.setTimeInMillis(time);
+			btime.year = cal.get(SLinkCalendar.YEAR);
+			btime.jday = cal.get(SLinkCalendar.DAY_OF_YEAR);
+			btime.hour = cal.get(SLinkCalendar.HOUR_OF_DAY);
+			btime.min = cal.get(SLinkCalendar.MINUTE);
+			btime.sec = cal.get(SLinkCalendar.SECOND);
+			btime.tenthMilli = cal.get(SLinkCalendar.MILLISECOND) * 10;
+		}
+		return btime;
+	}
+
+	/**
+	 * Returns the time using the calendar.
+	 *
+	 * @param btime
+	 *            the 'Btime' value.
+	 * @return the milliseconds since 1/1/1970 GMT.
+	 */
+	static long getCalendarTime(Btime btime) {
+		synchronized (calendarSyncObject) {
+			cal.clear();
+			cal.set(SLinkCalendar.YEAR, btime.year);
+			cal.set(SLinkCalendar.DAY_OF_YEAR, btime.jday);
+			cal.set(SLinkCalendar.HOUR_OF_DAY, btime.hour);
+			cal.set(SLinkCalendar.MINUTE, btime.min);
+			cal.set(SLinkCalendar.SECOND, btime.sec);
+			cal.set(SLinkCalendar.MILLISECOND, btime.tenthMilli / 10);
+			return cal.getTimeInMillis();
+		}
+	}
+
+	/**
+	 * Returns the SeedLink time text using the calendar.
+	 *
+	 * @param time
+	 *            the milliseconds since 1/1/1970 GMT.
+	 * @return the text.
+	 */
+	static String getCalendarText(long time) {
+		synchronized (calendarSyncObject) {
+			cal.setTimeInMillis(time);
+			return SLinkTime.getText(cal);
+		}
+	}
+
+	/**
+	 * Checks the conversions against the calendar conversions.
+	 *
+	 * @return true if all of the conversions match, false otherwise.
+	 */
+	static boolean checkConversions() {
+		final Random random = new Random(1);
+		final Btime b1 = new Btime();
+		final Btime b2 = new Btime();
+		int errorCount = 0;
+		for (int i = 0; i < 1000000; i++) {
+			long time = SeedTimeFns.GREGORIAN_YEAR_TIME
+					+ (long) (random.nextDouble() * 20000000000000L);
+			if (i % 2 == 0) { // day and year boundaries
+				time -= time % SeedTimeFns.MS_PER_DAY;
+				time += random.nextInt(3) - 1;
+			}
+			SeedTimeFns.getBtime(time, b1);
+			getCalendarBtime(time, b2);
+			if (!b1.equals(b2) || b1.tenthMilli != b2.tenthMilli
+					|| SeedTimeFns.getTime(b1) != time
+					|| getCalendarTime(b2) != time
+					|| !SeedTimeFns.getText(time).equals(
+							getCalendarText(time))) {
+				if (errorCount++ < 10) {
+					System.out.println("Mismatch for " + time + ": " + b1
+							+ " != " + b2 + " or \""
+							+ SeedTimeFns.getText(time) + "\" != \""
+							+ getCalendarText(time) + "\"");
+				}
+			}
+		}
+		return errorCount == 0;
+	}
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param name
+	 *            the name of the conversions.
+	 * @param calendarFlag
+	 *            true to use the calendar, false otherwise.
+	 * @param numThreads
+	 *            the number of threads.
+	 */
+	static void run(final String name, final boolean calendarFlag,
+			int numThreads) {
+		final Thread[] threads = new Thread[numThreads];
+		for (int i = 0; i < numThreads; i++) {
+			final long startTime = 1700000000000L + i * 3600000L;
+			threads[i] = new Thread() {
+				public void run() {
+					final Btime btime = new Btime();
+					long time = startTime;
+					long sum = 0;
+					for (int count = 0; count < NUM_CONVERSIONS; count++) {
+						if (calendarFlag) {
+							sum += getCalendarTime(getCalendarBtime(time, btime));
+						} else {
+							sum += SeedTimeFns.getTime(SeedTimeFns.getBtime(
+									time, btime));
+						}
+						time += TIME_STEP;
+					}
+					if (sum == 0) {
+						System.out.println("sum=" + sum);
+					}
+				}
+			};
+		}
+		final long start = System.currentTimeMillis();
+		for (int i = 0; i < numThreads; i++) {
+			threads[i].start();
+		}
+		for (int i = 0; i < numThreads; i++) {
+			try {
+				threads[i].join();
+			} catch (InterruptedException ex) {
+				return;
+			}
+		}
+		final long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+		final long total = (long) NUM_CONVERSIONS * numThreads;
+		System.out.println("  " + name + ", threads=" + numThreads + ": "
+				+ total + " round trips in " + elapsed + " ms ("
+				+ (total * 1000 / elapsed) + " per second)");
+	}
+}
@@ -0,0 +1,253 @@
+package com.isti.slinkutil.seedcodec;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.isti.slinkutil.seisFile.mseed.DataRecordView;
+import com.isti.slinkutil.seisFile.mseed.MappedMiniSeedRead;
+
+/**
+ * Steim decode benchmark. Compares decoding the Steim1 and Steim2 records
+ * with the array decoders (copying the data of each record into a new
+ * array, as 'DataRecord' does) against decoding them in place into a reused
+ * array, and reports the records decoded per second for each.
+ */
+public class SteimDecodeBenchmark {
+	/** The number of records generated if no files are specified. */
+	private static final int NUM_GENERATED_RECORDS = 20000;
+
+	/** The number of passes over the records for each run. */
+	private static final int NUM_PASSES = 20;
+
+	/** The Steim1 encoding format. */
+	private static final int STEIM1 = 10;
+
+	/** The Steim2 encoding format. */
+	private static final int STEIM2 = 11;
+
+	/**
+	 * Steim decode benchmark.
+	 *
+	 * @param args
+	 *            the miniSEED files with Steim1 or Steim2 records (Steim2
+	 *            records are generated if none.)
+	 * @throws Exception
+	 *             if an error occurs.
+	 */
+	public static void main(String[] args) throws Exception {
+		final List recordList = new ArrayList();
+		if (args.length > 0) {
+			for (int i = 0; i < args.length; i++) {
+				readRecords(new File(args[i]), recordList);
+			}
+		} else {
+			generateRecords(recordList);
+		}
+		if (recordList.size() == 0) {
+			System.out.println("No Steim records");
+			return;
+		}
+		final ByteBuffer[] records = (ByteBuffer[]) recordList
+				.toArray(new ByteBuffer[recordList.size()]);
+		if (!checkDecoders(records)) {
+			System.out.println("Failed");
+			return;
+		}
+		for (int pass = 0; pass < 2; pass++) { // first pass is warm-up
+			System.out.println(pass == 0 ? "Warm-up:" : "Results:");
+			run("array", false, records);
+			run("in place", true, records);
+		}
+		System.out.println("Done");
+	}
+
+	/**
+	 * Checks the in place decoders against the array decoders.
+	 *
+	 * @param records
+	 *            the records.
+	 * @return true if all of the samples match, false otherwise.
+	 * @throws Exception
+	 *             if an error occurs.
+	 */
+	static boolean checkDecoders(ByteBuffer[] records) throws Exception {
+		final DataRecordView view = new DataRecordView();
+		int[] samples = new int[0];
+		int[] expected;
+		int numSamples;
+		for (int i = 0; i < records.length; i++) {
+			view.wrap(records[i], 0, records[i].capacity(), 0);
+			numSamples = view.getNumSamples();
+			if (samples.length < numSamples) {
+				samples = new int[numSamples];
+			}
+			expected = decodeArray(view);
+			decodeInPlace(view, samples);
+			for (int j = 0; j < numSamples; j++) {
+				if (expected[j] != samples[j]) {
+					System.out.println("Mismatch in record " + i + " sample "
+							+ j + ": " + expected[j] + " != " + samples[j]);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decodes the record with the array decoders.
+	 *
+	 * @param view
+	 *            the data record view.
+	 * @return the samples.
+	 * @throws SteimException
+	 *             if the data could not be decoded.
+	 */
+	static int[] decodeArray(DataRecordView view) throws SteimException {
+		final ByteBuffer buf = view.getBuffer();
+		int length = view.getDataLength();
+		length -= length % 64;
+		final byte[] data = new byte[length];
+		final ByteBuffer dup = buf.duplicate();
+		dup.position(view.getDataPosition());
+		dup.get(data);
+		final boolean swapBytes = view.getWordOrder() == 0;
+		if (view.getEncodingFormat() == STEIM1) {
+			return Steim1.decode(data, view.getNumSamples(), swapBytes);
+		}
+		return Steim2.decode(data, view.getNumSamples(), swapBytes);
+	}
+
+	/**
+	 * Decodes the record in place into the array.
+	 *
+	 * @param view
+	 *            the data record view.
+	 * @param samples
+	 *            the array for the samples.
+	 * @return the number of samples.
+	 * @throws SteimException
+	 *             if the data could not be decoded.
+	 */
+	static int decodeInPlace(DataRecordView view, int[] samples)
+			throws SteimException {
+		int length = view.getDataLength();
+		length -= length % 64;
+		final boolean swapBytes = view.getWordOrder() == 0;
+		if (view.getEncodingFormat() == STEIM1) {
+			return Steim1.decode(view.getBuffer(), view.getDataPosition(),
+					length, view.getNumSamples(), swapBytes, 0, samples, 0);
+		}
+		return Steim2.decode(view.getBuffer(), view.getDataPosition(),
+				length, view.getNumSamples(), swapBytes, 0, samples, 0);
+	}
+
+	/**
+	 * Generates Steim2 records of a noisy signal.
+	 *
+	 * @param recordList
+	 *            the list for the records.
+	 * @throws Exception
+	 *             if an error occurs.
+	 */
+	static void generateRecords(List recordList) throws Exception {
+		final Random random = new Random(1);
+		final int[] signal = new int[1000];
+		double phase = 0;
+		for (int i = 0; i < NUM_GENERATED_RECORDS; i++) {
+			for (int j = 0; j < signal.length; j++) {
+				phase += 0.05;
+				signal[j] = (int) (Math.sin(phase) * 20000 + random
+						.nextGaussian() * 50);
+			}
+			final SteimFrameBlock block = Steim2.encode(signal, 7);
+			final byte[] data = block.getEncodedData();
+			final ByteBuffer buf = ByteBuffer.allocate(512);
+			for (int j = 0; j < 6; j++) {
+				buf.put(j, (byte) '0');
+			}
+			buf.put(6, (byte) 'D');
+			for (int j = 7; j < 20; j++) {
+				buf.put(j, (byte) ' ');
+			}
+			buf.putShort(20, (short) 2026).putShort(22, (short) 290);
+			buf.putShort(30, (short) block.getNumSamples());
+			buf.putShort(32, (short) 100).putShort(34, (short) 1);
+			buf.put(39, (byte) 1).putShort(44, (short) 64);
+			buf.putShort(46, (short) 48).putShort(48, (short) 1000);
+			buf.put(52, (byte) STEIM2).put(53, (byte) 1).put(54, (byte) 9);
+			buf.position(64);
+			buf.put(data, 0, Math.min(data.length, 448));
+			buf.clear();
+			recordList.add(buf);
+		}
+	}
+
+	/**
+	 * Reads the Steim1 and Steim2 records of the file.
+	 *
+	 * @param file
+	 *            the file.
+	 * @param recordList
+	 *            the list for the records.
+	 * @throws Exception
+	 *             if an error occurs.
+	 */
+	static void readRecords(File file, List recordList) throws Exception {
+		final MappedMiniSeedRead reader = new MappedMiniSeedRead(file);
+		final DataRecordView view = new DataRecordView();
+		while (reader.next(view)) {
+			if (view.getEncodingFormat() == STEIM1
+					|| view.getEncodingFormat() == STEIM2) {
+				final byte[] record = new byte[view.getRecordLength()];
+				final ByteBuffer dup = view.getBuffer().duplicate();
+				dup.position(view.getPosition());
+				dup.get(record);
+				recordList.add(ByteBuffer.wrap(record));
+			}
+		}
+		reader.close();
+	}
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param name
+	 *            the name of the decoders.
+	 * @param inPlaceFlag
+	 *            true to decode in place, false otherwise.
+	 * @param records
+	 *            the records.
+	 * @throws Exception
+	 *             if an error occurs.
+	 */
+	static void run(String name, boolean inPlaceFlag, ByteBuffer[] records)
+			throws Exception {
+		final DataRecordView view = new DataRecordView();
+		int[] samples = new int[0];
+		long sum = 0;
+		final long start = System.currentTimeMillis();
+		for (int pass = 0; pass < NUM_PASSES; pass++) {
+			for (int i = 0; i < records.length; i++) {
+				view.wrap(records[i], 0, records[i].capacity(), 0);
+				if (inPlaceFlag) {
+					if (samples.length < view.getNumSamples()) {
+						samples = new int[view.getNumSamples()];
+					}
+					sum += samples[decodeInPlace(view, samples) - 1];
+				} else {
+					final int[] arr = decodeArray(view);
+					sum += arr[arr.length - 1];
+				}
+			}
+		}
+		final long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+		final long total = (long) records.length * NUM_PASSES;
+		System.out.println("  " + name + ": " + total + " records in "
+				+ elapsed + " ms (" + (total * 1000 / elapsed)
+				+ " per second)" + ((sum == 0) ? " sum=0" : ""));
+	}
+}